@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.concurrent;
+
+import io.airlift.units.Duration;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.ImplicitContextKeyed;
+
+import java.util.Optional;
+
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The point in time after which the caller of the current request stops waiting for the response.
+ * A server makes the deadline current in the OpenTelemetry {@link Context} while the request is
+ * handled, so work done for the request, including requests sent downstream, can be limited to the
+ * remaining time.
+ */
+public final class RequestDeadline
+        implements ImplicitContextKeyed
+{
+    private static final ContextKey<RequestDeadline> KEY = ContextKey.named("airlift-request-deadline");
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos)
+    {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline after(Duration timeout)
+    {
+        return after(timeout, System.nanoTime());
+    }
+
+    /**
+     * Returns the deadline for a timeout that started at the given {@link System#nanoTime()}.
+     */
+    public static RequestDeadline after(Duration timeout, long startNanos)
+    {
+        return new RequestDeadline(startNanos + timeout.roundTo(NANOSECONDS));
+    }
+
+    public static Optional<RequestDeadline> current()
+    {
+        return fromContext(Context.current());
+    }
+
+    public static Optional<RequestDeadline> fromContext(Context context)
+    {
+        return Optional.ofNullable(context.get(KEY));
+    }
+
+    public boolean isExpired()
+    {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Returns the time until the deadline, or zero if it has passed.
+     */
+    public Duration getRemaining()
+    {
+        return new Duration(max(deadlineNanos - System.nanoTime(), 0), NANOSECONDS);
+    }
+
+    /**
+     * Returns the smaller of the timeout and the time until the deadline.
+     */
+    public Duration limit(Duration timeout)
+    {
+        Duration remaining = getRemaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    @Override
+    public Context storeInContext(Context context)
+    {
+        return context.with(KEY, this);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RequestDeadline{remaining=" + getRemaining().convertToMostSuccinctTimeUnit() + "}";
+    }
+}
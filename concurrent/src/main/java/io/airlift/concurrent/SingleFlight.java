@@ -0,0 +1,279 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.concurrent;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.ThreadSafe;
+import io.airlift.units.Duration;
+import jakarta.annotation.Nullable;
+import org.weakref.jmx.Managed;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.google.common.util.concurrent.Futures.getDone;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Coalesces concurrent loads of the same key into a single in-flight {@link ListenableFuture}.
+ * While a load for a key is running, every caller requesting that key receives a view of the
+ * same future, so the loader is invoked at most once per key at any point in time.
+ * <p>
+ * Optionally, completed results can be retained:
+ * <ul>
+ *     <li>a successful value is returned as is for {@code freshDuration} after it was loaded</li>
+ *     <li>for an additional {@code staleDuration} the old value is still returned immediately,
+ *         while a single background load refreshes it (stale-while-revalidate)</li>
+ *     <li>a failure is returned as is for {@code failureDuration} (negative caching)</li>
+ * </ul>
+ * With all durations set to zero, results are never retained and this class only deduplicates
+ * concurrent loads. Expired results are replaced lazily on access; {@link #cleanUp()} can be
+ * used to drop results for keys that are no longer requested.
+ * <p>
+ * Cancelling a future returned by {@link #get(Object)} does not cancel the shared load.
+ */
+@ThreadSafe
+public class SingleFlight<K, V>
+{
+    private final Function<K, ListenableFuture<V>> loader;
+    private final long freshNanos;
+    private final long staleNanos;
+    private final long failureNanos;
+    private final Ticker ticker;
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong failureHits = new AtomicLong();
+
+    public SingleFlight(Function<K, ListenableFuture<V>> loader)
+    {
+        this(loader, new Duration(0, NANOSECONDS), new Duration(0, NANOSECONDS), new Duration(0, NANOSECONDS));
+    }
+
+    public SingleFlight(Function<K, ListenableFuture<V>> loader, Duration freshDuration, Duration staleDuration, Duration failureDuration)
+    {
+        this(loader, freshDuration, staleDuration, failureDuration, Ticker.systemTicker());
+    }
+
+    public SingleFlight(Function<K, ListenableFuture<V>> loader, Duration freshDuration, Duration staleDuration, Duration failureDuration, Ticker ticker)
+    {
+        this.loader = requireNonNull(loader, "loader is null");
+        this.freshNanos = requireNonNull(freshDuration, "freshDuration is null").roundTo(NANOSECONDS);
+        this.staleNanos = requireNonNull(staleDuration, "staleDuration is null").roundTo(NANOSECONDS);
+        this.failureNanos = requireNonNull(failureDuration, "failureDuration is null").roundTo(NANOSECONDS);
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    /**
+     * Returns the value for the key, joining an in-flight load or starting a new one if necessary.
+     */
+    public ListenableFuture<V> get(K key)
+    {
+        requireNonNull(key, "key is null");
+        while (true) {
+            long now = ticker.read();
+            Entry<V> entry = entries.get(key);
+
+            if (entry == null) {
+                SettableFuture<V> loading = SettableFuture.create();
+                if (entries.putIfAbsent(key, new Entry<>(loading, null, false, 0)) == null) {
+                    startLoad(key, loading);
+                    return nonCancellationPropagating(loading);
+                }
+                continue;
+            }
+
+            if (entry.result() != null) {
+                long age = now - entry.completedNanos();
+                if (entry.failed()) {
+                    if (age < failureNanos) {
+                        failureHits.incrementAndGet();
+                        return entry.result();
+                    }
+                }
+                else if (age < freshNanos) {
+                    hits.incrementAndGet();
+                    return entry.result();
+                }
+                else if (age < freshNanos + staleNanos) {
+                    staleHits.incrementAndGet();
+                    if (entry.loading() == null) {
+                        SettableFuture<V> loading = SettableFuture.create();
+                        if (entries.replace(key, entry, new Entry<>(loading, entry.result(), entry.failed(), entry.completedNanos()))) {
+                            startLoad(key, loading);
+                        }
+                    }
+                    return entry.result();
+                }
+            }
+
+            if (entry.loading() != null) {
+                coalescedCalls.incrementAndGet();
+                return nonCancellationPropagating(entry.loading());
+            }
+
+            // the retained result expired, and no load is running
+            SettableFuture<V> loading = SettableFuture.create();
+            if (entries.replace(key, entry, new Entry<>(loading, null, false, 0))) {
+                startLoad(key, loading);
+                return nonCancellationPropagating(loading);
+            }
+        }
+    }
+
+    /**
+     * Discards the retained result for the key. A load that is in flight is not cancelled,
+     * but its result will not be retained.
+     */
+    public void invalidate(K key)
+    {
+        entries.remove(requireNonNull(key, "key is null"));
+    }
+
+    public void invalidateAll()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Discards retained results that can no longer be returned.
+     */
+    public void cleanUp()
+    {
+        long now = ticker.read();
+        entries.values().removeIf(entry -> entry.loading() == null && isExpired(entry, now));
+    }
+
+    @Managed
+    public long getLoads()
+    {
+        return loads.get();
+    }
+
+    @Managed
+    public long getLoadFailures()
+    {
+        return loadFailures.get();
+    }
+
+    @Managed
+    public long getCoalescedCalls()
+    {
+        return coalescedCalls.get();
+    }
+
+    @Managed
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    @Managed
+    public long getStaleHits()
+    {
+        return staleHits.get();
+    }
+
+    @Managed
+    public long getFailureHits()
+    {
+        return failureHits.get();
+    }
+
+    @Managed
+    public int getSize()
+    {
+        return entries.size();
+    }
+
+    private void startLoad(K key, SettableFuture<V> loading)
+    {
+        loads.incrementAndGet();
+        loading.addListener(() -> loadCompleted(key, loading), directExecutor());
+        loading.setFuture(invokeLoader(key));
+    }
+
+    private ListenableFuture<V> invokeLoader(K key)
+    {
+        try {
+            ListenableFuture<V> future = loader.apply(key);
+            if (future == null) {
+                return immediateFailedFuture(new NullPointerException("Loader returned a null future for key: " + key));
+            }
+            return future;
+        }
+        catch (RuntimeException e) {
+            return immediateFailedFuture(e);
+        }
+    }
+
+    private void loadCompleted(K key, SettableFuture<V> loading)
+    {
+        boolean failed = isFailed(loading);
+        if (failed) {
+            loadFailures.incrementAndGet();
+        }
+
+        Entry<V> completed = new Entry<>(null, loading, failed, ticker.read());
+        entries.computeIfPresent(key, (_, entry) -> {
+            if (entry.loading() != loading) {
+                // invalidated while loading
+                return entry;
+            }
+            if (failed && entry.result() != null && !entry.failed()) {
+                // a failed refresh keeps serving the stale value until it expires
+                Entry<V> stale = new Entry<>(null, entry.result(), false, entry.completedNanos());
+                return isExpired(stale, completed.completedNanos()) ? null : stale;
+            }
+            return isExpired(completed, completed.completedNanos()) ? null : completed;
+        });
+    }
+
+    private boolean isExpired(Entry<V> entry, long now)
+    {
+        long age = now - entry.completedNanos();
+        if (entry.failed()) {
+            return age >= failureNanos;
+        }
+        return age >= freshNanos + staleNanos;
+    }
+
+    private static boolean isFailed(ListenableFuture<?> future)
+    {
+        try {
+            getDone(future);
+            return false;
+        }
+        catch (ExecutionException | CancellationException e) {
+            return true;
+        }
+    }
+
+    private record Entry<V>(@Nullable SettableFuture<V> loading, @Nullable ListenableFuture<V> result, boolean failed, long completedNanos) {}
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.concurrent;
+
+import io.airlift.units.Duration;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestRequestDeadline
+{
+    @Test
+    public void testStart()
+    {
+        // the time since the timeout started counts against it
+        long startNanos = System.nanoTime() - SECONDS.toNanos(10);
+        assertThat(RequestDeadline.after(new Duration(5, SECONDS), startNanos).isExpired()).isTrue();
+        assertThat(RequestDeadline.after(new Duration(30, SECONDS), startNanos).getRemaining().compareTo(new Duration(20, SECONDS))).isLessThanOrEqualTo(0);
+    }
+
+    @Test
+    public void testExpired()
+    {
+        RequestDeadline deadline = RequestDeadline.after(new Duration(0, SECONDS));
+        assertThat(deadline.isExpired()).isTrue();
+        assertThat(deadline.getRemaining().toMillis()).isEqualTo(0);
+        assertThat(deadline.limit(new Duration(1, MINUTES)).toMillis()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLimit()
+    {
+        RequestDeadline deadline = RequestDeadline.after(new Duration(10, SECONDS));
+        assertThat(deadline.limit(new Duration(1, SECONDS))).isEqualTo(new Duration(1, SECONDS));
+        assertThat(deadline.limit(new Duration(1, MINUTES)).compareTo(new Duration(10, SECONDS))).isLessThanOrEqualTo(0);
+    }
+
+    @Test
+    public void testContext()
+    {
+        assertThat(RequestDeadline.current()).isEmpty();
+
+        RequestDeadline deadline = RequestDeadline.after(new Duration(1, MINUTES));
+        try (Scope ignored = Context.current().with(deadline).makeCurrent()) {
+            assertThat(RequestDeadline.current()).containsSame(deadline);
+        }
+        assertThat(RequestDeadline.current()).isEmpty();
+        assertThat(RequestDeadline.fromContext(Context.root().with(deadline))).containsSame(deadline);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.concurrent;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestSingleFlight
+{
+    @Test
+    public void testCoalescing()
+    {
+        List<SettableFuture<String>> loads = new ArrayList<>();
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(_ -> {
+            SettableFuture<String> future = SettableFuture.create();
+            loads.add(future);
+            return future;
+        });
+
+        ListenableFuture<String> first = singleFlight.get("a");
+        ListenableFuture<String> second = singleFlight.get("a");
+        ListenableFuture<String> other = singleFlight.get("b");
+        assertThat(loads).hasSize(2);
+        assertThat(singleFlight.getLoads()).isEqualTo(2);
+        assertThat(singleFlight.getCoalescedCalls()).isEqualTo(1);
+
+        loads.get(0).set("value");
+        assertThat(getFutureValue(first)).isEqualTo("value");
+        assertThat(getFutureValue(second)).isEqualTo("value");
+        assertThat(other).isNotDone();
+
+        // nothing is retained without durations
+        assertThat(singleFlight.getSize()).isEqualTo(1);
+        singleFlight.get("a");
+        assertThat(loads).hasSize(3);
+    }
+
+    @Test
+    public void testCancellationDoesNotPropagate()
+    {
+        SettableFuture<String> load = SettableFuture.create();
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(_ -> load);
+
+        ListenableFuture<String> first = singleFlight.get("a");
+        ListenableFuture<String> second = singleFlight.get("a");
+        first.cancel(true);
+
+        assertThat(load).isNotDone();
+        load.set("value");
+        assertThat(getFutureValue(second)).isEqualTo("value");
+    }
+
+    @Test
+    public void testFreshAndStale()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AtomicInteger counter = new AtomicInteger();
+        List<SettableFuture<String>> loads = new ArrayList<>();
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(
+                key -> {
+                    if (counter.getAndIncrement() == 0) {
+                        return immediateFuture(key + "0");
+                    }
+                    SettableFuture<String> future = SettableFuture.create();
+                    loads.add(future);
+                    return future;
+                },
+                new Duration(10, SECONDS),
+                new Duration(5, SECONDS),
+                new Duration(0, SECONDS),
+                ticker);
+
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a0");
+        ticker.increment(9, SECONDS);
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a0");
+        assertThat(singleFlight.getHits()).isEqualTo(1);
+
+        // stale value is served while a single refresh is running
+        ticker.increment(2, SECONDS);
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a0");
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a0");
+        assertThat(singleFlight.getStaleHits()).isEqualTo(2);
+        assertThat(loads).hasSize(1);
+
+        loads.get(0).set("a1");
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a1");
+        assertThat(singleFlight.getLoads()).isEqualTo(2);
+
+        // expired value is not served
+        ticker.increment(20, SECONDS);
+        ListenableFuture<String> future = singleFlight.get("a");
+        assertThat(future).isNotDone();
+        assertThat(loads).hasSize(2);
+
+        singleFlight.invalidateAll();
+        assertThat(singleFlight.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsStaleValue()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AtomicInteger counter = new AtomicInteger();
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(
+                key -> counter.getAndIncrement() == 0 ? immediateFuture(key) : immediateFailedFuture(new RuntimeException("refresh failed")),
+                new Duration(10, SECONDS),
+                new Duration(10, SECONDS),
+                new Duration(0, SECONDS),
+                ticker);
+
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a");
+        ticker.increment(15, SECONDS);
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a");
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("a");
+        assertThat(singleFlight.getLoadFailures()).isEqualTo(2);
+
+        ticker.increment(5, SECONDS);
+        assertThatThrownBy(() -> getFutureValue(singleFlight.get("a")))
+                .hasMessage("refresh failed");
+    }
+
+    @Test
+    public void testNegativeCaching()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AtomicInteger counter = new AtomicInteger();
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(
+                _ -> {
+                    counter.incrementAndGet();
+                    throw new IllegalStateException("load failed");
+                },
+                new Duration(0, SECONDS),
+                new Duration(0, SECONDS),
+                new Duration(5, SECONDS),
+                ticker);
+
+        assertThatThrownBy(() -> getFutureValue(singleFlight.get("a")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("load failed");
+        assertThatThrownBy(() -> getFutureValue(singleFlight.get("a")))
+                .hasMessage("load failed");
+        assertThat(counter.get()).isEqualTo(1);
+        assertThat(singleFlight.getFailureHits()).isEqualTo(1);
+
+        ticker.increment(5, SECONDS);
+        singleFlight.cleanUp();
+        assertThat(singleFlight.getSize()).isEqualTo(0);
+        assertThatThrownBy(() -> getFutureValue(singleFlight.get("a")))
+                .hasMessage("load failed");
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidateDuringLoad()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<SettableFuture<String>> loads = new ArrayList<>();
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(
+                _ -> {
+                    SettableFuture<String> future = SettableFuture.create();
+                    loads.add(future);
+                    return future;
+                },
+                new Duration(10, SECONDS),
+                new Duration(0, SECONDS),
+                new Duration(0, SECONDS),
+                ticker);
+
+        ListenableFuture<String> first = singleFlight.get("a");
+        singleFlight.invalidate("a");
+        ListenableFuture<String> second = singleFlight.get("a");
+        assertThat(loads).hasSize(2);
+
+        loads.get(0).set("old");
+        loads.get(1).set("new");
+        assertThat(getFutureValue(first)).isEqualTo("old");
+        assertThat(getFutureValue(second)).isEqualTo("new");
+        assertThat(getFutureValue(singleFlight.get("a"))).isEqualTo("new");
+    }
+}
@@ -0,0 +1,553 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.discovery.client;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.RequestStats;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.StreamingResponse;
+import io.airlift.metrics.CollectedMetricGroup;
+import io.airlift.metrics.CollectedMetricGroup.Attribute;
+import io.airlift.metrics.MetricGroupProvider;
+import io.airlift.metrics.MetricSource.ManagedMetricSource;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.Math.exp;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * An {@link HttpClient} that routes requests whose host is the service type, such as
+ * {@code http://<service-type>/path}, to the services returned by a {@link ServiceSelector}.
+ * The scheme of the service is used, and other requests are sent unchanged.
+ * <p>
+ * An endpoint is chosen with "power of two choices": two random endpoints are compared,
+ * and the one with the lower product of outstanding requests and decaying average
+ * latency is used. Endpoints that fail several times in a row (with an exception or a
+ * server error) are ejected for a while, unless all endpoints are ejected.
+ * <p>
+ * The statistics of each endpoint are exported as a metric group labeled with the endpoint,
+ * when the client is bound with {@code newSetBinder(binder, MetricGroupProvider.class)}.
+ */
+public class LoadBalancingHttpClient
+        implements HttpClient, MetricGroupProvider
+{
+    private static final ManagedMetricSource SOURCE = new ManagedMetricSource(
+            "io.airlift.discovery.client:type=LoadBalancingHttpClient",
+            Optional.of(LoadBalancingHttpClient.class),
+            Optional.empty(),
+            Map.of());
+
+    // latency is averaged over roughly this period
+    private static final long LATENCY_DECAY_NANOS = SECONDS.toNanos(10);
+    private static final double MAX_HISTORY_WEIGHT = 0.9;
+    // initial latency of a new endpoint, which makes it attractive without flooding it
+    private static final double INITIAL_LATENCY_NANOS = MILLISECONDS.toNanos(1);
+
+    private final HttpClient delegate;
+    private final ServiceSelector serviceSelector;
+    private final int ejectionConsecutiveFailures;
+    private final long ejectionNanos;
+    private final Ticker ticker;
+
+    private final Map<URI, Endpoint> endpoints = new ConcurrentHashMap<>();
+    @GuardedBy("this")
+    private List<ServiceDescriptor> currentDescriptors = ImmutableList.of();
+    private volatile List<Endpoint> currentEndpoints = ImmutableList.of();
+    private final AtomicLong noEndpointFailures = new AtomicLong();
+
+    public LoadBalancingHttpClient(HttpClient delegate, ServiceSelector serviceSelector)
+    {
+        this(delegate, serviceSelector, 5, new Duration(30, SECONDS), Ticker.systemTicker());
+    }
+
+    public LoadBalancingHttpClient(HttpClient delegate, ServiceSelector serviceSelector, int ejectionConsecutiveFailures, Duration ejectionDuration, Ticker ticker)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.serviceSelector = requireNonNull(serviceSelector, "serviceSelector is null");
+        checkArgument(ejectionConsecutiveFailures >= 1, "ejectionConsecutiveFailures must be at least one");
+        this.ejectionConsecutiveFailures = ejectionConsecutiveFailures;
+        this.ejectionNanos = ejectionDuration.roundTo(NANOSECONDS);
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    @Override
+    public <T, E extends Exception> T execute(Request request, ResponseHandler<T, E> responseHandler)
+            throws E
+    {
+        if (!isLoadBalanced(request)) {
+            return delegate.execute(request, responseHandler);
+        }
+
+        Optional<Endpoint> endpoint = selectEndpoint();
+        if (endpoint.isEmpty()) {
+            return responseHandler.handleException(request, noEndpointException());
+        }
+        Call call = endpoint.get().start();
+        try {
+            return delegate.execute(endpoint.get().rewrite(request), new TrackingResponseHandler<>(responseHandler, call));
+        }
+        catch (RuntimeException e) {
+            // the request may fail before it reaches the response handler
+            call.completed(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T, E extends Exception> HttpResponseFuture<T> executeAsync(Request request, ResponseHandler<T, E> responseHandler)
+    {
+        if (!isLoadBalanced(request)) {
+            return delegate.executeAsync(request, responseHandler);
+        }
+
+        Optional<Endpoint> endpoint = selectEndpoint();
+        if (endpoint.isEmpty()) {
+            NoEndpointResponseFuture<T> future = new NoEndpointResponseFuture<>();
+            try {
+                future.set(responseHandler.handleException(request, noEndpointException()));
+            }
+            catch (Throwable t) {
+                future.setException(t);
+            }
+            return future;
+        }
+        Call call = endpoint.get().start();
+        HttpResponseFuture<T> future;
+        try {
+            future = delegate.executeAsync(endpoint.get().rewrite(request), new TrackingResponseHandler<>(responseHandler, call));
+        }
+        catch (RuntimeException e) {
+            call.completed(false);
+            throw e;
+        }
+        // a cancelled request does not reach the response handler
+        future.addListener(call::cancelled, directExecutor());
+        return future;
+    }
+
+    @Override
+    public StreamingResponse executeStreaming(Request request)
+    {
+        if (!isLoadBalanced(request)) {
+            return delegate.executeStreaming(request);
+        }
+        Endpoint endpoint = selectEndpoint().orElseThrow(this::noEndpointException);
+        Call call = endpoint.start();
+        try {
+            StreamingResponse response = delegate.executeStreaming(endpoint.rewrite(request));
+            call.completed(response.getStatusCode() < 500);
+            return response;
+        }
+        catch (RuntimeException e) {
+            call.completed(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public RequestStats getStats()
+    {
+        return delegate.getStats();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return delegate.isClosed();
+    }
+
+    public Map<URI, EndpointStats> getEndpointStats()
+    {
+        long now = ticker.read();
+        ImmutableMap.Builder<URI, EndpointStats> builder = ImmutableMap.builder();
+        for (Endpoint endpoint : currentEndpoints) {
+            builder.put(endpoint.uri(), endpoint.stats(now));
+        }
+        return builder.buildKeepingLast();
+    }
+
+    @Override
+    public List<CollectedMetricGroup> getMetricGroups()
+    {
+        ImmutableList.Builder<CollectedMetricGroup> groups = ImmutableList.builder();
+        getEndpointStats().forEach((uri, stats) -> groups.add(new CollectedMetricGroup(
+                SOURCE,
+                ImmutableMap.of("service", serviceSelector.getType(), "pool", serviceSelector.getPool(), "endpoint", uri.toString()),
+                stats.toAttributes())));
+        return groups.build();
+    }
+
+    @Managed
+    public int getEndpointCount()
+    {
+        return currentEndpoints.size();
+    }
+
+    @Managed
+    public long getEjectedEndpointCount()
+    {
+        long now = ticker.read();
+        return currentEndpoints.stream()
+                .filter(endpoint -> endpoint.isEjected(now))
+                .count();
+    }
+
+    @Managed
+    public long getEjections()
+    {
+        return currentEndpoints.stream()
+                .mapToLong(Endpoint::getEjections)
+                .sum();
+    }
+
+    @Managed
+    public long getNoEndpointFailures()
+    {
+        return noEndpointFailures.get();
+    }
+
+    private boolean isLoadBalanced(Request request)
+    {
+        // requests only allow http and https URIs, so the service is addressed by the host
+        URI uri = request.getUri();
+        return serviceSelector.getType().equalsIgnoreCase(uri.getHost()) && uri.getPort() == -1;
+    }
+
+    private Optional<Endpoint> selectEndpoint()
+    {
+        List<Endpoint> candidates = refreshEndpoints();
+        if (candidates.isEmpty()) {
+            noEndpointFailures.incrementAndGet();
+            return Optional.empty();
+        }
+        if (candidates.size() == 1) {
+            return Optional.of(candidates.getFirst());
+        }
+
+        long now = ticker.read();
+        List<Endpoint> healthy = candidates.stream()
+                .filter(endpoint -> !endpoint.isEjected(now))
+                .collect(ImmutableList.toImmutableList());
+        if (healthy.isEmpty()) {
+            // ejecting every endpoint would turn a partial outage into a full one
+            healthy = candidates;
+        }
+        if (healthy.size() == 1) {
+            return Optional.of(healthy.getFirst());
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(healthy.size());
+        int second = random.nextInt(healthy.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = healthy.get(first);
+        Endpoint b = healthy.get(second);
+        return Optional.of(a.cost() <= b.cost() ? a : b);
+    }
+
+    private List<Endpoint> refreshEndpoints()
+    {
+        List<ServiceDescriptor> descriptors = serviceSelector.selectAllServices();
+        synchronized (this) {
+            // selectors return the same list until the services change
+            if (descriptors == currentDescriptors) {
+                return currentEndpoints;
+            }
+            ImmutableList.Builder<Endpoint> builder = ImmutableList.builder();
+            for (ServiceDescriptor descriptor : descriptors) {
+                getHttpUri(descriptor).ifPresent(uri -> builder.add(endpoints.computeIfAbsent(uri, Endpoint::new)));
+            }
+            List<Endpoint> updated = builder.build();
+            endpoints.values().retainAll(updated);
+            currentDescriptors = descriptors;
+            currentEndpoints = updated;
+            return updated;
+        }
+    }
+
+    private static Optional<URI> getHttpUri(ServiceDescriptor descriptor)
+    {
+        // favor https over http, like HttpServiceSelectorImpl
+        for (String scheme : List.of("https", "http")) {
+            if (descriptor.getProperties().get(scheme) instanceof String value) {
+                try {
+                    return Optional.of(new URI(value));
+                }
+                catch (URISyntaxException ignored) {
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private DiscoveryException noEndpointException()
+    {
+        return new DiscoveryException("No %s services from pool %s available".formatted(serviceSelector.getType(), serviceSelector.getPool()));
+    }
+
+    public record EndpointStats(int outstandingRequests, Duration latency, long requests, long failures, long ejections, boolean ejected)
+    {
+        List<Attribute> toAttributes()
+        {
+            return ImmutableList.of(
+                    new Attribute(List.of("OutstandingRequests"), outstandingRequests, "requests in progress"),
+                    new Attribute(List.of("Latency"), latency.getValue(SECONDS), "decaying average latency in seconds"),
+                    new Attribute(List.of("Requests"), requests, "requests sent to the endpoint"),
+                    new Attribute(List.of("Failures"), failures, "requests that failed or returned a server error"),
+                    new Attribute(List.of("Ejections"), ejections, "times the endpoint was ejected"),
+                    new Attribute(List.of("Ejected"), ejected, "whether the endpoint is ejected"));
+        }
+    }
+
+    private final class Endpoint
+    {
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong ejections = new AtomicLong();
+
+        @GuardedBy("this")
+        private double latencyNanos = INITIAL_LATENCY_NANOS;
+        @GuardedBy("this")
+        private long lastUpdateNanos = ticker.read();
+        @GuardedBy("this")
+        private int consecutiveFailures;
+        private volatile long ejectedUntilNanos;
+
+        private Endpoint(URI uri)
+        {
+            this.uri = requireNonNull(uri, "uri is null");
+            this.ejectedUntilNanos = ticker.read();
+        }
+
+        public URI uri()
+        {
+            return uri;
+        }
+
+        public Request rewrite(Request request)
+        {
+            URI logical = request.getUri();
+            StringBuilder target = new StringBuilder()
+                    .append(uri.getScheme()).append("://").append(uri.getRawAuthority());
+            String basePath = uri.getRawPath() == null ? "" : uri.getRawPath();
+            if (basePath.endsWith("/")) {
+                basePath = basePath.substring(0, basePath.length() - 1);
+            }
+            target.append(basePath);
+            if (logical.getRawPath() != null) {
+                target.append(logical.getRawPath());
+            }
+            if (logical.getRawQuery() != null) {
+                target.append('?').append(logical.getRawQuery());
+            }
+            return Request.Builder.fromRequest(request)
+                    .setUri(URI.create(target.toString()))
+                    .build();
+        }
+
+        public Call start()
+        {
+            outstanding.incrementAndGet();
+            requests.incrementAndGet();
+            return new Call(this, ticker.read());
+        }
+
+        public double cost()
+        {
+            double latency;
+            synchronized (this) {
+                latency = latencyNanos;
+            }
+            return (outstanding.get() + 1) * latency;
+        }
+
+        public boolean isEjected(long now)
+        {
+            return now - ejectedUntilNanos < 0;
+        }
+
+        public long getEjections()
+        {
+            return ejections.get();
+        }
+
+        private void completed(long startNanos, boolean success)
+        {
+            outstanding.decrementAndGet();
+            long now = ticker.read();
+            synchronized (this) {
+                // exponentially weighted by time, so idle periods do not bias the average,
+                // but every sample counts when many requests complete at once
+                double weight = min(MAX_HISTORY_WEIGHT, exp(-(now - lastUpdateNanos) / (double) LATENCY_DECAY_NANOS));
+                latencyNanos = latencyNanos * weight + (now - startNanos) * (1 - weight);
+                lastUpdateNanos = now;
+
+                if (success) {
+                    consecutiveFailures = 0;
+                    return;
+                }
+                failures.incrementAndGet();
+                consecutiveFailures++;
+                if (consecutiveFailures >= ejectionConsecutiveFailures && !isEjected(now)) {
+                    consecutiveFailures = 0;
+                    ejectedUntilNanos = now + ejectionNanos;
+                    ejections.incrementAndGet();
+                }
+            }
+        }
+
+        private void cancelled()
+        {
+            outstanding.decrementAndGet();
+        }
+
+        public synchronized EndpointStats stats(long now)
+        {
+            return new EndpointStats(
+                    outstanding.get(),
+                    new Duration(latencyNanos, NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                    requests.get(),
+                    failures.get(),
+                    ejections.get(),
+                    isEjected(now));
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("uri", uri)
+                    .add("outstanding", outstanding.get())
+                    .toString();
+        }
+    }
+
+    /**
+     * A single request to an endpoint, which is completed exactly once.
+     */
+    private static final class Call
+    {
+        private final Endpoint endpoint;
+        private final long startNanos;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Call(Endpoint endpoint, long startNanos)
+        {
+            this.endpoint = endpoint;
+            this.startNanos = startNanos;
+        }
+
+        public void completed(boolean success)
+        {
+            if (done.compareAndSet(false, true)) {
+                endpoint.completed(startNanos, success);
+            }
+        }
+
+        public void cancelled()
+        {
+            if (done.compareAndSet(false, true)) {
+                endpoint.cancelled();
+            }
+        }
+    }
+
+    private static class TrackingResponseHandler<T, E extends Exception>
+            implements ResponseHandler<T, E>
+    {
+        private final ResponseHandler<T, E> delegate;
+        private final Call call;
+
+        public TrackingResponseHandler(ResponseHandler<T, E> delegate, Call call)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+            this.call = requireNonNull(call, "call is null");
+        }
+
+        @Override
+        public T handleException(Request request, Exception exception)
+                throws E
+        {
+            call.completed(false);
+            return delegate.handleException(request, exception);
+        }
+
+        @Override
+        public T handle(Request request, Response response)
+                throws E
+        {
+            call.completed(response.getStatusCode() < 500);
+            return delegate.handle(request, response);
+        }
+    }
+
+    private static class NoEndpointResponseFuture<T>
+            extends AbstractFuture<T>
+            implements HttpResponseFuture<T>
+    {
+        @Override
+        public boolean set(T value)
+        {
+            return super.set(value);
+        }
+
+        @Override
+        public boolean setException(Throwable throwable)
+        {
+            return super.setException(throwable);
+        }
+
+        @Override
+        public String getState()
+        {
+            return "FAILED";
+        }
+    }
+}
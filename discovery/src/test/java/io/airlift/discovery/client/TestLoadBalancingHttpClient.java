@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.discovery.client;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import io.airlift.discovery.client.LoadBalancingHttpClient.EndpointStats;
+import io.airlift.discovery.client.testing.StaticServiceSelector;
+import io.airlift.http.client.HttpStatus;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.http.client.testing.TestingResponse;
+import io.airlift.metrics.CollectedMetricGroup;
+import io.airlift.metrics.CollectedMetricGroup.Attribute;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.airlift.discovery.client.ServiceDescriptor.serviceDescriptor;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestLoadBalancingHttpClient
+{
+    @Test
+    public void testRewrite()
+    {
+        List<URI> uris = new ArrayList<>();
+        StaticServiceSelector selector = new StaticServiceSelector(serviceDescriptor("apple").addProperty("http", "http://apple-1:8080/base/").build());
+        try (LoadBalancingHttpClient client = new LoadBalancingHttpClient(recordingClient(uris), selector)) {
+            client.execute(prepareGet().setUri(URI.create("http://apple/v1/fruit?a=b%20c")).build(), createStatusResponseHandler());
+            client.execute(prepareGet().setUri(URI.create("http://other:80/path")).build(), createStatusResponseHandler());
+            client.execute(prepareGet().setUri(URI.create("http://apple:80/path")).build(), createStatusResponseHandler());
+            assertThat(uris).containsExactly(
+                    URI.create("http://apple-1:8080/base/v1/fruit?a=b%20c"),
+                    URI.create("http://other:80/path"),
+                    URI.create("http://apple:80/path"));
+        }
+    }
+
+    @Test
+    public void testNoEndpoints()
+    {
+        try (LoadBalancingHttpClient client = new LoadBalancingHttpClient(recordingClient(new ArrayList<>()), new StaticServiceSelector(serviceDescriptor("apple").build()))) {
+            assertThatThrownBy(() -> client.execute(prepareGet().setUri(URI.create("http://apple/")).build(), createStatusResponseHandler()))
+                    .isInstanceOf(DiscoveryException.class);
+            assertThat(client.getNoEndpointFailures()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testPrefersLowLatency()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<URI> uris = new ArrayList<>();
+        TestingHttpClient delegate = new TestingHttpClient(request -> {
+            uris.add(request.getUri());
+            if (request.getUri().getHost().equals("slow")) {
+                ticker.increment(1, SECONDS);
+            }
+            return response(HttpStatus.OK);
+        });
+        try (LoadBalancingHttpClient client = new LoadBalancingHttpClient(delegate, selector("slow", "fast"), 5, new Duration(30, SECONDS), ticker)) {
+            for (int i = 0; i < 20; i++) {
+                client.execute(prepareGet().setUri(URI.create("http://apple/")).build(), createStatusResponseHandler());
+            }
+            Multiset<String> hosts = uris.stream().map(URI::getHost).collect(ImmutableMultiset.toImmutableMultiset());
+            assertThat(hosts.count("slow")).isLessThanOrEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testOutlierEjection()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<URI> uris = new ArrayList<>();
+        TestingHttpClient delegate = new TestingHttpClient(request -> {
+            uris.add(request.getUri());
+            if (request.getUri().getHost().equals("bad")) {
+                return response(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            // the healthy endpoint is slower, so the failing one is preferred until it is ejected
+            ticker.increment(10, MILLISECONDS);
+            return response(HttpStatus.OK);
+        });
+        try (LoadBalancingHttpClient client = new LoadBalancingHttpClient(delegate, selector("bad", "good"), 5, new Duration(30, SECONDS), ticker)) {
+            for (int i = 0; i < 20; i++) {
+                client.execute(prepareGet().setUri(URI.create("http://apple/")).build(), createStatusResponseHandler());
+            }
+            Multiset<String> hosts = uris.stream().map(URI::getHost).collect(ImmutableMultiset.toImmutableMultiset());
+            assertThat(hosts.count("bad")).isEqualTo(5);
+            assertThat(client.getEjections()).isEqualTo(1);
+            assertThat(client.getEjectedEndpointCount()).isEqualTo(1);
+            assertThat(client.getEndpointStats().get(URI.create("http://bad:8080")).failures()).isEqualTo(5);
+
+            ticker.increment(30, SECONDS);
+            assertThat(client.getEjectedEndpointCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testDelegateFailure()
+            throws Exception
+    {
+        TestingHttpClient delegate = new TestingHttpClient(_ -> response(HttpStatus.OK))
+        {
+            @Override
+            public <T, E extends Exception> T execute(Request request, ResponseHandler<T, E> responseHandler)
+            {
+                throw new IllegalStateException("client is closed");
+            }
+
+            @Override
+            public <T, E extends Exception> HttpResponseFuture<T> executeAsync(Request request, ResponseHandler<T, E> responseHandler)
+            {
+                throw new IllegalStateException("client is closed");
+            }
+        };
+        try (LoadBalancingHttpClient client = new LoadBalancingHttpClient(delegate, selector("apple-1"))) {
+            Request request = prepareGet().setUri(URI.create("http://apple/")).build();
+            assertThatThrownBy(() -> client.execute(request, createStatusResponseHandler()))
+                    .hasMessage("client is closed");
+            assertThatThrownBy(() -> client.executeAsync(request, createStatusResponseHandler()))
+                    .hasMessage("client is closed");
+
+            // the failed requests are not left outstanding
+            EndpointStats stats = client.getEndpointStats().get(URI.create("http://apple-1:8080"));
+            assertThat(stats.outstandingRequests()).isEqualTo(0);
+            assertThat(stats.requests()).isEqualTo(2);
+            assertThat(stats.failures()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testMetricGroups()
+    {
+        try (LoadBalancingHttpClient client = new LoadBalancingHttpClient(recordingClient(new ArrayList<>()), selector("apple-1"))) {
+            client.execute(prepareGet().setUri(URI.create("http://apple/")).build(), createStatusResponseHandler());
+
+            List<CollectedMetricGroup> groups = client.getMetricGroups();
+            assertThat(groups).hasSize(1);
+            assertThat(groups.getFirst().labels()).isEqualTo(Map.of("service", "apple", "pool", "general", "endpoint", "http://apple-1:8080"));
+            assertThat(groups.getFirst().attributes())
+                    .filteredOn(attribute -> attribute.path().equals(List.of("Requests")))
+                    .extracting(Attribute::value)
+                    .containsExactly(1L);
+        }
+    }
+
+    private static StaticServiceSelector selector(String... hosts)
+    {
+        List<ServiceDescriptor> descriptors = new ArrayList<>();
+        for (String host : hosts) {
+            descriptors.add(serviceDescriptor("apple").addProperty("http", "http://" + host + ":8080").build());
+        }
+        return new StaticServiceSelector(descriptors);
+    }
+
+    private static TestingHttpClient recordingClient(List<URI> uris)
+    {
+        return new TestingHttpClient(request -> {
+            uris.add(request.getUri());
+            return response(HttpStatus.OK);
+        });
+    }
+
+    private static TestingResponse response(HttpStatus status)
+    {
+        return new TestingResponse(status, ImmutableListMultimap.of(), new byte[0]);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Handles a response without blocking a thread while the body is received.
+ * Once the response headers arrive, the returned {@link ContentConsumer} is
+ * fed the body as it is read from the connection.
+ */
+@Beta
+public interface AsyncResponseHandler<T>
+{
+    ContentConsumer<T> handleResponse(Request request, ResponseHead response)
+            throws Exception;
+
+    default T handleException(Request request, Exception exception)
+            throws Exception
+    {
+        throw propagate(request, exception);
+    }
+
+    record ResponseHead(HttpVersion httpVersion, int statusCode, ListMultimap<HeaderName, String> headers)
+    {
+        public ResponseHead
+        {
+            requireNonNull(httpVersion, "httpVersion is null");
+            headers = ImmutableListMultimap.copyOf(requireNonNull(headers, "headers is null"));
+        }
+
+        public Optional<String> getHeader(HeaderName name)
+        {
+            List<String> values = headers.get(name);
+            return values.isEmpty() ? Optional.empty() : Optional.of(values.getFirst());
+        }
+    }
+}
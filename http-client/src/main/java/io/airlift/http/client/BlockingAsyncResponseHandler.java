@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import io.airlift.http.client.AsyncResponseHandler.ResponseHead;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adapts an {@link AsyncResponseHandler} to a {@link ResponseHandler} for clients that
+ * do not support non-blocking responses. The body is read from the response stream,
+ * waiting for demand after each chunk.
+ */
+class BlockingAsyncResponseHandler<T>
+        implements ResponseHandler<T, Exception>
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    private final AsyncResponseHandler<T> handler;
+
+    public BlockingAsyncResponseHandler(AsyncResponseHandler<T> handler)
+    {
+        this.handler = requireNonNull(handler, "handler is null");
+    }
+
+    @Override
+    public T handleException(Request request, Exception exception)
+            throws Exception
+    {
+        return handler.handleException(request, exception);
+    }
+
+    @Override
+    public T handle(Request request, Response response)
+            throws Exception
+    {
+        ContentConsumer<T> consumer = handler.handleResponse(request, new ResponseHead(response.getHttpVersion(), response.getStatusCode(), response.getHeaders()));
+        try (InputStream inputStream = response.getInputStream()) {
+            // the buffer is reused, as the consumer releases it before more content is read
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (true) {
+                int read = inputStream.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                CountDownLatch demand = new CountDownLatch(1);
+                consumer.onContent(ByteBuffer.wrap(buffer, 0, read), demand::countDown);
+                demand.await();
+            }
+        }
+        catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            consumer.onFailure(e);
+            throw e;
+        }
+        return consumer.onComplete();
+    }
+}
@@ -19,4 +19,5 @@ public sealed interface BodyGenerator
         permits ByteBufferBodyGenerator,
                 FileBodyGenerator,
                 StaticBodyGenerator,
-                StreamingBodyGenerator {}
+                StreamingBodyGenerator,
+                StreamingJsonBodyGenerator {}
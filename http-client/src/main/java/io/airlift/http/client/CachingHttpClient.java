@@ -0,0 +1,584 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.util.concurrent.AbstractFuture;
+import io.airlift.http.client.Response.BytesContent;
+import io.airlift.http.client.Response.InputStreamContent;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.primitives.Ints.saturatedCast;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.http.client.HeaderNames.AGE;
+import static io.airlift.http.client.HeaderNames.AUTHORIZATION;
+import static io.airlift.http.client.HeaderNames.CACHE_CONTROL;
+import static io.airlift.http.client.HeaderNames.ETAG;
+import static io.airlift.http.client.HeaderNames.IF_MODIFIED_SINCE;
+import static io.airlift.http.client.HeaderNames.IF_NONE_MATCH;
+import static io.airlift.http.client.HeaderNames.VARY;
+import static io.airlift.http.client.HttpStatus.NOT_MODIFIED;
+import static io.airlift.http.client.HttpStatus.OK;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * An {@link HttpClient} that caches responses of the delegate client in memory,
+ * following the rules of RFC 9111.
+ * <p>
+ * Only successful {@code GET} responses with an explicit {@code max-age} or an entity tag
+ * are stored. Whether a response is stored is decided from its headers, and responses that
+ * are not stored are passed to the response handler without buffering. Responses are cached
+ * by URI, and a stored response is only used for requests with the same values of the
+ * headers listed in its {@code Vary} header. As the cache is shared by all requests of the
+ * client, {@code private} responses and requests with credentials are not cached.
+ * <p>
+ * A stale response is served while it is revalidated in the background during the
+ * {@code stale-while-revalidate} period, and is otherwise revalidated with
+ * {@code If-None-Match} when it has an entity tag. Streaming requests are never cached.
+ */
+public class CachingHttpClient
+        implements HttpClient
+{
+    private static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+    // rough per-entry overhead of the cache and the entry objects
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final HttpClient delegate;
+    private final Ticker ticker;
+    private final Cache<String, CacheEntry> cache;
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat staleHits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat revalidations = new CounterStat();
+    private final CounterStat notModified = new CounterStat();
+
+    public CachingHttpClient(HttpClient delegate, DataSize maxSize)
+    {
+        this(delegate, maxSize, Ticker.systemTicker());
+    }
+
+    public CachingHttpClient(HttpClient delegate, DataSize maxSize, Ticker ticker)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String _, CacheEntry entry) -> entry.weight())
+                .build();
+    }
+
+    @Override
+    public <T, E extends Exception> T execute(Request request, ResponseHandler<T, E> responseHandler)
+            throws E
+    {
+        if (!isCacheable(request)) {
+            return delegate.execute(request, responseHandler);
+        }
+
+        String key = request.getUri().toString();
+        CacheEntry cached = lookup(key, request);
+        if (cached != null && canServe(key, request, cached)) {
+            return responseHandler.handle(request, cached.response().toResponse());
+        }
+        return delegate.execute(fetchRequest(request, cached), new CachingResponseHandler<>(key, request, cached, responseHandler));
+    }
+
+    @Override
+    public <T, E extends Exception> HttpResponseFuture<T> executeAsync(Request request, ResponseHandler<T, E> responseHandler)
+    {
+        if (!isCacheable(request)) {
+            return delegate.executeAsync(request, responseHandler);
+        }
+
+        String key = request.getUri().toString();
+        CacheEntry cached = lookup(key, request);
+        if (cached != null && canServe(key, request, cached)) {
+            return CachedResponseFuture.handle(() -> responseHandler.handle(request, cached.response().toResponse()));
+        }
+        return delegate.executeAsync(fetchRequest(request, cached), new CachingResponseHandler<>(key, request, cached, responseHandler));
+    }
+
+    @Override
+    public StreamingResponse executeStreaming(Request request)
+    {
+        return delegate.executeStreaming(request);
+    }
+
+    @Override
+    public RequestStats getStats()
+    {
+        return delegate.getStats();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return delegate.isClosed();
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStaleHits()
+    {
+        return staleHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRevalidations()
+    {
+        return revalidations;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getNotModified()
+    {
+        return notModified;
+    }
+
+    private static boolean isCacheable(Request request)
+    {
+        if (!request.getMethod().equals("GET") || request.getBodyGenerator() != null) {
+            return false;
+        }
+        ListMultimap<HeaderName, String> headers = request.getHeaders();
+        // conditional requests of the caller are not answered from the cache
+        if (headers.containsKey(IF_NONE_MATCH) || headers.containsKey(IF_MODIFIED_SINCE)) {
+            return false;
+        }
+        // responses for other credentials must not be served from the shared cache
+        if (headers.containsKey(AUTHORIZATION)) {
+            return false;
+        }
+        CacheControl cacheControl = parseCacheControl(headers.get(CACHE_CONTROL));
+        return cacheControl != null && !cacheControl.isNoCache() && !cacheControl.isNoStore();
+    }
+
+    private CacheEntry lookup(String key, Request request)
+    {
+        CacheEntry cached = cache.getIfPresent(key);
+        // the stored response was selected by other values of the headers listed in its Vary header
+        if (cached != null && !cached.selectingHeaders().equals(selectingHeaders(request, cached.selectingHeaders().keySet()))) {
+            return null;
+        }
+        return cached;
+    }
+
+    private boolean canServe(String key, Request request, CacheEntry cached)
+    {
+        long now = ticker.read();
+        if (now < cached.expiresNanos()) {
+            hits.update(1);
+            return true;
+        }
+        if (now < cached.staleNanos()) {
+            staleHits.update(1);
+            revalidateInBackground(key, request, cached);
+            return true;
+        }
+        return false;
+    }
+
+    private void revalidateInBackground(String key, Request request, CacheEntry cached)
+    {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        revalidations.update(1);
+        HttpResponseFuture<Void> fetch = delegate.executeAsync(conditionalRequest(request, cached), new CachingResponseHandler<>(key, request, cached, DiscardingResponseHandler.INSTANCE));
+        fetch.addListener(() -> revalidating.remove(key), directExecutor());
+    }
+
+    private Request fetchRequest(Request request, CacheEntry cached)
+    {
+        if (cached == null || cached.eTag().isEmpty()) {
+            misses.update(1);
+        }
+        else {
+            revalidations.update(1);
+        }
+        return conditionalRequest(request, cached);
+    }
+
+    private static Request conditionalRequest(Request request, CacheEntry cached)
+    {
+        if (cached == null || cached.eTag().isEmpty()) {
+            return request;
+        }
+        return Request.Builder.fromRequest(request)
+                .setHeader(IF_NONE_MATCH, cached.eTag().get())
+                .build();
+    }
+
+    private void store(String key, StoredResponse response, ListMultimap<HeaderName, String> selectingHeaders, long now)
+    {
+        Optional<Freshness> freshness = freshness(response.statusCode(), response.headers(), now);
+        if (freshness.isPresent()) {
+            cache.put(key, new CacheEntry(response, selectingHeaders, freshness.get()));
+        }
+        else {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Returns the freshness of a response with the status and headers, or empty if the response must not be stored.
+     */
+    private static Optional<Freshness> freshness(int statusCode, ListMultimap<HeaderName, String> headers, long now)
+    {
+        if (statusCode != OK.code() || varyHeaderNames(headers).isEmpty()) {
+            return Optional.empty();
+        }
+        CacheControl cacheControl = parseCacheControl(headers.get(CACHE_CONTROL));
+        if (cacheControl == null || cacheControl.isNoStore() || cacheControl.isPrivate()) {
+            return Optional.empty();
+        }
+
+        long maxAge = cacheControl.isNoCache() ? 0 : cacheControl.getMaxAge();
+        Optional<String> eTag = headers.get(ETAG).stream().findFirst();
+        if (maxAge < 0 || (maxAge == 0 && eTag.isEmpty())) {
+            // the response can never be served without a full request
+            return Optional.empty();
+        }
+
+        long age = parseSeconds(headers.get(AGE)).orElse(0);
+        long expiresNanos = now + SECONDS.toNanos(Math.max(0, maxAge - age));
+        long staleNanos = expiresNanos;
+        if (!cacheControl.isNoCache() && !cacheControl.isMustRevalidate()) {
+            String staleWhileRevalidate = cacheControl.getCacheExtension().get(STALE_WHILE_REVALIDATE);
+            if (staleWhileRevalidate != null) {
+                staleNanos += SECONDS.toNanos(parseSeconds(List.of(staleWhileRevalidate)).orElse(0));
+            }
+        }
+        return Optional.of(new Freshness(eTag, expiresNanos, staleNanos));
+    }
+
+    /**
+     * Returns the names of the headers listed in the Vary header, or empty if the response varies on anything.
+     */
+    private static Optional<Set<HeaderName>> varyHeaderNames(ListMultimap<HeaderName, String> headers)
+    {
+        Set<String> names = headers.get(VARY).stream()
+                .flatMap(Splitter.on(',').trimResults().omitEmptyStrings()::splitToStream)
+                .collect(toImmutableSet());
+        if (names.contains("*")) {
+            return Optional.empty();
+        }
+        return Optional.of(names.stream()
+                .map(HeaderName::of)
+                .collect(toImmutableSet()));
+    }
+
+    private static ListMultimap<HeaderName, String> selectingHeaders(Request request, Set<HeaderName> names)
+    {
+        ImmutableListMultimap.Builder<HeaderName, String> builder = ImmutableListMultimap.builder();
+        for (HeaderName name : names) {
+            builder.putAll(name, request.getHeaders().get(name));
+        }
+        return builder.build();
+    }
+
+    private static CacheControl parseCacheControl(List<String> values)
+    {
+        try {
+            return CacheControl.valueOf(Joiner.on(',').join(values));
+        }
+        catch (RuntimeException e) {
+            // malformed directives disable caching
+            return null;
+        }
+    }
+
+    private static OptionalLong parseSeconds(List<String> values)
+    {
+        if (values.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Math.max(0, Long.parseLong(values.getFirst().trim())));
+        }
+        catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private record Freshness(Optional<String> eTag, long expiresNanos, long staleNanos) {}
+
+    private record CacheEntry(StoredResponse response, ListMultimap<HeaderName, String> selectingHeaders, Freshness freshness)
+    {
+        Optional<String> eTag()
+        {
+            return freshness.eTag();
+        }
+
+        long expiresNanos()
+        {
+            return freshness.expiresNanos();
+        }
+
+        long staleNanos()
+        {
+            return freshness.staleNanos();
+        }
+
+        int weight()
+        {
+            int headers = response.headers().entries().stream()
+                    .mapToInt(entry -> entry.getKey().toString().length() + entry.getValue().length())
+                    .sum();
+            return saturatedCast((long) response.body().length + headers + ENTRY_OVERHEAD);
+        }
+    }
+
+    private record StoredResponse(HttpVersion httpVersion, int statusCode, ListMultimap<HeaderName, String> headers, byte[] body)
+    {
+        StoredResponse withHeaders(ListMultimap<HeaderName, String> updated)
+        {
+            // headers of a 304 response update the stored headers with the same name
+            ImmutableListMultimap.Builder<HeaderName, String> builder = ImmutableListMultimap.builder();
+            headers.asMap().forEach((name, values) -> {
+                if (!updated.containsKey(name)) {
+                    builder.putAll(name, values);
+                }
+            });
+            builder.putAll(updated);
+            return new StoredResponse(httpVersion, statusCode, builder.build(), body);
+        }
+
+        Response toResponse()
+        {
+            return new BufferedResponse(this);
+        }
+    }
+
+    private static class BufferedResponse
+            implements Response
+    {
+        private final StoredResponse response;
+        private final InputStream inputStream;
+
+        private BufferedResponse(StoredResponse response)
+        {
+            this.response = requireNonNull(response, "response is null");
+            this.inputStream = new ByteArrayInputStream(response.body());
+        }
+
+        @Override
+        public HttpVersion getHttpVersion()
+        {
+            return response.httpVersion();
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return response.statusCode();
+        }
+
+        @Override
+        public ListMultimap<HeaderName, String> getHeaders()
+        {
+            return response.headers();
+        }
+
+        @Override
+        public Content getContent()
+        {
+            return new BytesContent(response.body());
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            return inputStream;
+        }
+
+        @Override
+        public long getBytesRead()
+        {
+            return response.body().length;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("statusCode", getStatusCode())
+                    .add("headers", getHeaders())
+                    .toString();
+        }
+    }
+
+    /**
+     * Stores the response if its headers allow it, and passes the stored or revalidated response
+     * to the handler of the caller. Responses that are not stored are passed through as received.
+     */
+    private class CachingResponseHandler<T, E extends Exception>
+            implements ResponseHandler<T, E>
+    {
+        private final String key;
+        private final Request request;
+        private final CacheEntry cached;
+        private final ResponseHandler<T, E> handler;
+
+        public CachingResponseHandler(String key, Request request, CacheEntry cached, ResponseHandler<T, E> handler)
+        {
+            this.key = requireNonNull(key, "key is null");
+            this.request = requireNonNull(request, "request is null");
+            this.cached = cached;
+            this.handler = requireNonNull(handler, "handler is null");
+        }
+
+        @Override
+        public T handleException(Request ignored, Exception exception)
+                throws E
+        {
+            return handler.handleException(request, exception);
+        }
+
+        @Override
+        public T handle(Request ignored, Response response)
+                throws E
+        {
+            long now = ticker.read();
+            ListMultimap<HeaderName, String> headers = ImmutableListMultimap.copyOf(response.getHeaders());
+            if (response.getStatusCode() == NOT_MODIFIED.code() && cached != null) {
+                notModified.update(1);
+                // freshness information of the 304 response replaces the stored one
+                StoredResponse revalidated = cached.response().withHeaders(headers);
+                store(key, revalidated, cached.selectingHeaders(), now);
+                return handler.handle(request, revalidated.toResponse());
+            }
+
+            Optional<Freshness> freshness = freshness(response.getStatusCode(), headers, now);
+            if (freshness.isEmpty()) {
+                cache.invalidate(key);
+                return handler.handle(request, response);
+            }
+
+            byte[] body;
+            try {
+                body = switch (response.getContent()) {
+                    case BytesContent(byte[] bytes) -> bytes;
+                    case InputStreamContent(InputStream inputStream) -> inputStream.readAllBytes();
+                };
+            }
+            catch (IOException e) {
+                return handler.handleException(request, e);
+            }
+            StoredResponse stored = new StoredResponse(response.getHttpVersion(), response.getStatusCode(), headers, body);
+            ListMultimap<HeaderName, String> selectingHeaders = selectingHeaders(request, varyHeaderNames(headers).orElseThrow());
+            cache.put(key, new CacheEntry(stored, selectingHeaders, freshness.get()));
+            return handler.handle(request, stored.toResponse());
+        }
+    }
+
+    private static class DiscardingResponseHandler
+            implements ResponseHandler<Void, RuntimeException>
+    {
+        private static final DiscardingResponseHandler INSTANCE = new DiscardingResponseHandler();
+
+        @Override
+        public Void handleException(Request request, Exception exception)
+        {
+            // keep serving the stale response until it expires
+            return null;
+        }
+
+        @Override
+        public Void handle(Request request, Response response)
+        {
+            return null;
+        }
+    }
+
+    private static class CachedResponseFuture<T>
+            extends AbstractFuture<T>
+            implements HttpResponseFuture<T>
+    {
+        public static <T> CachedResponseFuture<T> handle(Callable<T> callable)
+        {
+            CachedResponseFuture<T> future = new CachedResponseFuture<>();
+            try {
+                future.set(callable.call());
+            }
+            catch (Throwable t) {
+                future.setException(t);
+            }
+            return future;
+        }
+
+        @Override
+        public String getState()
+        {
+            return "CACHED";
+        }
+    }
+}
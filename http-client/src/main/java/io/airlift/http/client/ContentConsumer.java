@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import com.google.common.annotations.Beta;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the body of a response in chunks. Methods are never called concurrently,
+ * and may be called on a network thread, so implementations must not block.
+ */
+@Beta
+public interface ContentConsumer<T>
+{
+    /**
+     * Called with the next chunk of the body. The buffer is only valid until {@code demand}
+     * is run, and no further content is delivered until it is run. {@code demand} may be run
+     * from any thread, after this method returns.
+     */
+    void onContent(ByteBuffer content, Runnable demand)
+            throws Exception;
+
+    /**
+     * Called after the whole body has been consumed. The returned value completes the response future.
+     */
+    T onComplete()
+            throws Exception;
+
+    /**
+     * Called when the response fails or is cancelled after {@link AsyncResponseHandler#handleResponse} returned.
+     */
+    default void onFailure(Throwable failure) {}
+}
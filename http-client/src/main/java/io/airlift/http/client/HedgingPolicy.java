@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.airlift.units.Duration;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Hedging policy for a {@link Request}. When no response has started after the configured
+ * percentile of the recent response times of the client, an additional identical request is sent.
+ * The first attempt to produce a response wins, and the others are cancelled.
+ * <p>
+ * Hedging is only applied to requests that can be retried according to the
+ * {@link RetryPolicy} of the request (idempotent methods by default), and hedged
+ * requests are charged to the retry budget of the client.
+ */
+public final class HedgingPolicy
+{
+    private final int percentile;
+    private final Duration minDelay;
+    private final int maxHedgedAttempts;
+
+    private HedgingPolicy(int percentile, Duration minDelay, int maxHedgedAttempts)
+    {
+        checkArgument(percentile >= 1 && percentile <= 99, "percentile must be between 1 and 99");
+        checkArgument(maxHedgedAttempts >= 1, "maxHedgedAttempts must be at least one");
+        this.percentile = percentile;
+        this.minDelay = requireNonNull(minDelay, "minDelay is null");
+        this.maxHedgedAttempts = maxHedgedAttempts;
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Percentile of the recent response times after which a hedged request is sent.
+     */
+    public int getPercentile()
+    {
+        return percentile;
+    }
+
+    /**
+     * Minimum delay before a hedged request is sent. This is also used when
+     * the client has not recorded any response times yet.
+     */
+    public Duration getMinDelay()
+    {
+        return minDelay;
+    }
+
+    public int getMaxHedgedAttempts()
+    {
+        return maxHedgedAttempts;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof HedgingPolicy that)) {
+            return false;
+        }
+        return percentile == that.percentile &&
+                maxHedgedAttempts == that.maxHedgedAttempts &&
+                Objects.equals(minDelay, that.minDelay);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(percentile, minDelay, maxHedgedAttempts);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("percentile", percentile)
+                .add("minDelay", minDelay)
+                .add("maxHedgedAttempts", maxHedgedAttempts)
+                .toString();
+    }
+
+    public static final class Builder
+    {
+        private int percentile = 95;
+        private Duration minDelay = new Duration(10, MILLISECONDS);
+        private int maxHedgedAttempts = 1;
+
+        private Builder() {}
+
+        @CanIgnoreReturnValue
+        public Builder setPercentile(int percentile)
+        {
+            this.percentile = percentile;
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setMinDelay(Duration minDelay)
+        {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setMaxHedgedAttempts(int maxHedgedAttempts)
+        {
+            this.maxHedgedAttempts = maxHedgedAttempts;
+            return this;
+        }
+
+        public HedgingPolicy build()
+        {
+            return new HedgingPolicy(percentile, minDelay, maxHedgedAttempts);
+        }
+    }
+}
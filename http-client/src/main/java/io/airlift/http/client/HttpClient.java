@@ -15,6 +15,7 @@
  */
 package io.airlift.http.client;
 
+import com.google.common.annotations.Beta;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
@@ -27,6 +28,18 @@ public interface HttpClient
 
     <T, E extends Exception> HttpResponseFuture<T> executeAsync(Request request, ResponseHandler<T, E> responseHandler);
 
+    /**
+     * Executes the given request, delivering the response body to the handler as it is received.
+     * <p>
+     * <b>Note:</b> {@link Request#getMaxResponseContentLength} is ignored. The default implementation
+     * reads the body on a blocking thread; clients should override it to consume the body without one.
+     */
+    @Beta
+    default <T> HttpResponseFuture<T> executeAsync(Request request, AsyncResponseHandler<T> responseHandler)
+    {
+        return executeAsync(request, new BlockingAsyncResponseHandler<>(responseHandler));
+    }
+
     /**
      * Executes the given request and returns a response stream.
      * <p>
@@ -33,12 +33,16 @@ import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 import jakarta.annotation.PostConstruct;
 import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -114,6 +118,8 @@ public class HttpClientConfig
     private DataSize http2InitialSessionReceiveWindowSize = DataSize.of(16, MEGABYTE);
     private DataSize http2InitialStreamReceiveWindowSize = DataSize.of(16, MEGABYTE);
     private DataSize http2InputBufferSize = DataSize.of(8, KILOBYTE);
+    private Optional<String> unixDomainSocketPath = Optional.empty();
+    private boolean deadlinePropagationEnabled = true;
 
     private String logPath = "var/log/";
     private boolean logEnabled;
@@ -123,10 +129,30 @@ public class HttpClientConfig
     private DataSize logBufferSize = DataSize.of(1, MEGABYTE);
     private Duration logFlushInterval = new Duration(10, SECONDS);
     private boolean logCompressionEnabled = true;
+    private LogFormat logFormat = LogFormat.TEXT;
     private boolean verifyHostname = true;
     private Optional<String> httpProxyUser = Optional.empty();
     private Optional<String> httpProxyPassword = Optional.empty();
     private boolean trackMemoryAllocations;
+    private double retryBudgetRatio = 0.2;
+    private int retryBudgetMaxBurst = 10;
+    private boolean circuitBreakerEnabled;
+    private int circuitBreakerWindowSize = 100;
+    private int circuitBreakerMinimumCalls = 20;
+    private double circuitBreakerFailureRateThreshold = 50;
+    private Duration circuitBreakerSlowCallDuration = new Duration(10, SECONDS);
+    private double circuitBreakerSlowCallRateThreshold = 100;
+    private Duration circuitBreakerOpenDuration = new Duration(30, SECONDS);
+    private int circuitBreakerHalfOpenCalls = 5;
+    private Optional<Integer> maxConcurrentRequestsPerDestination = Optional.empty();
+    private Duration dnsCacheTtl = new Duration(0, SECONDS);
+    private Duration dnsCacheNegativeTtl = new Duration(0, SECONDS);
+    private List<URI> keepWarmDestinations = ImmutableList.of();
+    private int keepWarmConnections = 1;
+    private Duration keepWarmInterval = new Duration(10, SECONDS);
+    private boolean responseCompressionEnabled;
+    private boolean requestCompressionEnabled;
+    private DataSize requestCompressionMinSize = DataSize.of(4, KILOBYTE);
 
     public boolean isVerifyHostname()
     {
@@ -154,6 +180,32 @@ public class HttpClientConfig
         return this;
     }
 
+    public Optional<String> getUnixDomainSocketPath()
+    {
+        return unixDomainSocketPath;
+    }
+
+    @Config("http-client.unix-domain-socket.path")
+    @ConfigDescription("Send all requests over the Unix domain socket at this path instead of TCP; the request URI still determines the path and Host header, and must use http")
+    public HttpClientConfig setUnixDomainSocketPath(String unixDomainSocketPath)
+    {
+        this.unixDomainSocketPath = Optional.ofNullable(unixDomainSocketPath);
+        return this;
+    }
+
+    public boolean isDeadlinePropagationEnabled()
+    {
+        return deadlinePropagationEnabled;
+    }
+
+    @Config("http-client.deadline-propagation.enabled")
+    @ConfigDescription("Limit the request timeout to the deadline of the request being handled and send the timeout to the server in a header")
+    public HttpClientConfig setDeadlinePropagationEnabled(boolean deadlinePropagationEnabled)
+    {
+        this.deadlinePropagationEnabled = deadlinePropagationEnabled;
+        return this;
+    }
+
     @NotNull
     @MinDuration("0ms")
     public Duration getConnectTimeout()
@@ -740,6 +792,20 @@ public class HttpClientConfig
         return this;
     }
 
+    @NotNull
+    public LogFormat getLogFormat()
+    {
+        return logFormat;
+    }
+
+    @Config("http-client.log.format")
+    @ConfigDescription("Format of the request log: TEXT, or BINARY segments that are converted to text with HttpClientLogReader")
+    public HttpClientConfig setLogFormat(LogFormat logFormat)
+    {
+        this.logFormat = logFormat;
+        return this;
+    }
+
     @NotNull
     public Optional<Duration> getTcpKeepAliveIdleTime()
     {
@@ -793,6 +859,281 @@ public class HttpClientConfig
         return this;
     }
 
+    @DecimalMin("0.0")
+    public double getRetryBudgetRatio()
+    {
+        return retryBudgetRatio;
+    }
+
+    @Config("http-client.retry-budget.ratio")
+    @ConfigDescription("Number of retries and hedged requests allowed per request, on average")
+    public HttpClientConfig setRetryBudgetRatio(double retryBudgetRatio)
+    {
+        this.retryBudgetRatio = retryBudgetRatio;
+        return this;
+    }
+
+    @Min(0)
+    public int getRetryBudgetMaxBurst()
+    {
+        return retryBudgetMaxBurst;
+    }
+
+    @Config("http-client.retry-budget.max-burst")
+    @ConfigDescription("Maximum number of retries and hedged requests allowed in a burst")
+    public HttpClientConfig setRetryBudgetMaxBurst(int retryBudgetMaxBurst)
+    {
+        this.retryBudgetMaxBurst = retryBudgetMaxBurst;
+        return this;
+    }
+
+    public boolean isCircuitBreakerEnabled()
+    {
+        return circuitBreakerEnabled;
+    }
+
+    @Config("http-client.circuit-breaker.enabled")
+    @ConfigDescription("Fail requests fast while a destination has a high failure or slow call rate")
+    public HttpClientConfig setCircuitBreakerEnabled(boolean circuitBreakerEnabled)
+    {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getCircuitBreakerWindowSize()
+    {
+        return circuitBreakerWindowSize;
+    }
+
+    @Config("http-client.circuit-breaker.window-size")
+    @ConfigDescription("Number of most recent calls to a destination used to compute the failure and slow call rates")
+    public HttpClientConfig setCircuitBreakerWindowSize(int circuitBreakerWindowSize)
+    {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getCircuitBreakerMinimumCalls()
+    {
+        return circuitBreakerMinimumCalls;
+    }
+
+    @Config("http-client.circuit-breaker.minimum-calls")
+    @ConfigDescription("Minimum number of calls in the window before the circuit breaker can open")
+    public HttpClientConfig setCircuitBreakerMinimumCalls(int circuitBreakerMinimumCalls)
+    {
+        this.circuitBreakerMinimumCalls = circuitBreakerMinimumCalls;
+        return this;
+    }
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    @DecimalMax("100.0")
+    public double getCircuitBreakerFailureRateThreshold()
+    {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    @Config("http-client.circuit-breaker.failure-rate-threshold")
+    @ConfigDescription("Percentage of failed calls at which the circuit breaker opens")
+    public HttpClientConfig setCircuitBreakerFailureRateThreshold(double circuitBreakerFailureRateThreshold)
+    {
+        this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getCircuitBreakerSlowCallDuration()
+    {
+        return circuitBreakerSlowCallDuration;
+    }
+
+    @Config("http-client.circuit-breaker.slow-call-duration")
+    @ConfigDescription("Calls taking longer than this are considered slow")
+    public HttpClientConfig setCircuitBreakerSlowCallDuration(Duration circuitBreakerSlowCallDuration)
+    {
+        this.circuitBreakerSlowCallDuration = circuitBreakerSlowCallDuration;
+        return this;
+    }
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    @DecimalMax("100.0")
+    public double getCircuitBreakerSlowCallRateThreshold()
+    {
+        return circuitBreakerSlowCallRateThreshold;
+    }
+
+    @Config("http-client.circuit-breaker.slow-call-rate-threshold")
+    @ConfigDescription("Percentage of slow calls at which the circuit breaker opens")
+    public HttpClientConfig setCircuitBreakerSlowCallRateThreshold(double circuitBreakerSlowCallRateThreshold)
+    {
+        this.circuitBreakerSlowCallRateThreshold = circuitBreakerSlowCallRateThreshold;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getCircuitBreakerOpenDuration()
+    {
+        return circuitBreakerOpenDuration;
+    }
+
+    @Config("http-client.circuit-breaker.open-duration")
+    @ConfigDescription("Time an open circuit breaker rejects calls before letting trial calls through")
+    public HttpClientConfig setCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration)
+    {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+        return this;
+    }
+
+    @Min(1)
+    public int getCircuitBreakerHalfOpenCalls()
+    {
+        return circuitBreakerHalfOpenCalls;
+    }
+
+    @Config("http-client.circuit-breaker.half-open-calls")
+    @ConfigDescription("Number of trial calls used to decide whether a half-open circuit breaker closes")
+    public HttpClientConfig setCircuitBreakerHalfOpenCalls(int circuitBreakerHalfOpenCalls)
+    {
+        this.circuitBreakerHalfOpenCalls = circuitBreakerHalfOpenCalls;
+        return this;
+    }
+
+    public Optional<@Min(1) Integer> getMaxConcurrentRequestsPerDestination()
+    {
+        return maxConcurrentRequestsPerDestination;
+    }
+
+    @Config("http-client.max-concurrent-requests-per-destination")
+    @ConfigDescription("Maximum number of in-flight requests per destination; additional requests are rejected instead of queued")
+    public HttpClientConfig setMaxConcurrentRequestsPerDestination(Integer maxConcurrentRequestsPerDestination)
+    {
+        this.maxConcurrentRequestsPerDestination = Optional.ofNullable(maxConcurrentRequestsPerDestination);
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0ms")
+    public Duration getDnsCacheTtl()
+    {
+        return dnsCacheTtl;
+    }
+
+    @Config("http-client.dns-cache.ttl")
+    @ConfigDescription("Time resolved host addresses are cached; cached addresses are refreshed in the background before they expire")
+    public HttpClientConfig setDnsCacheTtl(Duration dnsCacheTtl)
+    {
+        this.dnsCacheTtl = dnsCacheTtl;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0ms")
+    public Duration getDnsCacheNegativeTtl()
+    {
+        return dnsCacheNegativeTtl;
+    }
+
+    @Config("http-client.dns-cache.negative-ttl")
+    @ConfigDescription("Time failed host name resolutions are cached")
+    public HttpClientConfig setDnsCacheNegativeTtl(Duration dnsCacheNegativeTtl)
+    {
+        this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+        return this;
+    }
+
+    @NotNull
+    public List<URI> getKeepWarmDestinations()
+    {
+        return keepWarmDestinations;
+    }
+
+    @Config("http-client.keep-warm.destinations")
+    @ConfigDescription("Comma separated list of URIs of destinations for which connections are kept open")
+    public HttpClientConfig setKeepWarmDestinations(String keepWarmDestinations)
+    {
+        this.keepWarmDestinations = Splitter
+                .on(',')
+                .trimResults()
+                .omitEmptyStrings()
+                .splitToStream(requireNonNull(keepWarmDestinations, "keepWarmDestinations is null"))
+                .map(URI::create)
+                .collect(toImmutableList());
+        return this;
+    }
+
+    @Min(1)
+    public int getKeepWarmConnections()
+    {
+        return keepWarmConnections;
+    }
+
+    @Config("http-client.keep-warm.connections")
+    @ConfigDescription("Minimum number of connections kept open to each keep warm destination")
+    public HttpClientConfig setKeepWarmConnections(int keepWarmConnections)
+    {
+        this.keepWarmConnections = keepWarmConnections;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getKeepWarmInterval()
+    {
+        return keepWarmInterval;
+    }
+
+    @Config("http-client.keep-warm.interval")
+    @ConfigDescription("Interval at which closed connections to keep warm destinations are reopened")
+    public HttpClientConfig setKeepWarmInterval(Duration keepWarmInterval)
+    {
+        this.keepWarmInterval = keepWarmInterval;
+        return this;
+    }
+
+    public boolean isResponseCompressionEnabled()
+    {
+        return responseCompressionEnabled;
+    }
+
+    @Config("http-client.response-compression.enabled")
+    @ConfigDescription("Advertise supported content encodings and decompress compressed responses")
+    public HttpClientConfig setResponseCompressionEnabled(boolean responseCompressionEnabled)
+    {
+        this.responseCompressionEnabled = responseCompressionEnabled;
+        return this;
+    }
+
+    public boolean isRequestCompressionEnabled()
+    {
+        return requestCompressionEnabled;
+    }
+
+    @Config("http-client.request-compression.enabled")
+    @ConfigDescription("Compress request bodies with gzip")
+    public HttpClientConfig setRequestCompressionEnabled(boolean requestCompressionEnabled)
+    {
+        this.requestCompressionEnabled = requestCompressionEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getRequestCompressionMinSize()
+    {
+        return requestCompressionMinSize;
+    }
+
+    @Config("http-client.request-compression.min-size")
+    @ConfigDescription("Minimum size of request bodies that are compressed")
+    public HttpClientConfig setRequestCompressionMinSize(DataSize requestCompressionMinSize)
+    {
+        this.requestCompressionMinSize = requestCompressionMinSize;
+        return this;
+    }
+
     @AssertTrue(message = "either both http-client.max-heap-memory and http-client.max-direct-memory are set or none of them")
     public boolean eitherBothMemorySettingsAreSetOrNone()
     {
@@ -812,4 +1153,10 @@ public class HttpClientConfig
                     new Message("http-client.http-proxy.secure can be enabled only when http-client.http-proxy is set")));
         }
     }
+
+    public enum LogFormat
+    {
+        TEXT,
+        BINARY
+    }
 }
@@ -19,13 +19,20 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Ints;
 import io.airlift.json.JsonCodec;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Set;
 
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static io.airlift.http.client.HeaderNames.CONTENT_TYPE;
 import static io.airlift.http.client.ResponseHandlerUtils.getResponseBytes;
+import static io.airlift.http.client.ResponseHandlerUtils.getResponseStream;
 import static io.airlift.http.client.ResponseHandlerUtils.isJsonUtf8Content;
 import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class JsonResponseHandler<T>
@@ -41,7 +48,25 @@ public class JsonResponseHandler<T>
         return new JsonResponseHandler<>(jsonCodec, firstSuccessfulResponseCode, otherSuccessfulResponseCodes);
     }
 
+    /**
+     * Creates a handler that decodes the response directly from the response stream,
+     * without first copying the whole body into a single array. Only a bounded prefix
+     * of the body is retained to report decoding errors.
+     */
+    public static <T> JsonResponseHandler<T> createStreamingJsonResponseHandler(JsonCodec<T> jsonCodec)
+    {
+        return new JsonResponseHandler<>(jsonCodec, true, 200, 201, 202, 203, 204, 205, 206);
+    }
+
+    public static <T> JsonResponseHandler<T> createStreamingJsonResponseHandler(JsonCodec<T> jsonCodec, int firstSuccessfulResponseCode, int... otherSuccessfulResponseCodes)
+    {
+        return new JsonResponseHandler<>(jsonCodec, true, firstSuccessfulResponseCode, otherSuccessfulResponseCodes);
+    }
+
+    private static final int MAX_ERROR_BODY_PREFIX = 8192;
+
     private final JsonCodec<T> jsonCodec;
+    private final boolean streaming;
     private final Set<Integer> successfulResponseCodes;
 
     private JsonResponseHandler(JsonCodec<T> jsonCodec)
@@ -50,8 +75,14 @@ public class JsonResponseHandler<T>
     }
 
     private JsonResponseHandler(JsonCodec<T> jsonCodec, int firstSuccessfulResponseCode, int... otherSuccessfulResponseCodes)
+    {
+        this(jsonCodec, false, firstSuccessfulResponseCode, otherSuccessfulResponseCodes);
+    }
+
+    private JsonResponseHandler(JsonCodec<T> jsonCodec, boolean streaming, int firstSuccessfulResponseCode, int... otherSuccessfulResponseCodes)
     {
         this.jsonCodec = jsonCodec;
+        this.streaming = streaming;
         this.successfulResponseCodes = ImmutableSet.<Integer>builder().add(firstSuccessfulResponseCode).addAll(Ints.asList(otherSuccessfulResponseCodes)).build();
     }
 
@@ -75,9 +106,12 @@ public class JsonResponseHandler<T>
             throw new UnexpectedResponseException("Expected %s response from server but got %s".formatted(JSON_UTF_8, response.getHeader(CONTENT_TYPE).orElse(null)), request, response);
         }
 
-        // TODO avoid buffering whole response before invoking the JSON codec.
+        if (streaming) {
+            return decodeStreaming(request, response);
+        }
+
         // When response is an InputStream this requires additional data copy and increases peak memory usage.
-        // The data buffering is used only for error reporting, so perhaps it can be applied only on a retry.
+        // Use createStreamingJsonResponseHandler to decode directly from the response stream.
         byte[] bytes = getResponseBytes(request, response);
 
         try {
@@ -88,4 +122,158 @@ public class JsonResponseHandler<T>
             throw new IllegalArgumentException("Unable to create %s from JSON response: <%s>".formatted(jsonCodec.getType(), json), e);
         }
     }
+
+    private T decodeStreaming(Request request, Response response)
+    {
+        if (response.getContent() instanceof Response.BytesContent(byte[] bytes)) {
+            try {
+                return jsonCodec.fromJson(bytes);
+            }
+            catch (IllegalArgumentException e) {
+                throw invalidJson(new String(bytes, 0, min(bytes.length, MAX_ERROR_BODY_PREFIX), UTF_8), bytes.length > MAX_ERROR_BODY_PREFIX, e);
+            }
+        }
+
+        InputStream responseStream = getResponseStream(response);
+        PrefixRecordingInputStream stream = new PrefixRecordingInputStream(responseStream, MAX_ERROR_BODY_PREFIX);
+        try (responseStream) {
+            try {
+                return jsonCodec.fromJson(stream);
+            }
+            catch (IllegalArgumentException e) {
+                // the codec reports a failure reading the stream as invalid JSON
+                if (stream.getReadFailure() != null) {
+                    throw new UncheckedIOException("Failed reading response from server: " + request.getUri().toASCIIString(), stream.getReadFailure());
+                }
+                throw invalidJson(stream.getPrefix(), stream.hasMoreData(), e);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed reading response from server: " + request.getUri().toASCIIString(), e);
+        }
+    }
+
+    private IllegalArgumentException invalidJson(String prefix, boolean truncated, IllegalArgumentException cause)
+    {
+        return new IllegalArgumentException("Unable to create %s from JSON response: <%s%s>".formatted(jsonCodec.getType(), prefix, truncated ? "..." : ""), cause);
+    }
+
+    /**
+     * Retains the first bytes read from the stream, so a decoding error can be reported
+     * without buffering the whole response. Closing this stream does not close the
+     * underlying stream.
+     */
+    private static class PrefixRecordingInputStream
+            extends FilterInputStream
+    {
+        private final byte[] prefix;
+        private int prefixLength;
+        private boolean truncated;
+        private IOException readFailure;
+
+        public PrefixRecordingInputStream(InputStream in, int maxPrefixLength)
+        {
+            super(in);
+            this.prefix = new byte[maxPrefixLength];
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            int value;
+            try {
+                value = super.read();
+            }
+            catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+            if (value >= 0) {
+                if (prefixLength < prefix.length) {
+                    prefix[prefixLength++] = (byte) value;
+                }
+                else {
+                    truncated = true;
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            int read;
+            try {
+                read = super.read(buffer, offset, length);
+            }
+            catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+            if (read > 0) {
+                record(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n)
+                throws IOException
+        {
+            // route skipped bytes through read so they are recorded
+            byte[] buffer = new byte[(int) min(n, 4096)];
+            int read = read(buffer, 0, buffer.length);
+            return max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        @Override
+        public void close()
+        {
+            // the codec closes the stream when it fails, but the remaining data is still needed
+        }
+
+        private void record(byte[] buffer, int offset, int length)
+        {
+            int copied = min(length, prefix.length - prefixLength);
+            System.arraycopy(buffer, offset, prefix, prefixLength, copied);
+            prefixLength += copied;
+            if (copied < length) {
+                truncated = true;
+            }
+        }
+
+        public String getPrefix()
+        {
+            return new String(prefix, 0, prefixLength, UTF_8);
+        }
+
+        public IOException getReadFailure()
+        {
+            return readFailure;
+        }
+
+        /**
+         * Returns true if the stream has data after the recorded prefix.
+         */
+        public boolean hasMoreData()
+        {
+            if (truncated) {
+                return true;
+            }
+            try {
+                return in.read() >= 0;
+            }
+            catch (IOException e) {
+                return false;
+            }
+        }
+    }
 }
@@ -46,6 +46,8 @@ public final class Request
     private final Optional<DataSize> maxResponseContentLength;
     private final Optional<SpanBuilder> spanBuilder;
     private final boolean followRedirects;
+    private final Optional<RetryPolicy> retryPolicy;
+    private final Optional<HedgingPolicy> hedgingPolicy;
 
     private Request(
             Optional<HttpVersion> httpVersion,
@@ -57,7 +59,9 @@ public final class Request
             BodyGenerator bodyGenerator,
             Optional<DataSize> maxResponseContentLength,
             Optional<SpanBuilder> spanBuilder,
-            boolean followRedirects)
+            boolean followRedirects,
+            Optional<RetryPolicy> retryPolicy,
+            Optional<HedgingPolicy> hedgingPolicy)
     {
         requireNonNull(uri, "uri is null");
         checkArgument(uri.getHost() != null, "uri does not have a host: %s", uri);
@@ -76,6 +80,8 @@ public final class Request
         this.maxResponseContentLength = requireNonNull(maxResponseContentLength, "maxResponseContentLength is null");
         this.spanBuilder = requireNonNull(spanBuilder, "spanBuilder is null");
         this.followRedirects = followRedirects;
+        this.retryPolicy = requireNonNull(retryPolicy, "retryPolicy is null");
+        this.hedgingPolicy = requireNonNull(hedgingPolicy, "hedgingPolicy is null");
     }
 
     public static Request.Builder builder()
@@ -151,6 +157,16 @@ public final class Request
         return followRedirects;
     }
 
+    public Optional<RetryPolicy> getRetryPolicy()
+    {
+        return retryPolicy;
+    }
+
+    public Optional<HedgingPolicy> getHedgingPolicy()
+    {
+        return hedgingPolicy;
+    }
+
     @Override
     public String toString()
     {
@@ -165,6 +181,8 @@ public final class Request
                 .add("bodyGenerator", bodyGenerator)
                 .add("spanBuilder", spanBuilder.isPresent() ? "present" : "empty")
                 .add("followRedirects", followRedirects)
+                .add("retryPolicy", retryPolicy.orElse(null))
+                .add("hedgingPolicy", hedgingPolicy.orElse(null))
                 .toString();
     }
 
@@ -183,7 +201,9 @@ public final class Request
                 Objects.equals(maxResponseContentLength, r.maxResponseContentLength) &&
                 Objects.equals(bodyGenerator, r.bodyGenerator) &&
                 Objects.equals(spanBuilder, r.spanBuilder) &&
-                followRedirects == r.followRedirects;
+                followRedirects == r.followRedirects &&
+                Objects.equals(retryPolicy, r.retryPolicy) &&
+                Objects.equals(hedgingPolicy, r.hedgingPolicy);
     }
 
     @Override
@@ -199,7 +219,9 @@ public final class Request
                 maxResponseContentLength,
                 bodyGenerator,
                 spanBuilder,
-                followRedirects);
+                followRedirects,
+                retryPolicy,
+                hedgingPolicy);
     }
 
     public static final class Builder
@@ -253,6 +275,8 @@ public final class Request
             request.getRequestTimeout().ifPresent(builder::setRequestTimeout);
             request.getIdleTimeout().ifPresent(builder::setIdleTimeout);
             request.getMaxResponseContentLength().ifPresent(builder::setMaxResponseContentLength);
+            request.getRetryPolicy().ifPresent(builder::setRetryPolicy);
+            request.getHedgingPolicy().ifPresent(builder::setHedgingPolicy);
 
             return builder;
         }
@@ -267,6 +291,8 @@ public final class Request
         private Optional<Duration> requestTimeout = Optional.empty();
         private Optional<Duration> idleTimeout = Optional.empty();
         private Optional<DataSize> maxResponseContentLength = Optional.empty();
+        private Optional<RetryPolicy> retryPolicy = Optional.empty();
+        private Optional<HedgingPolicy> hedgingPolicy = Optional.empty();
 
         @CanIgnoreReturnValue
         public Builder setUri(URI uri)
@@ -387,6 +413,20 @@ public final class Request
             return this;
         }
 
+        @CanIgnoreReturnValue
+        public Builder setRetryPolicy(RetryPolicy retryPolicy)
+        {
+            this.retryPolicy = Optional.ofNullable(retryPolicy);
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setHedgingPolicy(HedgingPolicy hedgingPolicy)
+        {
+            this.hedgingPolicy = Optional.ofNullable(hedgingPolicy);
+            return this;
+        }
+
         public Request build()
         {
             return new Request(
@@ -399,7 +439,9 @@ public final class Request
                     bodyGenerator,
                     maxResponseContentLength,
                     Optional.ofNullable(spanBuilder),
-                    followRedirects);
+                    followRedirects,
+                    retryPolicy,
+                    hedgingPolicy);
         }
     }
 
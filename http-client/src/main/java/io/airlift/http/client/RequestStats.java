@@ -36,12 +36,18 @@ public class RequestStats
 
     private final CounterStat requestFailed = new CounterStat();
     private final CounterStat requestCanceled = new CounterStat();
+    private final CounterStat requestRetried = new CounterStat();
+    private final CounterStat requestHedged = new CounterStat();
 
     private final TimeStat requestTime = new TimeStat();
     private final TimeStat responseTime = new TimeStat();
     private final DistributionStat readBytes = new DistributionStat();
     private final DistributionStat writtenBytes = new DistributionStat();
 
+    private final DistributionStat requestCompressionRatio = new DistributionStat();
+    private final TimeStat requestCompressionCpuTime = new TimeStat();
+    private final CounterStat compressedResponse = new CounterStat();
+
     @Inject
     public RequestStats() {}
 
@@ -68,6 +74,22 @@ public class RequestStats
         }
     }
 
+    /**
+     * Records a compressed request body. The ratio is recorded as the compressed size in percent of the original size.
+     */
+    public void recordRequestCompressed(long uncompressedBytes, long compressedBytes, Duration cpuTime)
+    {
+        if (uncompressedBytes > 0) {
+            requestCompressionRatio.add(compressedBytes * 100 / uncompressedBytes);
+        }
+        requestCompressionCpuTime.add(cpuTime);
+    }
+
+    public void recordResponseCompressed()
+    {
+        compressedResponse.update(1);
+    }
+
     public void recordRequestFailed()
     {
         requestFailed.update(1);
@@ -78,6 +100,16 @@ public class RequestStats
         requestCanceled.update(1);
     }
 
+    public void recordRequestRetried()
+    {
+        requestRetried.update(1);
+    }
+
+    public void recordRequestHedged()
+    {
+        requestHedged.update(1);
+    }
+
     @Managed
     @Nested
     public CounterStat getAllResponse()
@@ -134,6 +166,20 @@ public class RequestStats
         return requestCanceled;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getRequestRetried()
+    {
+        return requestRetried;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRequestHedged()
+    {
+        return requestHedged;
+    }
+
     @Managed
     @Nested
     public TimeStat getRequestTime()
@@ -161,4 +207,25 @@ public class RequestStats
     {
         return writtenBytes;
     }
+
+    @Managed
+    @Nested
+    public DistributionStat getRequestCompressionRatio()
+    {
+        return requestCompressionRatio;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getRequestCompressionCpuTime()
+    {
+        return requestCompressionCpuTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCompressedResponse()
+    {
+        return compressedResponse;
+    }
 }
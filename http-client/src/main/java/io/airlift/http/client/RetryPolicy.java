@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.airlift.units.Duration;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.getCausalChain;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Retry policy for a {@link Request}. A request is retried when it fails with an I/O error
+ * or a timeout, or when the response has one of the retryable status codes. Only requests
+ * with an idempotent method are retried, unless non-idempotent retries are explicitly allowed.
+ * Requests with a streaming body are never retried, because the body cannot be sent again.
+ * <p>
+ * Retries are delayed using exponential backoff with jitter, and are additionally limited
+ * by the retry budget of the client.
+ */
+public final class RetryPolicy
+{
+    private static final Set<String> IDEMPOTENT_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE");
+
+    private final int maxAttempts;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final Set<Integer> retryableStatusCodes;
+    private final boolean retryNonIdempotent;
+
+    private RetryPolicy(int maxAttempts, Duration initialDelay, Duration maxDelay, Set<Integer> retryableStatusCodes, boolean retryNonIdempotent)
+    {
+        checkArgument(maxAttempts >= 1, "maxAttempts must be at least one");
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = requireNonNull(initialDelay, "initialDelay is null");
+        this.maxDelay = requireNonNull(maxDelay, "maxDelay is null");
+        checkArgument(initialDelay.compareTo(maxDelay) <= 0, "initialDelay must not be greater than maxDelay");
+        this.retryableStatusCodes = ImmutableSet.copyOf(requireNonNull(retryableStatusCodes, "retryableStatusCodes is null"));
+        this.retryNonIdempotent = retryNonIdempotent;
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    public Duration getInitialDelay()
+    {
+        return initialDelay;
+    }
+
+    public Duration getMaxDelay()
+    {
+        return maxDelay;
+    }
+
+    public Set<Integer> getRetryableStatusCodes()
+    {
+        return retryableStatusCodes;
+    }
+
+    public boolean isRetryNonIdempotent()
+    {
+        return retryNonIdempotent;
+    }
+
+    /**
+     * Returns true if the request may be sent more than once, either as a retry or as a hedged attempt.
+     */
+    public boolean canRetry(Request request)
+    {
+        return (retryNonIdempotent || isIdempotentMethod(request.getMethod())) && isReplayable(request.getBodyGenerator());
+    }
+
+    /**
+     * Returns true if every attempt sends the complete body.
+     */
+    public static boolean isReplayable(BodyGenerator bodyGenerator)
+    {
+        return switch (bodyGenerator) {
+            case null -> true;
+            case ByteBufferBodyGenerator _, FileBodyGenerator _, StaticBodyGenerator _, StreamingJsonBodyGenerator<?> _ -> true;
+            // the source input stream can only be read once
+            case StreamingBodyGenerator _ -> false;
+        };
+    }
+
+    public static boolean isIdempotentMethod(String method)
+    {
+        return IDEMPOTENT_METHODS.contains(method);
+    }
+
+    public boolean isRetryableStatus(int statusCode)
+    {
+        return retryableStatusCodes.contains(statusCode);
+    }
+
+    public boolean isRetryableException(Throwable throwable)
+    {
+        return getCausalChain(throwable).stream()
+                .anyMatch(cause -> cause instanceof IOException || cause instanceof TimeoutException);
+    }
+
+    /**
+     * Returns the delay before the given retry (starting at one), using exponential
+     * backoff with "equal jitter": a random delay between half and all of the backoff.
+     * A {@code Retry-After} value sent by the server takes precedence, but is still
+     * capped by the max delay.
+     */
+    public Duration getRetryDelay(int retry, Optional<Duration> retryAfter)
+    {
+        checkArgument(retry >= 1, "retry must be at least one");
+        long maxDelayNanos = maxDelay.roundTo(NANOSECONDS);
+        if (retryAfter.isPresent()) {
+            return new Duration(min(retryAfter.get().roundTo(NANOSECONDS), maxDelayNanos), NANOSECONDS).convertToMostSuccinctTimeUnit();
+        }
+        long backoff = initialDelay.roundTo(NANOSECONDS);
+        for (int i = 1; i < retry && backoff < maxDelayNanos; i++) {
+            backoff *= 2;
+        }
+        backoff = min(backoff, maxDelayNanos);
+        long half = backoff / 2;
+        long delay = half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+        return new Duration(delay, NANOSECONDS).convertToMostSuccinctTimeUnit();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof RetryPolicy that)) {
+            return false;
+        }
+        return maxAttempts == that.maxAttempts &&
+                retryNonIdempotent == that.retryNonIdempotent &&
+                Objects.equals(initialDelay, that.initialDelay) &&
+                Objects.equals(maxDelay, that.maxDelay) &&
+                Objects.equals(retryableStatusCodes, that.retryableStatusCodes);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(maxAttempts, initialDelay, maxDelay, retryableStatusCodes, retryNonIdempotent);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("maxAttempts", maxAttempts)
+                .add("initialDelay", initialDelay)
+                .add("maxDelay", maxDelay)
+                .add("retryableStatusCodes", retryableStatusCodes)
+                .add("retryNonIdempotent", retryNonIdempotent)
+                .toString();
+    }
+
+    public static final class Builder
+    {
+        private int maxAttempts = 3;
+        private Duration initialDelay = new Duration(100, MILLISECONDS);
+        private Duration maxDelay = new Duration(1, SECONDS);
+        private Set<Integer> retryableStatusCodes = ImmutableSet.of(429, 502, 503, 504);
+        private boolean retryNonIdempotent;
+
+        private Builder() {}
+
+        @CanIgnoreReturnValue
+        public Builder setMaxAttempts(int maxAttempts)
+        {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setInitialDelay(Duration initialDelay)
+        {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setMaxDelay(Duration maxDelay)
+        {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setRetryableStatusCodes(Set<Integer> retryableStatusCodes)
+        {
+            this.retryableStatusCodes = retryableStatusCodes;
+            return this;
+        }
+
+        @CanIgnoreReturnValue
+        public Builder setRetryNonIdempotent(boolean retryNonIdempotent)
+        {
+            this.retryNonIdempotent = retryNonIdempotent;
+            return this;
+        }
+
+        public RetryPolicy build()
+        {
+            return new RetryPolicy(maxAttempts, initialDelay, maxDelay, retryableStatusCodes, retryNonIdempotent);
+        }
+    }
+}
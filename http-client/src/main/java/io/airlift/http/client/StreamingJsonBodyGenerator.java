@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import io.airlift.json.JsonCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serializes the instance as JSON while the request body is sent, instead of
+ * materializing the whole body when the request is built like {@link JsonBodyGenerator}.
+ * The body is sent with chunked transfer encoding, and can optionally be compressed with gzip.
+ */
+public final class StreamingJsonBodyGenerator<T>
+        implements BodyGenerator
+{
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final JsonCodec<T> jsonCodec;
+    private final T instance;
+    private final boolean gzip;
+
+    public static <T> StreamingJsonBodyGenerator<T> streamingJsonBodyGenerator(JsonCodec<T> jsonCodec, T instance)
+    {
+        return new StreamingJsonBodyGenerator<>(jsonCodec, instance, false);
+    }
+
+    public static <T> StreamingJsonBodyGenerator<T> gzipStreamingJsonBodyGenerator(JsonCodec<T> jsonCodec, T instance)
+    {
+        return new StreamingJsonBodyGenerator<>(jsonCodec, instance, true);
+    }
+
+    private StreamingJsonBodyGenerator(JsonCodec<T> jsonCodec, T instance, boolean gzip)
+    {
+        this.jsonCodec = requireNonNull(jsonCodec, "jsonCodec is null");
+        this.instance = requireNonNull(instance, "instance is null");
+        this.gzip = gzip;
+    }
+
+    public String contentType()
+    {
+        return JSON_UTF_8.toString();
+    }
+
+    public Optional<String> contentEncoding()
+    {
+        return gzip ? Optional.of("gzip") : Optional.empty();
+    }
+
+    /**
+     * Writes the (optionally compressed) body to the output. The output is not closed, so
+     * that a failure can be reported before the body is completed.
+     */
+    public void write(OutputStream output)
+            throws IOException
+    {
+        if (!gzip) {
+            jsonCodec.toJson(instance, output);
+            return;
+        }
+        GZIPOutputStream gzipOutput = new GZIPOutputStream(output, GZIP_BUFFER_SIZE);
+        jsonCodec.toJson(instance, gzipOutput);
+        gzipOutput.finish();
+    }
+}
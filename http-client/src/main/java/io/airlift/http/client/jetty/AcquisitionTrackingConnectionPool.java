@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import org.eclipse.jetty.client.Connection;
+import org.eclipse.jetty.client.Destination;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.transport.HttpDestination;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The default connection pool of the client, which counts the connections it hands out to
+ * requests. The first use of a connection that was opened while requests were waiting for one
+ * is a cold acquisition, and any other use, including the first use of a connection opened by
+ * warm up, is a warm acquisition.
+ */
+class AcquisitionTrackingConnectionPool
+        extends MultiplexConnectionPool
+{
+    private final HttpDestination destination;
+    private final ConnectionStats stats;
+    // connections opened for waiting requests that have not been handed out yet
+    private final Set<Connection> openedOnDemand = ConcurrentHashMap.newKeySet();
+
+    AcquisitionTrackingConnectionPool(Destination destination, ConnectionStats stats)
+    {
+        super(destination, destination.getHttpClient().getMaxConnectionsPerDestination(), 1);
+        this.destination = (HttpDestination) destination;
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    @Override
+    protected void onCreated(Connection connection)
+    {
+        super.onCreated(connection);
+        if (destination.getQueuedRequestCount() > 0) {
+            openedOnDemand.add(connection);
+        }
+    }
+
+    @Override
+    protected Connection activate()
+    {
+        Connection connection = super.activate();
+        if (connection != null) {
+            stats.connectionAcquired(openedOnDemand.remove(connection));
+        }
+        return connection;
+    }
+
+    @Override
+    protected void onRemoved(Connection connection)
+    {
+        openedOnDemand.remove(connection);
+        super.onRemoved(connection);
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.eclipse.jetty.client.Request;
+import org.eclipse.jetty.client.Response;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.http.client.jetty.HttpRequestEvent.NO_RESPONSE;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Request logger that copies the raw values of each request into a fixed-size slot of a preallocated
+ * ring buffer, without allocating on the request path. A background thread appends the records to
+ * segment files, which are optionally compressed, and rolls them at the maximum file size. When the
+ * ring buffer is full, records are dropped rather than blocking the request.
+ * <p>
+ * Segments are converted to the text format of {@link DefaultHttpClientLogger} with {@link HttpClientLogReader}.
+ */
+class BinaryHttpClientLogger
+        implements HttpClientLogger
+{
+    private static final Logger LOG = Logger.get(BinaryHttpClientLogger.class);
+
+    static final int MAGIC = 0x41484C31; // "AHL1"
+    static final String SEGMENT_EXTENSION = ".bin";
+    static final String COMPRESSED_SEGMENT_EXTENSION = ".bin.gz";
+
+    // URIs that do not fit into a slot are truncated
+    static final int SLOT_SIZE = 512;
+    // record length, eight timestamps and sizes, and the response code
+    static final int FIXED_SIZE = Integer.BYTES + 8 * Long.BYTES + Integer.BYTES;
+    // maximum size of the protocol, method and failure, so most of the slot is left for the URI
+    private static final int MAX_FIELD_SIZE = 64;
+
+    private final String filename;
+    private final int maxHistory;
+    private final int bufferSize;
+    private final long flushIntervalNanos;
+    private final long maxFileSizeInBytes;
+    private final boolean compressionEnabled;
+
+    private final ByteBuffer ring;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final byte[] record = new byte[SLOT_SIZE];
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private volatile boolean writerParked;
+
+    private DataOutputStream output;
+    private long segmentSize;
+    private long lastSegmentTimestamp;
+
+    BinaryHttpClientLogger(
+            String filename,
+            int maxHistory,
+            int queueSize,
+            DataSize bufferSize,
+            Duration flushInterval,
+            long maxFileSizeInBytes,
+            boolean compressionEnabled)
+    {
+        checkArgument(queueSize > 0, "queueSize must be positive");
+        this.filename = requireNonNull(filename, "filename is null");
+        this.maxHistory = maxHistory;
+        this.bufferSize = toIntExact(bufferSize.toBytes());
+        this.flushIntervalNanos = flushInterval.roundTo(NANOSECONDS);
+        this.maxFileSizeInBytes = maxFileSizeInBytes;
+        this.compressionEnabled = compressionEnabled;
+
+        int slots = Integer.highestOneBit(queueSize - 1) << 1;
+        slots = Math.max(slots, 1);
+        this.ring = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        this.mask = slots - 1;
+        this.published = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            published.set(i, -1);
+        }
+
+        writerThread = Thread.ofPlatform()
+                .name("http-client-log-writer")
+                .daemon()
+                .start(this::writeRecords);
+    }
+
+    @Override
+    public void log(RequestInfo requestInfo, ResponseInfo responseInfo)
+    {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (closed || sequence - consumed.get() > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+        while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = toIntExact(sequence & mask);
+        int offset = slot * SLOT_SIZE;
+        int length = 0;
+        try {
+            length = encode(offset, requestInfo, responseInfo);
+        }
+        finally {
+            // publish an empty record on failure, so the writer does not wait for the slot forever
+            ring.putInt(offset, length);
+            published.set(slot, sequence);
+            // the writer checks the slot after announcing that it parks, so it either sees the record or is woken
+            if (writerParked) {
+                LockSupport.unpark(writerThread);
+            }
+        }
+    }
+
+    /**
+     * Encodes the record into the slot at the offset and returns the length of the record.
+     */
+    private int encode(int offset, RequestInfo requestInfo, ResponseInfo responseInfo)
+    {
+        Request request = requestInfo.getRequest();
+        long responseSize = NO_RESPONSE;
+        int responseCode = NO_RESPONSE;
+        if (responseInfo.getResponse().isPresent()) {
+            Response response = responseInfo.getResponse().orElseThrow();
+            responseSize = responseInfo.getResponseSize();
+            responseCode = response.getStatus();
+        }
+
+        int position = offset + Integer.BYTES;
+        ring.putLong(position, requestInfo.getRequestTimestampMillis());
+        ring.putLong(position + 8, responseInfo.getResponseTimestampMillis());
+        ring.putLong(position + 16, requestInfo.getRequestCreatedTimestamp());
+        ring.putLong(position + 24, requestInfo.getRequestBeginTimestamp());
+        ring.putLong(position + 32, requestInfo.getRequestEndTimestamp());
+        ring.putLong(position + 40, responseInfo.getResponseBeginTimestamp());
+        ring.putLong(position + 48, responseInfo.getResponseCompleteTimestamp());
+        ring.putLong(position + 56, responseSize);
+        ring.putInt(position + 64, responseCode);
+        position = offset + FIXED_SIZE;
+
+        // field lengths are stored as shorts, with -1 for an absent failure
+        position = putString(ring, position, MAX_FIELD_SIZE, request.getVersion().toString());
+        position = putString(ring, position, MAX_FIELD_SIZE, request.getMethod());
+        if (responseInfo.getFailureCause().isPresent()) {
+            position = putString(ring, position, MAX_FIELD_SIZE, responseInfo.getFailureCause().orElseThrow().getClass().getSimpleName());
+        }
+        else {
+            ring.putShort(position, (short) -1);
+            position += Short.BYTES;
+        }
+        // the string form of the URI is cached by the URI
+        position = putString(ring, position, offset + SLOT_SIZE - position - Short.BYTES, request.getURI().toString());
+        return position - offset;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int getQueueSize()
+    {
+        return toIntExact(claimed.get() - consumed.get());
+    }
+
+    private void writeRecords()
+    {
+        long lastFlush = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            long sequence = consumed.get();
+            int slot = toIntExact(sequence & mask);
+            if (published.getAcquire(slot) == sequence) {
+                int offset = slot * SLOT_SIZE;
+                int length = ring.getInt(offset);
+                ring.get(offset, record, 0, length);
+                consumed.set(sequence + 1);
+                // an empty record was not encoded
+                if (length > 0) {
+                    write(record, length);
+                    dirty = true;
+                }
+                continue;
+            }
+
+            // stop once all claimed records have been written
+            if (closed && sequence == claimed.get()) {
+                break;
+            }
+
+            long now = System.nanoTime();
+            if (dirty && now - lastFlush >= flushIntervalNanos) {
+                flush();
+                lastFlush = now;
+                dirty = false;
+            }
+
+            // wait for the next record, or until the written records are due to be flushed
+            writerParked = true;
+            if (published.get(slot) != sequence && !closed) {
+                if (dirty) {
+                    LockSupport.parkNanos(this, flushIntervalNanos - (now - lastFlush));
+                }
+                else {
+                    LockSupport.park(this);
+                }
+            }
+            writerParked = false;
+        }
+
+        closeSegment();
+        long droppedRecords = dropped.get();
+        if (droppedRecords > 0) {
+            LOG.warn("Dropped %s HTTP client log records because the log buffer was full", droppedRecords);
+        }
+    }
+
+    private void write(byte[] record, int length)
+    {
+        try {
+            if (output == null || segmentSize >= maxFileSizeInBytes) {
+                closeSegment();
+                openSegment();
+            }
+            output.write(record, 0, length);
+            segmentSize += length;
+        }
+        catch (IOException | RuntimeException e) {
+            // the record is lost, but the writer keeps going and opens a new segment for the next record
+            LOG.error(e, "Failed to write HTTP client log record");
+            closeSegment();
+        }
+    }
+
+    private void openSegment()
+            throws IOException
+    {
+        // segment names sort in creation order
+        long timestamp = Math.max(System.currentTimeMillis(), lastSegmentTimestamp + 1);
+        lastSegmentTimestamp = timestamp;
+        Path path = Path.of("%s-%d%s".formatted(filename, timestamp, compressionEnabled ? COMPRESSED_SEGMENT_EXTENSION : SEGMENT_EXTENSION));
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        OutputStream stream = Files.newOutputStream(path);
+        if (compressionEnabled) {
+            stream = new GZIPOutputStream(stream, bufferSize, true);
+        }
+        output = new DataOutputStream(new BufferedOutputStream(stream, bufferSize));
+        output.writeInt(MAGIC);
+        segmentSize = 0;
+        removeOldSegments();
+    }
+
+    private void flush()
+    {
+        if (output != null) {
+            try {
+                output.flush();
+            }
+            catch (IOException e) {
+                LOG.error(e, "Failed to flush HTTP client log");
+            }
+        }
+    }
+
+    private void closeSegment()
+    {
+        if (output != null) {
+            try {
+                output.close();
+            }
+            catch (IOException e) {
+                LOG.error(e, "Failed to close HTTP client log segment");
+            }
+            output = null;
+        }
+    }
+
+    private void removeOldSegments()
+    {
+        Path file = Path.of(filename).toAbsolutePath();
+        String prefix = file.getFileName() + "-";
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            segments = files
+                    .filter(path -> path.getFileName().toString().startsWith(prefix))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_EXTENSION) || path.getFileName().toString().endsWith(COMPRESSED_SEGMENT_EXTENSION))
+                    .sorted()
+                    .collect(toImmutableList());
+        }
+        catch (IOException e) {
+            LOG.warn(e, "Could not list HTTP client log segments in %s", file.getParent());
+            return;
+        }
+
+        for (Path segment : segments.subList(0, Math.max(segments.size() - maxHistory, 0))) {
+            try {
+                Files.deleteIfExists(segment);
+            }
+            catch (IOException e) {
+                LOG.warn(e, "Could not delete HTTP client log segment %s", segment);
+            }
+        }
+    }
+
+    /**
+     * Writes the string as UTF-8 prefixed with its length, truncating it to the maximum size.
+     */
+    private static int putString(ByteBuffer buffer, int position, int maxSize, String value)
+    {
+        int start = position + Short.BYTES;
+        int end = start + maxSize;
+        int index = start;
+        for (int i = 0; i < value.length(); i++) {
+            int codePoint = value.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (index + size > end) {
+                break;
+            }
+            switch (size) {
+                case 1 -> buffer.put(index, (byte) codePoint);
+                case 2 -> {
+                    buffer.put(index, (byte) (0xC0 | (codePoint >> 6)));
+                    buffer.put(index + 1, (byte) (0x80 | (codePoint & 0x3F)));
+                }
+                case 3 -> {
+                    buffer.put(index, (byte) (0xE0 | (codePoint >> 12)));
+                    buffer.put(index + 1, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put(index + 2, (byte) (0x80 | (codePoint & 0x3F)));
+                }
+                default -> {
+                    buffer.put(index, (byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put(index + 1, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put(index + 2, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put(index + 3, (byte) (0x80 | (codePoint & 0x3F)));
+                    i++;
+                }
+            }
+            index += size;
+        }
+        buffer.putShort(position, (short) (index - start));
+        return index;
+    }
+}
@@ -16,11 +16,16 @@ package io.airlift.http.client.jetty;
 import org.eclipse.jetty.io.ConnectionStatistics;
 import org.weakref.jmx.Managed;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import static java.util.Objects.requireNonNull;
 
 public class ConnectionStats
 {
     private final ConnectionStatistics connectionStats;
+    private final LongAdder preopenedConnections = new LongAdder();
+    private final LongAdder coldAcquisitions = new LongAdder();
+    private final LongAdder warmAcquisitions = new LongAdder();
 
     public ConnectionStats(ConnectionStatistics connectionStats)
     {
@@ -75,6 +80,24 @@ public class ConnectionStats
         return connectionStats.getConnectionsMax();
     }
 
+    @Managed(description = "number of connections opened ahead of requests by warm up")
+    public long getPreopenedConnectionCount()
+    {
+        return preopenedConnections.sum();
+    }
+
+    @Managed(description = "number of connections handed out to requests that were opened while the requests waited")
+    public long getColdAcquisitionCount()
+    {
+        return coldAcquisitions.sum();
+    }
+
+    @Managed(description = "number of connections handed out to requests that were already open")
+    public long getWarmAcquisitionCount()
+    {
+        return warmAcquisitions.sum();
+    }
+
     @Managed(description = "total number of messages received")
     public long getReceivedMessageCount()
     {
@@ -86,4 +109,19 @@ public class ConnectionStats
     {
         return connectionStats.getSentMessages();
     }
+
+    void connectionAcquired(boolean newlyOpened)
+    {
+        if (newlyOpened) {
+            coldAcquisitions.increment();
+        }
+        else {
+            warmAcquisitions.increment();
+        }
+    }
+
+    void connectionsPreopened(int count)
+    {
+        preopenedConnections.add(count);
+    }
 }
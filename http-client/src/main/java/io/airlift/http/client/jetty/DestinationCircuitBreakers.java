@@ -0,0 +1,454 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import com.google.common.base.Ticker;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.stats.CounterStat;
+import org.eclipse.jetty.client.Response;
+import org.eclipse.jetty.client.Result;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.airlift.http.client.jetty.DestinationCircuitBreakers.State.CLOSED;
+import static io.airlift.http.client.jetty.DestinationCircuitBreakers.State.HALF_OPEN;
+import static io.airlift.http.client.jetty.DestinationCircuitBreakers.State.OPEN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eclipse.jetty.client.HttpClient.normalizePort;
+
+/**
+ * Circuit breakers and concurrency limits (bulkheads) for the destinations of a client.
+ * <p>
+ * A circuit breaker tracks the outcome of the most recent calls to a destination. Once
+ * enough calls have been made and the failure rate or the slow call rate reaches its
+ * threshold, the breaker opens and requests are rejected without being sent. After the
+ * open duration a limited number of trial calls is let through, and their outcome decides
+ * whether the breaker closes or opens again. A call fails when the request fails or the
+ * server responds with a 5xx status; cancelled calls are not counted.
+ */
+@ThreadSafe
+public class DestinationCircuitBreakers
+{
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    // breakers of destinations that are no longer used are removed, like idle Jetty destinations
+    private static final long IDLE_NANOS = MINUTES.toNanos(10);
+    private static final long IDLE_CHECK_INTERVAL_NANOS = MINUTES.toNanos(1);
+    // in-flight count of a removed breaker, which no longer hands out permits
+    private static final int REMOVED = -1;
+
+    private final boolean circuitBreakerEnabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int halfOpenCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int maxConcurrentRequests;
+    private final Ticker ticker;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private final AtomicLong lastIdleCheck;
+
+    private final CounterStat opened = new CounterStat();
+    private final CounterStat halfOpened = new CounterStat();
+    private final CounterStat closed = new CounterStat();
+    private final CounterStat rejectedByCircuitBreaker = new CounterStat();
+    private final CounterStat rejectedByBulkhead = new CounterStat();
+
+    public DestinationCircuitBreakers(HttpClientConfig config)
+    {
+        this(config, Ticker.systemTicker());
+    }
+
+    public DestinationCircuitBreakers(HttpClientConfig config, Ticker ticker)
+    {
+        requireNonNull(config, "config is null");
+        this.circuitBreakerEnabled = config.isCircuitBreakerEnabled();
+        this.windowSize = config.getCircuitBreakerWindowSize();
+        this.minimumCalls = min(config.getCircuitBreakerMinimumCalls(), windowSize);
+        this.halfOpenCalls = min(config.getCircuitBreakerHalfOpenCalls(), windowSize);
+        this.failureRateThreshold = config.getCircuitBreakerFailureRateThreshold();
+        this.slowCallRateThreshold = config.getCircuitBreakerSlowCallRateThreshold();
+        this.slowCallNanos = config.getCircuitBreakerSlowCallDuration().roundTo(NANOSECONDS);
+        this.openNanos = config.getCircuitBreakerOpenDuration().roundTo(NANOSECONDS);
+        this.maxConcurrentRequests = config.getMaxConcurrentRequestsPerDestination().orElse(Integer.MAX_VALUE);
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.lastIdleCheck = new AtomicLong(ticker.read());
+    }
+
+    public boolean isEnabled()
+    {
+        return circuitBreakerEnabled || maxConcurrentRequests != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Acquires a permit to send a request to the destination of the URI. The returned
+     * permit must be registered as a complete listener of the request, or released if
+     * the request is never sent.
+     *
+     * @throws DestinationRejectedException if the request must not be sent
+     */
+    public Permit acquire(URI uri)
+    {
+        String destination = uri.getScheme() + "://" + uri.getHost() + ":" + normalizePort(uri.getScheme(), uri.getPort());
+        long now = ticker.read();
+        removeIdleBreakers(now);
+        while (true) {
+            Breaker breaker = breakers.computeIfAbsent(destination, Breaker::new);
+            Permit permit = breaker.acquire(now);
+            if (permit != null) {
+                return permit;
+            }
+            // the breaker was removed concurrently
+            breakers.remove(destination, breaker);
+        }
+    }
+
+    private void removeIdleBreakers(long now)
+    {
+        long lastCheck = lastIdleCheck.get();
+        if (now - lastCheck >= IDLE_CHECK_INTERVAL_NANOS && lastIdleCheck.compareAndSet(lastCheck, now)) {
+            breakers.values().removeIf(breaker -> breaker.tryRemove(now));
+        }
+    }
+
+    public Map<String, State> getStates()
+    {
+        return breakers.entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().getState()));
+    }
+
+    public Map<String, Integer> getInFlightRequests()
+    {
+        return breakers.entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().getInFlight()));
+    }
+
+    @Managed
+    public long getOpenDestinations()
+    {
+        return countDestinations(OPEN);
+    }
+
+    @Managed
+    public long getHalfOpenDestinations()
+    {
+        return countDestinations(HALF_OPEN);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getOpened()
+    {
+        return opened;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHalfOpened()
+    {
+        return halfOpened;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getClosed()
+    {
+        return closed;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRejectedByCircuitBreaker()
+    {
+        return rejectedByCircuitBreaker;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRejectedByBulkhead()
+    {
+        return rejectedByBulkhead;
+    }
+
+    @Managed
+    public String dumpStates()
+    {
+        StringBuilder builder = new StringBuilder();
+        breakers.forEach((destination, breaker) -> builder.append(destination)
+                .append(' ')
+                .append(breaker.getState())
+                .append(" in-flight=")
+                .append(breaker.getInFlight())
+                .append('\n'));
+        return builder.toString();
+    }
+
+    private long countDestinations(State state)
+    {
+        return breakers.values().stream()
+                .filter(breaker -> breaker.getState() == state)
+                .count();
+    }
+
+    public final class Permit
+            implements Response.CompleteListener
+    {
+        private final Breaker breaker;
+        private final long generation;
+        private final long start;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(Breaker breaker, long generation, long start)
+        {
+            this.breaker = breaker;
+            this.generation = generation;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(Result result)
+        {
+            if (result.isFailed()) {
+                if (result.getFailure() == RequestCancelledException.INSTANCE) {
+                    release();
+                }
+                else {
+                    complete(true);
+                }
+            }
+            else {
+                complete(result.getResponse().getStatus() >= 500);
+            }
+        }
+
+        void complete(boolean failed)
+        {
+            if (done.compareAndSet(false, true)) {
+                boolean slow = ticker.read() - start >= slowCallNanos;
+                breaker.completed(generation, failed, slow);
+            }
+        }
+
+        /**
+         * Returns the permit without recording an outcome.
+         */
+        public void release()
+        {
+            if (done.compareAndSet(false, true)) {
+                breaker.released(generation);
+            }
+        }
+    }
+
+    private final class Breaker
+    {
+        private final String destination;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long lastUsed;
+
+        private volatile State state = CLOSED;
+        // incremented on every transition, so outcomes of calls started before it are ignored
+        @GuardedBy("this")
+        private long generation;
+        @GuardedBy("this")
+        private long openedAt;
+        @GuardedBy("this")
+        private int trialCalls;
+
+        // ring buffer of the outcomes of the most recent calls
+        @GuardedBy("this")
+        private final byte[] window;
+        @GuardedBy("this")
+        private int windowPosition;
+        @GuardedBy("this")
+        private int windowCalls;
+        @GuardedBy("this")
+        private int windowFailures;
+        @GuardedBy("this")
+        private int windowSlowCalls;
+
+        private Breaker(String destination)
+        {
+            this.destination = requireNonNull(destination, "destination is null");
+            this.lastUsed = ticker.read();
+            this.window = circuitBreakerEnabled ? new byte[windowSize] : new byte[0];
+        }
+
+        public State getState()
+        {
+            return state;
+        }
+
+        public int getInFlight()
+        {
+            return max(inFlight.get(), 0);
+        }
+
+        /**
+         * Returns null if the breaker was removed, in which case a new breaker must be used.
+         */
+        public Permit acquire(long start)
+        {
+            while (true) {
+                int current = inFlight.get();
+                if (current == REMOVED) {
+                    return null;
+                }
+                if (current >= maxConcurrentRequests) {
+                    rejectedByBulkhead.update(1);
+                    throw new DestinationRejectedException(format("Too many concurrent requests to %s", destination));
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    break;
+                }
+            }
+            lastUsed = start;
+            if (!circuitBreakerEnabled) {
+                return new Permit(this, 0, start);
+            }
+
+            synchronized (this) {
+                if (state == OPEN && start - openedAt >= openNanos) {
+                    transitionTo(HALF_OPEN);
+                }
+                if (state == OPEN || (state == HALF_OPEN && trialCalls >= halfOpenCalls)) {
+                    inFlight.decrementAndGet();
+                    rejectedByCircuitBreaker.update(1);
+                    throw new DestinationRejectedException(format("Circuit breaker for %s is %s", destination, state));
+                }
+                if (state == HALF_OPEN) {
+                    trialCalls++;
+                }
+                return new Permit(this, generation, start);
+            }
+        }
+
+        /**
+         * Marks the breaker as removed if it has been idle for a while. Breakers with calls in
+         * flight are kept, so the bulkhead limit and the outcomes of the calls are not lost.
+         */
+        public boolean tryRemove(long now)
+        {
+            return now - lastUsed >= IDLE_NANOS && inFlight.compareAndSet(0, REMOVED);
+        }
+
+        public void completed(long callGeneration, boolean failed, boolean slow)
+        {
+            finished();
+            if (!circuitBreakerEnabled) {
+                return;
+            }
+
+            synchronized (this) {
+                if (callGeneration != generation) {
+                    return;
+                }
+                record(failed, slow);
+                if (state == CLOSED && windowCalls >= minimumCalls && isAboveThreshold()) {
+                    transitionTo(OPEN);
+                }
+                else if (state == HALF_OPEN && windowCalls >= halfOpenCalls) {
+                    transitionTo(isAboveThreshold() ? OPEN : CLOSED);
+                }
+            }
+        }
+
+        public void released(long callGeneration)
+        {
+            finished();
+            if (!circuitBreakerEnabled) {
+                return;
+            }
+
+            synchronized (this) {
+                // let another trial call through in place of the cancelled one
+                if (callGeneration == generation && state == HALF_OPEN) {
+                    trialCalls--;
+                }
+            }
+        }
+
+        private void finished()
+        {
+            lastUsed = ticker.read();
+            inFlight.decrementAndGet();
+        }
+
+        @GuardedBy("this")
+        private void record(boolean failed, boolean slow)
+        {
+            if (windowCalls == window.length) {
+                byte evicted = window[windowPosition];
+                windowFailures -= evicted & FAILED;
+                windowSlowCalls -= (evicted & SLOW) >> 1;
+                windowCalls--;
+            }
+            window[windowPosition] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+            windowPosition = (windowPosition + 1) % window.length;
+            windowCalls++;
+            windowFailures += failed ? 1 : 0;
+            windowSlowCalls += slow ? 1 : 0;
+        }
+
+        @GuardedBy("this")
+        private boolean isAboveThreshold()
+        {
+            return windowFailures * 100.0 >= failureRateThreshold * windowCalls ||
+                    windowSlowCalls * 100.0 >= slowCallRateThreshold * windowCalls;
+        }
+
+        @GuardedBy("this")
+        private void transitionTo(State newState)
+        {
+            state = newState;
+            generation++;
+            trialCalls = 0;
+            windowPosition = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+            windowSlowCalls = 0;
+            switch (newState) {
+                case OPEN -> {
+                    openedAt = ticker.read();
+                    opened.update(1);
+                }
+                case HALF_OPEN -> halfOpened.update(1);
+                case CLOSED -> closed.update(1);
+            }
+        }
+    }
+}
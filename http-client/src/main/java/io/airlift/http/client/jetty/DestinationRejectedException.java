@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when a request is not sent because the circuit breaker of its destination
+ * is open, or because the destination already has the maximum number of requests in flight.
+ */
+public class DestinationRejectedException
+        extends RejectedExecutionException
+{
+    public DestinationRejectedException(String message)
+    {
+        super(message);
+    }
+}
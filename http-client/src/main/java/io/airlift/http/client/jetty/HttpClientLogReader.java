@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static io.airlift.http.client.jetty.BinaryHttpClientLogger.MAGIC;
+import static io.airlift.http.client.jetty.HttpRequestEvent.createHttpRequestEvent;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Converts segments written by {@link BinaryHttpClientLogger} to the text format of the HTTP client log.
+ * <p>
+ * Usage: {@code java -cp <classpath> io.airlift.http.client.jetty.HttpClientLogReader <segment>...}
+ */
+public final class HttpClientLogReader
+{
+    private static final HttpClientLogLayout LAYOUT = new HttpClientLogLayout();
+
+    private HttpClientLogReader() {}
+
+    public static void main(String[] args)
+            throws IOException
+    {
+        if (args.length == 0) {
+            System.err.println("Usage: HttpClientLogReader <segment>...");
+            System.exit(1);
+        }
+
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+        for (String segment : args) {
+            convert(Path.of(segment), output);
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes the records of a segment, which may be compressed, to the output in the text format.
+     */
+    public static void convert(Path segment, Writer output)
+            throws IOException
+    {
+        try (DataInputStream input = new DataInputStream(open(segment))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not an HTTP client log segment: " + segment);
+            }
+            while (true) {
+                byte[] record;
+                try {
+                    // the length includes the length field
+                    record = new byte[input.readInt() - Integer.BYTES];
+                    input.readFully(record);
+                }
+                catch (EOFException e) {
+                    // a segment may end with a partial record if the process was stopped while writing
+                    break;
+                }
+                output.write(LAYOUT.doLayout(readEvent(new DataInputStream(new ByteArrayInputStream(record)))));
+            }
+        }
+    }
+
+    private static HttpRequestEvent readEvent(DataInputStream input)
+            throws IOException
+    {
+        long requestTimestampMillis = input.readLong();
+        long responseTimestampMillis = input.readLong();
+        long requestCreatedTimestamp = input.readLong();
+        long requestBeginTimestamp = input.readLong();
+        long requestEndTimestamp = input.readLong();
+        long responseBeginTimestamp = input.readLong();
+        long responseCompleteTimestamp = input.readLong();
+        long responseSize = input.readLong();
+        int responseCode = input.readInt();
+        String protocolVersion = readString(input);
+        String method = readString(input);
+        Optional<String> failureReason = Optional.ofNullable(readString(input)).map(HttpRequestEvent::getFailureReason);
+        String requestUri = readString(input);
+
+        return createHttpRequestEvent(
+                requestTimestampMillis,
+                responseTimestampMillis,
+                requestCreatedTimestamp,
+                requestBeginTimestamp,
+                requestEndTimestamp,
+                responseBeginTimestamp,
+                responseCompleteTimestamp,
+                protocolVersion,
+                method,
+                requestUri,
+                responseSize,
+                responseCode,
+                failureReason);
+    }
+
+    private static String readString(DataInputStream input)
+            throws IOException
+    {
+        int length = input.readShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static InputStream open(Path segment)
+            throws IOException
+    {
+        InputStream input = new BufferedInputStream(Files.newInputStream(segment));
+        // detect compressed segments by the gzip magic bytes
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new BufferedInputStream(new GZIPInputStream(input));
+        }
+        return input;
+    }
+}
@@ -150,11 +150,6 @@ class HttpRequestEvent
             requestUri = request.getURI().toString();
         }
 
-        String method = request.getMethod();
-        if (method != null) {
-            method = method.toUpperCase(Locale.US);
-        }
-
         long responseSize = NO_RESPONSE;
         int responseCode = NO_RESPONSE;
         if (response.isPresent()) {
@@ -162,32 +157,69 @@ class HttpRequestEvent
             responseCode = response.orElseThrow().getStatus();
         }
 
-        long requestTotalTimeNanos = responseInfo.getResponseCompleteTimestamp() - requestInfo.getRequestCreatedTimestamp();
-        long requestBeginToRequestEndNanos = requestInfo.getRequestEndTimestamp() - requestInfo.getRequestBeginTimestamp();
-        long responseBeginTimeStamp = responseInfo.getResponseBeginTimestamp();
+        return createHttpRequestEvent(
+                requestInfo.getRequestTimestampMillis(),
+                responseInfo.getResponseTimestampMillis(),
+                requestInfo.getRequestCreatedTimestamp(),
+                requestInfo.getRequestBeginTimestamp(),
+                requestInfo.getRequestEndTimestamp(),
+                responseInfo.getResponseBeginTimestamp(),
+                responseInfo.getResponseCompleteTimestamp(),
+                request.getVersion().toString(),
+                request.getMethod(),
+                requestUri,
+                responseSize,
+                responseCode,
+                getFailureReason(responseInfo));
+    }
+
+    /**
+     * Creates an event from the raw values of a request, which are also recorded by {@link BinaryHttpClientLogger}.
+     */
+    static HttpRequestEvent createHttpRequestEvent(
+            long requestTimestampMillis,
+            long responseTimestampMillis,
+            long requestCreatedTimestamp,
+            long requestBeginTimestamp,
+            long requestEndTimestamp,
+            long responseBeginTimestamp,
+            long responseCompleteTimestamp,
+            String protocolVersion,
+            String method,
+            String requestUri,
+            long responseSize,
+            int responseCode,
+            Optional<String> failureReason)
+    {
+        if (method != null) {
+            method = method.toUpperCase(Locale.US);
+        }
+
+        long requestTotalTimeNanos = responseCompleteTimestamp - requestCreatedTimestamp;
+        long requestBeginToRequestEndNanos = requestEndTimestamp - requestBeginTimestamp;
         long requestEndToResponseBeginNanos = 0;
         long responseBeginToResponseEndNanos = 0;
-        // responseBeginTimeStamp is 0 if a response isn't received
-        if (responseBeginTimeStamp != 0) {
-            requestEndToResponseBeginNanos = responseBeginTimeStamp - requestInfo.getRequestEndTimestamp();
-            responseBeginToResponseEndNanos = responseInfo.getResponseCompleteTimestamp() - responseBeginTimeStamp;
+        // responseBeginTimestamp is 0 if a response isn't received
+        if (responseBeginTimestamp != 0) {
+            requestEndToResponseBeginNanos = responseBeginTimestamp - requestEndTimestamp;
+            responseBeginToResponseEndNanos = responseCompleteTimestamp - responseBeginTimestamp;
         }
-        long timeToLastByte = max(responseInfo.getResponseTimestampMillis() - requestInfo.getRequestTimestampMillis(), 0L);
+        long timeToLastByte = max(responseTimestampMillis - requestTimestampMillis, 0L);
 
         return new HttpRequestEvent(
-                Instant.ofEpochMilli(requestInfo.getRequestTimestampMillis()),
-                request.getVersion().toString(),
+                Instant.ofEpochMilli(requestTimestampMillis),
+                protocolVersion,
                 method,
                 requestUri,
                 responseSize,
                 responseCode,
                 NANOSECONDS.toMillis(requestTotalTimeNanos),
-                NANOSECONDS.toMillis(requestInfo.getRequestBeginTimestamp() - requestInfo.getRequestCreatedTimestamp()),
+                NANOSECONDS.toMillis(requestBeginTimestamp - requestCreatedTimestamp),
                 NANOSECONDS.toMillis(requestBeginToRequestEndNanos),
                 NANOSECONDS.toMillis(requestEndToResponseBeginNanos),
                 NANOSECONDS.toMillis(responseBeginToResponseEndNanos),
                 timeToLastByte,
-                getFailureReason(responseInfo));
+                failureReason);
     }
 
     @VisibleForTesting
@@ -199,12 +231,17 @@ class HttpRequestEvent
             return Optional.empty();
         }
 
-        String className = failure.orElseThrow().getClass().getSimpleName().toUpperCase(Locale.US);
+        return Optional.of(getFailureReason(failure.orElseThrow().getClass().getSimpleName()));
+    }
+
+    static String getFailureReason(String failureClassName)
+    {
+        String className = failureClassName.toUpperCase(Locale.US);
 
         if (className.endsWith("EXCEPTION")) {
-            return Optional.of(className.substring(0, className.lastIndexOf("EXCEPTION")));
+            return className.substring(0, className.lastIndexOf("EXCEPTION"));
         }
 
-        return Optional.of(className);
+        return className;
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import io.airlift.http.client.AsyncResponseHandler;
+import io.airlift.http.client.AsyncResponseHandler.ResponseHead;
+import io.airlift.http.client.ContentConsumer;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.HttpVersion;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.RequestStats;
+import io.airlift.units.Duration;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.semconv.HttpAttributes;
+import io.opentelemetry.semconv.NetworkAttributes;
+import io.opentelemetry.semconv.incubating.HttpIncubatingAttributes;
+import org.eclipse.jetty.client.Response;
+import org.eclipse.jetty.client.Result;
+import org.eclipse.jetty.io.Content;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.http.client.Response.toHeadersMap;
+import static io.airlift.http.client.jetty.JettyHttpClient.EXCEPTION_ESCAPED;
+import static io.airlift.http.client.jetty.JettyHttpClient.getHttpVersion;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Delivers the response body to a {@link ContentConsumer} from the Jetty content callbacks, so no
+ * thread waits for the body and content is not copied. Jetty invokes the listener methods serially,
+ * and does not read more content until the consumer runs the demand callback.
+ */
+class JettyAsyncResponseFuture<T>
+        extends AbstractFuture<T>
+        implements HttpClient.HttpResponseFuture<T>, Response.Listener
+{
+    private enum JettyAsyncHttpState
+    {
+        WAITING_FOR_CONNECTION,
+        PROCESSING_RESPONSE,
+        DONE,
+        FAILED,
+        CANCELED,
+    }
+
+    private final long requestStart = System.nanoTime();
+    private final AtomicReference<JettyAsyncHttpState> state = new AtomicReference<>(JettyAsyncHttpState.WAITING_FOR_CONNECTION);
+    private final Request request;
+    private final org.eclipse.jetty.client.Request jettyRequest;
+    private final LongSupplier requestSize;
+    private final AsyncResponseHandler<T> responseHandler;
+    private final Span span;
+    private final RequestStats stats;
+    private final boolean recordRequestComplete;
+
+    // only accessed from the serialized listener callbacks
+    private ContentConsumer<T> consumer;
+    private Throwable handlerFailure;
+    private long responseStart;
+    private long bytesRead;
+
+    JettyAsyncResponseFuture(
+            Request request,
+            org.eclipse.jetty.client.Request jettyRequest,
+            LongSupplier requestSize,
+            AsyncResponseHandler<T> responseHandler,
+            Span span,
+            RequestStats stats,
+            boolean recordRequestComplete)
+    {
+        this.request = requireNonNull(request, "request is null");
+        this.jettyRequest = requireNonNull(jettyRequest, "jettyRequest is null");
+        this.requestSize = requireNonNull(requestSize, "requestSize is null");
+        this.responseHandler = requireNonNull(responseHandler, "responseHandler is null");
+        this.span = requireNonNull(span, "span is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.recordRequestComplete = recordRequestComplete;
+    }
+
+    public JettyAsyncResponseFuture<T> send()
+    {
+        jettyRequest.send(this);
+        return this;
+    }
+
+    @Override
+    public String getState()
+    {
+        return state.get().toString();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        try {
+            span.setStatus(StatusCode.ERROR, "cancelled");
+            stats.recordRequestCanceled();
+            state.set(JettyAsyncHttpState.CANCELED);
+            jettyRequest.abort(RequestCancelledException.INSTANCE);
+            return super.cancel(mayInterruptIfRunning);
+        }
+        catch (Throwable e) {
+            setException(e);
+            return true;
+        }
+        finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public void onHeaders(Response response)
+    {
+        if (state.get() == JettyAsyncHttpState.CANCELED) {
+            return;
+        }
+
+        responseStart = System.nanoTime();
+        state.set(JettyAsyncHttpState.PROCESSING_RESPONSE);
+        try {
+            consumer = requireNonNull(responseHandler.handleResponse(request, toResponseHead(response)), "responseHandler returned a null consumer");
+        }
+        catch (Throwable e) {
+            handlerFailure = e;
+            response.abort(e);
+        }
+    }
+
+    @Override
+    public void onContent(Response response, Content.Chunk chunk, Runnable demander)
+    {
+        if (consumer == null || handlerFailure != null || !chunk.hasRemaining() || state.get() == JettyAsyncHttpState.CANCELED) {
+            demander.run();
+            return;
+        }
+
+        bytesRead += chunk.remaining();
+        // the demander releases the chunk, so it must run at most once
+        AtomicBoolean demanded = new AtomicBoolean();
+        try {
+            consumer.onContent(chunk.getByteBuffer(), () -> {
+                if (demanded.compareAndSet(false, true)) {
+                    demander.run();
+                }
+            });
+        }
+        catch (Throwable e) {
+            if (demanded.compareAndSet(false, true)) {
+                chunk.release();
+            }
+            handlerFailure = e;
+            response.abort(e);
+        }
+    }
+
+    @Override
+    public void onComplete(Result result)
+    {
+        if (state.get() == JettyAsyncHttpState.CANCELED) {
+            if (consumer != null) {
+                consumer.onFailure(RequestCancelledException.INSTANCE);
+            }
+            return;
+        }
+
+        // exceptions from the handler are not passed to handleException, as with ResponseHandler#handle
+        if (handlerFailure != null) {
+            storeException(handlerFailure);
+            return;
+        }
+        if (result.getResponseFailure() != null) {
+            failed(result.getResponseFailure());
+            return;
+        }
+        // request failures after the response was received are ignored, as with buffered responses
+        if (consumer == null) {
+            failed(result.getRequestFailure() != null ? result.getRequestFailure() : new IllegalStateException("Result has neither response nor failure: " + result));
+            return;
+        }
+
+        Response response = result.getResponse();
+        span.setAttribute(HttpAttributes.HTTP_RESPONSE_STATUS_CODE, response.getStatus());
+        // negotiated http version
+        span.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_NAME, "HTTP"); // https://osi-model.com/application-layer/
+        span.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_VERSION, getHttpVersion(response.getVersion()));
+        if (request.getBodyGenerator() != null) {
+            span.setAttribute(HttpIncubatingAttributes.HTTP_REQUEST_SIZE, requestSize.getAsLong());
+        }
+        span.setAttribute(HttpIncubatingAttributes.HTTP_RESPONSE_BODY_SIZE, bytesRead);
+
+        T value;
+        try {
+            value = consumer.onComplete();
+        }
+        catch (Throwable e) {
+            storeException(e);
+            return;
+        }
+        finally {
+            if (recordRequestComplete) {
+                stats.recordResponseReceived(
+                        request.getMethod(),
+                        response.getStatus(),
+                        requestSize.getAsLong(),
+                        bytesRead,
+                        new Duration(responseStart - requestStart, NANOSECONDS),
+                        Duration.nanosSince(responseStart));
+            }
+        }
+        state.set(JettyAsyncHttpState.DONE);
+        set(value);
+
+        span.setStatus(StatusCode.OK);
+        span.end();
+    }
+
+    void failed(Throwable throwable)
+    {
+        if (state.get() == JettyAsyncHttpState.CANCELED) {
+            return;
+        }
+
+        stats.recordRequestFailed();
+        if (consumer != null) {
+            consumer.onFailure(throwable);
+        }
+
+        // give handler a chance to rewrite the exception or return a value instead
+        if (throwable instanceof Exception) {
+            try {
+                T value = responseHandler.handleException(request, (Exception) throwable);
+                state.set(JettyAsyncHttpState.DONE);
+                set(value);
+
+                // the request failed, even though the handler recovered
+                span.setStatus(StatusCode.ERROR, throwable.getMessage());
+                span.end();
+                return;
+            }
+            catch (Throwable newThrowable) {
+                throwable = newThrowable;
+            }
+        }
+        storeException(throwable);
+    }
+
+    private void storeException(Throwable throwable)
+    {
+        state.set(JettyAsyncHttpState.FAILED);
+        setException(throwable);
+
+        span.setStatus(StatusCode.ERROR, throwable.getMessage());
+        span.recordException(throwable, Attributes.of(EXCEPTION_ESCAPED, true));
+        span.end();
+    }
+
+    private static ResponseHead toResponseHead(Response response)
+    {
+        HttpVersion version = switch (response.getVersion()) {
+            case HTTP_0_9, HTTP_1_0, HTTP_1_1 -> HttpVersion.HTTP_1;
+            case HTTP_2 -> HttpVersion.HTTP_2;
+            case HTTP_3 -> HttpVersion.HTTP_3;
+        };
+        return new ResponseHead(version, response.getStatus(), toHeadersMap(response.getHeaders()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("requestStart", requestStart)
+                .add("state", state)
+                .add("request", request)
+                .toString();
+    }
+}
@@ -1,28 +1,117 @@
 package io.airlift.http.client.jetty;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
 import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.SocketAddressResolver;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.net.spi.InetAddressResolver;
+import java.net.spi.InetAddressResolver.LookupPolicy;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.net.spi.InetAddressResolver.LookupPolicy.IPV4;
+import static java.net.spi.InetAddressResolver.LookupPolicy.IPV6;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * For IP address literals this SocketAddressResolver implementation does not dispatch the address resolution
  * to the executor. Under high load this helps offloading the executor, which may be shared by multiple different
  * HTTP clients.
+ * <p>
+ * Host names are resolved on the executor, and concurrent resolutions of the same name share a single lookup.
+ * Resolved addresses are cached for the configured TTL, and are refreshed in the background when a cached
+ * entry is used after three quarters of its TTL. Failed resolutions are cached for the negative TTL. Each
+ * resolution rotates the returned addresses, so connections are spread across all addresses of a host while
+ * the remaining addresses are still tried when connecting to the first one fails.
  */
-class JettyAsyncSocketAddressResolver
-        extends SocketAddressResolver.Async
+public class JettyAsyncSocketAddressResolver
+        implements SocketAddressResolver
 {
-    public JettyAsyncSocketAddressResolver(Executor executor, Scheduler scheduler, long timeout)
+    private static final LookupPolicy LOOKUP_POLICY = LookupPolicy.of(IPV4 | IPV6);
+
+    @VisibleForTesting
+    static final InetAddressResolver SYSTEM_RESOLVER = new InetAddressResolver()
+    {
+        @Override
+        public Stream<InetAddress> lookupByName(String host, LookupPolicy lookupPolicy)
+                throws UnknownHostException
+        {
+            return Arrays.stream(InetAddress.getAllByName(host));
+        }
+
+        @Override
+        public String lookupByAddress(byte[] address)
+                throws UnknownHostException
+        {
+            InetAddress inetAddress = InetAddress.getByAddress(address);
+            String hostName = inetAddress.getHostName();
+            // the address literal is returned when the address has no host name
+            if (hostName.equals(inetAddress.getHostAddress())) {
+                throw new UnknownHostException(hostName);
+            }
+            return hostName;
+        }
+    };
+
+    private final Executor executor;
+    private final Scheduler scheduler;
+    private final long timeoutMillis;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final InetAddressResolver nameService;
+    private final Ticker ticker;
+    private final Cache<String, Entry> cache;
+
+    private final TimeStat resolutionTime = new TimeStat(MILLISECONDS);
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat refreshes = new CounterStat();
+    private final CounterStat failures = new CounterStat();
+
+    public JettyAsyncSocketAddressResolver(Executor executor, Scheduler scheduler, long timeout, Duration ttl, Duration negativeTtl)
     {
-        super(executor, scheduler, timeout);
+        this(executor, scheduler, timeout, ttl, negativeTtl, SYSTEM_RESOLVER, Ticker.systemTicker());
+    }
+
+    JettyAsyncSocketAddressResolver(Executor executor, Scheduler scheduler, long timeout, Duration ttl, Duration negativeTtl, InetAddressResolver nameService, Ticker ticker)
+    {
+        this.executor = requireNonNull(executor, "executor is null");
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.timeoutMillis = timeout;
+        this.ttlNanos = ttl.roundTo(NANOSECONDS);
+        this.negativeTtlNanos = negativeTtl.roundTo(NANOSECONDS);
+        this.nameService = requireNonNull(nameService, "nameService is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterAccess(10, MINUTES)
+                .ticker(ticker)
+                .build();
     }
 
     @Override
@@ -33,7 +122,163 @@ class JettyAsyncSocketAddressResolver
             promise.succeeded(ImmutableList.of(new InetSocketAddress(address.orElseThrow(), port)));
             return;
         }
-        super.resolve(host, port, context, promise);
+
+        Entry entry = getEntry(host);
+        if (entry.addresses().isDone()) {
+            // complete cached resolutions without scheduling a timeout
+            complete(entry, port, promise);
+            return;
+        }
+
+        AtomicBoolean completed = new AtomicBoolean();
+        Scheduler.Task timeoutTask = timeoutMillis > 0 ?
+                scheduler.schedule(() -> {
+                    if (completed.compareAndSet(false, true)) {
+                        promise.failed(new TimeoutException("DNS resolution of %s timed out after %sms".formatted(host, timeoutMillis)));
+                    }
+                }, timeoutMillis, MILLISECONDS) :
+                null;
+        entry.addresses().whenComplete((_, _) -> {
+            if (completed.compareAndSet(false, true)) {
+                if (timeoutTask != null) {
+                    timeoutTask.cancel();
+                }
+                complete(entry, port, promise);
+            }
+        });
+    }
+
+    private Entry getEntry(String host)
+    {
+        long now = ticker.read();
+        Entry entry = cache.getIfPresent(host);
+        if (entry != null && !entry.isExpired(now)) {
+            hits.update(1);
+            if (entry.shouldRefresh(now)) {
+                refresh(host, entry);
+            }
+            return entry;
+        }
+
+        misses.update(1);
+        Entry created = new Entry();
+        // another thread may have started a resolution in the meantime
+        entry = cache.asMap().compute(host, (_, current) -> (current != null && !current.isExpired(now)) ? current : created);
+        if (entry == created) {
+            lookup(host, created);
+        }
+        return entry;
+    }
+
+    private void refresh(String host, Entry entry)
+    {
+        if (!entry.refreshing().compareAndSet(false, true)) {
+            return;
+        }
+        refreshes.update(1);
+        Entry refreshed = new Entry();
+        lookup(host, refreshed);
+        refreshed.addresses().whenComplete((_, failure) -> {
+            try {
+                // keep serving the current addresses until they expire if the refresh fails
+                if (failure == null) {
+                    cache.asMap().replace(host, entry, refreshed);
+                }
+            }
+            finally {
+                // a failed refresh is retried by the next request
+                entry.refreshing().set(false);
+            }
+        });
+    }
+
+    private void lookup(String host, Entry entry)
+    {
+        try {
+            executor.execute(() -> {
+                long start = ticker.read();
+                try {
+                    List<InetAddress> addresses = nameService.lookupByName(host, LOOKUP_POLICY).collect(toImmutableList());
+                    if (addresses.isEmpty()) {
+                        throw new UnknownHostException(host);
+                    }
+                    resolutionTime.addNanos(ticker.read() - start);
+                    entry.resolved(ticker.read(), ttlNanos);
+                    entry.addresses().complete(addresses);
+                }
+                catch (Throwable t) {
+                    resolutionTime.addNanos(ticker.read() - start);
+                    failures.update(1);
+                    entry.resolved(ticker.read(), negativeTtlNanos);
+                    entry.addresses().completeExceptionally(t);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // do not cache the failure, the executor may be temporarily overloaded
+            entry.resolved(ticker.read(), 0);
+            entry.addresses().completeExceptionally(e);
+        }
+    }
+
+    private static void complete(Entry entry, int port, Promise<List<InetSocketAddress>> promise)
+    {
+        List<InetAddress> addresses;
+        try {
+            addresses = entry.addresses().join();
+        }
+        catch (RuntimeException e) {
+            promise.failed(e.getCause() != null ? e.getCause() : e);
+            return;
+        }
+
+        int start = Math.floorMod(entry.next().getAndIncrement(), addresses.size());
+        ImmutableList.Builder<InetSocketAddress> socketAddresses = ImmutableList.builderWithExpectedSize(addresses.size());
+        for (int i = 0; i < addresses.size(); i++) {
+            socketAddresses.add(new InetSocketAddress(addresses.get((start + i) % addresses.size()), port));
+        }
+        promise.succeeded(socketAddresses.build());
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getResolutionTime()
+    {
+        return resolutionTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRefreshes()
+    {
+        return refreshes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getFailures()
+    {
+        return failures;
+    }
+
+    @Managed
+    public long getCachedHosts()
+    {
+        return cache.size();
     }
 
     private static Optional<InetAddress> resolve(String host)
@@ -46,4 +291,46 @@ class JettyAsyncSocketAddressResolver
             return Optional.empty();
         }
     }
+
+    private static final class Entry
+    {
+        private final CompletableFuture<List<InetAddress>> addresses = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private final AtomicInteger next = new AtomicInteger();
+        // written before the future is completed, so they are visible once it is done
+        private long refreshTime;
+        private long expirationTime;
+
+        public CompletableFuture<List<InetAddress>> addresses()
+        {
+            return addresses;
+        }
+
+        public AtomicBoolean refreshing()
+        {
+            return refreshing;
+        }
+
+        public AtomicInteger next()
+        {
+            return next;
+        }
+
+        public void resolved(long now, long ttlNanos)
+        {
+            refreshTime = now + ttlNanos / 4 * 3;
+            expirationTime = now + ttlNanos;
+        }
+
+        public boolean isExpired(long now)
+        {
+            // resolutions in progress are shared by all callers
+            return addresses.isDone() && now - expirationTime >= 0;
+        }
+
+        public boolean shouldRefresh(long now)
+        {
+            return addresses.isDone() && !addresses.isCompletedExceptionally() && now - refreshTime >= 0;
+        }
+    }
 }
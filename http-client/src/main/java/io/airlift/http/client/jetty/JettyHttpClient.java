@@ -5,22 +5,33 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import com.google.common.net.HostAndPort;
 import com.google.common.primitives.Ints;
+import io.airlift.concurrent.RequestDeadline;
+import io.airlift.http.client.AsyncResponseHandler;
 import io.airlift.http.client.BodyGenerator;
 import io.airlift.http.client.ByteBufferBodyGenerator;
 import io.airlift.http.client.FileBodyGenerator;
 import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.HedgingPolicy;
 import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.HttpClientConfig.LogFormat;
 import io.airlift.http.client.HttpRequestFilter;
 import io.airlift.http.client.HttpStatusListener;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.RequestStats;
 import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.RetryPolicy;
 import io.airlift.http.client.StaticBodyGenerator;
 import io.airlift.http.client.StreamingBodyGenerator;
+import io.airlift.http.client.StreamingJsonBodyGenerator;
 import io.airlift.http.client.StreamingResponse;
+import io.airlift.http.client.jetty.DestinationCircuitBreakers.Permit;
 import io.airlift.http.client.jetty.HttpClientLogger.RequestInfo;
 import io.airlift.http.client.jetty.HttpClientLogger.ResponseInfo;
+import io.airlift.log.Logger;
 import io.airlift.security.pem.PemReader;
+import io.airlift.stats.Distribution;
+import io.airlift.stats.TimeDistribution;
+import io.airlift.stats.TimeStat;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.opentelemetry.api.OpenTelemetry;
@@ -51,6 +62,7 @@ import org.eclipse.jetty.client.HttpProxy;
 import org.eclipse.jetty.client.InputStreamRequestContent;
 import org.eclipse.jetty.client.InputStreamResponseListener;
 import org.eclipse.jetty.client.Origin.Address;
+import org.eclipse.jetty.client.OutputStreamRequestContent;
 import org.eclipse.jetty.client.PathRequestContent;
 import org.eclipse.jetty.client.Response;
 import org.eclipse.jetty.client.Result;
@@ -70,7 +82,9 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.ClientConnectionFactory;
 import org.eclipse.jetty.io.ClientConnector;
 import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.io.Transport;
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.MonitoredQueuedThreadPool;
@@ -89,9 +103,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.StandardSocketOptions;
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.NetworkChannel;
 import java.nio.channels.SelectableChannel;
@@ -99,26 +115,33 @@ import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Suppliers.memoizeWithExpiration;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.net.InetAddresses.isInetAddress;
 import static io.airlift.http.client.ResponseHandlerUtils.propagate;
 import static io.airlift.node.AddressToHostname.tryDecodeHostnameToAddress;
 import static io.airlift.security.mtls.AutomaticMtls.addClientTrust;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static java.util.Objects.requireNonNullElse;
@@ -127,6 +150,7 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.jetty.client.ConnectionPoolAccessor.getActiveConnections;
 import static org.eclipse.jetty.client.HttpClient.normalizePort;
+import static org.eclipse.jetty.http.HttpHeader.CONTENT_ENCODING;
 import static org.eclipse.jetty.http.HttpHeader.PROXY_AUTHORIZATION;
 
 public class JettyHttpClient
@@ -135,10 +159,19 @@ public class JettyHttpClient
     // This attribute will be deprecated in OTEL soon
     static final AttributeKey<Boolean> EXCEPTION_ESCAPED = AttributeKey.booleanKey("exception.escaped");
 
+    /**
+     * Carries the remaining request timeout in milliseconds, so the server can stop work the client no longer waits for.
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Airlift-Request-Timeout";
+
+    private static final Logger log = Logger.get(JettyHttpClient.class);
+
     private static final String STATS_KEY = "airlift_stats";
 
     private static final AtomicLong NAME_COUNTER = new AtomicLong();
 
+    private static final RetryPolicy NO_RETRIES = RetryPolicy.builder().setMaxAttempts(1).build();
+
     private static final OpenTelemetry NOOP_OPEN_TELEMETRY = OpenTelemetry.noop();
     private static final Tracer NOOP_TRACER = TracerProvider.noop().get("noop");
 
@@ -153,9 +186,21 @@ public class JettyHttpClient
     private final MonitoredQueuedThreadPoolMBean monitoredQueuedThreadPoolMBean;
     private final ConnectionStats connectionStats;
     private final RequestStats stats = new RequestStats();
+    private final RetryBudget retryBudget;
+    private final DestinationCircuitBreakers circuitBreakers;
+    private final JettyAsyncSocketAddressResolver socketAddressResolver;
+    private final List<URI> keepWarmDestinations;
+    private final int keepWarmConnections;
+    private final Duration keepWarmInterval;
+    private final boolean responseCompressionEnabled;
+    private final Optional<RequestBodyCompressor> requestBodyCompressor;
+    private final Optional<Transport> unixDomainTransport;
+    private final boolean deadlinePropagationEnabled;
+    private final Supplier<Map<Double, Duration>> responseTimePercentiles = memoizeWithExpiration(this::getResponseTimePercentiles, 1, SECONDS);
     private final CachedDistribution queuedRequestsPerDestination;
     private final CachedDistribution activeConnectionsPerDestination;
     private final CachedDistribution idleConnectionsPerDestination;
+    private final CachedDistribution inFlightRequestsPerDestination;
 
     private final CachedDistribution currentQueuedTime;
     private final CachedDistribution currentRequestTime;
@@ -247,8 +292,20 @@ public class JettyHttpClient
 
         maxResponseContentLength = config.getMaxResponseContentLength();
         requestTimeout = config.getRequestTimeout();
+        deadlinePropagationEnabled = config.isDeadlinePropagationEnabled();
         idleTimeout = config.getIdleTimeout();
         recordRequestComplete = config.getRecordRequestComplete();
+        retryBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMaxBurst());
+        circuitBreakers = new DestinationCircuitBreakers(config);
+        responseCompressionEnabled = config.isResponseCompressionEnabled();
+        requestBodyCompressor = config.isRequestCompressionEnabled() ?
+                Optional.of(new RequestBodyCompressor(config.getRequestCompressionMinSize(), stats)) :
+                Optional.empty();
+        keepWarmDestinations = ImmutableList.copyOf(config.getKeepWarmDestinations());
+        keepWarmConnections = config.getKeepWarmConnections();
+        keepWarmInterval = config.getKeepWarmInterval();
+        unixDomainTransport = config.getUnixDomainSocketPath()
+                .map(path -> new Transport.TCPUnix(Path.of(path)));
 
         SslContextFactory.Client sslContextFactory = maybeSslContextFactory.orElseGet(() -> getSslContextFactory(config, environment));
 
@@ -319,27 +376,42 @@ public class JettyHttpClient
         httpClient.setScheduler(createScheduler(name, config.getTimeoutConcurrency(), config.getTimeoutThreads()));
         httpClient.setStrictEventOrdering(config.isStrictEventOrdering());
 
-        JettyAsyncSocketAddressResolver resolver = new JettyAsyncSocketAddressResolver(
+        this.socketAddressResolver = new JettyAsyncSocketAddressResolver(
                 httpClient.getExecutor(),
                 httpClient.getScheduler(),
-                config.getConnectTimeout().toMillis());
+                config.getConnectTimeout().toMillis(),
+                config.getDnsCacheTtl(),
+                config.getDnsCacheNegativeTtl());
         httpClient.setSocketAddressResolver((host, port, context, promise) -> {
             Optional<InetAddress> inetAddress = tryDecodeHostnameToAddress(host);
             if (inetAddress.isPresent()) {
                 promise.succeeded(ImmutableList.of(new InetSocketAddress(inetAddress.orElseThrow(), port)));
                 return;
             }
-            resolver.resolve(host, port, context, promise);
+            socketAddressResolver.resolve(host, port, context, promise);
         });
 
         // track connection statistics
         ConnectionStatistics connectionStats = new ConnectionStatistics();
         httpClient.addBean(connectionStats);
         this.connectionStats = new ConnectionStats(connectionStats);
+        httpClient.getTransport().setConnectionPoolFactory(destination -> new AcquisitionTrackingConnectionPool(destination, this.connectionStats));
 
         // configure logging
         this.logEnabled = config.isLogEnabled();
-        if (logEnabled) {
+        if (logEnabled && config.getLogFormat() == LogFormat.BINARY) {
+            // segment names are suffixed with their creation time
+            String logFilePath = Path.of(config.getLogPath(), "%s-http-client".formatted(name)).toAbsolutePath().toString();
+            requestLogger = new BinaryHttpClientLogger(
+                    logFilePath,
+                    config.getLogHistory(),
+                    config.getLogQueueSize(),
+                    config.getLogBufferSize(),
+                    config.getLogFlushInterval(),
+                    config.getLogMaxFileSize().toBytes(),
+                    config.isLogCompressionEnabled());
+        }
+        else if (logEnabled) {
             String logFilePath = Path.of(config.getLogPath(), "%s-http-client.log".formatted(name)).toAbsolutePath().toString();
             requestLogger = new DefaultHttpClientLogger(
                     logFilePath,
@@ -357,9 +429,11 @@ public class JettyHttpClient
         try {
             httpClient.start();
 
-            // remove the GZIP encoding from the client
-            // TODO: there should be a better way to to do this
-            httpClient.getContentDecoderFactories().clear();
+            // the decoders found on the class path advertise their encodings in Accept-Encoding,
+            // so they are removed unless responses should be compressed
+            if (!responseCompressionEnabled) {
+                httpClient.getContentDecoderFactories().clear();
+            }
         }
         catch (Exception e) {
             if (e instanceof InterruptedException) {
@@ -388,6 +462,12 @@ public class JettyHttpClient
                 httpClient,
                 (distribution, destination) -> distribution.add(destination.getHttpExchanges().size()));
 
+        this.inFlightRequestsPerDestination = new CachedDistribution(() -> {
+            Distribution distribution = new Distribution();
+            circuitBreakers.getInFlightRequests().values().forEach(distribution::add);
+            return distribution;
+        });
+
         this.currentQueuedTime = new RequestDistribution(httpClient, (distribution, listener, now) -> {
             long started = listener.getRequestStarted();
             if (started == 0) {
@@ -443,6 +523,10 @@ public class JettyHttpClient
             }
             distribution.add(NANOSECONDS.toMillis(finished - responseStarted));
         });
+
+        if (!keepWarmDestinations.isEmpty()) {
+            keepWarm();
+        }
     }
 
     private ByteBufferPool createByteBufferPool(int maxBufferSize, HttpClientConfig config)
@@ -659,10 +743,62 @@ public class JettyHttpClient
         return scheduler;
     }
 
+    /**
+     * Resolves the host of the URI, and opens connections to its destination until it has
+     * at least the given number of connections. The returned future completes when the
+     * connections are open. Connections that are not used are closed after the idle timeout.
+     */
+    public CompletableFuture<Void> warmUp(URI uri, int connections)
+    {
+        requireNonNull(uri, "uri is null");
+        checkArgument(connections >= 0, "connections is negative");
+
+        // resolve the host even if no connection is opened, to keep cached addresses fresh
+        int port = normalizePort(uri.getScheme(), uri.getPort());
+        httpClient.getSocketAddressResolver().resolve(uri.getHost(), port, Map.of(), Promise.noop());
+
+        Destination destination = httpClient.resolveDestination(newJettyRequest(uri));
+        if (!(destination instanceof HttpDestination httpDestination) || !(httpDestination.getConnectionPool() instanceof AbstractConnectionPool pool)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int missing = connections - pool.getConnectionCount();
+        if (missing <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return pool.preCreateConnections(missing)
+                .thenRun(() -> connectionStats.connectionsPreopened(missing));
+    }
+
+    private void keepWarm()
+    {
+        if (isClosed()) {
+            return;
+        }
+        for (URI destination : keepWarmDestinations) {
+            try {
+                warmUp(destination, keepWarmConnections);
+            }
+            catch (RuntimeException e) {
+                log.debug(e, "Failed to warm up connections to %s", destination);
+            }
+        }
+        try {
+            httpClient.getScheduler().schedule(this::keepWarm, keepWarmInterval.toMillis(), MILLISECONDS);
+        }
+        catch (RejectedExecutionException ignored) {
+            // the client is closed
+        }
+    }
+
     @Override
     public <T, E extends Exception> T execute(Request request, ResponseHandler<T, E> responseHandler)
             throws E
     {
+        if (request.getRetryPolicy().isPresent() || request.getHedgingPolicy().isPresent()) {
+            return executeWithRetries(request, responseHandler);
+        }
+
+        retryBudget.requestStarted();
         request = applyRequestFilters(request);
 
         Span span = startSpan(request);
@@ -692,6 +828,27 @@ public class JettyHttpClient
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T executeWithRetries(Request request, ResponseHandler<T, E> responseHandler)
+            throws E
+    {
+        HttpResponseFuture<T> future = executeAsync(request, responseHandler);
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return responseHandler.handleException(request, e);
+        }
+        catch (ExecutionException e) {
+            // this will be an instance of E from the response handler or an unchecked exception
+            Throwable cause = e.getCause();
+            throwIfUnchecked(cause);
+            throw (E) cause;
+        }
+    }
+
     @Override
     public StreamingResponse executeStreaming(Request request)
     {
@@ -803,9 +960,26 @@ public class JettyHttpClient
         // create jetty request and response listener
         RequestContext context = buildRequestContext(request);
 
+        Optional<Permit> permit;
+        try {
+            permit = acquireDestinationPermit(context.request());
+        }
+        catch (DestinationRejectedException e) {
+            stats.recordRequestFailed();
+            requestLogger.log(context.info(), ResponseInfo.failed(Optional.empty(), Optional.of(e)));
+            return new InternalExceptionResponse<>(exceptionHandler.handleException(request, e));
+        }
+
         InputStreamResponseListener listener = new InputStreamResponseListener();
         // fire the request
-        context.request().send(listener);
+        try {
+            context.request().send(listener);
+        }
+        catch (RuntimeException e) {
+            // the request was not sent, so the complete listener never returns the permit
+            permit.ifPresent(Permit::release);
+            throw e;
+        }
 
         // wait for response to begin
         Response response;
@@ -911,6 +1085,7 @@ public class JettyHttpClient
 
         try {
             request = applyRequestFilters(request);
+            checkTransportSupported(request.getUri());
         }
         catch (RuntimeException e) {
             startSpan(request)
@@ -920,6 +1095,27 @@ public class JettyHttpClient
             return new FailedHttpResponseFuture<>(e);
         }
 
+        retryBudget.requestStarted();
+        if (request.getRetryPolicy().isEmpty() && request.getHedgingPolicy().isEmpty()) {
+            return executeAttempt(request, responseHandler);
+        }
+
+        RetryingResponseFuture<T, E> future = new RetryingResponseFuture<>(
+                request,
+                responseHandler,
+                request.getRetryPolicy().orElse(NO_RETRIES),
+                request.getHedgingPolicy(),
+                this::getHedgeDelay,
+                retryBudget,
+                httpClient.getScheduler(),
+                stats,
+                this::executeAttempt);
+        future.start();
+        return future;
+    }
+
+    private <T, E extends Exception> HttpResponseFuture<T> executeAttempt(Request request, ResponseHandler<T, E> responseHandler)
+    {
         Span span = startSpan(request);
         request = injectTracing(request, span);
 
@@ -929,10 +1125,75 @@ public class JettyHttpClient
         JettyResponseFuture<T, E> future = new JettyResponseFuture<>(request, jettyRequest.request(), jettyRequest.sizeListener()::getBytes, responseHandler, span, stats, recordRequestComplete);
         JettyResponseListener<T, E> listener = new JettyResponseListener<>(sizedByteBufferPool, jettyRequest.request(), future, Ints.saturatedCast(maxResponseContentLength.toBytes()));
 
+        Optional<Permit> permit;
+        try {
+            permit = acquireDestinationPermit(jettyRequest.request());
+        }
+        catch (DestinationRejectedException e) {
+            requestLogger.log(jettyRequest.info(), ResponseInfo.failed(Optional.empty(), Optional.of(e)));
+            future.failed(e);
+            return future;
+        }
+
         try {
             return listener.send();
         }
         catch (RuntimeException e) {
+            permit.ifPresent(Permit::release);
+            if (!(e instanceof RejectedExecutionException)) {
+                e = new RejectedExecutionException(e);
+            }
+            // normally this is a rejected execution exception because the client has been closed
+            requestLogger.log(jettyRequest.info(), ResponseInfo.failed(Optional.empty(), Optional.of(e)));
+            future.failed(e);
+            return future;
+        }
+    }
+
+    /**
+     * Executes the given request, delivering the response body to the handler from the Jetty content callbacks.
+     * <p>
+     * <b>Note:</b> retry and hedging policies are not applied, as the body is consumed while it is received.
+     */
+    @Override
+    public <T> HttpResponseFuture<T> executeAsync(Request request, AsyncResponseHandler<T> responseHandler)
+    {
+        requireNonNull(request, "request is null");
+        requireNonNull(responseHandler, "responseHandler is null");
+
+        try {
+            request = applyRequestFilters(request);
+            checkTransportSupported(request.getUri());
+        }
+        catch (RuntimeException e) {
+            startSpan(request)
+                    .setStatus(StatusCode.ERROR, e.getMessage())
+                    .recordException(e, Attributes.of(EXCEPTION_ESCAPED, true))
+                    .end();
+            return new FailedHttpResponseFuture<>(e);
+        }
+
+        Span span = startSpan(request);
+        request = injectTracing(request, span);
+
+        RequestContext jettyRequest = buildRequestContext(request);
+        JettyAsyncResponseFuture<T> future = new JettyAsyncResponseFuture<>(request, jettyRequest.request(), jettyRequest.sizeListener()::getBytes, responseHandler, span, stats, recordRequestComplete);
+
+        Optional<Permit> permit;
+        try {
+            permit = acquireDestinationPermit(jettyRequest.request());
+        }
+        catch (DestinationRejectedException e) {
+            requestLogger.log(jettyRequest.info(), ResponseInfo.failed(Optional.empty(), Optional.of(e)));
+            future.failed(e);
+            return future;
+        }
+
+        try {
+            return future.send();
+        }
+        catch (RuntimeException e) {
+            permit.ifPresent(Permit::release);
             if (!(e instanceof RejectedExecutionException)) {
                 e = new RejectedExecutionException(e);
             }
@@ -943,6 +1204,36 @@ public class JettyHttpClient
         }
     }
 
+    private Optional<Permit> acquireDestinationPermit(HttpRequest jettyRequest)
+    {
+        if (!circuitBreakers.isEnabled()) {
+            return Optional.empty();
+        }
+        Permit permit = circuitBreakers.acquire(jettyRequest.getURI());
+        jettyRequest.onComplete(permit);
+        return Optional.of(permit);
+    }
+
+    private Duration getHedgeDelay(HedgingPolicy hedgingPolicy)
+    {
+        Duration delay = responseTimePercentiles.get().get(hedgingPolicy.getPercentile() / 100.0);
+        if (delay == null || delay.compareTo(hedgingPolicy.getMinDelay()) < 0) {
+            return hedgingPolicy.getMinDelay();
+        }
+        return delay;
+    }
+
+    private Map<Double, Duration> getResponseTimePercentiles()
+    {
+        TimeStat responseTime = stats.getResponseTime();
+        // decaying distributions are not available with all stats implementations
+        TimeDistribution distribution = requireNonNullElse(responseTime.getOneMinute(), responseTime.getAllTime());
+        TimeUnit unit = distribution.getUnit();
+        return distribution.getPercentiles().entrySet().stream()
+                .filter(entry -> Double.isFinite(entry.getValue()))
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> new Duration(entry.getValue(), unit)));
+    }
+
     private Request applyRequestFilters(Request request)
     {
         for (HttpRequestFilter requestFilter : requestFilters) {
@@ -978,10 +1269,27 @@ public class JettyHttpClient
         return builder.build();
     }
 
+    private org.eclipse.jetty.client.Request newJettyRequest(URI uri)
+    {
+        checkTransportSupported(uri);
+        org.eclipse.jetty.client.Request jettyRequest = httpClient.newRequest(uri);
+        // connections to the socket are pooled separately, as the transport is part of the destination
+        unixDomainTransport.ifPresent(jettyRequest::transport);
+        return jettyRequest;
+    }
+
+    private void checkTransportSupported(URI uri)
+    {
+        // the socket is plaintext, so sending https requests over it would silently drop TLS
+        if (unixDomainTransport.isPresent() && "https".equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("HTTPS is not supported over a Unix domain socket: " + uri);
+        }
+    }
+
     private RequestContext buildRequestContext(Request finalRequest)
     {
         long requestTime = System.currentTimeMillis();
-        HttpRequest jettyRequest = (HttpRequest) httpClient.newRequest(finalRequest.getUri());
+        HttpRequest jettyRequest = (HttpRequest) newJettyRequest(finalRequest.getUri());
         finalRequest.getHttpVersion().ifPresent(version -> {
             switch (version) {
                 case HTTP_1 -> jettyRequest.version(HttpVersion.HTTP_1_1);
@@ -995,17 +1303,39 @@ public class JettyHttpClient
         BodyGenerator bodyGenerator = finalRequest.getBodyGenerator();
         if (bodyGenerator != null) {
             switch (bodyGenerator) {
-                case StaticBodyGenerator generator -> jettyRequest.body(new BytesRequestContent(generator.getBody()));
+                case StaticBodyGenerator generator -> jettyRequest.body(requestBodyCompressor
+                        .map(compressor -> compressor.compress(jettyRequest, generator.getBody()))
+                        .orElseGet(() -> new BytesRequestContent(generator.getBody())));
                 case ByteBufferBodyGenerator generator -> jettyRequest.body(new ByteBufferRequestContent(generator.getByteBuffers()));
                 case FileBodyGenerator generator -> jettyRequest.body(new PathRequestContent(generator.getContentType().toString(), generator.getPath(), sizedByteBufferPool));
-                case StreamingBodyGenerator generator -> jettyRequest.body(new InputStreamRequestContent(generator.contentType(), generator.source(), sizedByteBufferPool));
+                case StreamingBodyGenerator generator -> jettyRequest.body(requestBodyCompressor
+                        .filter(compressor -> !compressor.isEncoded(jettyRequest))
+                        .map(compressor -> compressor.compress(jettyRequest, generator, httpClient.getExecutor()))
+                        .orElseGet(() -> new InputStreamRequestContent(generator.contentType(), generator.source(), sizedByteBufferPool)));
+                case StreamingJsonBodyGenerator<?> generator -> {
+                    generator.contentEncoding().ifPresent(encoding -> jettyRequest.headers(headers -> headers.put(CONTENT_ENCODING, encoding)));
+                    jettyRequest.body(streamingJsonContent(jettyRequest, generator));
+                }
             }
         }
 
         jettyRequest.followRedirects(finalRequest.isFollowRedirects());
 
         // timeouts
-        jettyRequest.timeout(finalRequest.getRequestTimeout().orElse(requestTimeout).toMillis(), MILLISECONDS);
+        long timeoutMillis = finalRequest.getRequestTimeout().orElse(requestTimeout).toMillis();
+        if (deadlinePropagationEnabled) {
+            Optional<RequestDeadline> deadline = RequestDeadline.current();
+            if (deadline.isPresent()) {
+                // a zero timeout disables the timeout, so a request sent after the deadline times out immediately instead
+                long remainingMillis = max(deadline.get().getRemaining().toMillis(), 1);
+                timeoutMillis = (timeoutMillis > 0) ? min(timeoutMillis, remainingMillis) : remainingMillis;
+            }
+            if (timeoutMillis > 0 && !jettyRequest.getHeaders().contains(REQUEST_TIMEOUT_HEADER)) {
+                String timeoutHeader = Long.toString(timeoutMillis);
+                jettyRequest.headers(headers -> headers.put(REQUEST_TIMEOUT_HEADER, timeoutHeader));
+            }
+        }
+        jettyRequest.timeout(timeoutMillis, MILLISECONDS);
         jettyRequest.idleTimeout(finalRequest.getIdleTimeout().orElse(idleTimeout).toMillis(), MILLISECONDS);
 
         // Add stats collecting listener
@@ -1014,6 +1344,16 @@ public class JettyHttpClient
         jettyRequest.onResponseListener(requestListener);
         jettyRequest.attribute(STATS_KEY, requestListener);
 
+        // Count compressed responses, which are decoded by the client
+        if (responseCompressionEnabled) {
+            jettyRequest.onResponseHeader((_, field) -> {
+                if (field.getHeader() == CONTENT_ENCODING && !field.getValue().equalsIgnoreCase("identity")) {
+                    stats.recordResponseCompressed();
+                }
+                return true;
+            });
+        }
+
         // Add diagnostics listener
         jettyRequest.onComplete(new DiagnosticListener());
 
@@ -1036,6 +1376,26 @@ public class JettyHttpClient
 
     private record RequestContext(HttpRequest request, RequestInfo info, RequestSizeListener sizeListener, long timestamp) {}
 
+    private OutputStreamRequestContent streamingJsonContent(HttpRequest jettyRequest, StreamingJsonBodyGenerator<?> generator)
+    {
+        OutputStreamRequestContent content = new OutputStreamRequestContent(generator.contentType());
+        // Serialization blocks while the connection is not writable, so it is started only
+        // when the request is sent to avoid holding a thread while the request is queued
+        jettyRequest.onRequestBegin(_ -> httpClient.getExecutor().execute(() -> {
+            // closing the output completes the request body, so it is only closed after the whole body was
+            // written, and a failure fails the content instead of sending a truncated body
+            OutputStream output = content.getOutputStream();
+            try {
+                generator.write(output);
+                output.close();
+            }
+            catch (Exception e) {
+                content.fail(e);
+            }
+        }));
+        return content;
+    }
+
     private boolean shouldBeDiagnosed(Result result)
     {
         return Throwables.getCausalChain(result.getFailure()).stream()
@@ -1084,6 +1444,18 @@ public class JettyHttpClient
         return stats;
     }
 
+    @Managed
+    public double getRetryBudgetAvailable()
+    {
+        return retryBudget.getAvailableRetries();
+    }
+
+    @Managed
+    public long getRetryBudgetRejected()
+    {
+        return retryBudget.getRejectedRetries();
+    }
+
     @Managed
     @Nested
     public MonitoredQueuedThreadPoolMBean getThreadPool()
@@ -1091,6 +1463,13 @@ public class JettyHttpClient
         return monitoredQueuedThreadPoolMBean;
     }
 
+    @Managed
+    @Nested
+    public JettyAsyncSocketAddressResolver getSocketAddressResolver()
+    {
+        return socketAddressResolver;
+    }
+
     @Managed
     @Nested
     public ConnectionStats getConnectionStats()
@@ -1119,6 +1498,20 @@ public class JettyHttpClient
         return queuedRequestsPerDestination;
     }
 
+    @Managed
+    @Nested
+    public CachedDistribution getInFlightRequestsPerDestination()
+    {
+        return inFlightRequestsPerDestination;
+    }
+
+    @Managed
+    @Nested
+    public DestinationCircuitBreakers getCircuitBreakers()
+    {
+        return circuitBreakers;
+    }
+
     @Managed
     @Nested
     public CachedDistribution getCurrentQueuedTime()
@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import com.google.common.io.CountingOutputStream;
+import io.airlift.http.client.RequestStats;
+import io.airlift.http.client.StreamingBodyGenerator;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.eclipse.jetty.client.BytesRequestContent;
+import org.eclipse.jetty.client.OutputStreamRequestContent;
+import org.eclipse.jetty.client.Request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPOutputStream;
+
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eclipse.jetty.http.HttpHeader.CONTENT_ENCODING;
+
+/**
+ * Compresses request bodies with gzip. Static bodies are only compressed when they are
+ * at least the minimum size, while streaming bodies have an unknown size and are always compressed.
+ */
+class RequestBodyCompressor
+{
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long minSize;
+    private final RequestStats stats;
+
+    public RequestBodyCompressor(DataSize minSize, RequestStats stats)
+    {
+        this.minSize = minSize.toBytes();
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    public Request.Content compress(Request request, byte[] body)
+    {
+        if (body.length < minSize || isEncoded(request)) {
+            return new BytesRequestContent(body);
+        }
+
+        long start = currentThreadCpuTime();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(toIntExact(Math.max(BUFFER_SIZE, body.length / 4)));
+        try (OutputStream output = new GZIPOutputStream(compressed, BUFFER_SIZE)) {
+            output.write(body);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stats.recordRequestCompressed(body.length, compressed.size(), cpuTimeSince(start));
+
+        request.headers(headers -> headers.put(CONTENT_ENCODING, GZIP));
+        return new BytesRequestContent(compressed.toByteArray());
+    }
+
+    public Request.Content compress(Request request, StreamingBodyGenerator generator, Executor executor)
+    {
+        OutputStreamRequestContent content = new OutputStreamRequestContent(generator.contentType());
+        request.headers(headers -> headers.put(CONTENT_ENCODING, GZIP));
+        // Compression blocks while the connection is not writable, so it is started only
+        // when the request is sent to avoid holding a thread while the request is queued
+        request.onRequestBegin(_ -> executor.execute(() -> {
+            long start = currentThreadCpuTime();
+            CountingOutputStream compressed = new CountingOutputStream(content.getOutputStream());
+            try (InputStream source = generator.source()) {
+                // closing the output completes the request body, so it is only closed when the whole source was
+                // compressed, and a failure fails the content instead of sending a valid gzip of a truncated body
+                GZIPOutputStream output;
+                long uncompressed;
+                try {
+                    output = new GZIPOutputStream(compressed, BUFFER_SIZE);
+                    uncompressed = source.transferTo(output);
+                }
+                catch (Exception e) {
+                    content.fail(e);
+                    return;
+                }
+                output.close();
+                stats.recordRequestCompressed(uncompressed, compressed.getCount(), cpuTimeSince(start));
+            }
+            catch (Exception e) {
+                content.fail(e);
+            }
+        }));
+        return content;
+    }
+
+    public boolean isEncoded(Request request)
+    {
+        return request.getHeaders().contains(CONTENT_ENCODING);
+    }
+
+    private static long currentThreadCpuTime()
+    {
+        long cpuTime = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        // CPU time is not available for virtual threads
+        return cpuTime >= 0 ? cpuTime : System.nanoTime();
+    }
+
+    private static Duration cpuTimeSince(long start)
+    {
+        return new Duration(currentThreadCpuTime() - start, NANOSECONDS);
+    }
+}
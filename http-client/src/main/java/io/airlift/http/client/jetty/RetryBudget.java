@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+
+/**
+ * Limits retries (and hedged requests) of a client to a fraction of its requests.
+ * Each request deposits {@code ratio} of a token, and each retry withdraws a full token.
+ * The balance is capped at {@code maxBurst} tokens, which is also the initial balance.
+ */
+class RetryBudget
+{
+    // tokens are tracked in thousandths to allow fractional deposits
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public RetryBudget(double ratio, int maxBurst)
+    {
+        checkArgument(ratio >= 0, "ratio is negative");
+        checkArgument(maxBurst >= 0, "maxBurst is negative");
+        this.deposit = (long) (ratio * SCALE);
+        this.maxBalance = maxBurst * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    public void requestStarted()
+    {
+        // avoid contending on the balance when the budget is full
+        if (balance.get() < maxBalance) {
+            balance.getAndUpdate(current -> min(current + deposit, maxBalance));
+        }
+    }
+
+    public boolean tryAcquireRetry()
+    {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getAvailableRetries()
+    {
+        return balance.get() / (double) SCALE;
+    }
+
+    public long getRejectedRetries()
+    {
+        return rejected.get();
+    }
+}
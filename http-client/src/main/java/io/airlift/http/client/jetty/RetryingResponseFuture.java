@@ -0,0 +1,325 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.HedgingPolicy;
+import io.airlift.http.client.HttpClient.HttpResponseFuture;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.RequestStats;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.RetryPolicy;
+import io.airlift.units.Duration;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.net.HttpHeaders.RETRY_AFTER;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Executes a request as one or more attempts, according to its retry and hedging policies.
+ * Each attempt decides in its response handler whether it is retried, and only the winning
+ * attempt is processed by the user response handler.
+ */
+class RetryingResponseFuture<T, E extends Exception>
+        extends AbstractFuture<T>
+        implements HttpResponseFuture<T>
+{
+    private final Request request;
+    private final ResponseHandler<T, E> responseHandler;
+    private final RetryPolicy retryPolicy;
+    private final Optional<HedgingPolicy> hedgingPolicy;
+    private final Function<HedgingPolicy, Duration> hedgeDelay;
+    private final RetryBudget retryBudget;
+    private final Scheduler scheduler;
+    private final RequestStats stats;
+    private final BiFunction<Request, ResponseHandler<Attempt<T>, E>, HttpResponseFuture<Attempt<T>>> attemptExecutor;
+
+    @GuardedBy("this")
+    private final List<HttpResponseFuture<Attempt<T>>> attempts = new ArrayList<>();
+    @GuardedBy("this")
+    private final List<Scheduler.Task> scheduledTasks = new ArrayList<>();
+    @GuardedBy("this")
+    private int inFlight;
+    @GuardedBy("this")
+    private int retries;
+    @GuardedBy("this")
+    private int hedges;
+    // the attempt processed by the user response handler, once decided
+    @GuardedBy("this")
+    private AttemptResponseHandler winner;
+
+    RetryingResponseFuture(
+            Request request,
+            ResponseHandler<T, E> responseHandler,
+            RetryPolicy retryPolicy,
+            Optional<HedgingPolicy> hedgingPolicy,
+            Function<HedgingPolicy, Duration> hedgeDelay,
+            RetryBudget retryBudget,
+            Scheduler scheduler,
+            RequestStats stats,
+            BiFunction<Request, ResponseHandler<Attempt<T>, E>, HttpResponseFuture<Attempt<T>>> attemptExecutor)
+    {
+        this.request = requireNonNull(request, "request is null");
+        this.responseHandler = requireNonNull(responseHandler, "responseHandler is null");
+        this.retryPolicy = requireNonNull(retryPolicy, "retryPolicy is null");
+        this.hedgingPolicy = requireNonNull(hedgingPolicy, "hedgingPolicy is null");
+        this.hedgeDelay = requireNonNull(hedgeDelay, "hedgeDelay is null");
+        this.retryBudget = requireNonNull(retryBudget, "retryBudget is null");
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.attemptExecutor = requireNonNull(attemptExecutor, "attemptExecutor is null");
+    }
+
+    void start()
+    {
+        startAttempt();
+        scheduleHedge();
+    }
+
+    @Override
+    public synchronized String getState()
+    {
+        if (!isDone() && inFlight == 0 && !attempts.isEmpty()) {
+            return "WAITING_FOR_RETRY";
+        }
+        return attempts.isEmpty() ? "WAITING_FOR_CONNECTION" : attempts.getLast().getState();
+    }
+
+    @Override
+    protected void afterDone()
+    {
+        cancelOtherAttempts(Optional.empty());
+    }
+
+    /**
+     * Cancels the pending hedges and retries, and all attempts other than the winner.
+     */
+    private void cancelOtherAttempts(Optional<HttpResponseFuture<Attempt<T>>> winningAttempt)
+    {
+        List<HttpResponseFuture<Attempt<T>>> attempts;
+        List<Scheduler.Task> scheduledTasks;
+        synchronized (this) {
+            attempts = List.copyOf(this.attempts);
+            scheduledTasks = List.copyOf(this.scheduledTasks);
+        }
+        scheduledTasks.forEach(Scheduler.Task::cancel);
+        for (HttpResponseFuture<Attempt<T>> attempt : attempts) {
+            if (winningAttempt.map(winning -> winning != attempt).orElse(true) && !attempt.isDone()) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    private void startAttempt()
+    {
+        synchronized (this) {
+            if (winner != null || isDone()) {
+                return;
+            }
+            inFlight++;
+        }
+
+        AttemptResponseHandler handler = new AttemptResponseHandler();
+        HttpResponseFuture<Attempt<T>> attempt = attemptExecutor.apply(request, handler);
+        boolean lost;
+        synchronized (this) {
+            attempts.add(attempt);
+            handler.attempt = attempt;
+            lost = winner != null && winner != handler;
+        }
+        // the request may have been decided or completed while the attempt was started
+        if ((lost || isDone()) && !attempt.isDone()) {
+            attempt.cancel(true);
+        }
+
+        addCallback(attempt, new FutureCallback<>()
+        {
+            @Override
+            public void onSuccess(Attempt<T> result)
+            {
+                switch (result) {
+                    case Value<T>(T value) -> set(value);
+                    case Retry<T>(Duration delay) -> schedule(RetryingResponseFuture.this::startAttempt, delay);
+                    case Discarded<T> _ -> {}
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable throwable)
+            {
+                synchronized (RetryingResponseFuture.this) {
+                    // a losing attempt is cancelled once the winner is decided
+                    if (winner != null && winner != handler) {
+                        return;
+                    }
+                }
+                // an exception from the response handler, or an attempt cancelled after the request completed
+                setException(throwable);
+            }
+        }, directExecutor());
+    }
+
+    private void scheduleHedge()
+    {
+        if (hedgingPolicy.isEmpty() || !retryPolicy.canRetry(request)) {
+            return;
+        }
+        synchronized (this) {
+            if (hedges >= hedgingPolicy.get().getMaxHedgedAttempts()) {
+                return;
+            }
+        }
+        schedule(this::hedge, hedgeDelay.apply(hedgingPolicy.get()));
+    }
+
+    private void hedge()
+    {
+        synchronized (this) {
+            // no hedge is needed while waiting to retry
+            if (winner != null || isDone() || inFlight == 0 || !retryBudget.tryAcquireRetry()) {
+                return;
+            }
+            hedges++;
+        }
+        stats.recordRequestHedged();
+        startAttempt();
+        scheduleHedge();
+    }
+
+    private void schedule(Runnable task, Duration delay)
+    {
+        Scheduler.Task scheduled;
+        try {
+            scheduled = scheduler.schedule(task, delay.roundTo(NANOSECONDS), NANOSECONDS);
+        }
+        catch (RuntimeException e) {
+            // normally a rejected execution exception because the client has been closed
+            setException(e);
+            return;
+        }
+        synchronized (this) {
+            scheduledTasks.add(scheduled);
+        }
+        if (isDone()) {
+            scheduled.cancel();
+        }
+    }
+
+    /**
+     * Decides the outcome of a finished attempt. An empty result means the attempt
+     * won and must be processed by the user response handler, in which case the
+     * other attempts are cancelled right away.
+     */
+    private Optional<Attempt<T>> attemptFinished(AttemptResponseHandler handler, boolean retryable, Optional<Duration> retryAfter)
+    {
+        Optional<HttpResponseFuture<Attempt<T>>> winningAttempt;
+        synchronized (this) {
+            inFlight--;
+            if (winner != null) {
+                return Optional.of(new Discarded<>());
+            }
+            if (retryable) {
+                if (inFlight > 0) {
+                    // let the other (hedged) attempt finish
+                    return Optional.of(new Discarded<>());
+                }
+                if (retries + 1 < retryPolicy.getMaxAttempts() && retryPolicy.canRetry(request) && retryBudget.tryAcquireRetry()) {
+                    retries++;
+                    stats.recordRequestRetried();
+                    return Optional.of(new Retry<>(retryPolicy.getRetryDelay(retries, retryAfter)));
+                }
+            }
+            winner = handler;
+            // the attempt is not known yet if it finished before it was registered
+            winningAttempt = Optional.ofNullable(handler.attempt);
+        }
+        cancelOtherAttempts(winningAttempt);
+        return Optional.empty();
+    }
+
+    private static Optional<Duration> getRetryAfter(Response response)
+    {
+        // only the delay-seconds form is supported
+        return response.getHeader(HeaderName.of(RETRY_AFTER))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty() && value.chars().allMatch(Character::isDigit) && value.length() < 10)
+                .map(value -> new Duration(Long.parseLong(value), SECONDS));
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("request", request)
+                .add("state", getState())
+                .toString();
+    }
+
+    sealed interface Attempt<T>
+            permits Value, Retry, Discarded {}
+
+    record Value<T>(T value)
+            implements Attempt<T> {}
+
+    record Retry<T>(Duration delay)
+            implements Attempt<T> {}
+
+    record Discarded<T>()
+            implements Attempt<T> {}
+
+    private class AttemptResponseHandler
+            implements ResponseHandler<Attempt<T>, E>
+    {
+        @GuardedBy("RetryingResponseFuture.this")
+        private HttpResponseFuture<Attempt<T>> attempt;
+
+        @Override
+        public Attempt<T> handleException(Request request, Exception exception)
+                throws E
+        {
+            Optional<Attempt<T>> outcome = attemptFinished(this, retryPolicy.isRetryableException(exception), Optional.empty());
+            if (outcome.isPresent()) {
+                return outcome.get();
+            }
+            return new Value<>(responseHandler.handleException(request, exception));
+        }
+
+        @Override
+        public Attempt<T> handle(Request request, Response response)
+                throws E
+        {
+            boolean retryable = retryPolicy.isRetryableStatus(response.getStatusCode());
+            Optional<Attempt<T>> outcome = attemptFinished(this, retryable, retryable ? getRetryAfter(response) : Optional.empty());
+            if (outcome.isPresent()) {
+                return outcome.get();
+            }
+            return new Value<>(responseHandler.handle(request, response));
+        }
+    }
+}
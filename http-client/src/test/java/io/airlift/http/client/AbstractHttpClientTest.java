@@ -1,17 +1,22 @@
 package io.airlift.http.client;
 
+import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.base.Strings;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.concurrent.RequestDeadline;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import io.airlift.http.client.StringResponseHandler.StringResponse;
 import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.json.JsonCodec;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -57,11 +62,14 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static com.google.common.base.Throwables.getStackTraceAsString;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.http.client.HeaderNames.AUTHORIZATION;
+import static io.airlift.http.client.HeaderNames.CONTENT_ENCODING;
 import static io.airlift.http.client.HeaderNames.CONTENT_LENGTH;
 import static io.airlift.http.client.HeaderNames.CONTENT_TYPE;
 import static io.airlift.http.client.HeaderNames.LOCATION;
@@ -73,7 +81,11 @@ import static io.airlift.http.client.Request.Builder.preparePost;
 import static io.airlift.http.client.Request.Builder.preparePut;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 import static io.airlift.http.client.StreamingBodyGenerator.streamingBodyGenerator;
+import static io.airlift.http.client.StreamingJsonBodyGenerator.gzipStreamingJsonBodyGenerator;
+import static io.airlift.http.client.StreamingJsonBodyGenerator.streamingJsonBodyGenerator;
 import static io.airlift.http.client.StringResponseHandler.createStringResponseHandler;
+import static io.airlift.http.client.jetty.JettyHttpClient.REQUEST_TIMEOUT_HEADER;
+import static io.airlift.json.JsonCodec.listJsonCodec;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.Duration.nanosSince;
 import static java.lang.Thread.currentThread;
@@ -501,6 +513,74 @@ public abstract class AbstractHttpClientTest
         assertThat(testFile.delete()).isTrue();
     }
 
+    @Test
+    public void testPutMethodWithStreamingJsonBodyGenerator()
+            throws Exception
+    {
+        JsonCodec<List<String>> codec = listJsonCodec(String.class);
+        List<String> body = IntStream.range(0, 10_000).mapToObj(i -> "value-" + i).collect(toImmutableList());
+
+        try (CloseableTestHttpServer server = newServer()) {
+            URI uri = server.baseURI().resolve("/road/to/nowhere");
+            Request request = preparePut()
+                    .setUri(uri)
+                    .setBodyGenerator(streamingJsonBodyGenerator(codec, body))
+                    .build();
+
+            int statusCode = executeRequest(server, request, createStatusResponseHandler()).getStatusCode();
+            assertThat(statusCode).isEqualTo(200);
+            assertThat(server.servlet().getRequestMethod()).isEqualTo("PUT");
+            assertThat(server.servlet().getRequestHeaders(CONTENT_TYPE)).isEqualTo(ImmutableList.of("application/json; charset=utf-8"));
+            assertThat(server.servlet().getRequestHeaders(CONTENT_ENCODING)).isEmpty();
+            assertThat(codec.fromJson(server.servlet().getRequestBytes())).isEqualTo(body);
+        }
+    }
+
+    @Test
+    public void testPutMethodWithGzipStreamingJsonBodyGenerator()
+            throws Exception
+    {
+        JsonCodec<List<String>> codec = listJsonCodec(String.class);
+        List<String> body = IntStream.range(0, 10_000).mapToObj(i -> "value-" + i).collect(toImmutableList());
+
+        try (CloseableTestHttpServer server = newServer()) {
+            URI uri = server.baseURI().resolve("/road/to/nowhere");
+            Request request = preparePut()
+                    .setUri(uri)
+                    .setBodyGenerator(gzipStreamingJsonBodyGenerator(codec, body))
+                    .build();
+
+            int statusCode = executeRequest(server, request, createStatusResponseHandler()).getStatusCode();
+            assertThat(statusCode).isEqualTo(200);
+            assertThat(server.servlet().getRequestHeaders(CONTENT_ENCODING)).isEqualTo(ImmutableList.of("gzip"));
+            try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(server.servlet().getRequestBytes()))) {
+                assertThat(codec.fromJson(input)).isEqualTo(body);
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingJsonBodyGeneratorSerializationFailure()
+            throws Exception
+    {
+        JsonCodec<List<Object>> codec = listJsonCodec(Object.class);
+        List<Object> body = new ArrayList<>();
+        IntStream.range(0, 10_000).mapToObj(i -> "value-" + i).forEach(body::add);
+        body.add(new FailingJsonValue());
+
+        try (CloseableTestHttpServer server = newServer()) {
+            Request request = preparePut()
+                    .setUri(server.baseURI().resolve("/road/to/nowhere"))
+                    .setBodyGenerator(streamingJsonBodyGenerator(codec, body))
+                    .build();
+
+            // the part of the body written before the failure must not be sent as a complete request
+            assertThatThrownBy(() -> executeRequest(server, request, new ExceptionResponseHandler()))
+                    .hasStackTraceContaining("serialization failed");
+            assertThat(server.statusCounts()).isEmpty();
+        }
+    }
+
     @Test
     public void testReadTimeout()
             throws Exception
@@ -700,6 +780,29 @@ public abstract class AbstractHttpClientTest
         }
     }
 
+    @Test
+    public void testRequestDeadlinePropagation()
+            throws Exception
+    {
+        try (CloseableTestHttpServer server = newServer()) {
+            Request request = prepareGet()
+                    .setUri(server.baseURI())
+                    .setRequestTimeout(new Duration(30, SECONDS))
+                    .build();
+
+            executeRequest(server, request, createStatusResponseHandler());
+            assertThat(server.servlet().getRequestHeaders().get(HeaderName.of(REQUEST_TIMEOUT_HEADER))).containsExactly("30000");
+
+            // the timeout is limited to the time left for the request being handled
+            try (Scope ignored = Context.current().with(RequestDeadline.after(new Duration(10, SECONDS))).makeCurrent()) {
+                executeRequest(server, request, createStatusResponseHandler());
+            }
+            assertThat(server.servlet().getRequestHeaders().get(HeaderName.of(REQUEST_TIMEOUT_HEADER)))
+                    .singleElement()
+                    .satisfies(value -> assertThat(Long.parseLong(value)).isBetween(1L, 10_000L));
+        }
+    }
+
     @Test
     public void testCompressionIsDisabled()
             throws Exception
@@ -1565,6 +1668,15 @@ public abstract class AbstractHttpClientTest
         return keystore.isPresent() ? "https" : "http";
     }
 
+    public static class FailingJsonValue
+    {
+        @JsonValue
+        public String value()
+        {
+            throw new IllegalStateException("serialization failed");
+        }
+    }
+
     public record CloseableTestHttpServer(String scheme, TestingHttpServer server, Multiset<Integer> statusCounts, EchoServlet servlet)
             implements AutoCloseable
     {
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import com.google.common.collect.ImmutableListMultimap;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.http.client.testing.TestingResponse;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.DataSize;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.http.client.HeaderNames.ACCEPT;
+import static io.airlift.http.client.HeaderNames.AUTHORIZATION;
+import static io.airlift.http.client.HeaderNames.CACHE_CONTROL;
+import static io.airlift.http.client.HeaderNames.ETAG;
+import static io.airlift.http.client.HeaderNames.IF_NONE_MATCH;
+import static io.airlift.http.client.HeaderNames.VARY;
+import static io.airlift.http.client.HttpStatus.NOT_MODIFIED;
+import static io.airlift.http.client.HttpStatus.OK;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.StringResponseHandler.createStringResponseHandler;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestCachingHttpClient
+{
+    private static final URI RESOURCE = URI.create("http://example.com/resource");
+
+    @Test
+    public void testMaxAge()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        AtomicInteger counter = new AtomicInteger();
+        try (CachingHttpClient client = new CachingHttpClient(
+                new TestingHttpClient(_ -> response("max-age=10", "value" + counter.incrementAndGet())),
+                DataSize.of(1, MEGABYTE),
+                ticker)) {
+            assertThat(get(client)).isEqualTo("value1");
+            ticker.increment(9, SECONDS);
+            assertThat(get(client)).isEqualTo("value1");
+            assertThat(client.executeAsync(prepareGet().setUri(RESOURCE).build(), createStringResponseHandler()).get().getBody()).isEqualTo("value1");
+            assertThat(client.getHits().getTotalCount()).isEqualTo(2);
+
+            ticker.increment(1, SECONDS);
+            assertThat(get(client)).isEqualTo("value2");
+            assertThat(client.getMisses().getTotalCount()).isEqualTo(2);
+
+            // requests with a body and other methods are not cached
+            client.execute(preparePost().setUri(RESOURCE).build(), createStringResponseHandler());
+            assertThat(counter.get()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testNotCacheable()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        try (CachingHttpClient client = new CachingHttpClient(
+                new TestingHttpClient(_ -> response(counter.incrementAndGet() == 1 ? "no-store, max-age=10" : "no-cache", "value")),
+                DataSize.of(1, MEGABYTE))) {
+            get(client);
+            get(client);
+            get(client);
+            assertThat(counter.get()).isEqualTo(3);
+            assertThat(client.getSize()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testPassThrough()
+    {
+        Response response = new TestingResponse(OK, ImmutableListMultimap.of(CACHE_CONTROL, "private, max-age=10"), "value".getBytes(UTF_8));
+        try (CachingHttpClient client = new CachingHttpClient(new TestingHttpClient(_ -> response), DataSize.of(1, MEGABYTE))) {
+            // a response that is not stored is passed to the handler as received
+            Response handled = client.execute(prepareGet().setUri(RESOURCE).build(), new ResponseHandler<Response, RuntimeException>()
+            {
+                @Override
+                public Response handleException(Request request, Exception exception)
+                {
+                    throw new AssertionError(exception);
+                }
+
+                @Override
+                public Response handle(Request request, Response response)
+                {
+                    return response;
+                }
+            });
+            assertThat(handled).isSameAs(response);
+            assertThat(client.getSize()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testCredentials()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        try (CachingHttpClient client = new CachingHttpClient(
+                new TestingHttpClient(_ -> response("max-age=10", "value" + counter.incrementAndGet())),
+                DataSize.of(1, MEGABYTE))) {
+            Request request = prepareGet().setUri(RESOURCE).setHeader(AUTHORIZATION, "Bearer token").build();
+            assertThat(client.execute(request, createStringResponseHandler()).getBody()).isEqualTo("value1");
+            assertThat(client.execute(request, createStringResponseHandler()).getBody()).isEqualTo("value2");
+            assertThat(client.getSize()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testVary()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        try (CachingHttpClient client = new CachingHttpClient(
+                new TestingHttpClient(_ -> new TestingResponse(
+                        OK,
+                        ImmutableListMultimap.of(CACHE_CONTROL, "max-age=10", VARY, "Accept"),
+                        ("value" + counter.incrementAndGet()).getBytes(UTF_8))),
+                DataSize.of(1, MEGABYTE))) {
+            assertThat(get(client, "text/plain", "1")).isEqualTo("value1");
+            // headers not listed in Vary do not select the response
+            assertThat(get(client, "text/plain", "2")).isEqualTo("value1");
+            assertThat(get(client, "application/json", "1")).isEqualTo("value2");
+            assertThat(get(client, "application/json", "3")).isEqualTo("value2");
+            assertThat(client.getHits().getTotalCount()).isEqualTo(2);
+            assertThat(client.getMisses().getTotalCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testRevalidation()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<Request> requests = new ArrayList<>();
+        try (CachingHttpClient client = new CachingHttpClient(
+                new TestingHttpClient(request -> {
+                    requests.add(request);
+                    if (request.getHeader(IF_NONE_MATCH) != null) {
+                        return new TestingResponse(NOT_MODIFIED, ImmutableListMultimap.of(CACHE_CONTROL, "max-age=5"), new byte[0]);
+                    }
+                    return new TestingResponse(OK, ImmutableListMultimap.of(CACHE_CONTROL, "no-cache", ETAG, "\"v1\""), "value".getBytes(UTF_8));
+                }),
+                DataSize.of(1, MEGABYTE),
+                ticker)) {
+            assertThat(get(client)).isEqualTo("value");
+            assertThat(get(client)).isEqualTo("value");
+            assertThat(requests).hasSize(2);
+            assertThat(requests.getLast().getHeader(IF_NONE_MATCH)).isEqualTo("\"v1\"");
+            assertThat(client.getRevalidations().getTotalCount()).isEqualTo(1);
+            assertThat(client.getNotModified().getTotalCount()).isEqualTo(1);
+
+            // the 304 response made the stored response fresh
+            assertThat(get(client)).isEqualTo("value");
+            assertThat(requests).hasSize(2);
+            ticker.increment(5, SECONDS);
+            assertThat(get(client)).isEqualTo("value");
+            assertThat(requests).hasSize(3);
+        }
+    }
+
+    @Test
+    public void testStaleWhileRevalidate()
+    {
+        TestingTicker ticker = new TestingTicker();
+        AtomicInteger counter = new AtomicInteger();
+        try (CachingHttpClient client = new CachingHttpClient(
+                new TestingHttpClient(_ -> response("max-age=10, stale-while-revalidate=20", "value" + counter.incrementAndGet())),
+                DataSize.of(1, MEGABYTE),
+                ticker)) {
+            assertThat(get(client)).isEqualTo("value1");
+
+            // the stale response is served, and replaced in the background
+            ticker.increment(15, SECONDS);
+            assertThat(get(client)).isEqualTo("value1");
+            assertThat(client.getStaleHits().getTotalCount()).isEqualTo(1);
+            assertThat(get(client)).isEqualTo("value2");
+            assertThat(client.getRevalidations().getTotalCount()).isEqualTo(1);
+            assertThat(client.getMisses().getTotalCount()).isEqualTo(1);
+
+            ticker.increment(40, SECONDS);
+            assertThat(get(client)).isEqualTo("value3");
+        }
+    }
+
+    private static String get(HttpClient client)
+    {
+        return client.execute(prepareGet().setUri(RESOURCE).build(), createStringResponseHandler()).getBody();
+    }
+
+    private static String get(HttpClient client, String accept, String other)
+    {
+        Request request = prepareGet()
+                .setUri(RESOURCE)
+                .setHeader(ACCEPT, accept)
+                .setHeader(HeaderName.of("X-Other"), other)
+                .build();
+        return client.execute(request, createStringResponseHandler()).getBody();
+    }
+
+    private static Response response(String cacheControl, String body)
+    {
+        return new TestingResponse(OK, ImmutableListMultimap.of(CACHE_CONTROL, cacheControl), body.getBytes(UTF_8));
+    }
+}
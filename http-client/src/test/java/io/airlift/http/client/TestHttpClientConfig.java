@@ -19,8 +19,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HostAndPort;
 import com.google.inject.ConfigurationException;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.http.client.HttpClientConfig.LogFormat;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.junit.jupiter.api.Test;
@@ -49,6 +53,8 @@ public class TestHttpClientConfig
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(HttpClientConfig.class)
                 .setVerifyHostname(true)
                 .setHttp2Enabled(false)
+                .setUnixDomainSocketPath(null)
+                .setDeadlinePropagationEnabled(true)
                 .setConnectTimeout(new Duration(5, SECONDS))
                 .setRequestTimeout(new Duration(5, MINUTES))
                 .setIdleTimeout(new Duration(1, MINUTES))
@@ -93,10 +99,30 @@ public class TestHttpClientConfig
                 .setLogBufferSize(DataSize.of(1, MEGABYTE))
                 .setLogFlushInterval(new Duration(10, SECONDS))
                 .setLogCompressionEnabled(true)
+                .setLogFormat(LogFormat.TEXT)
                 .setTcpKeepAliveIdleTime(null)
                 .setStrictEventOrdering(false)
                 .setUseVirtualThreads(false)
-                .setTrackMemoryAllocations(false));
+                .setTrackMemoryAllocations(false)
+                .setRetryBudgetRatio(0.2)
+                .setRetryBudgetMaxBurst(10)
+                .setCircuitBreakerEnabled(false)
+                .setCircuitBreakerWindowSize(100)
+                .setCircuitBreakerMinimumCalls(20)
+                .setCircuitBreakerFailureRateThreshold(50)
+                .setCircuitBreakerSlowCallDuration(new Duration(10, SECONDS))
+                .setCircuitBreakerSlowCallRateThreshold(100)
+                .setCircuitBreakerOpenDuration(new Duration(30, SECONDS))
+                .setCircuitBreakerHalfOpenCalls(5)
+                .setMaxConcurrentRequestsPerDestination(null)
+                .setDnsCacheTtl(new Duration(0, SECONDS))
+                .setDnsCacheNegativeTtl(new Duration(0, SECONDS))
+                .setKeepWarmDestinations("")
+                .setKeepWarmConnections(1)
+                .setKeepWarmInterval(new Duration(10, SECONDS))
+                .setResponseCompressionEnabled(false)
+                .setRequestCompressionEnabled(false)
+                .setRequestCompressionMinSize(DataSize.of(4, KILOBYTE)));
     }
 
     @Test
@@ -105,6 +131,8 @@ public class TestHttpClientConfig
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("http-client.https.hostname-verification", "false")
                 .put("http-client.http2.enabled", "true")
+                .put("http-client.unix-domain-socket.path", "/var/run/http.sock")
+                .put("http-client.deadline-propagation.enabled", "false")
                 .put("http-client.connect-timeout", "4s")
                 .put("http-client.request-timeout", "15s")
                 .put("http-client.idle-timeout", "5s")
@@ -149,15 +177,37 @@ public class TestHttpClientConfig
                 .put("http-client.log.buffer-size", "3MB")
                 .put("http-client.log.flush-interval", "99s")
                 .put("http-client.log.compression.enabled", "false")
+                .put("http-client.log.format", "BINARY")
                 .put("http-client.tcp-keep-alive-idle-time", "1m")
                 .put("http-client.strict-event-ordering", "true")
                 .put("http-client.use-virtual-threads", "true")
                 .put("http-client.track-memory-allocations", "true")
+                .put("http-client.retry-budget.ratio", "0.5")
+                .put("http-client.retry-budget.max-burst", "3")
+                .put("http-client.circuit-breaker.enabled", "true")
+                .put("http-client.circuit-breaker.window-size", "50")
+                .put("http-client.circuit-breaker.minimum-calls", "10")
+                .put("http-client.circuit-breaker.failure-rate-threshold", "25")
+                .put("http-client.circuit-breaker.slow-call-duration", "3s")
+                .put("http-client.circuit-breaker.slow-call-rate-threshold", "80")
+                .put("http-client.circuit-breaker.open-duration", "1m")
+                .put("http-client.circuit-breaker.half-open-calls", "2")
+                .put("http-client.max-concurrent-requests-per-destination", "64")
+                .put("http-client.dns-cache.ttl", "5m")
+                .put("http-client.dns-cache.negative-ttl", "7s")
+                .put("http-client.keep-warm.destinations", "http://worker-1:8080, https://worker-2")
+                .put("http-client.keep-warm.connections", "4")
+                .put("http-client.keep-warm.interval", "1m")
+                .put("http-client.response-compression.enabled", "true")
+                .put("http-client.request-compression.enabled", "true")
+                .put("http-client.request-compression.min-size", "64kB")
                 .build();
 
         HttpClientConfig expected = new HttpClientConfig()
                 .setVerifyHostname(false)
                 .setHttp2Enabled(true)
+                .setUnixDomainSocketPath("/var/run/http.sock")
+                .setDeadlinePropagationEnabled(false)
                 .setConnectTimeout(new Duration(4, SECONDS))
                 .setRequestTimeout(new Duration(15, SECONDS))
                 .setIdleTimeout(new Duration(5, SECONDS))
@@ -202,10 +252,30 @@ public class TestHttpClientConfig
                 .setLogBufferSize(DataSize.of(3, MEGABYTE))
                 .setLogFlushInterval(new Duration(99, SECONDS))
                 .setLogCompressionEnabled(false)
+                .setLogFormat(LogFormat.BINARY)
                 .setTcpKeepAliveIdleTime(new Duration(1, MINUTES))
                 .setStrictEventOrdering(true)
                 .setUseVirtualThreads(true)
-                .setTrackMemoryAllocations(true);
+                .setTrackMemoryAllocations(true)
+                .setRetryBudgetRatio(0.5)
+                .setRetryBudgetMaxBurst(3)
+                .setCircuitBreakerEnabled(true)
+                .setCircuitBreakerWindowSize(50)
+                .setCircuitBreakerMinimumCalls(10)
+                .setCircuitBreakerFailureRateThreshold(25)
+                .setCircuitBreakerSlowCallDuration(new Duration(3, SECONDS))
+                .setCircuitBreakerSlowCallRateThreshold(80)
+                .setCircuitBreakerOpenDuration(new Duration(1, MINUTES))
+                .setCircuitBreakerHalfOpenCalls(2)
+                .setMaxConcurrentRequestsPerDestination(64)
+                .setDnsCacheTtl(new Duration(5, MINUTES))
+                .setDnsCacheNegativeTtl(new Duration(7, SECONDS))
+                .setKeepWarmDestinations("http://worker-1:8080,https://worker-2")
+                .setKeepWarmConnections(4)
+                .setKeepWarmInterval(new Duration(1, MINUTES))
+                .setResponseCompressionEnabled(true)
+                .setRequestCompressionEnabled(true)
+                .setRequestCompressionMinSize(DataSize.of(64, KILOBYTE));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -232,6 +302,10 @@ public class TestHttpClientConfig
         assertFailsValidation(new HttpClientConfig().setConnectTimeout(null), "connectTimeout", "must not be null", NotNull.class);
         assertFailsValidation(new HttpClientConfig().setRequestTimeout(null), "requestTimeout", "must not be null", NotNull.class);
         assertFailsValidation(new HttpClientConfig().setIdleTimeout(null), "idleTimeout", "must not be null", NotNull.class);
+        assertFailsValidation(new HttpClientConfig().setRetryBudgetRatio(-1), "retryBudgetRatio", "must be greater than or equal to 0.0", DecimalMin.class);
+        assertFailsValidation(new HttpClientConfig().setRetryBudgetMaxBurst(-1), "retryBudgetMaxBurst", "must be greater than or equal to 0", Min.class);
+        assertFailsValidation(new HttpClientConfig().setCircuitBreakerWindowSize(0), "circuitBreakerWindowSize", "must be greater than or equal to 1", Min.class);
+        assertFailsValidation(new HttpClientConfig().setCircuitBreakerFailureRateThreshold(101), "circuitBreakerFailureRateThreshold", "must be less than or equal to 100.0", DecimalMax.class);
     }
 
     @Test
@@ -6,11 +6,21 @@ import io.airlift.http.client.testing.TestingResponse;
 import io.airlift.json.JsonCodec;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
 import static io.airlift.http.client.HttpStatus.INTERNAL_SERVER_ERROR;
 import static io.airlift.http.client.HttpStatus.OK;
 import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static io.airlift.http.client.JsonResponseHandler.createStreamingJsonResponseHandler;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.testing.TestingResponse.contentType;
 import static io.airlift.http.client.testing.TestingResponse.mockResponse;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -68,4 +78,78 @@ public class TestJsonResponseHandler
         assertThatThrownBy(() -> handler.handle(null, mockResponse(INTERNAL_SERVER_ERROR, JSON_UTF_8, json)))
                 .isInstanceOf(UnexpectedResponseException.class);
     }
+
+    @Test
+    public void testStreamingValidJson()
+    {
+        JsonResponseHandler<User> streamingHandler = createStreamingJsonResponseHandler(codec);
+        User user = new User("Joe", 25);
+        User response = streamingHandler.handle(null, streamingResponse(codec.toJson(user)));
+
+        assertThat(response.getName()).isEqualTo(user.getName());
+        assertThat(response.getAge()).isEqualTo(user.getAge());
+    }
+
+    @Test
+    public void testStreamingInvalidJson()
+    {
+        JsonResponseHandler<User> streamingHandler = createStreamingJsonResponseHandler(codec);
+        String json = "{\"age\": \"foo\"}";
+        assertThatThrownBy(() -> streamingHandler.handle(null, streamingResponse(json)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to create [simple type, %s] from JSON response: <%s>".formatted(User.class, json))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testStreamingInvalidJsonTruncatesBody()
+    {
+        JsonResponseHandler<User> streamingHandler = createStreamingJsonResponseHandler(codec);
+        String json = "{\"name\": \"" + "x".repeat(100_000) + "\", \"age\": \"foo\"}";
+        assertThatThrownBy(() -> streamingHandler.handle(null, streamingResponse(json)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unable to create [simple type, %s] from JSON response: <{\"name\": \"xxx".formatted(User.class))
+                .hasMessageEndingWith("...>")
+                .message().hasSizeLessThan(10_000);
+    }
+
+    @Test
+    public void testStreamingInvalidJsonAtStartOfLongBody()
+    {
+        JsonResponseHandler<User> streamingHandler = createStreamingJsonResponseHandler(codec);
+        String json = "{\"age\": \"foo\", \"name\": \"" + "x".repeat(100_000) + "\"}";
+        assertThatThrownBy(() -> streamingHandler.handle(null, streamingResponse(json)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unable to create [simple type, %s] from JSON response: <{\"age\": \"foo\"".formatted(User.class))
+                .hasMessageEndingWith("...>");
+    }
+
+    @Test
+    public void testStreamingReadFailure()
+    {
+        JsonResponseHandler<User> streamingHandler = createStreamingJsonResponseHandler(codec);
+        Request request = prepareGet().setUri(URI.create("http://example.com")).build();
+        InputStream failingStream = new SequenceInputStream(
+                new ByteArrayInputStream("{\"name\": \"Joe\", ".getBytes(UTF_8)),
+                new InputStream()
+                {
+                    @Override
+                    public int read()
+                            throws IOException
+                    {
+                        throw new IOException("connection reset");
+                    }
+                });
+        assertThatThrownBy(() -> streamingHandler.handle(request, new TestingResponse(OK, contentType(JSON_UTF_8), failingStream)))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessage("Failed reading response from server: http://example.com")
+                .cause()
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+    }
+
+    private static Response streamingResponse(String json)
+    {
+        return new TestingResponse(OK, contentType(JSON_UTF_8), new ByteArrayInputStream(json.getBytes(UTF_8)));
+    }
 }
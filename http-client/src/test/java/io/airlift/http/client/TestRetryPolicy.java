@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client;
+
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.Optional;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.Request.Builder.preparePut;
+import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
+import static io.airlift.http.client.StreamingBodyGenerator.streamingBodyGenerator;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestRetryPolicy
+{
+    @Test
+    public void testRetryDelay()
+    {
+        RetryPolicy policy = RetryPolicy.builder()
+                .setInitialDelay(new Duration(100, MILLISECONDS))
+                .setMaxDelay(new Duration(1, SECONDS))
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.getRetryDelay(1, Optional.empty())).isBetween(new Duration(50, MILLISECONDS), new Duration(100, MILLISECONDS));
+            assertThat(policy.getRetryDelay(3, Optional.empty())).isBetween(new Duration(200, MILLISECONDS), new Duration(400, MILLISECONDS));
+            assertThat(policy.getRetryDelay(10, Optional.empty())).isBetween(new Duration(500, MILLISECONDS), new Duration(1, SECONDS));
+        }
+
+        assertThat(policy.getRetryDelay(1, Optional.of(new Duration(300, MILLISECONDS)))).isEqualTo(new Duration(300, MILLISECONDS));
+        // retry after is capped by the max delay
+        assertThat(policy.getRetryDelay(1, Optional.of(new Duration(5, SECONDS)))).isEqualTo(new Duration(1, SECONDS));
+    }
+
+    @Test
+    public void testCanRetry()
+    {
+        URI uri = URI.create("http://example.com");
+        assertThat(RetryPolicy.builder().build().canRetry(prepareGet().setUri(uri).build())).isTrue();
+        assertThat(RetryPolicy.builder().build().canRetry(preparePost().setUri(uri).build())).isFalse();
+        assertThat(RetryPolicy.builder().setRetryNonIdempotent(true).build().canRetry(preparePost().setUri(uri).build())).isTrue();
+
+        // a streaming body can only be sent once
+        assertThat(RetryPolicy.builder().build().canRetry(preparePut().setUri(uri).setBodyGenerator(createStaticBodyGenerator(new byte[1])).build())).isTrue();
+        assertThat(RetryPolicy.builder().build().canRetry(preparePut().setUri(uri).setBodyGenerator(streamingBodyGenerator(new ByteArrayInputStream(new byte[1]))).build())).isFalse();
+    }
+
+    @Test
+    public void testRetryable()
+    {
+        RetryPolicy policy = RetryPolicy.builder().build();
+        assertThat(policy.isRetryableStatus(503)).isTrue();
+        assertThat(policy.isRetryableStatus(500)).isFalse();
+        assertThat(policy.isRetryableException(new UncheckedIOException(new ConnectException()))).isTrue();
+        assertThat(policy.isRetryableException(new IllegalStateException())).isFalse();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.jetty.DestinationCircuitBreakers.Permit;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.http.client.jetty.DestinationCircuitBreakers.State.CLOSED;
+import static io.airlift.http.client.jetty.DestinationCircuitBreakers.State.HALF_OPEN;
+import static io.airlift.http.client.jetty.DestinationCircuitBreakers.State.OPEN;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestDestinationCircuitBreakers
+{
+    private static final URI DESTINATION = URI.create("http://example.com/path");
+    private static final String DESTINATION_KEY = "http://example.com:80";
+
+    @Test
+    public void testFailureRate()
+    {
+        TestingTicker ticker = new TestingTicker();
+        DestinationCircuitBreakers breakers = new DestinationCircuitBreakers(config(), ticker);
+
+        // below the minimum number of calls the breaker stays closed
+        for (int i = 0; i < 3; i++) {
+            breakers.acquire(DESTINATION).complete(true);
+        }
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, CLOSED);
+
+        breakers.acquire(DESTINATION).complete(true);
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, OPEN);
+        assertThat(breakers.getOpenDestinations()).isEqualTo(1);
+        assertThatThrownBy(() -> breakers.acquire(DESTINATION))
+                .isInstanceOf(DestinationRejectedException.class)
+                .hasMessage("Circuit breaker for http://example.com:80 is OPEN");
+        assertThat(breakers.getRejectedByCircuitBreaker().getTotalCount()).isEqualTo(1);
+
+        // other destinations are not affected
+        breakers.acquire(URI.create("https://example.com/")).complete(false);
+
+        // after the open duration a single trial call is allowed
+        ticker.increment(10, SECONDS);
+        Permit trial = breakers.acquire(DESTINATION);
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, HALF_OPEN);
+        assertThatThrownBy(() -> breakers.acquire(DESTINATION))
+                .isInstanceOf(DestinationRejectedException.class);
+        trial.complete(true);
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, OPEN);
+
+        ticker.increment(10, SECONDS);
+        breakers.acquire(DESTINATION).complete(false);
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, CLOSED);
+        assertThat(breakers.getOpened().getTotalCount()).isEqualTo(2);
+        assertThat(breakers.getHalfOpened().getTotalCount()).isEqualTo(2);
+        assertThat(breakers.getClosed().getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSlidingWindow()
+    {
+        DestinationCircuitBreakers breakers = new DestinationCircuitBreakers(config(), new TestingTicker());
+
+        // failures are diluted by successes, and leave the window after four calls
+        for (int i = 0; i < 20; i++) {
+            breakers.acquire(DESTINATION).complete(i % 4 == 0);
+        }
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, CLOSED);
+    }
+
+    @Test
+    public void testSlowCalls()
+    {
+        TestingTicker ticker = new TestingTicker();
+        DestinationCircuitBreakers breakers = new DestinationCircuitBreakers(config(), ticker);
+
+        for (int i = 0; i < 4; i++) {
+            Permit permit = breakers.acquire(DESTINATION);
+            ticker.increment(2, SECONDS);
+            permit.complete(false);
+        }
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, OPEN);
+    }
+
+    @Test
+    public void testCancelledTrialCall()
+    {
+        TestingTicker ticker = new TestingTicker();
+        DestinationCircuitBreakers breakers = new DestinationCircuitBreakers(config(), ticker);
+        for (int i = 0; i < 4; i++) {
+            breakers.acquire(DESTINATION).complete(true);
+        }
+
+        ticker.increment(10, SECONDS);
+        breakers.acquire(DESTINATION).release();
+        breakers.acquire(DESTINATION).complete(false);
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, CLOSED);
+    }
+
+    @Test
+    public void testBulkhead()
+    {
+        DestinationCircuitBreakers breakers = new DestinationCircuitBreakers(new HttpClientConfig().setMaxConcurrentRequestsPerDestination(2), new TestingTicker());
+        assertThat(breakers.isEnabled()).isTrue();
+
+        Permit first = breakers.acquire(DESTINATION);
+        breakers.acquire(DESTINATION);
+        assertThatThrownBy(() -> breakers.acquire(DESTINATION))
+                .isInstanceOf(DestinationRejectedException.class)
+                .hasMessage("Too many concurrent requests to http://example.com:80");
+        assertThat(breakers.getInFlightRequests()).containsEntry(DESTINATION_KEY, 2);
+        assertThat(breakers.getRejectedByBulkhead().getTotalCount()).isEqualTo(1);
+
+        first.complete(true);
+        first.release();
+        assertThat(breakers.getInFlightRequests()).containsEntry(DESTINATION_KEY, 1);
+        breakers.acquire(DESTINATION);
+
+        // failures do not open a breaker when only the bulkhead is enabled
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, CLOSED);
+    }
+
+    @Test
+    public void testIdleBreakers()
+    {
+        TestingTicker ticker = new TestingTicker();
+        DestinationCircuitBreakers breakers = new DestinationCircuitBreakers(config().setMaxConcurrentRequestsPerDestination(1), ticker);
+
+        // a breaker with a request in flight is kept
+        Permit permit = breakers.acquire(DESTINATION);
+        ticker.increment(11, MINUTES);
+        assertThatThrownBy(() -> breakers.acquire(DESTINATION))
+                .isInstanceOf(DestinationRejectedException.class)
+                .hasMessage("Too many concurrent requests to http://example.com:80");
+        permit.complete(false);
+        assertThat(breakers.getInFlightRequests()).containsEntry(DESTINATION_KEY, 0);
+
+        // an idle breaker is removed
+        ticker.increment(11, MINUTES);
+        breakers.acquire(URI.create("https://example.com/")).release();
+        assertThat(breakers.getStates()).doesNotContainKey(DESTINATION_KEY);
+        breakers.acquire(DESTINATION).release();
+        assertThat(breakers.getStates()).containsEntry(DESTINATION_KEY, CLOSED);
+    }
+
+    @Test
+    public void testFailFast()
+            throws IOException
+    {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        URI uri = URI.create("http://127.0.0.1:" + port + "/");
+
+        try (JettyHttpClient client = new JettyHttpClient(config())) {
+            for (int i = 0; i < 4; i++) {
+                assertThatThrownBy(() -> client.execute(prepareGet().setUri(uri).build(), createStatusResponseHandler()))
+                        .isNotInstanceOf(DestinationRejectedException.class);
+            }
+            assertThatThrownBy(() -> client.execute(prepareGet().setUri(uri).build(), createStatusResponseHandler()))
+                    .isInstanceOf(DestinationRejectedException.class);
+            assertThatThrownBy(() -> client.executeAsync(prepareGet().setUri(uri).build(), createStatusResponseHandler()).get())
+                    .hasCauseInstanceOf(DestinationRejectedException.class);
+            assertThat(client.getCircuitBreakers().getOpenDestinations()).isEqualTo(1);
+        }
+    }
+
+    private static HttpClientConfig config()
+    {
+        return new HttpClientConfig()
+                .setCircuitBreakerEnabled(true)
+                .setCircuitBreakerWindowSize(4)
+                .setCircuitBreakerMinimumCalls(4)
+                .setCircuitBreakerFailureRateThreshold(50)
+                .setCircuitBreakerSlowCallDuration(new Duration(1, SECONDS))
+                .setCircuitBreakerSlowCallRateThreshold(100)
+                .setCircuitBreakerOpenDuration(new Duration(10, SECONDS))
+                .setCircuitBreakerHalfOpenCalls(1);
+    }
+}
@@ -31,12 +31,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.parallel.Execution;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URI;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -49,19 +52,25 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static io.airlift.http.client.jetty.HttpRequestEvent.NO_RESPONSE;
 import static io.airlift.http.client.jetty.HttpRequestEvent.getFailureReason;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
 import static java.nio.file.Files.createTempFile;
 import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.setPosixFilePermissions;
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.eclipse.jetty.http.HttpVersion.HTTP_1_1;
 import static org.eclipse.jetty.http.HttpVersion.HTTP_2;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
@@ -217,6 +226,169 @@ public class TestHttpClientLogger
         assertThat(lines).size().isGreaterThanOrEqualTo(1);
     }
 
+    @Test
+    public void testBinaryClientLog()
+            throws Exception
+    {
+        long requestTimestamp = System.currentTimeMillis();
+        long requestCreate = System.nanoTime();
+        RequestInfo requestInfo = RequestInfo.from(
+                new TestRequest(HTTP_2, "post", new URI("http://www.google.com/path?q=\u00e9t\u00e9"), HttpFields.build()),
+                requestTimestamp,
+                requestCreate,
+                requestCreate + MILLISECONDS.toNanos(1),
+                requestCreate + MILLISECONDS.toNanos(3));
+        ResponseInfo responseInfo = ResponseInfo.from(Optional.of(new TestResponse(200)), 345, requestCreate + MILLISECONDS.toNanos(5), requestCreate + MILLISECONDS.toNanos(7));
+        RequestInfo failedRequestInfo = RequestInfo.from(new TestRequest(HTTP_1_1, "GET", new URI("http://www.google.com"), HttpFields.build()), requestTimestamp);
+        ResponseInfo failedResponseInfo = ResponseInfo.failed(Optional.empty(), Optional.of(new TimeoutException("timeout")));
+
+        Path directory = createTempDirectory("http-client-log");
+        try {
+            DefaultHttpClientLogger textLogger = new DefaultHttpClientLogger(file.getAbsolutePath(), 1, 256, DataSize.of(1, MEGABYTE), new Duration(10, SECONDS), Long.MAX_VALUE, false);
+            BinaryHttpClientLogger binaryLogger = new BinaryHttpClientLogger(directory.resolve("test-http-client").toString(), 1, 256, DataSize.of(1, MEGABYTE), new Duration(10, SECONDS), Long.MAX_VALUE, true);
+            for (HttpClientLogger logger : List.of(textLogger, binaryLogger)) {
+                logger.log(requestInfo, responseInfo);
+                logger.log(failedRequestInfo, failedResponseInfo);
+                logger.close();
+            }
+
+            List<Path> segments = listSegments(directory);
+            assertThat(segments).hasSize(1);
+            assertThat(segments.getFirst().getFileName().toString()).endsWith(".bin.gz");
+
+            StringWriter output = new StringWriter();
+            HttpClientLogReader.convert(segments.getFirst(), output);
+            assertThat(output.toString()).isEqualTo(Files.asCharSource(file, UTF_8).read());
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testBinaryClientLogRolling()
+            throws Exception
+    {
+        long now = System.currentTimeMillis();
+        RequestInfo requestInfo = RequestInfo.from(new TestRequest(HTTP_1_1, "GET", new URI("http://www.google.com"), HttpFields.build()), now);
+        ResponseInfo responseInfo = ResponseInfo.from(Optional.empty(), 0, now, now);
+
+        Path directory = createTempDirectory("http-client-log");
+        try {
+            // every record starts a new segment, and only the latest two are kept
+            BinaryHttpClientLogger logger = new BinaryHttpClientLogger(directory.resolve("test-http-client").toString(), 2, 256, DataSize.of(1, MEGABYTE), new Duration(10, SECONDS), 1, false);
+            for (int i = 0; i < 5; i++) {
+                logger.log(requestInfo, responseInfo);
+            }
+            logger.close();
+            assertThat(logger.getQueueSize()).isEqualTo(0);
+
+            List<Path> segments = listSegments(directory);
+            assertThat(segments).hasSize(2);
+            for (Path segment : segments) {
+                assertThat(segment.getFileName().toString()).endsWith(".bin");
+                StringWriter output = new StringWriter();
+                HttpClientLogReader.convert(segment, output);
+                assertThat(output.toString().lines()).hasSize(1);
+            }
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testBinaryClientLogEncodingFailure()
+            throws Exception
+    {
+        long now = System.currentTimeMillis();
+        RequestInfo requestInfo = RequestInfo.from(new TestRequest(HTTP_1_1, "GET", new URI("http://www.google.com"), HttpFields.build()), now);
+        RequestInfo brokenRequestInfo = RequestInfo.from(new TestRequest(HTTP_1_1, "GET", new URI("http://www.google.com"), HttpFields.build())
+        {
+            @Override
+            public URI getURI()
+            {
+                throw new IllegalStateException("broken request");
+            }
+        }, now);
+        ResponseInfo responseInfo = ResponseInfo.from(Optional.empty(), 0, now, now);
+
+        Path directory = createTempDirectory("http-client-log");
+        try {
+            BinaryHttpClientLogger logger = new BinaryHttpClientLogger(directory.resolve("test-http-client").toString(), 1, 4, DataSize.of(1, MEGABYTE), new Duration(10, SECONDS), Long.MAX_VALUE, false);
+            assertThatThrownBy(() -> logger.log(brokenRequestInfo, responseInfo))
+                    .hasMessage("broken request");
+            // the slot of the failed record is released, so the ring does not fill up
+            for (int i = 0; i < 10; i++) {
+                logger.log(requestInfo, responseInfo);
+                while (logger.getQueueSize() > 0) {
+                    MILLISECONDS.sleep(1);
+                }
+            }
+            logger.close();
+
+            List<Path> segments = listSegments(directory);
+            assertThat(segments).hasSize(1);
+            StringWriter output = new StringWriter();
+            HttpClientLogReader.convert(segments.getFirst(), output);
+            assertThat(output.toString().lines()).hasSize(10);
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testBinaryClientLogRollingFailure()
+            throws Exception
+    {
+        long now = System.currentTimeMillis();
+        RequestInfo requestInfo = RequestInfo.from(new TestRequest(HTTP_1_1, "GET", new URI("http://www.google.com"), HttpFields.build()), now);
+        ResponseInfo responseInfo = ResponseInfo.from(Optional.empty(), 0, now, now);
+
+        Path directory = createTempDirectory("http-client-log");
+        try {
+            BinaryHttpClientLogger logger = new BinaryHttpClientLogger(directory.resolve("test-http-client").toString(), 2, 256, DataSize.of(1, MEGABYTE), new Duration(10, SECONDS), 1, false);
+            // segments can be created, but old segments cannot be listed for removal
+            setPosixFilePermissions(directory, PosixFilePermissions.fromString("-wx------"));
+            for (int i = 0; i < 3; i++) {
+                logger.log(requestInfo, responseInfo);
+            }
+            while (logger.getQueueSize() > 0) {
+                MILLISECONDS.sleep(1);
+            }
+
+            setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+            for (int i = 0; i < 2; i++) {
+                logger.log(requestInfo, responseInfo);
+            }
+            logger.close();
+            assertThat(logger.getQueueSize()).isEqualTo(0);
+
+            List<Path> segments = listSegments(directory);
+            assertThat(segments).hasSize(2);
+            for (Path segment : segments) {
+                StringWriter output = new StringWriter();
+                HttpClientLogReader.convert(segment, output);
+                assertThat(output.toString().lines()).hasSize(1);
+            }
+        }
+        finally {
+            setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    private static List<Path> listSegments(Path directory)
+            throws IOException
+    {
+        try (Stream<Path> files = java.nio.file.Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
     @SuppressWarnings("deprecation")
     private static class TestRequest
             implements Request
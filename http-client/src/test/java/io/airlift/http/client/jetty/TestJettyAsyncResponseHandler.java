@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.http.client.AsyncResponseHandler;
+import io.airlift.http.client.ContentConsumer;
+import io.airlift.http.client.EchoServlet;
+import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.TestingHttpServer;
+import io.airlift.http.client.testing.TestingHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
+import static io.airlift.http.client.HttpStatus.OK;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.testing.TestingResponse.mockResponse;
+import static io.airlift.testing.Closeables.closeAll;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestJettyAsyncResponseHandler
+{
+    private static final String BODY = "0123456789".repeat(100_000);
+
+    private EchoServlet servlet;
+    private TestingHttpServer server;
+    private JettyHttpClient client;
+    private ExecutorService demandExecutor;
+
+    @BeforeEach
+    public void setup()
+            throws Exception
+    {
+        servlet = new EchoServlet();
+        server = new TestingHttpServer(Optional.empty(), servlet);
+        client = new JettyHttpClient(new HttpClientConfig());
+        demandExecutor = newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void tearDown()
+            throws Exception
+    {
+        closeAll(client, server, demandExecutor::shutdownNow);
+    }
+
+    @Test
+    @Timeout(30)
+    public void testContentDelivery()
+            throws Exception
+    {
+        servlet.addResponseHeader("X-Test", "value");
+        servlet.setResponseBody(BODY);
+
+        AtomicReference<String> header = new AtomicReference<>();
+        AtomicInteger chunks = new AtomicInteger();
+        AsyncResponseHandler<String> handler = (_, response) -> {
+            assertThat(response.statusCode()).isEqualTo(200);
+            header.set(response.getHeader(HeaderName.of("X-Test")).orElseThrow());
+            return new CollectingConsumer(chunks, demandExecutor);
+        };
+
+        assertThat(client.executeAsync(request(), handler).get()).isEqualTo(BODY);
+        assertThat(header.get()).isEqualTo("value");
+        assertThat(chunks.get()).isGreaterThan(1);
+        assertThat(client.getStats().getReadBytes().getAllTime().getTotal()).isEqualTo(BODY.length());
+    }
+
+    @Test
+    @Timeout(30)
+    public void testEmptyBody()
+            throws Exception
+    {
+        servlet.setResponseStatusCode(204);
+
+        AtomicInteger chunks = new AtomicInteger();
+        AsyncResponseHandler<String> handler = (_, _) -> new CollectingConsumer(chunks, demandExecutor);
+
+        assertThat(client.executeAsync(request(), handler).get()).isEmpty();
+        assertThat(chunks.get()).isEqualTo(0);
+    }
+
+    @Test
+    @Timeout(30)
+    public void testConsumerFailure()
+    {
+        servlet.setResponseBody(BODY);
+
+        AsyncResponseHandler<String> handler = (_, _) -> new ContentConsumer<>()
+        {
+            @Override
+            public void onContent(ByteBuffer content, Runnable demand)
+            {
+                throw new IllegalStateException("consumer failed");
+            }
+
+            @Override
+            public String onComplete()
+            {
+                throw new AssertionError("consumer should not complete");
+            }
+        };
+
+        assertThatThrownBy(() -> client.executeAsync(request(), handler).get())
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("consumer failed");
+    }
+
+    @Test
+    @Timeout(30)
+    public void testHandlerFailure()
+    {
+        AsyncResponseHandler<String> handler = (_, _) -> {
+            throw new IllegalStateException("handler failed");
+        };
+
+        assertThatThrownBy(() -> client.executeAsync(request(), handler).get())
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("handler failed");
+    }
+
+    @Test
+    public void testBlockingAdapter()
+            throws Exception
+    {
+        AtomicInteger chunks = new AtomicInteger();
+        try (HttpClient testingClient = new TestingHttpClient(_ -> mockResponse(OK, PLAIN_TEXT_UTF_8, BODY))) {
+            String body = testingClient.executeAsync(request(), (AsyncResponseHandler<String>) (_, _) -> new CollectingConsumer(chunks, demandExecutor)).get();
+            assertThat(body).isEqualTo(BODY);
+            assertThat(chunks.get()).isGreaterThan(1);
+        }
+    }
+
+    private Request request()
+    {
+        return prepareGet()
+                .setUri(server.baseURI())
+                .build();
+    }
+
+    private static class CollectingConsumer
+            implements ContentConsumer<String>
+    {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final AtomicInteger chunks;
+        private final ExecutorService demandExecutor;
+
+        public CollectingConsumer(AtomicInteger chunks, ExecutorService demandExecutor)
+        {
+            this.chunks = chunks;
+            this.demandExecutor = demandExecutor;
+        }
+
+        @Override
+        public void onContent(ByteBuffer content, Runnable demand)
+                throws Exception
+        {
+            chunks.incrementAndGet();
+            Channels.newChannel(output).write(content);
+            // request more content from another thread, as an asynchronous consumer would
+            demandExecutor.execute(demand);
+        }
+
+        @Override
+        public String onComplete()
+        {
+            return output.toString(UTF_8);
+        }
+    }
+}
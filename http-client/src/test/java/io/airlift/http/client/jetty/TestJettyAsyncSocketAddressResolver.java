@@ -0,0 +1,232 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.net.spi.InetAddressResolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.http.client.jetty.JettyAsyncSocketAddressResolver.SYSTEM_RESOLVER;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestJettyAsyncSocketAddressResolver
+{
+    private static final InetAddress FIRST = InetAddress.ofLiteral("10.0.0.1");
+    private static final InetAddress SECOND = InetAddress.ofLiteral("10.0.0.2");
+    private static final InetAddress THIRD = InetAddress.ofLiteral("10.0.0.3");
+
+    private final TestingNameService nameService = new TestingNameService(ImmutableMap.of(
+            "single.example", ImmutableList.of(FIRST),
+            "multiple.example", ImmutableList.of(FIRST, SECOND, THIRD)));
+    private final TestingTicker ticker = new TestingTicker();
+
+    @Test
+    public void testCaching()
+    {
+        JettyAsyncSocketAddressResolver resolver = createResolver(directExecutor());
+
+        assertThat(resolve(resolver, "single.example")).containsExactly(new InetSocketAddress(FIRST, 80));
+        assertThat(resolve(resolver, "single.example")).containsExactly(new InetSocketAddress(FIRST, 80));
+        assertThat(nameService.getLookups()).isEqualTo(1);
+        assertThat(resolver.getHits().getTotalCount()).isEqualTo(1);
+        assertThat(resolver.getMisses().getTotalCount()).isEqualTo(1);
+
+        // used after three quarters of the TTL, the entry is refreshed in the background
+        ticker.increment(8, SECONDS);
+        resolve(resolver, "single.example");
+        assertThat(nameService.getLookups()).isEqualTo(2);
+        assertThat(resolver.getRefreshes().getTotalCount()).isEqualTo(1);
+
+        // the refreshed entry outlives the original one
+        ticker.increment(5, SECONDS);
+        resolve(resolver, "single.example");
+        assertThat(nameService.getLookups()).isEqualTo(2);
+
+        ticker.increment(10, SECONDS);
+        resolve(resolver, "single.example");
+        assertThat(nameService.getLookups()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFailedRefresh()
+    {
+        JettyAsyncSocketAddressResolver resolver = createResolver(directExecutor());
+        resolve(resolver, "single.example");
+
+        // the current addresses are served while the refresh fails
+        ticker.increment(8, SECONDS);
+        nameService.setFailing(true);
+        assertThat(resolve(resolver, "single.example")).containsExactly(new InetSocketAddress(FIRST, 80));
+        assertThat(nameService.getLookups()).isEqualTo(2);
+
+        // the next request retries the refresh
+        nameService.setFailing(false);
+        assertThat(resolve(resolver, "single.example")).containsExactly(new InetSocketAddress(FIRST, 80));
+        assertThat(nameService.getLookups()).isEqualTo(3);
+        assertThat(resolver.getRefreshes().getTotalCount()).isEqualTo(2);
+
+        // the refreshed entry outlives the original one
+        ticker.increment(5, SECONDS);
+        resolve(resolver, "single.example");
+        assertThat(nameService.getLookups()).isEqualTo(3);
+    }
+
+    @Test
+    public void testSystemResolverLookupByAddress()
+            throws UnknownHostException
+    {
+        assertThat(SYSTEM_RESOLVER.lookupByAddress(new byte[] {127, 0, 0, 1})).isEqualTo("localhost");
+        assertThatThrownBy(() -> SYSTEM_RESOLVER.lookupByAddress(new byte[] {1, 2, 3}))
+                .isInstanceOf(UnknownHostException.class);
+    }
+
+    @Test
+    public void testNegativeCaching()
+    {
+        JettyAsyncSocketAddressResolver resolver = createResolver(directExecutor());
+
+        assertThatThrownBy(() -> resolve(resolver, "unknown.example"))
+                .hasCauseInstanceOf(UnknownHostException.class);
+        assertThatThrownBy(() -> resolve(resolver, "unknown.example"))
+                .hasCauseInstanceOf(UnknownHostException.class);
+        assertThat(nameService.getLookups()).isEqualTo(1);
+        assertThat(resolver.getFailures().getTotalCount()).isEqualTo(1);
+
+        ticker.increment(2, SECONDS);
+        assertThatThrownBy(() -> resolve(resolver, "unknown.example"))
+                .hasCauseInstanceOf(UnknownHostException.class);
+        assertThat(nameService.getLookups()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSpreadAcrossAddresses()
+    {
+        JettyAsyncSocketAddressResolver resolver = createResolver(directExecutor());
+
+        List<InetAddress> first = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<InetSocketAddress> addresses = resolve(resolver, "multiple.example");
+            assertThat(addresses).extracting(InetSocketAddress::getAddress).containsExactlyInAnyOrder(FIRST, SECOND, THIRD);
+            first.add(addresses.getFirst().getAddress());
+        }
+        assertThat(first).containsExactly(FIRST, SECOND, THIRD);
+        assertThat(nameService.getLookups()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSharedLookup()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        JettyAsyncSocketAddressResolver resolver = createResolver(tasks::add);
+
+        Promise.Completable<List<InetSocketAddress>> first = new Promise.Completable<>();
+        Promise.Completable<List<InetSocketAddress>> second = new Promise.Completable<>();
+        resolver.resolve("single.example", 80, Map.of(), first);
+        resolver.resolve("single.example", 8080, Map.of(), second);
+        assertThat(tasks).hasSize(1);
+        assertThat(first).isNotDone();
+
+        tasks.getFirst().run();
+        assertThat(first.join()).containsExactly(new InetSocketAddress(FIRST, 80));
+        assertThat(second.join()).containsExactly(new InetSocketAddress(FIRST, 8080));
+        assertThat(nameService.getLookups()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAddressLiteral()
+    {
+        JettyAsyncSocketAddressResolver resolver = createResolver(directExecutor());
+
+        assertThat(resolve(resolver, "10.0.0.9")).containsExactly(new InetSocketAddress(InetAddress.ofLiteral("10.0.0.9"), 80));
+        assertThat(nameService.getLookups()).isEqualTo(0);
+    }
+
+    private JettyAsyncSocketAddressResolver createResolver(Executor executor)
+    {
+        return new JettyAsyncSocketAddressResolver(
+                executor,
+                new ScheduledExecutorScheduler(),
+                0,
+                new Duration(10, SECONDS),
+                new Duration(2, SECONDS),
+                nameService,
+                ticker);
+    }
+
+    private static List<InetSocketAddress> resolve(JettyAsyncSocketAddressResolver resolver, String host)
+    {
+        Promise.Completable<List<InetSocketAddress>> promise = new Promise.Completable<>();
+        resolver.resolve(host, 80, Map.of(), promise);
+        return promise.join();
+    }
+
+    private static class TestingNameService
+            implements InetAddressResolver
+    {
+        private final Map<String, List<InetAddress>> hosts;
+        private final AtomicInteger lookups = new AtomicInteger();
+        private volatile boolean failing;
+
+        public TestingNameService(Map<String, List<InetAddress>> hosts)
+        {
+            this.hosts = ImmutableMap.copyOf(hosts);
+        }
+
+        public int getLookups()
+        {
+            return lookups.get();
+        }
+
+        public void setFailing(boolean failing)
+        {
+            this.failing = failing;
+        }
+
+        @Override
+        public Stream<InetAddress> lookupByName(String host, LookupPolicy lookupPolicy)
+                throws UnknownHostException
+        {
+            lookups.incrementAndGet();
+            List<InetAddress> addresses = hosts.get(host);
+            if (addresses == null || failing) {
+                throw new UnknownHostException(host);
+            }
+            return addresses.stream();
+        }
+
+        @Override
+        public String lookupByAddress(byte[] address)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
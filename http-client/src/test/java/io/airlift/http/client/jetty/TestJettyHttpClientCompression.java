@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.http.client.EchoServlet;
+import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.StringResponseHandler.StringResponse;
+import io.airlift.http.client.TestingHttpServer;
+import io.airlift.units.DataSize;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Optional;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.http.client.StreamingBodyGenerator.streamingBodyGenerator;
+import static io.airlift.http.client.StringResponseHandler.createStringResponseHandler;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestJettyHttpClientCompression
+{
+    private static final HeaderName ACCEPT_ENCODING = HeaderName.of("Accept-Encoding");
+    private static final String BODY = "compressible content ".repeat(10_000);
+
+    private EchoServlet servlet;
+    private TestingHttpServer server;
+
+    @BeforeEach
+    public void setup()
+            throws Exception
+    {
+        servlet = new EchoServlet();
+        server = new TestingHttpServer(Optional.empty(), servlet);
+    }
+
+    @AfterEach
+    public void tearDown()
+            throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    public void testResponseCompressionDisabled()
+    {
+        servlet.setResponseBody(BODY);
+        try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            StringResponse response = client.execute(prepareGet().setUri(server.baseURI()).build(), createStringResponseHandler());
+            assertThat(response.getBody()).isEqualTo(BODY);
+            assertThat(servlet.getRequestHeaders(ACCEPT_ENCODING)).isEmpty();
+            assertThat(client.getStats().getCompressedResponse().getTotalCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testResponseCompression()
+    {
+        servlet.setResponseBody(BODY);
+        try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig().setResponseCompressionEnabled(true))) {
+            StringResponse response = client.execute(prepareGet().setUri(server.baseURI()).build(), createStringResponseHandler());
+            assertThat(response.getBody()).isEqualTo(BODY);
+            assertThat(String.join(",", servlet.getRequestHeaders(ACCEPT_ENCODING))).contains("gzip");
+            assertThat(client.getStats().getCompressedResponse().getTotalCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testRequestCompression()
+    {
+        HttpClientConfig config = new HttpClientConfig()
+                .setRequestCompressionEnabled(true)
+                .setRequestCompressionMinSize(DataSize.of(1, KILOBYTE));
+        try (JettyHttpClient client = new JettyHttpClient(config)) {
+            execute(client, preparePost()
+                    .setUri(server.baseURI())
+                    .setBodyGenerator(createStaticBodyGenerator(BODY, UTF_8))
+                    .build());
+            assertThat(new String(servlet.getRequestBytes(), UTF_8)).isEqualTo(BODY);
+            assertThat(client.getStats().getRequestCompressionRatio().getAllTime().getCount()).isEqualTo(1);
+            assertThat(client.getStats().getRequestCompressionRatio().getAllTime().getMax()).isLessThan(10);
+
+            // small bodies are sent as is
+            execute(client, preparePost()
+                    .setUri(server.baseURI())
+                    .setBodyGenerator(createStaticBodyGenerator("small", UTF_8))
+                    .build());
+            assertThat(new String(servlet.getRequestBytes(), UTF_8)).isEqualTo("small");
+            assertThat(client.getStats().getRequestCompressionRatio().getAllTime().getCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testStreamingRequestCompression()
+    {
+        try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig().setRequestCompressionEnabled(true))) {
+            execute(client, preparePost()
+                    .setUri(server.baseURI())
+                    .setBodyGenerator(streamingBodyGenerator(new ByteArrayInputStream(BODY.getBytes(UTF_8))))
+                    .build());
+            assertThat(new String(servlet.getRequestBytes(), UTF_8)).isEqualTo(BODY);
+            assertThat(client.getStats().getRequestCompressionRatio().getAllTime().getCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testStreamingRequestCompressionSourceFailure()
+    {
+        InputStream source = new SequenceInputStream(
+                new ByteArrayInputStream(BODY.getBytes(UTF_8)),
+                new InputStream()
+                {
+                    @Override
+                    public int read()
+                            throws IOException
+                    {
+                        throw new IOException("source failed");
+                    }
+                });
+        try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig().setRequestCompressionEnabled(true))) {
+            // a truncated body must not be sent as a complete request
+            assertThatThrownBy(() -> execute(client, preparePost()
+                    .setUri(server.baseURI())
+                    .setBodyGenerator(streamingBodyGenerator(source))
+                    .build()))
+                    .hasStackTraceContaining("source failed");
+            assertThat(client.getStats().getRequestCompressionRatio().getAllTime().getCount()).isEqualTo(0);
+        }
+    }
+
+    private static void execute(JettyHttpClient client, Request request)
+    {
+        assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(200);
+    }
+}
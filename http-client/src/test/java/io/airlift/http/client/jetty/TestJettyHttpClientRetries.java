@@ -0,0 +1,313 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.http.client.HedgingPolicy;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.RetryPolicy;
+import io.airlift.http.client.StatusResponseHandler.StatusResponse;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.Request.Builder.preparePut;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.http.client.StreamingBodyGenerator.streamingBodyGenerator;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestJettyHttpClientRetries
+{
+    private static final RetryPolicy RETRY_POLICY = RetryPolicy.builder()
+            .setInitialDelay(new Duration(1, MILLISECONDS))
+            .setMaxDelay(new Duration(10, MILLISECONDS))
+            .build();
+
+    @Test
+    @Timeout(30)
+    public void testRetryableStatus()
+            throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(new Reply(503, 0), new Reply(502, 0));
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            Request request = prepareGet()
+                    .setUri(server.uri())
+                    .setRetryPolicy(RETRY_POLICY)
+                    .build();
+            assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(200);
+            assertThat(server.getRequestCount()).isEqualTo(3);
+            assertThat(client.getStats().getRequestRetried().getTotalCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testMaxAttempts()
+            throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(new Reply(503, 0), new Reply(503, 0), new Reply(503, 0));
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            Request request = prepareGet()
+                    .setUri(server.uri())
+                    .setRetryPolicy(RETRY_POLICY)
+                    .build();
+            StatusResponse response = client.executeAsync(request, createStatusResponseHandler()).get();
+            assertThat(response.getStatusCode()).isEqualTo(503);
+            assertThat(server.getRequestCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testNonIdempotentNotRetried()
+            throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(new Reply(503, 0));
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            Request request = preparePost()
+                    .setUri(server.uri())
+                    .setRetryPolicy(RETRY_POLICY)
+                    .build();
+            assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(503);
+            assertThat(server.getRequestCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testStreamingBodyNotRetried()
+            throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(new Reply(503, 0));
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            Request request = preparePut()
+                    .setUri(server.uri())
+                    .setBodyGenerator(streamingBodyGenerator(new ByteArrayInputStream("hello".getBytes(US_ASCII))))
+                    .setRetryPolicy(RETRY_POLICY)
+                    .setHedgingPolicy(HedgingPolicy.builder()
+                            .setMinDelay(new Duration(1, MILLISECONDS))
+                            .build())
+                    .build();
+            assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(503);
+            assertThat(server.getRequestCount()).isEqualTo(1);
+            assertThat(client.getStats().getRequestRetried().getTotalCount()).isEqualTo(0);
+            assertThat(client.getStats().getRequestHedged().getTotalCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testRetryBudget()
+            throws Exception
+    {
+        HttpClientConfig config = new HttpClientConfig()
+                .setRetryBudgetRatio(0)
+                .setRetryBudgetMaxBurst(1);
+        try (ScriptedServer server = new ScriptedServer(new Reply(503, 0), new Reply(503, 0));
+                JettyHttpClient client = new JettyHttpClient(config)) {
+            Request request = prepareGet()
+                    .setUri(server.uri())
+                    .setRetryPolicy(RETRY_POLICY)
+                    .build();
+            // the single retry of the budget is used by the first request
+            assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(503);
+            assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(200);
+            assertThat(server.getRequestCount()).isEqualTo(3);
+            assertThat(client.getRetryBudgetRejected()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testHedging()
+            throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(new Reply(200, 10_000));
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            Request request = prepareGet()
+                    .setUri(server.uri())
+                    .setHedgingPolicy(HedgingPolicy.builder()
+                            .setMinDelay(new Duration(100, MILLISECONDS))
+                            .build())
+                    .build();
+            long start = System.nanoTime();
+            assertThat(client.executeAsync(request, createStatusResponseHandler()).get().getStatusCode()).isEqualTo(200);
+            assertThat(new Duration(System.nanoTime() - start, NANOSECONDS).toMillis()).isLessThan(10_000);
+            assertThat(server.getRequestCount()).isEqualTo(2);
+            assertThat(client.getStats().getRequestHedged().getTotalCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testHedgingCancelsLosingAttempt()
+            throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(new Reply(200, 10_000));
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            Request request = prepareGet()
+                    .setUri(server.uri())
+                    .setHedgingPolicy(HedgingPolicy.builder()
+                            .setMinDelay(new Duration(100, MILLISECONDS))
+                            .build())
+                    .build();
+            // the losing attempt is cancelled before the response of the winner is processed
+            ResponseHandler<Boolean, RuntimeException> handler = new ResponseHandler<>()
+            {
+                @Override
+                public Boolean handleException(Request request, Exception exception)
+                {
+                    throw propagate(request, exception);
+                }
+
+                @Override
+                public Boolean handle(Request request, Response response)
+                {
+                    long deadline = System.nanoTime() + SECONDS.toNanos(5);
+                    while (server.getClosedCount() == 0 && System.nanoTime() < deadline) {
+                        Thread.onSpinWait();
+                    }
+                    return server.getClosedCount() > 0;
+                }
+            };
+            assertThat(client.executeAsync(request, handler).get()).isTrue();
+            assertThat(server.getRequestCount()).isEqualTo(2);
+        }
+    }
+
+    private record Reply(int status, long delayMillis) {}
+
+    /**
+     * Replies to requests with the scripted replies in order, and with 200 afterward.
+     */
+    @SuppressWarnings("SocketOpenedButNotSafelyClosed")
+    private static final class ScriptedServer
+            implements AutoCloseable
+    {
+        private final ServerSocket serverSocket;
+        private final ConcurrentLinkedQueue<Reply> replies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private final AtomicInteger closedCount = new AtomicInteger();
+
+        ScriptedServer(Reply... replies)
+                throws IOException
+        {
+            this.replies.addAll(List.of(replies));
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+            Thread acceptor = new Thread(this::run, "ScriptedServer");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void run()
+        {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread handler = new Thread(() -> handle(socket), "ScriptedServer-handler");
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+                catch (IOException ignored) {
+                    // close() causes accept() to throw; isClosed() then exits the loop.
+                }
+            }
+        }
+
+        private void handle(Socket socket)
+        {
+            try (socket;
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+                    OutputStream out = socket.getOutputStream()) {
+                String line = in.readLine();
+                while (line != null && !line.isEmpty()) {
+                    line = in.readLine();
+                }
+                requestCount.incrementAndGet();
+                Reply reply = replies.poll();
+                if (reply == null) {
+                    reply = new Reply(200, 0);
+                }
+                if (reply.delayMillis() > 0) {
+                    // wait for the delay, unless the client closes the connection first
+                    socket.setSoTimeout(toIntExact(reply.delayMillis()));
+                    try {
+                        if (in.read() < 0) {
+                            closedCount.incrementAndGet();
+                            return;
+                        }
+                    }
+                    catch (SocketTimeoutException ignored) {
+                        // the delay elapsed
+                    }
+                    catch (IOException e) {
+                        closedCount.incrementAndGet();
+                        return;
+                    }
+                }
+                out.write(("HTTP/1.1 " + reply.status() + " Status\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(US_ASCII));
+                out.flush();
+            }
+            catch (IOException ignored) {
+                // the client closed the connection
+            }
+        }
+
+        int getRequestCount()
+        {
+            return requestCount.get();
+        }
+
+        int getClosedCount()
+        {
+            return closedCount.get();
+        }
+
+        URI uri()
+        {
+            return URI.create("http://localhost:" + serverSocket.getLocalPort() + "/");
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.Request;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestJettyHttpClientUnixDomainSocket
+{
+    @Test
+    public void testHttpsRejected()
+    {
+        HttpClientConfig config = new HttpClientConfig()
+                .setUnixDomainSocketPath("/tmp/does-not-exist.sock");
+        try (JettyHttpClient client = new JettyHttpClient(config)) {
+            Request request = prepareGet().setUri(URI.create("https://localhost/")).build();
+
+            assertThatThrownBy(() -> client.execute(request, createStatusResponseHandler()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("HTTPS is not supported over a Unix domain socket");
+            assertThatThrownBy(() -> client.executeAsync(request, createStatusResponseHandler()).get())
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> client.warmUp(URI.create("https://localhost/"), 1))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
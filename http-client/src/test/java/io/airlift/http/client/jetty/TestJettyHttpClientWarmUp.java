@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.client.jetty;
+
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.testing.Closeables.closeAll;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestJettyHttpClientWarmUp
+{
+    @Test
+    @Timeout(30)
+    public void testWarmUp()
+            throws Exception
+    {
+        try (AcceptingServer server = new AcceptingServer();
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            client.warmUp(server.getUri(), 3).get();
+            assertThat(client.getConnectionStats().getPreopenedConnectionCount()).isEqualTo(3);
+            assertThat(client.getConnectionStats().getColdAcquisitionCount()).isEqualTo(0);
+            server.awaitConnections(3);
+
+            // the destination already has enough connections
+            client.warmUp(server.getUri(), 2).get();
+            client.warmUp(server.getUri(), 3).get();
+            assertThat(client.getConnectionStats().getPreopenedConnectionCount()).isEqualTo(3);
+
+            client.warmUp(server.getUri(), 4).get();
+            server.awaitConnections(4);
+            assertThat(client.getConnectionStats().getPreopenedConnectionCount()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testAcquisitionStats()
+            throws Exception
+    {
+        try (AcceptingServer server = new AcceptingServer(true);
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            // the first request waits for a new connection
+            assertThat(client.execute(prepareGet().setUri(server.getUri()).build(), createStatusResponseHandler()).getStatusCode()).isEqualTo(200);
+            assertThat(client.getConnectionStats().getColdAcquisitionCount()).isEqualTo(1);
+            assertThat(client.getConnectionStats().getWarmAcquisitionCount()).isEqualTo(0);
+
+            // later requests reuse the open connection
+            client.execute(prepareGet().setUri(server.getUri()).build(), createStatusResponseHandler());
+            client.execute(prepareGet().setUri(server.getUri()).build(), createStatusResponseHandler());
+            assertThat(client.getConnectionStats().getColdAcquisitionCount()).isEqualTo(1);
+            assertThat(client.getConnectionStats().getWarmAcquisitionCount()).isEqualTo(2);
+        }
+
+        try (AcceptingServer server = new AcceptingServer(true);
+                JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+            // a preopened connection is warm on first use
+            client.warmUp(server.getUri(), 1).get();
+            client.execute(prepareGet().setUri(server.getUri()).build(), createStatusResponseHandler());
+            assertThat(client.getConnectionStats().getColdAcquisitionCount()).isEqualTo(0);
+            assertThat(client.getConnectionStats().getWarmAcquisitionCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testKeepWarm()
+            throws Exception
+    {
+        try (AcceptingServer server = new AcceptingServer()) {
+            HttpClientConfig config = new HttpClientConfig()
+                    .setKeepWarmDestinations(server.getUri().toString())
+                    .setKeepWarmConnections(2)
+                    .setKeepWarmInterval(new Duration(10, MILLISECONDS));
+            try (JettyHttpClient _ = new JettyHttpClient(config)) {
+                server.awaitConnections(2);
+
+                // closed connections are reopened
+                server.closeConnections();
+                server.awaitConnections(4);
+            }
+        }
+    }
+
+    private static class AcceptingServer
+            implements AutoCloseable
+    {
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final Thread thread;
+
+        public AcceptingServer()
+                throws IOException
+        {
+            this(false);
+        }
+
+        public AcceptingServer(boolean respond)
+                throws IOException
+        {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            thread = Thread.ofPlatform().daemon().start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        sockets.add(socket);
+                        if (respond) {
+                            Thread.ofPlatform().daemon().start(() -> respond(socket));
+                        }
+                    }
+                    catch (IOException ignored) {
+                        // server was closed
+                    }
+                }
+            });
+        }
+
+        private static void respond(Socket socket)
+        {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // requests have no body, so a blank line ends each request
+                    if (line.isEmpty()) {
+                        socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes(US_ASCII));
+                        socket.getOutputStream().flush();
+                    }
+                }
+            }
+            catch (IOException ignored) {
+                // connection was closed
+            }
+        }
+
+        public URI getUri()
+        {
+            return URI.create("http://127.0.0.1:" + serverSocket.getLocalPort());
+        }
+
+        public void awaitConnections(int count)
+                throws InterruptedException
+        {
+            while (sockets.size() < count) {
+                MILLISECONDS.sleep(10);
+            }
+        }
+
+        public void closeConnections()
+                throws IOException
+        {
+            closeAll(sockets.toArray(new Socket[0]));
+        }
+
+        @Override
+        public void close()
+                throws Exception
+        {
+            serverSocket.close();
+            thread.join();
+            closeConnections();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.ceilDiv;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eclipse.jetty.http.HttpStatus.SERVICE_UNAVAILABLE_503;
+
+/**
+ * Sheds load based on how long requests wait for a worker thread, following the CoDel algorithm.
+ * The server is overloaded when the minimum queue delay over an interval exceeds the target delay,
+ * which means the queue did not drain at any point during the interval. While overloaded, requests
+ * that waited longer than the target are rejected with 503 and a {@code Retry-After} header,
+ * low priority requests are always rejected, and critical requests are never rejected.
+ */
+public class AdmissionControlHandler
+        extends Handler.Wrapper
+{
+    public enum RequestPriority
+    {
+        CRITICAL,
+        NORMAL,
+        LOW
+    }
+
+    private static final long NO_SAMPLES = Long.MAX_VALUE;
+
+    private final long targetDelayNanos;
+    private final long intervalNanos;
+    private final String retryAfterSeconds;
+    private final List<String> criticalPaths;
+    private final List<String> lowPriorityPaths;
+
+    private final AtomicLong minDelayNanos = new AtomicLong(NO_SAMPLES);
+    private volatile long intervalEndNanos;
+    private volatile boolean overloaded;
+
+    private final TimeStat queueDelay = new TimeStat();
+    private final CounterStat shedRequests = new CounterStat();
+    private final CounterStat shedLowPriorityRequests = new CounterStat();
+
+    public AdmissionControlHandler(
+            Handler handler,
+            Duration targetDelay,
+            Duration interval,
+            Duration retryAfter,
+            List<String> criticalPaths,
+            List<String> lowPriorityPaths)
+    {
+        super(handler);
+        this.targetDelayNanos = targetDelay.roundTo(NANOSECONDS);
+        this.intervalNanos = interval.roundTo(NANOSECONDS);
+        checkArgument(intervalNanos > 0, "interval must be positive");
+        this.retryAfterSeconds = Long.toString(max(ceilDiv(retryAfter.toMillis(), 1000), 1));
+        this.criticalPaths = ImmutableList.copyOf(requireNonNull(criticalPaths, "criticalPaths is null"));
+        this.lowPriorityPaths = ImmutableList.copyOf(requireNonNull(lowPriorityPaths, "lowPriorityPaths is null"));
+        this.intervalEndNanos = NanoTime.now() + intervalNanos;
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback)
+            throws Exception
+    {
+        // HTTP/1.1 requests wait for a thread before their headers are parsed, and HTTP/2 streams can
+        // wait for a thread after their headers are parsed
+        long now = NanoTime.now();
+        long delayNanos = max(QueueDelayTrackingThreadPool.getCurrentQueueDelayNanos(), NanoTime.elapsed(request.getHeadersNanoTime(), now));
+        if (admit(getPriority(request.getHttpURI().getPath()), delayNanos, now)) {
+            return super.handle(request, response, callback);
+        }
+
+        response.setStatus(SERVICE_UNAVAILABLE_503);
+        response.getHeaders().put(HttpHeader.RETRY_AFTER, retryAfterSeconds);
+        response.write(true, null, callback);
+        return true;
+    }
+
+    @VisibleForTesting
+    boolean admit(RequestPriority priority, long delayNanos, long now)
+    {
+        queueDelay.addNanos(delayNanos);
+
+        if (now - intervalEndNanos >= 0) {
+            synchronized (this) {
+                // another thread may have already started the next interval
+                if (now - intervalEndNanos >= 0) {
+                    long minDelay = minDelayNanos.getAndSet(NO_SAMPLES);
+                    // the queue drained if a whole interval passed without requests
+                    boolean idle = now - intervalEndNanos >= intervalNanos;
+                    overloaded = !idle && minDelay != NO_SAMPLES && minDelay > targetDelayNanos;
+                    intervalEndNanos = now + intervalNanos;
+                }
+            }
+        }
+        minDelayNanos.accumulateAndGet(delayNanos, Math::min);
+
+        if (!overloaded) {
+            return true;
+        }
+        return switch (priority) {
+            case CRITICAL -> true;
+            case NORMAL -> {
+                if (delayNanos <= targetDelayNanos) {
+                    yield true;
+                }
+                shedRequests.update(1);
+                yield false;
+            }
+            case LOW -> {
+                shedLowPriorityRequests.update(1);
+                yield false;
+            }
+        };
+    }
+
+    @VisibleForTesting
+    RequestPriority getPriority(String path)
+    {
+        if (path == null) {
+            return RequestPriority.NORMAL;
+        }
+        for (String criticalPath : criticalPaths) {
+            if (path.startsWith(criticalPath)) {
+                return RequestPriority.CRITICAL;
+            }
+        }
+        for (String lowPriorityPath : lowPriorityPaths) {
+            if (path.startsWith(lowPriorityPath)) {
+                return RequestPriority.LOW;
+            }
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    @Managed(description = "server is shedding load because the queue delay exceeds the target")
+    public boolean isOverloaded()
+    {
+        return overloaded;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getQueueDelay()
+    {
+        return queueDelay;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getShedRequests()
+    {
+        return shedRequests;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getShedLowPriorityRequests()
+    {
+        return shedLowPriorityRequests;
+    }
+}
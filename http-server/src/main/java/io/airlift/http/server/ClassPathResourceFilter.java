@@ -15,8 +15,16 @@
  */
 package io.airlift.http.server;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
 import com.google.common.net.HttpHeaders;
+import io.airlift.units.DataSize;
 import jakarta.annotation.Nullable;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -26,22 +34,36 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MimeTypes;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Serves files from a given folder on the classpath through jetty.
  * Intended to serve a couple of static files e.g. for javascript or HTML.
+ * <p>
+ * Resources in jars are cached in memory. Responses carry strong ETags, support single byte ranges,
+ * and use precompressed {@code .br}, {@code .zst} or {@code .gz} siblings of a resource when the
+ * client accepts the encoding.
  */
 // Forked from https://github.com/NessComputing/components-ness-httpserver/
 public class ClassPathResourceFilter
         extends HttpFilter
 {
+    private static final long MAX_CACHE_SIZE = DataSize.of(64, MEGABYTE).toBytes();
+    private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final Splitter PARAMETER_SPLITTER = Splitter.on(';').trimResults();
     private static final MimeTypes.Mutable MIME_TYPES;
 
     static {
@@ -52,12 +74,24 @@ public class ClassPathResourceFilter
     private final String baseUri; // "" or "/foo"
     private final String classPathResourceBase;
     private final List<String> welcomeFiles;
+    private final ClassLoader classLoader;
+    private final Cache<String, StaticResource> cache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHE_SIZE)
+            .<String, StaticResource>weigher((_, resource) -> resource.weight())
+            .build();
 
     public ClassPathResourceFilter(String baseUri, String classPathResourceBase, List<String> welcomeFiles)
+    {
+        this(baseUri, classPathResourceBase, welcomeFiles, ClassPathResourceFilter.class.getClassLoader());
+    }
+
+    @VisibleForTesting
+    ClassPathResourceFilter(String baseUri, String classPathResourceBase, List<String> welcomeFiles, ClassLoader classLoader)
     {
         requireNonNull(baseUri, "baseUri is null");
         requireNonNull(classPathResourceBase, "classPathResourceBase is null");
         requireNonNull(welcomeFiles, "welcomeFiles is null");
+        this.classLoader = requireNonNull(classLoader, "classLoader is null");
         checkArgument(baseUri.equals("/") || !baseUri.endsWith("/"), "baseUri should not end with a slash: %s", baseUri);
 
         baseUri = baseUri.startsWith("/") ? baseUri : '/' + baseUri;
@@ -97,7 +131,7 @@ public class ClassPathResourceFilter
             return;
         }
 
-        URL resource = getResource(resourcePath);
+        StaticResource resource = findResource(resourcePath);
         if (resource == null) {
             chain.doFilter(request, response);
             return;
@@ -115,23 +149,116 @@ public class ClassPathResourceFilter
             }
         }
 
-        InputStream resourceStream = null;
-        try {
-            resourceStream = resource.openStream();
+        response.setContentType(resource.contentType());
+        response.setCharacterEncoding(MIME_TYPES.getCharset(resource.contentType()));
+
+        Representation representation = resource.select(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (resource.hasEncodings()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        representation.encoding().ifPresent(encoding -> response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getName()));
+        response.setHeader(HttpHeaders.ETAG, representation.etag());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 
-            String contentType = MIME_TYPES.getMimeByExtension(resource.toString());
-            response.setContentType(contentType);
-            response.setCharacterEncoding(MIME_TYPES.getCharset(contentType));
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), representation.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
 
-            if (skipContent) {
+        // content is written from a view of the cached buffer, without copying it
+        ByteBuffer content = representation.content().slice();
+        int length = content.remaining();
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), representation.etag())) {
+            ByteRange range = ByteRange.parse(rangeHeader, length);
+            if (range == ByteRange.UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
                 return;
             }
+            if (range != null) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes %s-%s/%s".formatted(range.first(), range.last(), length));
+                content = content.slice(range.first(), range.last() - range.first() + 1);
+            }
+        }
 
-            resourceStream.transferTo(response.getOutputStream());
+        response.setContentLength(content.remaining());
+        if (skipContent) {
+            return;
         }
-        finally {
-            closeQuietly(resourceStream);
+        response.getOutputStream().write(content);
+    }
+
+    @Nullable
+    private StaticResource loadResource(String resourceName)
+            throws IOException
+    {
+        StaticResource resource = cache.getIfPresent(resourceName);
+        if (resource != null) {
+            return resource;
         }
+
+        URL url = classLoader.getResource(resourceName);
+        if (url == null) {
+            return null;
+        }
+        byte[] identity = readResource(url);
+        if (identity == null) {
+            return null;
+        }
+        // resources in jars cannot change, while resources in directories may be edited during development
+        boolean cacheable = "jar".equals(url.getProtocol());
+
+        ImmutableMap.Builder<ContentEncoding, Representation> encodings = ImmutableMap.builder();
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            URL encodedUrl = classLoader.getResource(resourceName + encoding.getExtension());
+            byte[] encoded = encodedUrl == null ? null : readResource(encodedUrl);
+            if (encoded != null) {
+                encodings.put(encoding, Representation.create(Optional.of(encoding), encoded, cacheable));
+            }
+        }
+        resource = new StaticResource(
+                MIME_TYPES.getMimeByExtension(resourceName),
+                Representation.create(Optional.empty(), identity, cacheable),
+                encodings.buildOrThrow());
+
+        if (cacheable) {
+            cache.put(resourceName, resource);
+        }
+        return resource;
+    }
+
+    @Nullable
+    private static byte[] readResource(URL url)
+            throws IOException
+    {
+        try (InputStream input = url.openStream()) {
+            return input.readAllBytes();
+        }
+        catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static boolean matchesAny(@Nullable String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : LIST_SPLITTER.split(ifNoneMatch)) {
+            // If-None-Match uses the weak comparison
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean ifRangeMatches(@Nullable String ifRange, String etag)
+    {
+        // If-Range uses the strong comparison, and dates are not supported because resources have no modification time
+        return ifRange == null || ifRange.trim().equals(etag);
     }
 
     @Nullable
@@ -156,17 +283,19 @@ public class ClassPathResourceFilter
         return pathInfo;
     }
 
-    private URL getResource(String resourcePath)
+    @Nullable
+    private StaticResource findResource(String resourcePath)
+            throws IOException
     {
         checkArgument(resourcePath.startsWith("/"), "resourcePath does not start with a slash: %s", resourcePath);
 
         if (!"/".equals(resourcePath)) {
-            return getClass().getClassLoader().getResource(classPathResourceBase + resourcePath);
+            return loadResource(classPathResourceBase + resourcePath);
         }
 
         // check welcome files
         for (String welcomeFile : welcomeFiles) {
-            URL resource = getClass().getClassLoader().getResource(classPathResourceBase + welcomeFile);
+            StaticResource resource = loadResource(classPathResourceBase + welcomeFile);
             if (resource != null) {
                 return resource;
             }
@@ -174,14 +303,136 @@ public class ClassPathResourceFilter
         return null;
     }
 
-    private static void closeQuietly(@Nullable InputStream in)
+    private enum ContentEncoding
+    {
+        // in order of preference
+        BROTLI("br", ".br"),
+        ZSTD("zstd", ".zst"),
+        GZIP("gzip", ".gz");
+
+        private final String name;
+        private final String extension;
+
+        ContentEncoding(String name, String extension)
+        {
+            this.name = name;
+            this.extension = extension;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getExtension()
+        {
+            return extension;
+        }
+    }
+
+    private record StaticResource(String contentType, Representation identity, Map<ContentEncoding, Representation> encodings)
+    {
+        public boolean hasEncodings()
+        {
+            return !encodings.isEmpty();
+        }
+
+        public int weight()
+        {
+            int weight = identity.content().capacity();
+            for (Representation representation : encodings.values()) {
+                weight += representation.content().capacity();
+            }
+            return weight;
+        }
+
+        public Representation select(@Nullable String acceptEncoding)
+        {
+            if (acceptEncoding == null || encodings.isEmpty()) {
+                return identity;
+            }
+            Set<String> accepted = acceptedEncodings(acceptEncoding);
+            for (Map.Entry<ContentEncoding, Representation> entry : encodings.entrySet()) {
+                if (accepted.contains(entry.getKey().getName()) || accepted.contains("*")) {
+                    return entry.getValue();
+                }
+            }
+            return identity;
+        }
+
+        private static Set<String> acceptedEncodings(String acceptEncoding)
+        {
+            ImmutableSet.Builder<String> accepted = ImmutableSet.builder();
+            for (String element : LIST_SPLITTER.split(acceptEncoding)) {
+                List<String> parts = PARAMETER_SPLITTER.splitToList(element);
+                boolean rejected = parts.stream()
+                        .skip(1)
+                        .anyMatch(parameter -> parameter.toLowerCase(ENGLISH).matches("q=0(\\.0{0,3})?"));
+                if (!rejected) {
+                    accepted.add(parts.getFirst().toLowerCase(ENGLISH));
+                }
+            }
+            return accepted.build();
+        }
+    }
+
+    private record Representation(Optional<ContentEncoding> encoding, ByteBuffer content, String etag)
     {
-        if (in != null) {
+        public static Representation create(Optional<ContentEncoding> encoding, byte[] content, boolean cached)
+        {
+            // cached content is kept off heap, so it can be written to the socket without another copy
+            ByteBuffer buffer = cached ? ByteBuffer.allocateDirect(content.length).put(content).flip() : ByteBuffer.wrap(content);
+            buffer = buffer.asReadOnlyBuffer();
+            // strong validator, which differs between the encodings of a resource
+            String etag = "\"" + Hashing.sha256().hashBytes(content).toString().substring(0, 32) + "\"";
+            return new Representation(encoding, buffer, etag);
+        }
+    }
+
+    private record ByteRange(int first, int last)
+    {
+        public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        /**
+         * Returns the range of a single byte range request, {@link #UNSATISFIABLE} if the range
+         * is outside the content, or null if the range is invalid or has multiple ranges, in
+         * which case the whole content is sent.
+         */
+        @Nullable
+        public static ByteRange parse(String header, int length)
+        {
+            header = header.trim();
+            if (!header.startsWith("bytes=") || header.contains(",")) {
+                return null;
+            }
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
             try {
-                in.close();
+                if (first.isEmpty()) {
+                    // suffix range of the last bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0 || length == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    return new ByteRange((int) Math.max(length - suffix, 0), length - 1);
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+                if (start < 0 || end < start) {
+                    return null;
+                }
+                if (start >= length) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange((int) start, (int) Math.min(end, length - 1));
             }
-            catch (IOException e) {
-                // ignored
+            catch (NumberFormatException e) {
+                return null;
             }
         }
     }
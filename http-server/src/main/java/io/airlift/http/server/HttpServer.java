@@ -42,9 +42,12 @@ import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.io.ArrayByteBufferPool;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.RateControl;
+import org.eclipse.jetty.io.ssl.SslConnection;
 import org.eclipse.jetty.jmx.MBeanContainer;
 import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.ForwardedRequestCustomizer;
 import org.eclipse.jetty.server.HostHeaderCustomizer;
 import org.eclipse.jetty.server.HttpConfiguration;
@@ -56,6 +59,7 @@ import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.eclipse.jetty.server.handler.GracefulHandler;
 import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.unixdomain.server.UnixDomainServerConnector;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.MonitoredQueuedThreadPool;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
@@ -64,9 +68,11 @@ import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
 import javax.management.MBeanServer;
+import javax.net.ssl.SSLEngine;
 
 import java.io.IOException;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
@@ -119,6 +125,10 @@ public class HttpServer
     private final MonitoredQueuedThreadPoolMBean monitoredQueuedThreadPoolMBean;
     private ConnectionStats httpConnectionStats;
     private ConnectionStats httpsConnectionStats;
+    private ConnectionStats unixDomainConnectionStats;
+    private final TlsHandshakeStats tlsHandshakeStats = new TlsHandshakeStats();
+    private AdmissionControlHandler admissionControlHandler;
+    private RequestDeadlineFilter requestDeadlineFilter;
     private ScheduledExecutorService scheduledExecutorService;
     private Optional<SslContextFactory.Server> sslContextFactory;
 
@@ -158,7 +168,10 @@ public class HttpServer
                 ? maybeHttpsConfig.orElseThrow(() -> new IllegalArgumentException("httpsConfig must be present when HTTPS is enabled"))
                 : null;
 
-        MonitoredQueuedThreadPool threadPool = new MonitoredQueuedThreadPool(config.getMaxThreads());
+        // only admission control reads the queue delay, so do not wrap every task otherwise
+        MonitoredQueuedThreadPool threadPool = config.isAdmissionControlEnabled()
+                ? new QueueDelayTrackingThreadPool(config.getMaxThreads())
+                : new MonitoredQueuedThreadPool(config.getMaxThreads());
         threadPool.setMinThreads(config.getMinThreads());
         threadPool.setIdleTimeout(toIntExact(config.getThreadMaxIdleTime().toMillis()));
         threadPool.setName(name + "-worker");
@@ -264,6 +277,29 @@ public class HttpServer
             server.addConnector(httpConnector);
         }
 
+        // set up Unix domain socket connector for co-located clients
+        if (config.getUnixDomainSocketPath().isPresent()) {
+            HttpConfiguration unixDomainConfiguration = new HttpConfiguration(baseHttpConfiguration);
+            UnixDomainServerConnector unixDomainConnector = new UnixDomainServerConnector(
+                    server,
+                    null,
+                    null,
+                    null,
+                    requireNonNullElse(httpConfig.getHttpAcceptorThreads(), -1),
+                    requireNonNullElse(httpConfig.getHttpSelectorThreads(), -1),
+                    insecureFactories(config, unixDomainConfiguration));
+            unixDomainConnector.setName("unix");
+            unixDomainConnector.setUnixDomainPath(Path.of(config.getUnixDomainSocketPath().get()));
+            unixDomainConnector.setIdleTimeout(config.getNetworkMaxIdleTime().toMillis());
+            unixDomainConnector.setAcceptQueueSize(httpConfig.getAcceptQueueSize());
+
+            // track connection statistics
+            ConnectionStatistics connectionStats = new ConnectionStatistics();
+            unixDomainConnector.addBean(connectionStats);
+            this.unixDomainConnectionStats = new ConnectionStats(connectionStats);
+            server.addConnector(unixDomainConnector);
+        }
+
         // set up NIO-based HTTPS connector
         ServerConnector httpsConnector;
         if (config.isHttpsEnabled()) {
@@ -297,13 +333,14 @@ public class HttpServer
          * Jetty's handlers chain is:
          *    channel listener (protocol)
          *    |--- graceful handler (tracks active requests)
-         *         |--- statistics handler
-         *              |--- compression handler (if enabled)
-         *                   |--- servlet context handler
-         *                        |--- error handler
-         *                        |--- servlet filters (i.e. tracing)
-         *                        |--- the servlet (i.e. Jersey's ServletContainer)
-         *                        |--- static resources
+         *         |--- admission control handler (if enabled)
+         *              |--- statistics handler
+         *                   |--- compression handler (if enabled)
+         *                        |--- servlet context handler
+         *                             |--- error handler
+         *                             |--- servlet filters (i.e. tracing)
+         *                             |--- the servlet (i.e. Jersey's ServletContainer)
+         *                             |--- static resources
          *    |--- error handler
          */
         StatisticsHandler statsHandler = new StatisticsHandler();
@@ -315,7 +352,13 @@ public class HttpServer
         if (config.isHttpsEnabled()) {
             connectorNames.add("https");
         }
-        ServletContextHandler servletContext = createServletContext(servlet, resources, filters, connectorNames, showStackTrace, serverFeatures.contains(LEGACY_URI_COMPLIANCE));
+        if (config.getUnixDomainSocketPath().isPresent()) {
+            connectorNames.add("unix");
+        }
+        if (config.isDeadlinePropagationEnabled()) {
+            requestDeadlineFilter = new RequestDeadlineFilter();
+        }
+        ServletContextHandler servletContext = createServletContext(servlet, resources, Optional.ofNullable(requestDeadlineFilter), filters, connectorNames, showStackTrace, serverFeatures.contains(LEGACY_URI_COMPLIANCE));
 
         if (enableCompression) {
             CompressionHandler compressionHandler = new CompressionHandler();
@@ -345,7 +388,17 @@ public class HttpServer
             statsHandler.setHandler(servletContext);
         }
 
-        if (config.isLogEnabled()) {
+        if (config.isLogEnabled() && config.isLogRingBufferEnabled()) {
+            server.setRequestLog(new RingBufferRequestLog(
+                    config.getLogPath(),
+                    config.getLogHistory(),
+                    config.getLogQueueSize(),
+                    config.getLogMaxFileSize().toBytes(),
+                    config.isLogCompressionEnabled(),
+                    config.isLogImmediateFlush(),
+                    config.getLogFormat()));
+        }
+        else if (config.isLogEnabled()) {
             server.setRequestLog(new JettyRequestLog(
                     config.getLogPath(),
                     config.getLogHistory(),
@@ -354,7 +407,19 @@ public class HttpServer
                     config.isCompressionEnabled(),
                     config.isLogImmediateFlush()));
         }
-        server.setHandler(new GracefulHandler(statsHandler));
+        if (config.isAdmissionControlEnabled()) {
+            admissionControlHandler = new AdmissionControlHandler(
+                    statsHandler,
+                    config.getAdmissionControlTargetDelay(),
+                    config.getAdmissionControlInterval(),
+                    config.getAdmissionControlRetryAfter(),
+                    config.getAdmissionControlCriticalPaths(),
+                    config.getAdmissionControlLowPriorityPaths());
+            server.setHandler(new GracefulHandler(admissionControlHandler));
+        }
+        else {
+            server.setHandler(new GracefulHandler(statsHandler));
+        }
         ErrorHandler errorHandler = new ErrorHandler();
         errorHandler.setShowMessageInTitle(showStackTrace);
         errorHandler.setShowStacks(showStackTrace);
@@ -405,7 +470,16 @@ public class HttpServer
         ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
         alpn.setDefaultProtocol(http1.getProtocol());
 
-        SslConnectionFactory tls = new SslConnectionFactory(server, alpn.getProtocol());
+        SslConnectionFactory tls = new SslConnectionFactory(server, alpn.getProtocol())
+        {
+            @Override
+            protected SslConnection newSslConnection(Connector connector, EndPoint endPoint, SSLEngine engine)
+            {
+                SslConnection connection = super.newSslConnection(connector, endPoint, engine);
+                connection.addHandshakeListener(tlsHandshakeStats.newHandshakeListener());
+                return connection;
+            }
+        };
 
         HTTP2ServerConnectionFactory http2 = new HTTP2ServerConnectionFactory(httpsConfiguration);
         http2.setInitialSessionRecvWindow(toIntExact(config.getHttp2InitialSessionReceiveWindowSize().toBytes()));
@@ -429,6 +503,7 @@ public class HttpServer
     private static ServletContextHandler createServletContext(
             Servlet servlet,
             Set<HttpResourceBinding> resources,
+            Optional<RequestDeadlineFilter> requestDeadlineFilter,
             Set<Filter> filters,
             Set<String> connectorNames,
             boolean showStackTrace,
@@ -444,6 +519,8 @@ public class HttpServer
             // allow encoded slashes to occur in URI paths
             context.getServletHandler().setDecodeAmbiguousURIs(true);
         }
+        // -- the deadline must be current before user provided filters run
+        requestDeadlineFilter.ifPresent(filter -> context.addFilter(new FilterHolder(filter), "/*", null));
         // -- user provided filters
         for (Filter filter : filters) {
             context.addFilter(new FilterHolder(filter), "/*", null);
@@ -521,6 +598,34 @@ public class HttpServer
         return httpsConnectionStats;
     }
 
+    @Managed
+    @Nested
+    public ConnectionStats getUnixDomainConnectionStats()
+    {
+        return unixDomainConnectionStats;
+    }
+
+    @Managed
+    @Nested
+    public TlsHandshakeStats getTlsHandshakeStats()
+    {
+        return tlsHandshakeStats;
+    }
+
+    @Managed
+    @Nested
+    public AdmissionControlHandler getAdmissionControl()
+    {
+        return admissionControlHandler;
+    }
+
+    @Managed
+    @Nested
+    public RequestDeadlineFilter getRequestDeadline()
+    {
+        return requestDeadlineFilter;
+    }
+
     @Managed
     @Nested
     public MonitoredQueuedThreadPoolMBean getServerThreadPool()
@@ -528,6 +633,15 @@ public class HttpServer
         return monitoredQueuedThreadPoolMBean;
     }
 
+    @Managed
+    public long getRequestLogDroppedRecords()
+    {
+        if (server.getRequestLog() instanceof RingBufferRequestLog requestLog) {
+            return requestLog.getDroppedRecords();
+        }
+        return 0;
+    }
+
     @Managed
     public String getLeakedBuffers()
     {
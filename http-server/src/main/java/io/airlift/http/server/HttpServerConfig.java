@@ -15,6 +15,8 @@
  */
 package io.airlift.http.server;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.ConfigHidden;
@@ -23,10 +25,12 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MaxDataSize;
 import io.airlift.units.MinDataSize;
+import io.airlift.units.MinDuration;
 import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.List;
 import java.util.Optional;
 
 import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.ACCEPT;
@@ -34,6 +38,8 @@ import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.REJEC
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -62,8 +68,11 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 })
 public class HttpServerConfig
 {
+    private static final Splitter PATH_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
     private boolean httpEnabled = true;
     private boolean httpsEnabled;
+    private Optional<String> unixDomainSocketPath = Optional.empty();
 
     private String logPath = "var/log/http-request.log";
     private boolean logEnabled = true;
@@ -72,6 +81,8 @@ public class HttpServerConfig
     private DataSize logMaxFileSize = DataSize.of(100, MEGABYTE);
     private boolean logCompressionEnabled = true;
     private boolean logImmediateFlush;
+    private boolean logRingBufferEnabled;
+    private RequestLogFormat logFormat = RequestLogFormat.TEXT;
 
     private ProcessForwardedMode processForwarded = REJECT;
 
@@ -98,6 +109,14 @@ public class HttpServerConfig
     private boolean notifyRemoteAsyncErrors;
     private boolean trackMemoryAllocations;
 
+    private boolean admissionControlEnabled;
+    private Duration admissionControlTargetDelay = new Duration(5, MILLISECONDS);
+    private Duration admissionControlInterval = new Duration(100, MILLISECONDS);
+    private Duration admissionControlRetryAfter = new Duration(1, SECONDS);
+    private List<String> admissionControlCriticalPaths = ImmutableList.of();
+    private List<String> admissionControlLowPriorityPaths = ImmutableList.of();
+    private boolean deadlinePropagationEnabled = true;
+
     public boolean isHttpEnabled()
     {
         return httpEnabled;
@@ -122,6 +141,19 @@ public class HttpServerConfig
         return this;
     }
 
+    public Optional<String> getUnixDomainSocketPath()
+    {
+        return unixDomainSocketPath;
+    }
+
+    @Config("http-server.unix-domain-socket.path")
+    @ConfigDescription("Path of a Unix domain socket to accept plain text HTTP/1.1 and HTTP/2 connections on, in addition to the HTTP and HTTPS ports")
+    public HttpServerConfig setUnixDomainSocketPath(String unixDomainSocketPath)
+    {
+        this.unixDomainSocketPath = Optional.ofNullable(unixDomainSocketPath);
+        return this;
+    }
+
     @AssertTrue(message = "either HTTP or HTTPS must be enabled")
     public boolean isProtocolEnabled()
     {
@@ -272,6 +304,39 @@ public class HttpServerConfig
         return this;
     }
 
+    public boolean isLogRingBufferEnabled()
+    {
+        return logRingBufferEnabled;
+    }
+
+    @Config("http-server.log.ring-buffer.enabled")
+    @ConfigDescription("Write the request log from a preallocated ring buffer instead of an asynchronous logback appender")
+    public HttpServerConfig setLogRingBufferEnabled(boolean logRingBufferEnabled)
+    {
+        this.logRingBufferEnabled = logRingBufferEnabled;
+        return this;
+    }
+
+    @NotNull
+    public RequestLogFormat getLogFormat()
+    {
+        return logFormat;
+    }
+
+    @Config("http-server.log.format")
+    @ConfigDescription("Format of the request log lines: tab separated text or JSON lines")
+    public HttpServerConfig setLogFormat(RequestLogFormat logFormat)
+    {
+        this.logFormat = logFormat;
+        return this;
+    }
+
+    @AssertTrue(message = "http-server.log.format=JSON requires http-server.log.ring-buffer.enabled")
+    public boolean isLogFormatSupported()
+    {
+        return logFormat != RequestLogFormat.JSON || logRingBufferEnabled;
+    }
+
     public Duration getNetworkMaxIdleTime()
     {
         return networkMaxIdleTime;
@@ -492,6 +557,101 @@ public class HttpServerConfig
         return this;
     }
 
+    public boolean isAdmissionControlEnabled()
+    {
+        return admissionControlEnabled;
+    }
+
+    @Config("http-server.admission-control.enabled")
+    @ConfigDescription("Reject requests with 503 when the time requests wait for a thread stays above the target delay")
+    public HttpServerConfig setAdmissionControlEnabled(boolean admissionControlEnabled)
+    {
+        this.admissionControlEnabled = admissionControlEnabled;
+        return this;
+    }
+
+    @NotNull
+    public Duration getAdmissionControlTargetDelay()
+    {
+        return admissionControlTargetDelay;
+    }
+
+    @Config("http-server.admission-control.target-delay")
+    @ConfigDescription("Acceptable time for requests to wait for a thread")
+    public HttpServerConfig setAdmissionControlTargetDelay(Duration admissionControlTargetDelay)
+    {
+        this.admissionControlTargetDelay = admissionControlTargetDelay;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getAdmissionControlInterval()
+    {
+        return admissionControlInterval;
+    }
+
+    @Config("http-server.admission-control.interval")
+    @ConfigDescription("Period over which the minimum wait time must exceed the target delay before requests are rejected")
+    public HttpServerConfig setAdmissionControlInterval(Duration admissionControlInterval)
+    {
+        this.admissionControlInterval = admissionControlInterval;
+        return this;
+    }
+
+    @NotNull
+    public Duration getAdmissionControlRetryAfter()
+    {
+        return admissionControlRetryAfter;
+    }
+
+    @Config("http-server.admission-control.retry-after")
+    @ConfigDescription("Retry-After value sent with rejected requests")
+    public HttpServerConfig setAdmissionControlRetryAfter(Duration admissionControlRetryAfter)
+    {
+        this.admissionControlRetryAfter = admissionControlRetryAfter;
+        return this;
+    }
+
+    public List<String> getAdmissionControlCriticalPaths()
+    {
+        return admissionControlCriticalPaths;
+    }
+
+    @Config("http-server.admission-control.critical-paths")
+    @ConfigDescription("Comma separated path prefixes of requests that are never rejected, such as health checks")
+    public HttpServerConfig setAdmissionControlCriticalPaths(String admissionControlCriticalPaths)
+    {
+        this.admissionControlCriticalPaths = PATH_SPLITTER.splitToList(requireNonNull(admissionControlCriticalPaths, "admissionControlCriticalPaths is null"));
+        return this;
+    }
+
+    public List<String> getAdmissionControlLowPriorityPaths()
+    {
+        return admissionControlLowPriorityPaths;
+    }
+
+    @Config("http-server.admission-control.low-priority-paths")
+    @ConfigDescription("Comma separated path prefixes of requests that are rejected first while the server is overloaded")
+    public HttpServerConfig setAdmissionControlLowPriorityPaths(String admissionControlLowPriorityPaths)
+    {
+        this.admissionControlLowPriorityPaths = PATH_SPLITTER.splitToList(requireNonNull(admissionControlLowPriorityPaths, "admissionControlLowPriorityPaths is null"));
+        return this;
+    }
+
+    public boolean isDeadlinePropagationEnabled()
+    {
+        return deadlinePropagationEnabled;
+    }
+
+    @Config("http-server.deadline-propagation.enabled")
+    @ConfigDescription("Make the deadline sent by the client in the request timeout header current while handling the request")
+    public HttpServerConfig setDeadlinePropagationEnabled(boolean deadlinePropagationEnabled)
+    {
+        this.deadlinePropagationEnabled = deadlinePropagationEnabled;
+        return this;
+    }
+
     public enum ProcessForwardedMode
     {
         ACCEPT,
@@ -507,4 +667,10 @@ public class HttpServerConfig
             };
         }
     }
+
+    public enum RequestLogFormat
+    {
+        TEXT,
+        JSON
+    }
 }
@@ -90,15 +90,6 @@ public class JettyRequestLog
     @Override
     public void log(Request request, Response response)
     {
-        String user = null;
-        Request.AuthenticationState authenticationState = Request.getAuthenticationState(request);
-        if (authenticationState != null) {
-            Principal principal = authenticationState.getUserPrincipal();
-            if (principal != null) {
-                user = principal.getName();
-            }
-        }
-
         String requestUri = null;
         if (request.getHttpURI() != null) {
             requestUri = request.getHttpURI().getPath();
@@ -114,7 +105,7 @@ public class JettyRequestLog
                 Request.getRemoteAddr(request), // Client address
                 request.getMethod(), // HTTP method
                 requestUri, // URL path + queryString
-                user, // Authenticated user
+                getAuthenticatedUser(request), // Authenticated user
                 request.getHeaders().get("User-Agent"), // User agent
                 Integer.toString(response.getStatus()), // Response code
                 Long.toString(Request.getContentBytesRead(request)), // Request size
@@ -173,6 +164,18 @@ public class JettyRequestLog
         }
     }
 
+    static String getAuthenticatedUser(Request request)
+    {
+        Request.AuthenticationState authenticationState = Request.getAuthenticationState(request);
+        if (authenticationState != null) {
+            Principal principal = authenticationState.getUserPrincipal();
+            if (principal != null) {
+                return principal.getName();
+            }
+        }
+        return null;
+    }
+
     private static String formatLatency(long nanoTime)
     {
         return Long.toString(NANOSECONDS.toMillis(nanoTime));
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.thread.MonitoredQueuedThreadPool;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread pool that records how long the task running on each thread waited in the queue. For HTTP/1.1
+ * the request is read and handled by the task of the connection, so this is the time the request
+ * waited for a thread, which the request timestamps do not include.
+ */
+class QueueDelayTrackingThreadPool
+        extends MonitoredQueuedThreadPool
+{
+    static final long NO_TASK = -1;
+
+    private static final ThreadLocal<long[]> CURRENT_QUEUE_DELAY = ThreadLocal.withInitial(() -> new long[] {NO_TASK});
+
+    public QueueDelayTrackingThreadPool(int maxThreads)
+    {
+        super(maxThreads);
+    }
+
+    @Override
+    public void execute(Runnable job)
+    {
+        super.execute(new QueueDelayTrackingRunnable(job, NanoTime.now()));
+    }
+
+    /**
+     * Returns the time the task running on the current thread waited in the queue of a
+     * {@link QueueDelayTrackingThreadPool}, or {@link #NO_TASK} if the thread is not running such a task.
+     */
+    static long getCurrentQueueDelayNanos()
+    {
+        return CURRENT_QUEUE_DELAY.get()[0];
+    }
+
+    private static class QueueDelayTrackingRunnable
+            implements Runnable
+    {
+        private final Runnable job;
+        private final long queuedNanos;
+
+        public QueueDelayTrackingRunnable(Runnable job, long queuedNanos)
+        {
+            this.job = requireNonNull(job, "job is null");
+            this.queuedNanos = queuedNanos;
+        }
+
+        @Override
+        public void run()
+        {
+            long[] queueDelay = CURRENT_QUEUE_DELAY.get();
+            // a task can run another task inline
+            long previous = queueDelay[0];
+            queueDelay[0] = NanoTime.since(queuedNanos);
+            try {
+                job.run();
+            }
+            finally {
+                queueDelay[0] = previous;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return job.toString();
+        }
+    }
+}
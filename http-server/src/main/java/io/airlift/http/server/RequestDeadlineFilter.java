@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import io.airlift.concurrent.RequestDeadline;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.ee11.servlet.ServletContextRequest;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_GATEWAY_TIMEOUT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Makes the deadline sent by the client in the {@value #REQUEST_TIMEOUT_HEADER} header
+ * current while the request is handled, so handlers can stop work the client no longer waits for and
+ * HTTP clients limit the timeout of downstream requests to the remaining time. The timeout starts when
+ * the server began receiving the request, and requests whose deadline passed before they are handled
+ * are rejected with 504.
+ */
+public class RequestDeadlineFilter
+        extends HttpFilter
+{
+    /**
+     * Carries the remaining time in milliseconds rather than a point in time, so the clocks of the
+     * client and the server do not need to agree.
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Airlift-Request-Timeout";
+
+    private final CounterStat requestsWithDeadline = new CounterStat();
+    private final CounterStat expiredOnArrival = new CounterStat();
+    private final CounterStat completedAfterDeadline = new CounterStat();
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException
+    {
+        Optional<RequestDeadline> header = parseDeadline(request.getHeader(REQUEST_TIMEOUT_HEADER), getReceivedNanos(request));
+        if (header.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestDeadline deadline = header.get();
+        requestsWithDeadline.update(1);
+        if (deadline.isExpired()) {
+            expiredOnArrival.update(1);
+            response.sendError(SC_GATEWAY_TIMEOUT, "Request deadline expired before the request was handled");
+            return;
+        }
+
+        try (Scope ignored = Context.current().with(deadline).makeCurrent()) {
+            chain.doFilter(request, response);
+        }
+        finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new DeadlineAsyncListener(deadline));
+            }
+            else {
+                recordCompletion(deadline);
+            }
+        }
+    }
+
+    /**
+     * Returns empty if the header value is not a non-negative number of milliseconds.
+     */
+    static Optional<RequestDeadline> parseDeadline(String value, long receivedNanos)
+    {
+        if (value == null) {
+            return Optional.empty();
+        }
+        try {
+            long timeoutMillis = Long.parseLong(value.trim());
+            if (timeoutMillis < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(RequestDeadline.after(new Duration(timeoutMillis, MILLISECONDS), receivedNanos));
+        }
+        catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static long getReceivedNanos(HttpServletRequest request)
+    {
+        // the time the request waited for a thread and for its headers counts against the timeout
+        ServletContextRequest servletContextRequest = ServletContextRequest.getServletContextRequest(request);
+        if (servletContextRequest == null) {
+            return System.nanoTime();
+        }
+        return servletContextRequest.getBeginNanoTime();
+    }
+
+    private void recordCompletion(RequestDeadline deadline)
+    {
+        if (deadline.isExpired()) {
+            completedAfterDeadline.update(1);
+        }
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRequestsWithDeadline()
+    {
+        return requestsWithDeadline;
+    }
+
+    @Managed(description = "requests rejected because the deadline expired before they were handled")
+    @Nested
+    public CounterStat getExpiredOnArrival()
+    {
+        return expiredOnArrival;
+    }
+
+    @Managed(description = "requests that completed after the client stopped waiting for the response")
+    @Nested
+    public CounterStat getCompletedAfterDeadline()
+    {
+        return completedAfterDeadline;
+    }
+
+    private class DeadlineAsyncListener
+            implements AsyncListener
+    {
+        private final RequestDeadline deadline;
+
+        public DeadlineAsyncListener(RequestDeadline deadline)
+        {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+            recordCompletion(deadline);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        @Override
+        public void onError(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
@@ -0,0 +1,636 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import io.airlift.http.server.HttpServerConfig.RequestLogFormat;
+import io.airlift.log.Logger;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.RequestLog;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.math.LongMath.saturatedMultiply;
+import static io.airlift.http.server.JettyRequestLog.getAuthenticatedUser;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Request log that encodes each request directly into a fixed-size slot of a preallocated ring buffer,
+ * without building intermediate strings. A background thread copies the records into a batch buffer,
+ * appends them to the log file with a {@link FileChannel}, and rolls the file by size and day using the
+ * same file names as {@link JettyRequestLog}. With immediate flush, the records are written as soon as
+ * the ring buffer is drained, and otherwise when the batch buffer is full or at least once per second.
+ * When the ring buffer is full, records are dropped rather than blocking the request, and the number
+ * of dropped records is logged periodically.
+ * <p>
+ * The text format is identical to the format of {@link JettyRequestLog}, while the JSON format writes
+ * the same fields as one JSON object per line.
+ */
+public class RingBufferRequestLog
+        extends ContainerLifeCycle
+        implements RequestLog
+{
+    private static final Logger log = Logger.get(RingBufferRequestLog.class);
+
+    // field sizes are bounded, so a record always fits into a slot
+    private static final int SLOT_SIZE = 4096;
+    private static final int MAX_URI_SIZE = 2048;
+    private static final int MAX_FIELD_SIZE = 256;
+    private static final int BATCH_SIZE = 1024 * 1024;
+    private static final long REPORT_INTERVAL_NANOS = SECONDS.toNanos(10);
+    private static final long FLUSH_INTERVAL_NANOS = SECONDS.toNanos(1);
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final String LOG_FILE_EXTENSION = ".log";
+    private static final String COMPRESSED_LOG_FILE_EXTENSION = ".log.gz";
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(US_ASCII);
+    private static final byte[] NULL = "null".getBytes(US_ASCII);
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(US_ASCII);
+
+    private static final byte[][] TEXT_PREFIXES = prefixes(RequestLogFormat.TEXT);
+    private static final byte[][] JSON_PREFIXES = prefixes(RequestLogFormat.JSON);
+
+    private final Path file;
+    private final Pattern rolledFilePattern;
+    private final long totalSizeCap;
+    private final long maxFileSizeInBytes;
+    private final boolean compressionEnabled;
+    private final boolean immediateFlush;
+    private final boolean json;
+    private final byte[][] prefixes;
+
+    private final ByteBuffer ring;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(Long.MIN_VALUE, new byte[0], new byte[0]);
+    private volatile boolean stopped;
+    private volatile boolean writerParked;
+    private Thread writerThread;
+
+    // accessed only by the writer thread
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+    private FileChannel channel;
+    private long fileSize;
+    private LocalDate fileDate;
+    private long lastWriteNanos;
+    private long reportedDropped;
+    private long lastWriteFailureReport;
+    private long writeFailures;
+
+    public RingBufferRequestLog(String filename, int maxHistory, int queueSize, long maxFileSizeInBytes, boolean compressionEnabled, boolean immediateFlush, RequestLogFormat format)
+    {
+        checkArgument(queueSize > 0, "queueSize must be positive");
+        this.file = Path.of(requireNonNull(filename, "filename is null")).toAbsolutePath();
+        this.rolledFilePattern = Pattern.compile(Pattern.quote(file.getFileName() + "-") + "(\\d{4}-\\d{2}-\\d{2})\\.(\\d+)\\.log(\\.gz)?");
+        // same limit on the total size of the rolled files as JettyRequestLog
+        this.totalSizeCap = saturatedMultiply(maxFileSizeInBytes, maxHistory);
+        this.maxFileSizeInBytes = maxFileSizeInBytes;
+        this.compressionEnabled = compressionEnabled;
+        this.immediateFlush = immediateFlush;
+        this.json = requireNonNull(format, "format is null") == RequestLogFormat.JSON;
+        this.prefixes = json ? JSON_PREFIXES : TEXT_PREFIXES;
+
+        int slots = Math.max(Integer.highestOneBit(queueSize - 1) << 1, 1);
+        this.ring = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        this.mask = slots - 1;
+        this.published = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    @Override
+    public void log(Request request, Response response)
+    {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (stopped || sequence - consumed.get() > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+        while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = toIntExact(sequence & mask);
+        int offset = slot * SLOT_SIZE;
+        int length = 0;
+        try {
+            length = encode(offset + Integer.BYTES, request, response) - offset - Integer.BYTES;
+        }
+        finally {
+            // publish an empty record on failure, so the writer does not wait for the slot forever
+            ring.putInt(offset, length);
+            // the volatile write orders the publication before the check of the writer state
+            published.set(slot, sequence);
+            if (writerParked) {
+                LockSupport.unpark(writerThread);
+            }
+        }
+    }
+
+    private int encode(int position, Request request, Response response)
+    {
+        position = putPrefix(position, 0);
+        position = putTimestamp(position, Request.getTimeStamp(request));
+        position = putPrefix(position, 1);
+        position = putString(position, MAX_FIELD_SIZE, Request.getRemoteAddr(request));
+        position = putPrefix(position, 2);
+        position = putString(position, MAX_FIELD_SIZE, request.getMethod());
+        position = putPrefix(position, 3);
+        position = putRequestUri(position, request.getHttpURI());
+        position = putPrefix(position, 4);
+        position = putString(position, MAX_FIELD_SIZE, getAuthenticatedUser(request));
+        position = putPrefix(position, 5);
+        position = putString(position, MAX_FIELD_SIZE, request.getHeaders().get("User-Agent"));
+        position = putPrefix(position, 6);
+        position = putLong(position, response.getStatus());
+        position = putPrefix(position, 7);
+        position = putLong(position, Request.getContentBytesRead(request));
+        position = putPrefix(position, 8);
+        position = putLong(position, Response.getContentBytesWritten(response));
+        position = putPrefix(position, 9);
+        position = putLong(position, NANOSECONDS.toMillis(NanoTime.since(request.getBeginNanoTime())));
+        position = putPrefix(position, 10);
+        position = putString(position, MAX_FIELD_SIZE, request.getConnectionMetaData().getProtocol());
+        position = putPrefix(position, 11);
+        position = putLong(position, NANOSECONDS.toMillis(request.getHeadersNanoTime() - request.getBeginNanoTime()));
+        position = putPrefix(position, 12);
+        position = putLong(position, NANOSECONDS.toMillis(NanoTime.since(request.getHeadersNanoTime())));
+        if (json) {
+            position = putByte(position, '}');
+        }
+        return putBytes(position, LINE_SEPARATOR);
+    }
+
+    @Override
+    protected void doStart()
+    {
+        writerThread = Thread.ofPlatform()
+                .name("http-request-log-writer")
+                .daemon()
+                .start(this::writeRecords);
+    }
+
+    @Override
+    protected void doStop()
+    {
+        stopped = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueSize()
+    {
+        return toIntExact(claimed.get() - consumed.get());
+    }
+
+    public long getDroppedRecords()
+    {
+        return dropped.get();
+    }
+
+    private void writeRecords()
+    {
+        long lastReport = System.nanoTime();
+        lastWriteNanos = lastReport;
+        lastWriteFailureReport = lastReport - REPORT_INTERVAL_NANOS;
+        while (true) {
+            long sequence = consumed.get();
+            int slot = toIntExact(sequence & mask);
+            if (published.getAcquire(slot) == sequence) {
+                int offset = slot * SLOT_SIZE;
+                int length = ring.getInt(offset);
+                if (batch.remaining() < length) {
+                    writeBatch();
+                }
+                batch.put(batch.position(), ring, offset + Integer.BYTES, length);
+                batch.position(batch.position() + length);
+                consumed.set(sequence + 1);
+                continue;
+            }
+
+            // the ring is drained, so write the records collected so far
+            long now = System.nanoTime();
+            if (batch.position() > 0 && (immediateFlush || now - lastWriteNanos >= FLUSH_INTERVAL_NANOS)) {
+                writeBatch();
+            }
+
+            // stop once all claimed records have been collected
+            if (stopped && sequence == claimed.get()) {
+                break;
+            }
+
+            if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+                reportDropped();
+                lastReport = now;
+            }
+
+            // wait until a record is published, the pending records are due, or the dropped records are reported
+            long waitNanos = REPORT_INTERVAL_NANOS - (now - lastReport);
+            if (batch.position() > 0) {
+                waitNanos = min(waitNanos, FLUSH_INTERVAL_NANOS - (now - lastWriteNanos));
+            }
+            writerParked = true;
+            if (published.get(slot) != sequence && !stopped) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+            writerParked = false;
+        }
+
+        if (batch.position() > 0) {
+            writeBatch();
+        }
+        reportDropped();
+        closeFile();
+    }
+
+    private void writeBatch()
+    {
+        batch.flip();
+        try {
+            if (channel != null && (fileSize >= maxFileSizeInBytes || !fileDate.equals(LocalDate.now(ZONE)))) {
+                closeFile();
+                rollFile();
+            }
+            if (channel == null) {
+                openFile();
+            }
+            while (batch.hasRemaining()) {
+                fileSize += channel.write(batch);
+            }
+        }
+        catch (IOException e) {
+            // a broken log directory fails every batch, so report the failures periodically
+            writeFailures++;
+            long now = System.nanoTime();
+            if (now - lastWriteFailureReport >= REPORT_INTERVAL_NANOS) {
+                log.error(e, "Failed to write request log (%s failed writes since the last report)", writeFailures);
+                lastWriteFailureReport = now;
+                writeFailures = 0;
+            }
+            closeFile();
+        }
+        finally {
+            batch.clear();
+            lastWriteNanos = System.nanoTime();
+        }
+    }
+
+    private void openFile()
+            throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+        fileSize = channel.size();
+        // an existing file belongs to the day it was last written
+        fileDate = fileSize == 0 ? LocalDate.now(ZONE) : LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZONE);
+    }
+
+    private void closeFile()
+    {
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                log.error(e, "Failed to close request log");
+            }
+            channel = null;
+        }
+    }
+
+    private void rollFile()
+            throws IOException
+    {
+        int index = listRolledFiles().stream()
+                .map(path -> rolledFilePattern.matcher(path.getFileName().toString()))
+                .filter(matcher -> matcher.matches() && matcher.group(1).equals(fileDate.toString()))
+                .mapToInt(matcher -> Integer.parseInt(matcher.group(2)))
+                .max()
+                .orElse(-1) + 1;
+
+        Path rolled = file.resolveSibling("%s-%s.%d%s".formatted(file.getFileName(), fileDate, index, LOG_FILE_EXTENSION));
+        Files.move(file, rolled);
+        if (compressionEnabled) {
+            Path compressed = file.resolveSibling("%s-%s.%d%s".formatted(file.getFileName(), fileDate, index, COMPRESSED_LOG_FILE_EXTENSION));
+            try (InputStream input = Files.newInputStream(rolled);
+                    OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed), BATCH_SIZE)) {
+                input.transferTo(output);
+            }
+            Files.delete(rolled);
+        }
+        removeOldFiles();
+    }
+
+    private void removeOldFiles()
+            throws IOException
+    {
+        List<Path> rolledFiles = listRolledFiles().stream()
+                .sorted(comparingLong(RingBufferRequestLog::lastModified))
+                .collect(toImmutableList());
+
+        long totalSize = 0;
+        for (Path path : rolledFiles) {
+            totalSize += Files.size(path);
+        }
+        for (Path path : rolledFiles) {
+            if (totalSize <= totalSizeCap) {
+                break;
+            }
+            totalSize -= Files.size(path);
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private List<Path> listRolledFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            return files
+                    .filter(path -> rolledFilePattern.matcher(path.getFileName().toString()).matches())
+                    .collect(toImmutableList());
+        }
+    }
+
+    private static long lastModified(Path path)
+    {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        }
+        catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void reportDropped()
+    {
+        long total = dropped.get();
+        if (total > reportedDropped) {
+            log.warn("Dropped %s request log records because the log queue was full", total - reportedDropped);
+            reportedDropped = total;
+        }
+    }
+
+    private int putPrefix(int position, int field)
+    {
+        return putBytes(position, prefixes[field]);
+    }
+
+    private int putTimestamp(int position, long epochMillis)
+    {
+        // the date and time are formatted once per second, and only the milliseconds are encoded per request
+        long epochSecond = floorDiv(epochMillis, 1000);
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.epochSecond() != epochSecond) {
+            ZonedDateTime dateTime = Instant.ofEpochSecond(epochSecond).atZone(ZONE);
+            cached = new CachedTimestamp(
+                    epochSecond,
+                    ISO_LOCAL_DATE_TIME.format(dateTime.toLocalDateTime()).getBytes(US_ASCII),
+                    dateTime.getOffset().getId().getBytes(US_ASCII));
+            cachedTimestamp = cached;
+        }
+
+        if (json) {
+            position = putByte(position, '"');
+        }
+        position = putBytes(position, cached.dateTime());
+        // same as ISO_OFFSET_DATE_TIME, which omits trailing zeros of the fraction
+        int millis = floorMod(epochMillis, 1000);
+        if (millis != 0) {
+            position = putByte(position, '.');
+            position = putByte(position, '0' + millis / 100);
+            if (millis % 100 != 0) {
+                position = putByte(position, '0' + millis / 10 % 10);
+                if (millis % 10 != 0) {
+                    position = putByte(position, '0' + millis % 10);
+                }
+            }
+        }
+        position = putBytes(position, cached.offset());
+        if (json) {
+            position = putByte(position, '"');
+        }
+        return position;
+    }
+
+    private int putRequestUri(int position, HttpURI uri)
+    {
+        if (uri == null) {
+            return putBytes(position, NULL);
+        }
+        String query = uri.getQuery();
+        if (json) {
+            position = putByte(position, '"');
+        }
+        int limit = position + MAX_URI_SIZE;
+        position = putChars(position, limit, String.valueOf(uri.getPath()));
+        if (query != null) {
+            position = putChars(position, limit, "?");
+            position = putChars(position, limit, query);
+        }
+        if (json) {
+            position = putByte(position, '"');
+        }
+        return position;
+    }
+
+    private int putString(int position, int maxSize, String value)
+    {
+        if (value == null) {
+            return putBytes(position, NULL);
+        }
+        if (json) {
+            position = putByte(position, '"');
+        }
+        position = putChars(position, position + maxSize, value);
+        if (json) {
+            position = putByte(position, '"');
+        }
+        return position;
+    }
+
+    private int putChars(int position, int limit, String value)
+    {
+        // encodes UTF-8 without allocating, and stops at the last whole character that fits
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            int size;
+            if (json && (c == '"' || c == '\\')) {
+                size = 2;
+            }
+            else if (json && c < 0x20) {
+                size = 6;
+            }
+            else if (c < 0x80) {
+                size = 1;
+            }
+            else if (c < 0x800) {
+                size = 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size = 4;
+            }
+            else {
+                size = 3;
+            }
+            if (position + size > limit) {
+                break;
+            }
+
+            if (size == 1) {
+                ring.put(position, (byte) c);
+            }
+            else if (json && c < 0x20) {
+                ring.put(position, (byte) '\\');
+                ring.put(position + 1, (byte) 'u');
+                ring.put(position + 2, (byte) '0');
+                ring.put(position + 3, (byte) '0');
+                ring.put(position + 4, HEX_DIGITS[c >> 4]);
+                ring.put(position + 5, HEX_DIGITS[c & 0xF]);
+            }
+            else if (c < 0x80) {
+                ring.put(position, (byte) '\\');
+                ring.put(position + 1, (byte) c);
+            }
+            else if (size == 2) {
+                ring.put(position, (byte) (0xC0 | (c >> 6)));
+                ring.put(position + 1, (byte) (0x80 | (c & 0x3F)));
+            }
+            else if (size == 4) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ring.put(position, (byte) (0xF0 | (codePoint >> 18)));
+                ring.put(position + 1, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                ring.put(position + 2, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                ring.put(position + 3, (byte) (0x80 | (codePoint & 0x3F)));
+            }
+            else {
+                // unpaired surrogates are replaced like String.getBytes does
+                if (Character.isSurrogate(c)) {
+                    ring.put(position, (byte) '?');
+                    position++;
+                    continue;
+                }
+                ring.put(position, (byte) (0xE0 | (c >> 12)));
+                ring.put(position + 1, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                ring.put(position + 2, (byte) (0x80 | (c & 0x3F)));
+            }
+            position += size;
+        }
+        return position;
+    }
+
+    private int putLong(int position, long value)
+    {
+        int digits = 1;
+        for (long remaining = value / 10; remaining != 0; remaining /= 10) {
+            digits++;
+        }
+        if (value < 0) {
+            position = putByte(position, '-');
+        }
+        // digits are computed from the negative side, so Long.MIN_VALUE does not overflow
+        long remaining = value < 0 ? value : -value;
+        for (int i = position + digits - 1; i >= position; i--) {
+            ring.put(i, (byte) ('0' - remaining % 10));
+            remaining /= 10;
+        }
+        return position + digits;
+    }
+
+    private int putByte(int position, int value)
+    {
+        ring.put(position, (byte) value);
+        return position + 1;
+    }
+
+    private int putBytes(int position, byte[] bytes)
+    {
+        ring.put(position, bytes);
+        return position + bytes.length;
+    }
+
+    private static byte[][] prefixes(RequestLogFormat format)
+    {
+        List<String> names = List.of(
+                "timestamp",
+                "clientAddress",
+                "method",
+                "requestUri",
+                "user",
+                "userAgent",
+                "responseCode",
+                "requestSize",
+                "responseSize",
+                "timeToLastByte",
+                "protocolVersion",
+                "timeToDispatch",
+                "timeToCompletion");
+
+        byte[][] prefixes = new byte[names.size()][];
+        for (int field = 0; field < names.size(); field++) {
+            String prefix = switch (format) {
+                case TEXT -> field == 0 ? "" : "\t";
+                case JSON -> (field == 0 ? "{" : ",") + "\"" + names.get(field) + "\":";
+            };
+            prefixes[field] = prefix.getBytes(US_ASCII);
+        }
+        return prefixes;
+    }
+
+    private record CachedTimestamp(long epochSecond, byte[] dateTime, byte[] offset) {}
+}
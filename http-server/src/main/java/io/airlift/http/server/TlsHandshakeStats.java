@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.net.ssl.SSLSession;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Counts full and resumed TLS handshakes and records how long they take. A resumed handshake
+ * skips the certificate exchange and key agreement, so a low share of resumed handshakes
+ * during a connection storm means clients are paying for full handshakes.
+ */
+public class TlsHandshakeStats
+{
+    private final CounterStat fullHandshakes = new CounterStat();
+    private final CounterStat resumedHandshakes = new CounterStat();
+    private final CounterStat failedHandshakes = new CounterStat();
+    private final TimeStat handshakeTime = new TimeStat(MILLISECONDS);
+
+    /**
+     * Returns a listener for a single connection; the handshake is timed from the creation of the listener.
+     */
+    public SslHandshakeListener newHandshakeListener()
+    {
+        long startNanos = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        return new SslHandshakeListener()
+        {
+            @Override
+            public void handshakeSucceeded(Event event)
+            {
+                recordHandshake(event.getSSLEngine().getSession(), startMillis, System.nanoTime() - startNanos);
+            }
+
+            @Override
+            public void handshakeFailed(Event event, Throwable failure)
+            {
+                failedHandshakes.update(1);
+            }
+        };
+    }
+
+    @VisibleForTesting
+    void recordHandshake(SSLSession session, long connectionStartMillis, long handshakeNanos)
+    {
+        // a resumed session keeps the creation time of the session it resumes
+        if (session.getCreationTime() < connectionStartMillis) {
+            resumedHandshakes.update(1);
+        }
+        else {
+            fullHandshakes.update(1);
+        }
+        handshakeTime.addNanos(handshakeNanos);
+    }
+
+    @Managed(description = "handshakes that negotiated a new session")
+    @Nested
+    public CounterStat getFullHandshakes()
+    {
+        return fullHandshakes;
+    }
+
+    @Managed(description = "handshakes that resumed an existing session")
+    @Nested
+    public CounterStat getResumedHandshakes()
+    {
+        return resumedHandshakes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getFailedHandshakes()
+    {
+        return failedHandshakes;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getHandshakeTime()
+    {
+        return handshakeTime;
+    }
+}
@@ -87,33 +87,16 @@ public final class TracingServletFilter
         String method = request.getMethod().toUpperCase(ENGLISH);
         Baggage baggage = Baggage.fromContext(parent);
 
-        SpanBuilder spanBuilder = tracer.spanBuilder(method + " " + request.getRequestURI())
+        // Only the attributes that samplers commonly act on are set before the sampling decision.
+        // The remaining attributes and the full span name are added once the span is known to be
+        // recording, so requests that are not sampled do not pay for building them.
+        SpanBuilder spanBuilder = tracer.spanBuilder(method)
                 .setParent(parent)
                 .setSpanKind(SpanKind.SERVER)
                 .setAttribute(HttpAttributes.HTTP_REQUEST_METHOD, method)
                 .setAttribute(UrlAttributes.URL_SCHEME, request.getScheme())
                 .setAttribute(ServerAttributes.SERVER_ADDRESS, request.getServerName())
-                .setAttribute(ServerAttributes.SERVER_PORT, getPort(request))
-                .setAttribute(ClientAttributes.CLIENT_ADDRESS, request.getRemoteAddr())
-                .setAttribute(NetworkAttributes.NETWORK_PROTOCOL_NAME, "http");
-        baggage.forEach((key, entry) -> spanBuilder.setAttribute(BAGGAGE_ATTRIBUTE_PREFIX + key, entry.getValue()));
-
-        String sessionId = (String) request.getAttribute(SSL_SESSION_ID);
-        if (sessionId != null) {
-            spanBuilder.setAttribute(TlsIncubatingAttributes.TLS_ESTABLISHED, true);
-            spanBuilder.setAttribute(TlsIncubatingAttributes.TLS_CIPHER, (String) request.getAttribute(SSL_CIPHER_SUITE));
-        }
-
-        if (request.getProtocol().equalsIgnoreCase("HTTP/1.1")) {
-            spanBuilder.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_VERSION, "1.1");
-        }
-        else if (request.getProtocol().equalsIgnoreCase("HTTP/2.0")) {
-            spanBuilder.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_VERSION, "2.0");
-        }
-
-        if (request.getContentLengthLong() > 0) {
-            spanBuilder.setAttribute(HttpIncubatingAttributes.HTTP_REQUEST_BODY_SIZE, request.getContentLengthLong());
-        }
+                .setAttribute(ServerAttributes.SERVER_PORT, getPort(request));
 
         String target = getTarget(request);
         if (!isNullOrEmpty(target)) {
@@ -126,6 +109,10 @@ public final class TracingServletFilter
         }
 
         Span span = spanBuilder.startSpan();
+        if (span.isRecording()) {
+            addRecordingAttributes(span, request, method, baggage);
+        }
+
         // Add to request attributes for TracingFilter to be able to update Span attributes
         request.setAttribute(REQUEST_SPAN, span);
 
@@ -149,6 +136,31 @@ public final class TracingServletFilter
         }
     }
 
+    private static void addRecordingAttributes(Span span, HttpServletRequest request, String method, Baggage baggage)
+    {
+        span.updateName(method + " " + request.getRequestURI());
+        span.setAttribute(ClientAttributes.CLIENT_ADDRESS, request.getRemoteAddr());
+        span.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_NAME, "http");
+        baggage.forEach((key, entry) -> span.setAttribute(BAGGAGE_ATTRIBUTE_PREFIX + key, entry.getValue()));
+
+        String sessionId = (String) request.getAttribute(SSL_SESSION_ID);
+        if (sessionId != null) {
+            span.setAttribute(TlsIncubatingAttributes.TLS_ESTABLISHED, true);
+            span.setAttribute(TlsIncubatingAttributes.TLS_CIPHER, (String) request.getAttribute(SSL_CIPHER_SUITE));
+        }
+
+        if (request.getProtocol().equalsIgnoreCase("HTTP/1.1")) {
+            span.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_VERSION, "1.1");
+        }
+        else if (request.getProtocol().equalsIgnoreCase("HTTP/2.0")) {
+            span.setAttribute(NetworkAttributes.NETWORK_PROTOCOL_VERSION, "2.0");
+        }
+
+        if (request.getContentLengthLong() > 0) {
+            span.setAttribute(HttpIncubatingAttributes.HTTP_REQUEST_BODY_SIZE, request.getContentLengthLong());
+        }
+    }
+
     private static class ServletTextMapGetter
             implements TextMapGetter<HttpServletRequest>
     {
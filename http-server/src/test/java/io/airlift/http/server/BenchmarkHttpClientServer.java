@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import com.google.common.collect.ImmutableSet;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.StreamingResponse;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.http.server.HttpServer.ClientCertificate;
+import io.airlift.http.server.testing.TestingHttpServer;
+import io.airlift.node.NodeConfig;
+import io.airlift.node.NodeInfo;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.io.Resources.getResource;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static io.airlift.http.server.TestHttpServerInfo.closeChannels;
+import static io.airlift.testing.Closeables.closeAll;
+import static java.io.OutputStream.nullOutputStream;
+
+/**
+ * Measures requests sent with {@link JettyHttpClient} to a {@link TestingHttpServer} over loopback
+ * or over a Unix domain socket.
+ * Run the main method to include allocation rates from the GC profiler in the results.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(16)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class BenchmarkHttpClientServer
+{
+    private static final ResponseHandler<Long, RuntimeException> DRAINING_RESPONSE_HANDLER = new ResponseHandler<>()
+    {
+        @Override
+        public Long handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public Long handle(Request request, Response response)
+        {
+            try {
+                return drain(response.getInputStream());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    public enum Transport
+    {
+        HTTP_1(false, false, false),
+        HTTP_2(false, true, false),
+        HTTPS_1(true, false, false),
+        HTTPS_2(true, true, false),
+        UNIX_1(false, false, true),
+        UNIX_2(false, true, true);
+
+        private final boolean secure;
+        private final boolean http2;
+        private final boolean unixDomain;
+
+        Transport(boolean secure, boolean http2, boolean unixDomain)
+        {
+            this.secure = secure;
+            this.http2 = http2;
+            this.unixDomain = unixDomain;
+        }
+    }
+
+    @Param({"HTTP_1", "HTTP_2", "HTTPS_1", "HTTPS_2", "UNIX_1", "UNIX_2"})
+    private Transport transport;
+
+    @Param({"16", "1048576"})
+    private int responseSize;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private Path tempDirectory;
+    private HttpServerInfo httpServerInfo;
+    private TestingHttpServer server;
+    private JettyHttpClient client;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setup()
+            throws Exception
+    {
+        HttpServerConfig serverConfig = new HttpServerConfig()
+                .setLogEnabled(false)
+                .setHttpEnabled(!transport.secure)
+                .setHttpsEnabled(transport.secure);
+        tempDirectory = Files.createTempDirectory("benchmark");
+        Path socketPath = tempDirectory.resolve("http.sock");
+        if (transport.unixDomain) {
+            serverConfig.setUnixDomainSocketPath(socketPath.toString());
+        }
+        Optional<HttpConfig> httpConfig = transport.secure ? Optional.empty() : Optional.of(new HttpConfig().setHttpPort(0));
+        Optional<HttpsConfig> httpsConfig = transport.secure ?
+                Optional.of(new HttpsConfig()
+                        .setHttpsPort(0)
+                        .setKeystorePath(getResource("test.keystore.with.two.passwords").getPath())
+                        .setKeystorePassword("airlift")
+                        .setKeyManagerPassword("airliftkey")) :
+                Optional.empty();
+        NodeInfo nodeInfo = new NodeInfo(new NodeConfig()
+                .setEnvironment("test")
+                .setNodeInternalAddress("localhost"));
+        httpServerInfo = new HttpServerInfo(serverConfig, httpConfig, httpsConfig, nodeInfo);
+        Set<ServerFeature> features = ServerFeature.builder()
+                .withVirtualThreads(virtualThreads)
+                .build();
+        server = new TestingHttpServer(
+                "benchmark",
+                httpServerInfo,
+                nodeInfo,
+                serverConfig,
+                httpConfig,
+                httpsConfig,
+                new FixedResponseServlet(new byte[responseSize]),
+                ImmutableSet.of(),
+                ImmutableSet.of(),
+                features,
+                ClientCertificate.NONE);
+        server.start();
+
+        HttpClientConfig clientConfig = new HttpClientConfig()
+                .setHttp2Enabled(transport.http2)
+                .setUseVirtualThreads(virtualThreads)
+                .setMaxConnectionsPerServer(64);
+        if (transport.unixDomain) {
+            clientConfig.setUnixDomainSocketPath(socketPath.toString());
+        }
+        if (transport.secure) {
+            clientConfig.setTrustStorePath(getResource("test.truststore").getPath())
+                    .setTrustStorePassword("airlift");
+        }
+        client = new JettyHttpClient(clientConfig);
+
+        URI uri = transport.secure ? httpServerInfo.getHttpsUri() : httpServerInfo.getHttpUri();
+        request = prepareGet().setUri(uri).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        closeAll(client, server::stop, () -> closeChannels(httpServerInfo), () -> deleteRecursively(tempDirectory, ALLOW_INSECURE));
+    }
+
+    @Benchmark
+    public long execute()
+    {
+        return client.execute(request, DRAINING_RESPONSE_HANDLER);
+    }
+
+    @Benchmark
+    public long executeAsync()
+            throws ExecutionException, InterruptedException
+    {
+        return client.executeAsync(request, DRAINING_RESPONSE_HANDLER).get();
+    }
+
+    @Benchmark
+    public long executeStreaming()
+            throws IOException
+    {
+        try (StreamingResponse response = client.executeStreaming(request)) {
+            return drain(response.getInputStream());
+        }
+    }
+
+    private static long drain(InputStream inputStream)
+            throws IOException
+    {
+        return inputStream.transferTo(nullOutputStream());
+    }
+
+    private static class FixedResponseServlet
+            extends HttpServlet
+    {
+        private final byte[] body;
+
+        public FixedResponseServlet(byte[] body)
+        {
+            this.body = body;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response)
+                throws IOException
+        {
+            response.setContentType("application/octet-stream");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkHttpClientServer.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.airlift.http.server.AdmissionControlHandler.RequestPriority.CRITICAL;
+import static io.airlift.http.server.AdmissionControlHandler.RequestPriority.LOW;
+import static io.airlift.http.server.AdmissionControlHandler.RequestPriority.NORMAL;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestAdmissionControlHandler
+{
+    private static final long TARGET = MILLISECONDS.toNanos(5);
+    private static final long INTERVAL = MILLISECONDS.toNanos(100);
+
+    @Test
+    public void testShedding()
+    {
+        AdmissionControlHandler handler = createHandler();
+        long start = System.nanoTime();
+
+        // requests are admitted until a whole interval stays above the target
+        assertThat(handler.admit(NORMAL, 10 * TARGET, start)).isTrue();
+        assertThat(handler.admit(NORMAL, 2 * TARGET, start + INTERVAL / 2)).isTrue();
+        assertThat(handler.isOverloaded()).isFalse();
+
+        assertThat(handler.admit(NORMAL, 10 * TARGET, start + INTERVAL)).isFalse();
+        assertThat(handler.isOverloaded()).isTrue();
+        assertThat(handler.admit(NORMAL, TARGET / 2, start + INTERVAL)).isTrue();
+        assertThat(handler.admit(LOW, TARGET / 2, start + INTERVAL)).isFalse();
+        assertThat(handler.admit(CRITICAL, 10 * TARGET, start + INTERVAL)).isTrue();
+
+        assertThat(handler.getShedRequests().getTotalCount()).isEqualTo(1);
+        assertThat(handler.getShedLowPriorityRequests().getTotalCount()).isEqualTo(1);
+        assertThat(handler.getQueueDelay().getAllTime().getCount()).isEqualTo(6);
+
+        // the queue drained during the last interval
+        assertThat(handler.admit(NORMAL, 10 * TARGET, start + 2 * INTERVAL)).isTrue();
+        assertThat(handler.isOverloaded()).isFalse();
+    }
+
+    @Test
+    public void testIdleInterval()
+    {
+        AdmissionControlHandler handler = createHandler();
+        long start = System.nanoTime();
+
+        assertThat(handler.admit(NORMAL, 10 * TARGET, start)).isTrue();
+        assertThat(handler.admit(NORMAL, 10 * TARGET, start + INTERVAL)).isFalse();
+        assertThat(handler.isOverloaded()).isTrue();
+
+        // an interval without requests means the queue drained
+        assertThat(handler.admit(NORMAL, 10 * TARGET, start + 4 * INTERVAL)).isTrue();
+        assertThat(handler.isOverloaded()).isFalse();
+    }
+
+    @Test
+    public void testPriority()
+    {
+        AdmissionControlHandler handler = createHandler();
+
+        assertThat(handler.getPriority("/v1/status")).isEqualTo(CRITICAL);
+        assertThat(handler.getPriority("/v1/status/detail")).isEqualTo(CRITICAL);
+        assertThat(handler.getPriority("/v1/batch/1")).isEqualTo(LOW);
+        assertThat(handler.getPriority("/v1/query")).isEqualTo(NORMAL);
+        assertThat(handler.getPriority(null)).isEqualTo(NORMAL);
+    }
+
+    private static AdmissionControlHandler createHandler()
+    {
+        return new AdmissionControlHandler(
+                null,
+                new Duration(TARGET, NANOSECONDS),
+                new Duration(INTERVAL, NANOSECONDS),
+                new Duration(1, SECONDS),
+                List.of("/v1/status"),
+                List.of("/v1/batch"));
+    }
+}
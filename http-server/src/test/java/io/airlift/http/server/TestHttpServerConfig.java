@@ -27,9 +27,12 @@ import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDe
 import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
 import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.IGNORE;
 import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.REJECT;
+import static io.airlift.http.server.HttpServerConfig.RequestLogFormat.JSON;
+import static io.airlift.http.server.HttpServerConfig.RequestLogFormat.TEXT;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -41,6 +44,7 @@ public class TestHttpServerConfig
         assertRecordedDefaults(recordDefaults(HttpServerConfig.class)
                 .setHttpEnabled(true)
                 .setHttpsEnabled(false)
+                .setUnixDomainSocketPath(null)
                 .setProcessForwarded(REJECT)
                 .setLogPath("var/log/http-request.log")
                 .setLogEnabled(true)
@@ -49,6 +53,8 @@ public class TestHttpServerConfig
                 .setLogQueueSize(10_000)
                 .setLogCompressionEnabled(true)
                 .setLogImmediateFlush(false)
+                .setLogRingBufferEnabled(false)
+                .setLogFormat(TEXT)
                 .setMinThreads(2)
                 .setMaxThreads(200)
                 .setThreadMaxIdleTime(new Duration(1, MINUTES))
@@ -67,7 +73,14 @@ public class TestHttpServerConfig
                 .setMaxHeapMemory(null)
                 .setMaxDirectMemory(null)
                 .setNotifyRemoteAsyncErrors(false)
-                .setTrackMemoryAllocations(false));
+                .setTrackMemoryAllocations(false)
+                .setAdmissionControlEnabled(false)
+                .setAdmissionControlTargetDelay(new Duration(5, MILLISECONDS))
+                .setAdmissionControlInterval(new Duration(100, MILLISECONDS))
+                .setAdmissionControlRetryAfter(new Duration(1, SECONDS))
+                .setAdmissionControlCriticalPaths("")
+                .setAdmissionControlLowPriorityPaths("")
+                .setDeadlinePropagationEnabled(true));
     }
 
     @Test
@@ -76,6 +89,7 @@ public class TestHttpServerConfig
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("http-server.http.enabled", "false")
                 .put("http-server.https.enabled", "true")
+                .put("http-server.unix-domain-socket.path", "/var/run/http.sock")
                 .put("http-server.process-forwarded", "ignore")
                 .put("http-server.log.path", "/log")
                 .put("http-server.log.enabled", "false")
@@ -84,6 +98,8 @@ public class TestHttpServerConfig
                 .put("http-server.log.queue-size", "1")
                 .put("http-server.log.compression.enabled", "false")
                 .put("http-server.log.immediate-flush", "true")
+                .put("http-server.log.ring-buffer.enabled", "true")
+                .put("http-server.log.format", "JSON")
                 .put("http-server.threads.min", "100")
                 .put("http-server.threads.max", "500")
                 .put("http-server.threads.max-idle-time", "10m")
@@ -103,11 +119,19 @@ public class TestHttpServerConfig
                 .put("http-server.max-direct-memory", "129GB")
                 .put("http-server.notify-remote-async-errors", "true")
                 .put("http-server.track-memory-allocations", "true")
+                .put("http-server.admission-control.enabled", "true")
+                .put("http-server.admission-control.target-delay", "20ms")
+                .put("http-server.admission-control.interval", "1s")
+                .put("http-server.admission-control.retry-after", "5s")
+                .put("http-server.admission-control.critical-paths", "/v1/status, /v1/control")
+                .put("http-server.admission-control.low-priority-paths", "/v1/batch")
+                .put("http-server.deadline-propagation.enabled", "false")
                 .build();
 
         HttpServerConfig expected = new HttpServerConfig()
                 .setHttpEnabled(false)
                 .setHttpsEnabled(true)
+                .setUnixDomainSocketPath("/var/run/http.sock")
                 .setProcessForwarded(IGNORE)
                 .setLogPath("/log")
                 .setLogEnabled(false)
@@ -116,6 +140,8 @@ public class TestHttpServerConfig
                 .setLogQueueSize(1)
                 .setLogCompressionEnabled(false)
                 .setLogImmediateFlush(true)
+                .setLogRingBufferEnabled(true)
+                .setLogFormat(JSON)
                 .setMinThreads(100)
                 .setMaxThreads(500)
                 .setThreadMaxIdleTime(new Duration(10, MINUTES))
@@ -134,7 +160,14 @@ public class TestHttpServerConfig
                 .setMaxHeapMemory(DataSize.of(127, GIGABYTE))
                 .setMaxDirectMemory(DataSize.of(129, GIGABYTE))
                 .setNotifyRemoteAsyncErrors(true)
-                .setTrackMemoryAllocations(true);
+                .setTrackMemoryAllocations(true)
+                .setAdmissionControlEnabled(true)
+                .setAdmissionControlTargetDelay(new Duration(20, MILLISECONDS))
+                .setAdmissionControlInterval(new Duration(1, SECONDS))
+                .setAdmissionControlRetryAfter(new Duration(5, SECONDS))
+                .setAdmissionControlCriticalPaths("/v1/status,/v1/control")
+                .setAdmissionControlLowPriorityPaths("/v1/batch")
+                .setDeadlinePropagationEnabled(false);
 
         assertFullMapping(properties, expected);
     }
@@ -58,6 +58,7 @@ import java.lang.annotation.Target;
 import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -65,8 +66,17 @@ import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
+import static io.airlift.http.client.HeaderNames.ACCEPT_ENCODING;
+import static io.airlift.http.client.HeaderNames.ACCEPT_RANGES;
+import static io.airlift.http.client.HeaderNames.CONTENT_ENCODING;
+import static io.airlift.http.client.HeaderNames.CONTENT_RANGE;
 import static io.airlift.http.client.HeaderNames.CONTENT_TYPE;
+import static io.airlift.http.client.HeaderNames.ETAG;
+import static io.airlift.http.client.HeaderNames.IF_NONE_MATCH;
+import static io.airlift.http.client.HeaderNames.IF_RANGE;
 import static io.airlift.http.client.HeaderNames.LOCATION;
+import static io.airlift.http.client.HeaderNames.RANGE;
+import static io.airlift.http.client.HeaderNames.VARY;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
@@ -386,6 +396,7 @@ public class TestHttpServerModule
             assertResource(httpUri, client, "path/user-welcome.txt", "welcome user!");
             assertResource(httpUri, client, "path/user.txt", "user");
             assertResource(httpUri, client, "path/user2.txt", "user2");
+            assertConditionalAndRangeRequests(httpUri, client);
         }
         finally {
             server.stop();
@@ -403,6 +414,39 @@ public class TestHttpServerModule
         assertThat(response.getBody().trim()).isEqualTo(contents);
     }
 
+    private void assertConditionalAndRangeRequests(URI baseUri, HttpClient client)
+    {
+        URI uri = uriBuilderFrom(baseUri).appendPath("user.txt").build();
+        StringResponse response = client.execute(prepareGet().setUri(uri).build(), createStringResponseHandler());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK.code());
+        assertThat(response.getHeader(ACCEPT_RANGES)).hasValue("bytes");
+        assertThat(response.getHeader(VARY)).hasValueSatisfying(value -> assertThat(value).containsIgnoringCase("Accept-Encoding"));
+        String etag = response.getHeader(ETAG).orElseThrow();
+
+        response = client.execute(prepareGet().setUri(uri).setHeader(IF_NONE_MATCH, etag).build(), createStringResponseHandler());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED.code());
+        assertThat(response.getBody()).isEmpty();
+
+        response = client.execute(prepareGet().setUri(uri).setHeader(RANGE, "bytes=1-2").build(), createStringResponseHandler());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT.code());
+        assertThat(response.getHeader(CONTENT_RANGE)).hasValue("bytes 1-2/5");
+        assertThat(response.getBody()).isEqualTo("se");
+
+        response = client.execute(prepareGet().setUri(uri).setHeader(RANGE, "bytes=-1").setHeader(IF_RANGE, etag).build(), createStringResponseHandler());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT.code());
+        assertThat(response.getBody()).isEqualTo("\n");
+
+        response = client.execute(prepareGet().setUri(uri).setHeader(RANGE, "bytes=10-").build(), createStringResponseHandler());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE.code());
+        assertThat(response.getHeader(CONTENT_RANGE)).hasValue("bytes */5");
+
+        // the precompressed sibling is served when the client accepts it
+        StatusResponse compressed = client.execute(prepareGet().setUri(uri).setHeader(ACCEPT_ENCODING, "br;q=0, gzip").build(), createStatusResponseHandler());
+        assertThat(compressed.getStatusCode()).isEqualTo(HttpStatus.OK.code());
+        assertThat(compressed.getHeader(CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(compressed.getHeader(ETAG)).isPresent().isNotEqualTo(Optional.of(etag));
+    }
+
     private void assertRedirect(URI baseUri, HttpClient client, String path, String redirect)
     {
         HttpUriBuilder uriBuilder = uriBuilderFrom(baseUri);
@@ -18,6 +18,7 @@ package io.airlift.http.server;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.net.HostAndPort;
+import io.airlift.concurrent.RequestDeadline;
 import io.airlift.http.client.HeaderName;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
@@ -36,6 +37,7 @@ import io.airlift.node.NodeInfo;
 import io.airlift.testing.TempFile;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import jakarta.servlet.Filter;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -59,6 +61,7 @@ import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.security.auth.x500.X500Principal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
@@ -68,8 +71,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.math.BigInteger;
+import java.net.Socket;
 import java.net.URI;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.KeyStore;
@@ -80,14 +85,26 @@ import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static com.google.common.io.Resources.getResource;
+import static io.airlift.http.client.HeaderNames.ACCEPT_ENCODING;
+import static io.airlift.http.client.HeaderNames.CONTENT_ENCODING;
+import static io.airlift.http.client.HeaderNames.CONTENT_RANGE;
+import static io.airlift.http.client.HeaderNames.ETAG;
+import static io.airlift.http.client.HeaderNames.IF_NONE_MATCH;
+import static io.airlift.http.client.HeaderNames.RANGE;
 import static io.airlift.http.client.HeaderNames.X_FORWARDED_FOR;
 import static io.airlift.http.client.HeaderNames.X_FORWARDED_HOST;
 import static io.airlift.http.client.HeaderNames.X_FORWARDED_PROTO;
@@ -97,11 +114,17 @@ import static io.airlift.http.client.StringResponseHandler.createStringResponseH
 import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.ACCEPT;
 import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.IGNORE;
 import static io.airlift.http.server.HttpServerConfig.ProcessForwardedMode.REJECT;
+import static io.airlift.http.server.HttpServerConfig.RequestLogFormat.JSON;
+import static io.airlift.http.server.RequestDeadlineFilter.REQUEST_TIMEOUT_HEADER;
 import static io.airlift.http.server.TestHttpServerInfo.closeChannels;
 import static io.airlift.testing.Closeables.closeAll;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.createTempDirectory;
 import static java.util.Collections.list;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -237,6 +260,33 @@ public class TestHttpServerProvider
         }
     }
 
+    @Test
+    public void testUnixDomainSocket()
+            throws Exception
+    {
+        String socketPath = new File(tempDir, "http.sock").getAbsolutePath();
+        config.setUnixDomainSocketPath(socketPath);
+        createServer();
+        server.start();
+
+        // nothing listens on the port, so the response must come over the socket
+        URI uri = URI.create("http://localhost:1/");
+        try (JettyHttpClient httpClient = new JettyHttpClient(new HttpClientConfig().setUnixDomainSocketPath(socketPath).setHttp2Enabled(false))) {
+            StatusResponse response = httpClient.execute(prepareGet().setUri(uri).build(), createStatusResponseHandler());
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(response.getHeader(X_PROTOCOL_HEADER)).hasValue("HTTP/1.1");
+        }
+
+        try (JettyHttpClient httpClient = new JettyHttpClient(new HttpClientConfig().setUnixDomainSocketPath(socketPath).setHttp2Enabled(true))) {
+            StatusResponse response = httpClient.execute(prepareGet().setUri(uri).build(), createStatusResponseHandler());
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(response.getHeader(X_PROTOCOL_HEADER)).hasValue("HTTP/2.0");
+        }
+        assertThat(server.getUnixDomainConnectionStats()).isNotNull();
+    }
+
     @Test
     public void testMaxResponseHeaderSize()
             throws Exception
@@ -346,6 +396,12 @@ public class TestHttpServerProvider
             verifyHttps(httpClient, "127-0-0-1.ip");
             verifyHttps(httpClient, "x--1.ip");
         }
+
+        TlsHandshakeStats handshakeStats = server.getTlsHandshakeStats();
+        assertThat(handshakeStats.getFullHandshakes().getTotalCount()).isGreaterThan(0);
+        assertThat(handshakeStats.getHandshakeTime().getAllTime().getCount())
+                .isEqualTo(handshakeStats.getFullHandshakes().getTotalCount() + handshakeStats.getResumedHandshakes().getTotalCount());
+        assertThat(handshakeStats.getFailedHandshakes().getTotalCount()).isZero();
     }
 
     private void verifyHttps(JettyHttpClient httpClient, String name)
@@ -371,6 +427,162 @@ public class TestHttpServerProvider
         }
     }
 
+    @Test
+    public void testClassPathResourcesInJar()
+            throws Exception
+    {
+        byte[] content = "hello jar\n".getBytes(UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        }
+        File jarFile = new File(tempDir, "resources.jar");
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            jar.putNextEntry(new JarEntry("webapp/hello.txt"));
+            jar.write(content);
+            jar.putNextEntry(new JarEntry("webapp/hello.txt.gz"));
+            jar.write(compressed.toByteArray());
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[] {jarFile.toURI().toURL()}, null);
+        ClassPathResourceFilter filter = new ClassPathResourceFilter("/static", "webapp", ImmutableList.of("hello.txt"), classLoader);
+        httpServerInfo = createHttpServerInfo();
+        createServer(new DummyServlet(), ImmutableSet.of(filter), Optional.empty());
+        server.start();
+
+        try (JettyHttpClient client = new JettyHttpClient()) {
+            URI uri = httpServerInfo.getHttpUri().resolve("/static/hello.txt");
+            StringResponse response = client.execute(prepareGet().setUri(uri).build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(response.getBody()).isEqualTo("hello jar\n");
+            String etag = response.getHeader(ETAG).orElseThrow();
+
+            // resources in jars are cached, so they are still served after the jar is closed
+            classLoader.close();
+
+            response = client.execute(prepareGet().setUri(uri).build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(response.getBody()).isEqualTo("hello jar\n");
+            assertThat(response.getHeader(ETAG)).hasValue(etag);
+
+            response = client.execute(prepareGet().setUri(httpServerInfo.getHttpUri().resolve("/static/")).build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(response.getBody()).isEqualTo("hello jar\n");
+
+            response = client.execute(prepareGet().setUri(uri).setHeader(RANGE, "bytes=0-4").build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+            assertThat(response.getHeader(CONTENT_RANGE)).hasValue("bytes 0-4/10");
+            assertThat(response.getBody()).isEqualTo("hello");
+
+            response = client.execute(prepareGet().setUri(uri).setHeader(IF_NONE_MATCH, etag).build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+
+            StatusResponse compressedResponse = client.execute(prepareGet().setUri(uri).setHeader(ACCEPT_ENCODING, "gzip").build(), createStatusResponseHandler());
+            assertThat(compressedResponse.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(compressedResponse.getHeader(CONTENT_ENCODING)).hasValue("gzip");
+            assertThat(compressedResponse.getHeader(ETAG)).isPresent().isNotEqualTo(Optional.of(etag));
+        }
+    }
+
+    @Test
+    public void testRequestDeadline()
+            throws Exception
+    {
+        createAndStartServer(new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response)
+                    throws IOException
+            {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.getWriter().write(RequestDeadline.current()
+                        .map(deadline -> deadline.getRemaining().compareTo(new Duration(1, MINUTES)) <= 0 ? "deadline" : "too long")
+                        .orElse("none"));
+            }
+        });
+
+        try (JettyHttpClient client = new JettyHttpClient()) {
+            StringResponse response = client.execute(
+                    prepareGet().setUri(httpServerInfo.getHttpUri()).addHeader(HeaderName.of(REQUEST_TIMEOUT_HEADER), "60000").build(),
+                    createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(response.getBody()).isEqualTo("deadline");
+
+            // the caller stopped waiting before the request arrived
+            response = client.execute(
+                    prepareGet().setUri(httpServerInfo.getHttpUri()).addHeader(HeaderName.of(REQUEST_TIMEOUT_HEADER), "0").build(),
+                    createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        }
+
+        // the deadline expires while the request headers are still being received
+        URI uri = httpServerInfo.getHttpUri();
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            OutputStream output = socket.getOutputStream();
+            output.write(("GET / HTTP/1.1\r\n" + REQUEST_TIMEOUT_HEADER + ": 100\r\n").getBytes(US_ASCII));
+            output.flush();
+            Thread.sleep(500);
+            output.write(("Host: " + uri.getHost() + "\r\nConnection: close\r\n\r\n").getBytes(US_ASCII));
+            output.flush();
+            String response = new String(socket.getInputStream().readAllBytes(), US_ASCII);
+            assertThat(response).startsWith("HTTP/1.1 504 ");
+        }
+
+        assertThat(server.getRequestDeadline().getRequestsWithDeadline().getTotalCount()).isEqualTo(3);
+        assertThat(server.getRequestDeadline().getExpiredOnArrival().getTotalCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(60)
+    public void testAdmissionControl()
+            throws Exception
+    {
+        config.setAdmissionControlEnabled(true)
+                .setAdmissionControlTargetDelay(new Duration(1, MILLISECONDS))
+                .setAdmissionControlInterval(new Duration(20, MILLISECONDS))
+                .setAdmissionControlRetryAfter(new Duration(2, SECONDS))
+                .setMinThreads(4)
+                .setMaxThreads(8);
+        httpConfig.setHttpAcceptorThreads(1)
+                .setHttpSelectorThreads(1);
+        createAndStartServer(new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response)
+                    throws IOException
+            {
+                try {
+                    Thread.sleep(10);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setStatus(HttpServletResponse.SC_OK);
+            }
+        });
+
+        // many more concurrent requests than threads keep the connection tasks waiting in the queue
+        Request request = prepareGet().setUri(httpServerInfo.getHttpUri()).build();
+        try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig().setMaxConnectionsPerServer(200))) {
+            Optional<StatusResponse> rejected = Optional.empty();
+            while (rejected.isEmpty()) {
+                List<HttpResponseFuture<StatusResponse>> futures = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    futures.add(client.executeAsync(request, createStatusResponseHandler()));
+                }
+                for (HttpResponseFuture<StatusResponse> future : futures) {
+                    StatusResponse response = future.get();
+                    if (response.getStatusCode() == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+                        rejected = Optional.of(response);
+                    }
+                }
+            }
+            assertThat(rejected.get().getHeader(HeaderName.of("Retry-After"))).contains("2");
+        }
+
+        assertThat(server.getAdmissionControl().getShedRequests().getTotalCount()).isGreaterThan(0);
+    }
+
     @Test
     public void testForwardedAccepted()
             throws Exception
@@ -588,6 +800,58 @@ public class TestHttpServerProvider
                 .matches(".*\t127.0.0.1\tGET\t/\tnull\tnull\t500\t0\t391\t\\d+\tHTTP/1.1\t\\d+\t\\d+\\s+");
     }
 
+    @Test
+    public void testRingBufferRequestLogging()
+            throws Exception
+    {
+        config.setLogRingBufferEnabled(true);
+        config.setShowStackTrace(false); // changes the body size to 391
+
+        createServer(new ErrorServlet());
+        server.start();
+
+        try (HttpClient client = new JettyHttpClient()) {
+            StringResponse response = client.execute(prepareGet().setUri(httpServerInfo.getHttpUri()).build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(500);
+        }
+
+        // stopping the server writes the pending records
+        server.stop();
+
+        assertThat(logFile).exists();
+        assertThat(logFile)
+                .content()
+                .hasLineCount(1)
+                .matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d{1,3})?(Z|[+-]\\d{2}:\\d{2})\t127.0.0.1\tGET\t/\tnull\tnull\t500\t0\t391\t\\d+\tHTTP/1.1\t\\d+\t\\d+\\s+");
+    }
+
+    @Test
+    public void testJsonRequestLogging()
+            throws Exception
+    {
+        config.setLogRingBufferEnabled(true);
+        config.setLogFormat(JSON);
+
+        createServer(new ErrorServlet());
+        server.start();
+
+        try (HttpClient client = new JettyHttpClient()) {
+            URI uri = HttpUriBuilder.uriBuilderFrom(httpServerInfo.getHttpUri()).appendPath("/path").addParameter("q", "\"quoted\"").build();
+            StringResponse response = client.execute(prepareGet().setUri(uri).build(), createStringResponseHandler());
+            assertThat(response.getStatusCode()).isEqualTo(500);
+        }
+
+        // stopping the server writes the pending records
+        server.stop();
+
+        assertThat(logFile)
+                .content()
+                .hasLineCount(1)
+                .matches("\\{\"timestamp\":\"[^\"]+\",\"clientAddress\":\"127.0.0.1\",\"method\":\"GET\",\"requestUri\":\"/path\\?q=%22quoted%22\"," +
+                        "\"user\":null,\"userAgent\":null,\"responseCode\":500,\"requestSize\":0,\"responseSize\":\\d+,\"timeToLastByte\":\\d+," +
+                        "\"protocolVersion\":\"HTTP/1.1\",\"timeToDispatch\":\\d+,\"timeToCompletion\":\\d+}\\s+");
+    }
+
     @Test
     @Timeout(30)
     public void testStop()
@@ -821,6 +1085,11 @@ public class TestHttpServerProvider
     }
 
     private void createServer(HttpServlet servlet, Optional<SslContextFactory.Server> sslContextFactoryOverride)
+    {
+        createServer(servlet, ImmutableSet.of(new DummyFilter()), sslContextFactoryOverride);
+    }
+
+    private void createServer(HttpServlet servlet, Set<Filter> filters, Optional<SslContextFactory.Server> sslContextFactoryOverride)
     {
         try {
             server = new HttpServer(
@@ -831,7 +1100,7 @@ public class TestHttpServerProvider
                     optionalHttpConfig(),
                     optionalHttpsConfig(),
                     servlet,
-                    ImmutableSet.of(new DummyFilter()),
+                    filters,
                     ImmutableSet.of(),
                     ServerFeature.defaults(),
                     clientCertificate,
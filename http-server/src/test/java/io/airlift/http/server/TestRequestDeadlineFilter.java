@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import io.airlift.concurrent.RequestDeadline;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import static io.airlift.http.server.RequestDeadlineFilter.parseDeadline;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestRequestDeadlineFilter
+{
+    @Test
+    public void testParseDeadline()
+    {
+        RequestDeadline deadline = parseDeadline("30000", System.nanoTime()).orElseThrow();
+        assertThat(deadline.isExpired()).isFalse();
+        assertThat(deadline.getRemaining().compareTo(new Duration(30, SECONDS))).isLessThanOrEqualTo(0);
+
+        assertThat(parseDeadline(" 30000 ", System.nanoTime())).isPresent();
+        assertThat(parseDeadline("0", System.nanoTime()).orElseThrow().isExpired()).isTrue();
+        assertThat(parseDeadline(null, System.nanoTime())).isEmpty();
+        assertThat(parseDeadline("-1", System.nanoTime())).isEmpty();
+        assertThat(parseDeadline("soon", System.nanoTime())).isEmpty();
+
+        // the time since the request was received counts against the timeout
+        long receivedNanos = System.nanoTime() - SECONDS.toNanos(10);
+        assertThat(parseDeadline("5000", receivedNanos).orElseThrow().isExpired()).isTrue();
+        assertThat(parseDeadline("30000", receivedNanos).orElseThrow().getRemaining().compareTo(new Duration(20, SECONDS))).isLessThanOrEqualTo(0);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server;
+
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.http.server.HttpServerConfig.RequestLogFormat.TEXT;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestRingBufferRequestLog
+{
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    public void setup()
+            throws IOException
+    {
+        directory = createTempDirectory(getClass().getSimpleName());
+        file = directory.resolve("http-request.log");
+    }
+
+    @AfterEach
+    public void teardown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    @Timeout(30)
+    public void testRollFile()
+            throws Exception
+    {
+        RingBufferRequestLog requestLog = new RingBufferRequestLog(file.toString(), 1000, 16, 10, false, true, TEXT);
+        requestLog.start();
+        try {
+            serve((request, response) -> {
+                requestLog.log(request, response);
+                // the next record goes to a new file once the file reaches the maximum size
+                awaitFileWritten();
+                requestLog.log(request, response);
+            });
+        }
+        finally {
+            requestLog.stop();
+        }
+
+        assertThat(file).content().hasLineCount(1);
+        List<Path> rolledFiles = listRolledFiles();
+        assertThat(rolledFiles).hasSize(1);
+        assertThat(rolledFiles.getFirst().getFileName().toString()).matches("http-request\\.log-\\d{4}-\\d{2}-\\d{2}\\.0\\.log");
+        assertThat(rolledFiles.getFirst()).content().hasLineCount(1);
+    }
+
+    @Test
+    @Timeout(30)
+    public void testDroppedRecords()
+            throws Exception
+    {
+        RingBufferRequestLog requestLog = new RingBufferRequestLog(file.toString(), 10, 2, 1024 * 1024, false, true, TEXT);
+
+        // the writer is not running, so the ring buffer fills up
+        serve((request, response) -> {
+            for (int i = 0; i < 5; i++) {
+                requestLog.log(request, response);
+            }
+        });
+        assertThat(requestLog.getQueueSize()).isEqualTo(2);
+        assertThat(requestLog.getDroppedRecords()).isEqualTo(3);
+
+        requestLog.start();
+        requestLog.stop();
+        assertThat(requestLog.getQueueSize()).isEqualTo(0);
+        assertThat(file).content().hasLineCount(2);
+    }
+
+    private void awaitFileWritten()
+    {
+        try {
+            while (Files.notExists(file) || Files.size(file) == 0) {
+                MILLISECONDS.sleep(10);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<Path> listRolledFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> !path.equals(file))
+                    .collect(toImmutableList());
+        }
+    }
+
+    /**
+     * Sends a request to a server that passes the request and the response to the consumer.
+     */
+    private static void serve(BiConsumer<Request, Response> consumer)
+            throws Exception
+    {
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                consumer.accept(request, response);
+                callback.succeeded();
+                return true;
+            }
+        });
+        server.start();
+        try (HttpClient client = new JettyHttpClient()) {
+            URI uri = URI.create("http://127.0.0.1:" + connector.getLocalPort());
+            assertThat(client.execute(prepareGet().setUri(uri).build(), createStatusResponseHandler()).getStatusCode()).isEqualTo(200);
+        }
+        finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.http.server.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request overhead of {@link TracingServletFilter} with different sampling ratios.
+ * Run the main method to include allocation rates from the GC profiler in the results.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkTracingServletFilter
+{
+    private static final FilterChain CHAIN = (request, response) -> {};
+
+    @Param({"0.0", "0.01", "1.0"})
+    private double samplingRatio;
+
+    private SdkTracerProvider tracerProvider;
+    private TracingServletFilter filter;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup()
+    {
+        tracerProvider = SdkTracerProvider.builder()
+                .setSampler(Sampler.traceIdRatioBased(samplingRatio))
+                .build();
+        filter = new TracingServletFilter(
+                OpenTelemetry.propagating(ContextPropagators.create(W3CTraceContextPropagator.getInstance())),
+                tracerProvider.get("benchmark"));
+        request = new BenchmarkRequest();
+        response = new HttpServletResponseWrapper(unsupported(HttpServletResponse.class));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        tracerProvider.close();
+    }
+
+    @Benchmark
+    public HttpServletRequest doFilter()
+            throws IOException, ServletException
+    {
+        filter.doFilter(request, response, CHAIN);
+        return request;
+    }
+
+    private static <T> T unsupported(Class<T> type)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (_, method, _) -> {
+            throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+
+    private static class BenchmarkRequest
+            extends HttpServletRequestWrapper
+    {
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        public BenchmarkRequest()
+        {
+            super(unsupported(HttpServletRequest.class));
+        }
+
+        @Override
+        public String getMethod()
+        {
+            return "GET";
+        }
+
+        @Override
+        public String getRequestURI()
+        {
+            return "/v1/query/20240101_000000_00000_abcde";
+        }
+
+        @Override
+        public String getQueryString()
+        {
+            return "pretty";
+        }
+
+        @Override
+        public String getScheme()
+        {
+            return "http";
+        }
+
+        @Override
+        public String getServerName()
+        {
+            return "localhost";
+        }
+
+        @Override
+        public int getServerPort()
+        {
+            return 8080;
+        }
+
+        @Override
+        public String getRemoteAddr()
+        {
+            return "127.0.0.1";
+        }
+
+        @Override
+        public String getProtocol()
+        {
+            return "HTTP/1.1";
+        }
+
+        @Override
+        public long getContentLengthLong()
+        {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            if (name.equalsIgnoreCase("User-Agent")) {
+                return "airlift-benchmark";
+            }
+            return null;
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames()
+        {
+            return Collections.enumeration(List.of("User-Agent"));
+        }
+
+        @Override
+        public Object getAttribute(String name)
+        {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value)
+        {
+            attributes.put(name, value);
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTracingServletFilter.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -16,9 +16,22 @@ import io.airlift.log.Level;
 import io.airlift.log.Logging;
 import io.airlift.node.NodeInfo;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import io.opentelemetry.semconv.HttpAttributes;
+import io.opentelemetry.semconv.NetworkAttributes;
+import io.opentelemetry.semconv.UrlAttributes;
 import jakarta.servlet.Servlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,8 +39,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
+import static com.google.common.collect.MoreCollectors.onlyElement;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 import static io.airlift.tracing.Tracing.noopTracer;
@@ -98,6 +113,66 @@ public class TestTracingServletFilter
         }
     }
 
+    @Test
+    public void testSamplerDecidesBeforeRecordingAttributes()
+            throws Exception
+    {
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        // drop health checks based on the attributes available at sampling time
+        Sampler sampler = new Sampler()
+        {
+            @Override
+            public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind, Attributes attributes, List<LinkData> parentLinks)
+            {
+                assertThat(name).isEqualTo("GET");
+                assertThat(attributes.get(HttpAttributes.HTTP_REQUEST_METHOD)).isEqualTo("GET");
+                if ("/health".equals(attributes.get(UrlAttributes.URL_PATH))) {
+                    return SamplingResult.drop();
+                }
+                return SamplingResult.recordAndSample();
+            }
+
+            @Override
+            public String getDescription()
+            {
+                return "test";
+            }
+        };
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setSampler(sampler)
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+
+        SpanCapturingServlet servlet = new SpanCapturingServlet();
+        TracingServletFilter filter = new TracingServletFilter(noop(), tracerProvider.get("test"));
+        TestingHttpServer server = createServer(servlet, filter);
+        try {
+            server.start();
+            try (HttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+                for (String path : List.of("/v1/query", "/health")) {
+                    Request request = prepareGet()
+                            .setUri(server.getBaseUrl().resolve(path))
+                            .build();
+                    assertThat(client.execute(request, createStatusResponseHandler()).getStatusCode()).isEqualTo(SC_OK);
+                }
+            }
+
+            // the unsampled request still gets a span in the request attributes
+            assertThat(servlet.span).isInstanceOf(Span.class);
+            assertThat(((Span) servlet.span).isRecording()).isFalse();
+
+            SpanData span = exporter.getFinishedSpanItems().stream().collect(onlyElement());
+            assertThat(span.getName()).isEqualTo("GET /v1/query");
+            assertThat(span.getAttributes().get(UrlAttributes.URL_PATH)).isEqualTo("/v1/query");
+            assertThat(span.getAttributes().get(NetworkAttributes.NETWORK_PROTOCOL_VERSION)).isEqualTo("1.1");
+            assertThat(span.getAttributes().get(HttpAttributes.HTTP_RESPONSE_STATUS_CODE)).isEqualTo(SC_OK);
+        }
+        finally {
+            server.stop();
+            tracerProvider.close();
+        }
+    }
+
     private static TestingHttpServer createServer(Servlet servlet, TracingServletFilter filter)
             throws IOException
     {
@@ -24,6 +24,7 @@ import io.airlift.http.client.Request;
 import io.airlift.http.client.Response;
 import io.airlift.http.client.StaticBodyGenerator;
 import io.airlift.http.client.StreamingBodyGenerator;
+import io.airlift.http.client.StreamingJsonBodyGenerator;
 import io.airlift.http.client.testing.TestingHttpClient;
 import io.airlift.http.client.testing.TestingResponse;
 import io.airlift.log.Logger;
@@ -113,6 +114,12 @@ public class JaxrsTestingHttpProcessor
                         yield stream.readAllBytes();
                     }
                 }
+                case StreamingJsonBodyGenerator<?> generator -> {
+                    generator.contentEncoding().ifPresent(encoding -> invocationBuilder.header("Content-Encoding", encoding));
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    generator.write(output);
+                    yield output.toByteArray();
+                }
             };
             Entity<byte[]> entity = Entity.entity(bytes, (String) requestHeaders.get(CONTENT_TYPE).stream().collect(onlyElement()));
             invocation = invocationBuilder.build(request.getMethod(), entity);
@@ -16,17 +16,20 @@ package io.airlift.jaxrs;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.concurrent.RequestDeadline;
 import io.airlift.units.Duration;
 import jakarta.ws.rs.container.AsyncResponse;
 import jakarta.ws.rs.core.Response;
 
 import java.lang.ref.WeakReference;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static jakarta.ws.rs.core.Response.status;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
@@ -34,20 +37,28 @@ public class AsyncResponseHandler
 {
     private final AsyncResponse asyncResponse;
     private final WeakReference<Future<?>> futureResponseReference;
+    private final Optional<RequestDeadline> deadline;
 
-    private AsyncResponseHandler(AsyncResponse asyncResponse, ListenableFuture<?> futureResponse)
+    private AsyncResponseHandler(AsyncResponse asyncResponse, ListenableFuture<?> futureResponse, Optional<RequestDeadline> deadline)
     {
         this.asyncResponse = requireNonNull(asyncResponse, "asyncResponse is null");
         // the jaxrs implementation can hold on to the async timeout for a long time, and
         // the future can reference large expensive objects.  Since we are only interested
         // in canceling this future on a timeout, only hold a weak reference to the future
         this.futureResponseReference = new WeakReference<>(requireNonNull(futureResponse, "futureResponse is null"));
+        this.deadline = requireNonNull(deadline, "deadline is null");
     }
 
+    /**
+     * Resumes the async response when the future completes. If the client sent a deadline for the
+     * request, the response is resumed with 504 and the future is cancelled when the deadline expires.
+     */
     public static AsyncResponseHandler bindAsyncResponse(AsyncResponse asyncResponse, ListenableFuture<?> futureResponse, Executor httpResponseExecutor)
     {
         Futures.addCallback(futureResponse, toFutureCallback(asyncResponse), httpResponseExecutor);
-        return new AsyncResponseHandler(asyncResponse, futureResponse);
+        AsyncResponseHandler handler = new AsyncResponseHandler(asyncResponse, futureResponse, RequestDeadline.current());
+        handler.deadline.ifPresent(deadline -> handler.setTimeout(toTimeoutMillis(deadline), AsyncResponseHandler::deadlineExpiredResponse));
+        return handler;
     }
 
     public AsyncResponseHandler withTimeout(Duration timeout)
@@ -64,13 +75,38 @@ public class AsyncResponseHandler
     }
 
     public AsyncResponseHandler withTimeout(Duration timeout, Supplier<Response> timeoutResponse)
+    {
+        // the client does not wait longer than the deadline, so there is no point in waiting for the future
+        // a zero timeout means no timeout, in which case the handler waits until the deadline
+        if (deadline.isPresent() && (timeout.toMillis() == 0 || deadline.get().getRemaining().compareTo(timeout) < 0)) {
+            setTimeout(toTimeoutMillis(deadline.get()), AsyncResponseHandler::deadlineExpiredResponse);
+        }
+        else {
+            setTimeout(timeout.toMillis(), timeoutResponse);
+        }
+        return this;
+    }
+
+    private static long toTimeoutMillis(RequestDeadline deadline)
+    {
+        // an expired deadline must time out immediately rather than disable the timeout
+        return max(deadline.getRemaining().toMillis(), 1);
+    }
+
+    private static Response deadlineExpiredResponse()
+    {
+        return status(Response.Status.GATEWAY_TIMEOUT)
+                .entity("Request deadline expired")
+                .build();
+    }
+
+    private void setTimeout(long timeoutMillis, Supplier<Response> timeoutResponse)
     {
         asyncResponse.setTimeoutHandler(asyncResponse -> {
             asyncResponse.resume(timeoutResponse.get());
             cancelFuture();
         });
-        asyncResponse.setTimeout(timeout.toMillis(), MILLISECONDS);
-        return this;
+        asyncResponse.setTimeout(timeoutMillis, MILLISECONDS);
     }
 
     private void cancelFuture()
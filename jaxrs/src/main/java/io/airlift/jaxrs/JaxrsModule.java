@@ -18,12 +18,16 @@ package io.airlift.jaxrs;
 import com.google.inject.Binder;
 import io.airlift.configuration.AbstractConfigurationAwareModule;
 import io.airlift.jaxrs.JsonParsingFeature.MappingEnabled;
+import io.airlift.jaxrs.metrics.RouteMetrics;
+import io.airlift.jaxrs.metrics.RouteMetricsConfig;
 import io.airlift.jaxrs.tracing.TracingDynamicFeature;
+import io.airlift.metrics.MetricGroupProvider;
 import jakarta.annotation.Nullable;
 import jakarta.servlet.Servlet;
 import org.glassfish.jersey.server.ResourceConfig;
 
 import java.lang.annotation.Annotation;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
@@ -67,5 +71,16 @@ public class JaxrsModule
         if (getProperty("tracing.enabled").map(Boolean::parseBoolean).orElse(false)) {
             jaxrsBinder.bind(TracingDynamicFeature.class);
         }
+
+        if (buildConfigObject(qualifiedKey(qualifier, RouteMetricsConfig.class), RouteMetricsConfig.class, null).isEnabled()) {
+            // one instance per application, so the exported metrics are the ones the resources record
+            RouteMetrics routeMetrics = new RouteMetrics(qualifier
+                    .map(annotation -> Map.of("qualifier", annotation.getSimpleName()))
+                    .orElse(Map.of()));
+            binder.bind(qualifiedKey(qualifier, RouteMetrics.class)).toInstance(routeMetrics);
+            jaxrsBinder.bindInstance(routeMetrics);
+            newSetBinder(binder, MetricGroupProvider.class).permitDuplicates()
+                    .addBinding().toInstance(routeMetrics);
+        }
     }
 }
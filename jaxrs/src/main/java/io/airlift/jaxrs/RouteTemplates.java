@@ -0,0 +1,42 @@
+package io.airlift.jaxrs;
+
+import org.glassfish.jersey.uri.UriTemplate;
+
+import java.util.List;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+public final class RouteTemplates
+{
+    private RouteTemplates() {}
+
+    /**
+     * Returns the route, such as {@code /v1/query/{queryId}}, for the templates matched by a request.
+     * Jersey lists the templates from the innermost match to the outermost.
+     */
+    public static String getRoute(List<UriTemplate> matchedTemplates)
+    {
+        StringBuilder route = new StringBuilder();
+        for (UriTemplate template : matchedTemplates) {
+            route.insert(0, normalizePath(template.getTemplate()));
+        }
+        return route.toString();
+    }
+
+    private static String normalizePath(String path)
+    {
+        if (isNullOrEmpty(path) || path.equals("/")) {
+            return "";
+        }
+
+        if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.jaxrs.metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingOutputStream;
+import io.airlift.metrics.CollectedMetricGroup;
+import io.airlift.metrics.MetricGroupProvider;
+import io.airlift.metrics.MetricSource.ManagedMetricSource;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.jaxrs.RouteTemplates.getRoute;
+import static java.util.Objects.requireNonNull;
+import static org.glassfish.jersey.server.monitoring.RequestEvent.Type.FINISHED;
+
+/**
+ * Records {@link RouteStats} for every JAX-RS resource method, keyed by the HTTP method and the
+ * matched route template rather than the request URI, so the number of series is bounded by the
+ * number of resource methods. Requests that do not match a resource are not recorded.
+ * The fixed labels distinguish the routes of different JAX-RS applications in one server.
+ */
+public class RouteMetrics
+        implements ApplicationEventListener, WriterInterceptor, MetricGroupProvider
+{
+    private static final String RESPONSE_OUTPUT = RouteMetrics.class.getName() + ".response-output";
+    private static final ManagedMetricSource SOURCE = new ManagedMetricSource(
+            "io.airlift.jaxrs:type=RouteStats",
+            Optional.of(RouteStats.class),
+            Optional.empty(),
+            Map.of());
+
+    private final Map<String, String> labels;
+    private final Map<RouteKey, Route> routes = new ConcurrentHashMap<>();
+
+    public RouteMetrics()
+    {
+        this(ImmutableMap.of());
+    }
+
+    public RouteMetrics(Map<String, String> labels)
+    {
+        this.labels = ImmutableMap.copyOf(requireNonNull(labels, "labels is null"));
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {}
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent)
+    {
+        long start = System.nanoTime();
+        return event -> {
+            if (event.getType() == FINISHED) {
+                record(event, System.nanoTime() - start);
+            }
+        };
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context)
+            throws IOException, WebApplicationException
+    {
+        CountingOutputStream output = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(output);
+        context.setProperty(RESPONSE_OUTPUT, output);
+        context.proceed();
+    }
+
+    @Override
+    public List<CollectedMetricGroup> getMetricGroups()
+    {
+        return routes.values().stream()
+                .map(route -> new CollectedMetricGroup(
+                        SOURCE,
+                        ImmutableMap.<String, String>builder()
+                                .putAll(labels)
+                                .put("method", route.method())
+                                .put("route", route.route())
+                                .buildOrThrow(),
+                        route.stats().toAttributes()))
+                .collect(toImmutableList());
+    }
+
+    @VisibleForTesting
+    Optional<RouteStats> getRouteStats(String method, String route)
+    {
+        return routes.values().stream()
+                .filter(candidate -> candidate.method().equals(method) && candidate.route().equals(route))
+                .map(Route::stats)
+                .findFirst();
+    }
+
+    private void record(RequestEvent event, long timeNanos)
+    {
+        ContainerRequest request = event.getContainerRequest();
+        List<UriTemplate> templates = event.getUriInfo().getMatchedTemplates();
+        if (request == null || templates.isEmpty()) {
+            return;
+        }
+
+        RouteKey key = new RouteKey(request.getMethod(), templates);
+        Route route = routes.get(key);
+        if (route == null) {
+            // copy the templates as the key outlives the request
+            route = routes.computeIfAbsent(
+                    new RouteKey(key.method(), ImmutableList.copyOf(templates)),
+                    newKey -> new Route(newKey.method(), getRoute(newKey.templates()), new RouteStats()));
+        }
+
+        ContainerResponse response = event.getContainerResponse();
+        int status = (response == null) ? 500 : response.getStatus();
+        long responseBytes = (request.getProperty(RESPONSE_OUTPUT) instanceof CountingOutputStream output) ? output.getCount() : 0;
+        route.stats().record(timeNanos, status, request.getLength(), responseBytes);
+    }
+
+    private record RouteKey(String method, List<UriTemplate> templates)
+    {
+        private RouteKey
+        {
+            requireNonNull(method, "method is null");
+            requireNonNull(templates, "templates is null");
+        }
+    }
+
+    private record Route(String method, String route, RouteStats stats) {}
+}
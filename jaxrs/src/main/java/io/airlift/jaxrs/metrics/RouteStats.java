@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.jaxrs.metrics;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.metrics.CollectedMetricGroup.Attribute;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.DistributionStat;
+import io.airlift.stats.TimeStat;
+
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Statistics for the requests served by a single route.
+ */
+public class RouteStats
+{
+    private final TimeStat time = new TimeStat(MILLISECONDS);
+    private final DistributionStat requestSize = new DistributionStat();
+    private final DistributionStat responseSize = new DistributionStat();
+    private final CounterStat informationalResponses = new CounterStat();
+    private final CounterStat successfulResponses = new CounterStat();
+    private final CounterStat redirectionResponses = new CounterStat();
+    private final CounterStat clientErrorResponses = new CounterStat();
+    private final CounterStat serverErrorResponses = new CounterStat();
+
+    public void record(long timeNanos, int status, long requestBytes, long responseBytes)
+    {
+        time.addNanos(timeNanos);
+        if (requestBytes >= 0) {
+            requestSize.add(requestBytes);
+        }
+        responseSize.add(responseBytes);
+
+        CounterStat responses = switch (status / 100) {
+            case 1 -> informationalResponses;
+            case 2 -> successfulResponses;
+            case 3 -> redirectionResponses;
+            case 4 -> clientErrorResponses;
+            default -> serverErrorResponses;
+        };
+        responses.update(1);
+    }
+
+    public TimeStat getTime()
+    {
+        return time;
+    }
+
+    public DistributionStat getRequestSize()
+    {
+        return requestSize;
+    }
+
+    public DistributionStat getResponseSize()
+    {
+        return responseSize;
+    }
+
+    public CounterStat getInformationalResponses()
+    {
+        return informationalResponses;
+    }
+
+    public CounterStat getSuccessfulResponses()
+    {
+        return successfulResponses;
+    }
+
+    public CounterStat getRedirectionResponses()
+    {
+        return redirectionResponses;
+    }
+
+    public CounterStat getClientErrorResponses()
+    {
+        return clientErrorResponses;
+    }
+
+    public CounterStat getServerErrorResponses()
+    {
+        return serverErrorResponses;
+    }
+
+    List<Attribute> toAttributes()
+    {
+        return ImmutableList.of(
+                new Attribute(List.of("Time"), time, "time to serve the request"),
+                new Attribute(List.of("RequestSize"), requestSize, "request body size in bytes, when known"),
+                new Attribute(List.of("ResponseSize"), responseSize, "response body size in bytes"),
+                new Attribute(List.of("InformationalResponses"), informationalResponses, "1xx responses"),
+                new Attribute(List.of("SuccessfulResponses"), successfulResponses, "2xx responses"),
+                new Attribute(List.of("RedirectionResponses"), redirectionResponses, "3xx responses"),
+                new Attribute(List.of("ClientErrorResponses"), clientErrorResponses, "4xx responses"),
+                new Attribute(List.of("ServerErrorResponses"), serverErrorResponses, "5xx responses"));
+    }
+}
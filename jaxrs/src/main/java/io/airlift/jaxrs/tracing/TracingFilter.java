@@ -8,7 +8,7 @@ import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import org.glassfish.jersey.server.ContainerRequest;
 
-import static com.google.common.base.Strings.isNullOrEmpty;
+import static io.airlift.jaxrs.RouteTemplates.getRoute;
 import static java.util.Objects.requireNonNull;
 
 @Priority(0)
@@ -36,10 +36,7 @@ public final class TracingFilter
             return;
         }
 
-        String route = request.getUriInfo().getMatchedTemplates().stream()
-                .map(template -> normalizePath(template.getTemplate()))
-                .reduce((first, second) -> second + first)
-                .orElseThrow();
+        String route = getRoute(request.getUriInfo().getMatchedTemplates());
 
         // Update the span with information obtained from JAX-RS
         if (requestContext.getProperty(REQUEST_SPAN) instanceof Span span) {
@@ -48,21 +45,4 @@ public final class TracingFilter
             span.setAttribute(CodeAttributes.CODE_FUNCTION_NAME, className + "." + methodName);
         }
     }
-
-    private static String normalizePath(String path)
-    {
-        if (isNullOrEmpty(path) || path.equals("/")) {
-            return "";
-        }
-
-        if (!path.startsWith("/")) {
-            path = "/" + path;
-        }
-
-        if (path.endsWith("/")) {
-            path = path.substring(0, path.length() - 1);
-        }
-
-        return path;
-    }
 }
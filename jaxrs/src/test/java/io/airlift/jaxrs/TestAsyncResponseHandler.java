@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.jaxrs;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.concurrent.RequestDeadline;
+import io.airlift.units.Duration;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.TimeoutHandler;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.jaxrs.AsyncResponseHandler.bindAsyncResponse;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestAsyncResponseHandler
+{
+    @Test
+    public void testTimeout()
+    {
+        TestingAsyncResponse asyncResponse = new TestingAsyncResponse();
+        SettableFuture<String> future = SettableFuture.create();
+        bindAsyncResponse(asyncResponse, future, directExecutor()).withTimeout(new Duration(1, SECONDS));
+        assertThat(asyncResponse.timeoutMillis).isEqualTo(1000);
+
+        asyncResponse.timeout();
+        assertThat(asyncResponse.getResumedStatus()).isEqualTo(503);
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testTimeoutBeforeDeadline()
+    {
+        TestingAsyncResponse asyncResponse = new TestingAsyncResponse();
+        try (Scope ignored = Context.current().with(RequestDeadline.after(new Duration(5, MINUTES))).makeCurrent()) {
+            bindAsyncResponse(asyncResponse, SettableFuture.create(), directExecutor()).withTimeout(new Duration(1, SECONDS));
+        }
+        assertThat(asyncResponse.timeoutMillis).isEqualTo(1000);
+
+        asyncResponse.timeout();
+        assertThat(asyncResponse.getResumedStatus()).isEqualTo(503);
+    }
+
+    @Test
+    public void testDeadlineBeforeTimeout()
+    {
+        TestingAsyncResponse asyncResponse = new TestingAsyncResponse();
+        SettableFuture<String> future = SettableFuture.create();
+        try (Scope ignored = Context.current().with(RequestDeadline.after(new Duration(1, MINUTES))).makeCurrent()) {
+            bindAsyncResponse(asyncResponse, future, directExecutor()).withTimeout(new Duration(5, MINUTES));
+        }
+        assertThat(asyncResponse.timeoutMillis).isBetween(1L, 60_000L);
+
+        // the timer can fire just before the deadline passes
+        asyncResponse.timeout();
+        assertThat(asyncResponse.getResumedStatus()).isEqualTo(504);
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    private static class TestingAsyncResponse
+            implements AsyncResponse
+    {
+        private long timeoutMillis = NO_TIMEOUT;
+        private TimeoutHandler timeoutHandler;
+        private Object resumed;
+
+        public void timeout()
+        {
+            timeoutHandler.handleTimeout(this);
+        }
+
+        public int getResumedStatus()
+        {
+            return ((Response) resumed).getStatus();
+        }
+
+        @Override
+        public boolean resume(Object response)
+        {
+            // like the real implementation, only the first resume takes effect
+            if (resumed != null) {
+                return false;
+            }
+            resumed = response;
+            return true;
+        }
+
+        @Override
+        public boolean resume(Throwable response)
+        {
+            // like the real implementation, only the first resume takes effect
+            if (resumed != null) {
+                return false;
+            }
+            resumed = response;
+            return true;
+        }
+
+        @Override
+        public boolean cancel()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean cancel(int retryAfter)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean cancel(Date retryAfter)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isSuspended()
+        {
+            return resumed == null;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return resumed != null;
+        }
+
+        @Override
+        public boolean setTimeout(long time, TimeUnit unit)
+        {
+            timeoutMillis = unit.toMillis(time);
+            return true;
+        }
+
+        @Override
+        public void setTimeoutHandler(TimeoutHandler handler)
+        {
+            timeoutHandler = handler;
+        }
+
+        @Override
+        public Collection<Class<?>> register(Class<?> callback)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Collection<Class<?>> register(Object callback)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.jaxrs.metrics;
+
+import com.google.inject.BindingAnnotation;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import io.airlift.bootstrap.Bootstrap;
+import io.airlift.bootstrap.LifeCycleManager;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.http.server.testing.TestingHttpServer;
+import io.airlift.http.server.testing.TestingHttpServerModule;
+import io.airlift.jaxrs.JaxrsModule;
+import io.airlift.json.JsonModule;
+import io.airlift.metrics.CollectedMetricGroup;
+import io.airlift.metrics.MetricGroupProvider;
+import io.airlift.node.testing.TestingNodeModule;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Retention;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.jaxrs.JaxrsBinder.jaxrsBinder;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestRouteMetrics
+{
+    @Path("/v1/item")
+    public static class ItemResource
+    {
+        @GET
+        @Path("{id}")
+        public String getItem(@PathParam("id") String id)
+        {
+            if (id.equals("missing")) {
+                throw new NotFoundException();
+            }
+            return "item " + id;
+        }
+    }
+
+    @Test
+    public void testRouteMetrics()
+    {
+        Injector injector = new Bootstrap(
+                binder -> jaxrsBinder(binder).bind(ItemResource.class),
+                new TestingNodeModule(),
+                new TestingHttpServerModule(getClass().getName()),
+                new JaxrsModule(),
+                new JsonModule())
+                .setRequiredConfigurationProperty("jaxrs.route-metrics.enabled", "true")
+                .quiet()
+                .initialize();
+        try {
+            URI baseUri = injector.getInstance(TestingHttpServer.class).getBaseUrl();
+            try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+                for (String path : new String[] {"/v1/item/1", "/v1/item/2", "/v1/item/missing", "/v1/unknown"}) {
+                    client.execute(prepareGet().setUri(baseUri.resolve(path)).build(), createStatusResponseHandler());
+                }
+            }
+
+            RouteMetrics routeMetrics = injector.getInstance(RouteMetrics.class);
+            RouteStats stats = routeMetrics.getRouteStats("GET", "/v1/item/{id}").orElseThrow();
+            assertThat(stats.getTime().getAllTime().getCount()).isEqualTo(3);
+            assertThat(stats.getSuccessfulResponses().getTotalCount()).isEqualTo(2);
+            assertThat(stats.getClientErrorResponses().getTotalCount()).isEqualTo(1);
+            assertThat(stats.getResponseSize().getAllTime().getMax()).isEqualTo("item 1".length());
+
+            // the route is exported as labels rather than as part of the metric name
+            Set<MetricGroupProvider> providers = injector.getInstance(Key.get(new TypeLiteral<Set<MetricGroupProvider>>() {}));
+            assertThat(providers).containsExactly(routeMetrics);
+            assertThat(routeMetrics.getMetricGroups())
+                    .extracting(CollectedMetricGroup::labels)
+                    .containsExactly(Map.of("method", "GET", "route", "/v1/item/{id}"));
+        }
+        finally {
+            injector.getInstance(LifeCycleManager.class).stop();
+        }
+    }
+
+    @Test
+    public void testQualifiedRouteMetrics()
+    {
+        Injector injector = new Bootstrap(
+                binder -> {
+                    jaxrsBinder(binder).bind(ItemResource.class);
+                    jaxrsBinder(binder, Internal.class).bind(ItemResource.class);
+                },
+                new TestingNodeModule(),
+                new TestingHttpServerModule(getClass().getName()),
+                new TestingHttpServerModule(getClass().getName(), Internal.class, "internal"),
+                new JaxrsModule(),
+                new JaxrsModule(Internal.class),
+                new JsonModule())
+                .setRequiredConfigurationProperty("jaxrs.route-metrics.enabled", "true")
+                .quiet()
+                .initialize();
+        try {
+            URI baseUri = injector.getInstance(Key.get(TestingHttpServer.class, Internal.class)).getBaseUrl();
+            try (JettyHttpClient client = new JettyHttpClient(new HttpClientConfig())) {
+                client.execute(prepareGet().setUri(baseUri.resolve("/v1/item/1")).build(), createStatusResponseHandler());
+            }
+
+            // each application has its own metrics, and the exported ones are the recorded ones
+            RouteMetrics routeMetrics = injector.getInstance(RouteMetrics.class);
+            RouteMetrics internalRouteMetrics = injector.getInstance(Key.get(RouteMetrics.class, Internal.class));
+            assertThat(internalRouteMetrics).isNotSameAs(routeMetrics);
+            assertThat(routeMetrics.getRouteStats("GET", "/v1/item/{id}")).isEmpty();
+            assertThat(internalRouteMetrics.getRouteStats("GET", "/v1/item/{id}").orElseThrow().getTime().getAllTime().getCount()).isEqualTo(1);
+
+            Set<MetricGroupProvider> providers = injector.getInstance(Key.get(new TypeLiteral<Set<MetricGroupProvider>>() {}));
+            assertThat(providers).containsExactlyInAnyOrder(routeMetrics, internalRouteMetrics);
+            assertThat(internalRouteMetrics.getMetricGroups())
+                    .extracting(CollectedMetricGroup::labels)
+                    .containsExactly(Map.of("qualifier", "Internal", "method", "GET", "route", "/v1/item/{id}"));
+        }
+        finally {
+            injector.getInstance(LifeCycleManager.class).stop();
+        }
+    }
+
+    @BindingAnnotation
+    @Retention(RUNTIME)
+    private @interface Internal {}
+}
@@ -15,6 +15,7 @@
  */
 package io.airlift.json;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
@@ -28,6 +29,7 @@ import io.airlift.json.LengthLimitedWriter.LengthLimitExceededException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.lang.reflect.Type;
@@ -36,6 +38,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
 import static com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT;
 import static java.util.Objects.requireNonNull;
 
@@ -112,6 +115,7 @@ public class JsonCodec<T>
     private final TypeToken<T> typeToken;
     private final Type type;
     private final Supplier<ObjectWriter> writer;
+    private final Supplier<ObjectWriter> streamWriter;
     private final Supplier<ObjectReader> reader;
 
     JsonCodec(JsonMapper mapper, Type type)
@@ -122,6 +126,7 @@ public class JsonCodec<T>
         this.typeToken = typeToken;
         this.type = javaType;
         this.writer = Suppliers.memoize(() -> mapper.writerFor(javaType));
+        this.streamWriter = Suppliers.memoize(() -> writer.get().without(AUTO_CLOSE_TARGET));
         this.reader = Suppliers.memoize(() -> mapper.readerFor(javaType));
     }
 
@@ -228,6 +233,27 @@ public class JsonCodec<T>
         }
     }
 
+    /**
+     * Writes the specified instance as json (UTF-8) to the {@link OutputStream}.
+     * The stream is flushed but not closed, so a caller can tell a partially written
+     * instance from a complete one.
+     *
+     * @param instance the instance to convert to json
+     * @param output the stream to write the json bytes (UTF-8) to
+     * @throws IllegalArgumentException if the specified instance can not be converted to json
+     * @throws IOException if writing to the stream fails
+     */
+    public void toJson(T instance, OutputStream output)
+            throws IOException
+    {
+        try {
+            streamWriter.get().writeValue(output, instance);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("%s could not be converted to JSON".formatted(instance.getClass().getName()), e);
+        }
+    }
+
     /**
      * Coverts the specified {@link InputStream} (UTF-8) into an instance of type T.
      *
@@ -22,6 +22,8 @@ import io.airlift.jackson.RecordAutoDetectModule;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
@@ -29,6 +31,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.fasterxml.jackson.core.StreamReadConstraints.DEFAULT_MAX_STRING_LEN;
 import static io.airlift.json.JsonCodec.jsonCodec;
@@ -88,6 +91,28 @@ public class TestJsonCodec
         Vehicle.validateVehicleListJsonCodec(vehicleJsonCodec);
     }
 
+    @Test
+    public void testToJsonOutputStream()
+            throws IOException
+    {
+        JsonCodec<List<String>> jsonCodec = listJsonCodec(String.class);
+        List<String> list = List.of("abc", "def");
+
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream output = new ByteArrayOutputStream()
+        {
+            @Override
+            public void close()
+            {
+                closed.set(true);
+            }
+        };
+        jsonCodec.toJson(list, output);
+
+        assertThat(output.toByteArray()).isEqualTo(jsonCodec.toJsonBytes(list));
+        assertThat(closed).isFalse();
+    }
+
     @Test
     public void testListNullValues()
     {
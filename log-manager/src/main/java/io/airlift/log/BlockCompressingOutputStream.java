@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.log;
+
+import io.airlift.compress.v3.zstd.ZstdCompressor;
+import io.airlift.compress.v3.zstd.ZstdJavaCompressor;
+import io.airlift.log.RollingFileMessageOutput.CompressionType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Splits the data into fixed size blocks, compresses the blocks in parallel on the executor, and
+ * writes the compressed blocks to the output in order. Each block is a complete gzip member or zstd
+ * frame, and both formats decode concatenated members or frames as a single stream.
+ * <p>
+ * This class is not thread safe.
+ */
+final class BlockCompressingOutputStream
+        extends OutputStream
+{
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final OutputStream output;
+    private final CompressionType compressionType;
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockSize;
+    private boolean blockSubmitted;
+    private long compressedSize;
+    private boolean closed;
+
+    public BlockCompressingOutputStream(OutputStream output, CompressionType compressionType, Executor executor, int maxPendingBlocks)
+    {
+        this.output = requireNonNull(output, "output is null");
+        this.compressionType = requireNonNull(compressionType, "compressionType is null");
+        checkArgument(compressionType != CompressionType.NONE, "compressionType is NONE");
+        this.executor = requireNonNull(executor, "executor is null");
+        checkArgument(maxPendingBlocks > 0, "maxPendingBlocks must be greater than zero");
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    /**
+     * Returns the number of compressed bytes written to the output so far.
+     */
+    public long getCompressedSize()
+    {
+        return compressedSize;
+    }
+
+    @Override
+    public void write(int value)
+            throws IOException
+    {
+        write(new byte[] {(byte) value}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        checkState(!closed, "stream is closed");
+        while (length > 0) {
+            int chunk = min(length, block.length - blockSize);
+            System.arraycopy(buffer, offset, block, blockSize, chunk);
+            blockSize += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (blockSize == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compresses the remaining data and waits for all blocks to be written before closing the output.
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (output) {
+            // an empty stream is still written as a valid compressed stream
+            if (blockSize > 0 || !blockSubmitted) {
+                submitBlock();
+            }
+            while (!pendingBlocks.isEmpty()) {
+                writeBlock(pendingBlocks.remove());
+            }
+        }
+    }
+
+    /**
+     * Discards the pending blocks and closes the output without completing the compressed stream.
+     */
+    public void abort()
+    {
+        closed = true;
+        pendingBlocks.forEach(pendingBlock -> pendingBlock.cancel(false));
+        pendingBlocks.clear();
+        try {
+            output.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private void submitBlock()
+            throws IOException
+    {
+        byte[] data = block;
+        int size = blockSize;
+        block = new byte[BLOCK_SIZE];
+        blockSize = 0;
+        blockSubmitted = true;
+
+        FutureTask<byte[]> task = new FutureTask<>(() -> compress(compressionType, data, size));
+        try {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            // the executor is shutting down, so compress on this thread
+            task.run();
+        }
+        pendingBlocks.add(task);
+
+        // write completed blocks as soon as possible, and wait for the oldest block when too many are pending
+        while (!pendingBlocks.isEmpty() && (pendingBlocks.size() > maxPendingBlocks || pendingBlocks.peek().isDone())) {
+            writeBlock(pendingBlocks.remove());
+        }
+    }
+
+    private void writeBlock(Future<byte[]> pendingBlock)
+            throws IOException
+    {
+        byte[] compressed;
+        try {
+            compressed = pendingBlock.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing log file");
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Unable to compress log file block", e.getCause());
+        }
+        output.write(compressed);
+        compressedSize += compressed.length;
+    }
+
+    private static byte[] compress(CompressionType compressionType, byte[] data, int length)
+            throws IOException
+    {
+        return switch (compressionType) {
+            case NONE -> throw new IllegalArgumentException("compressionType is NONE");
+            case GZIP -> {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+                try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+                    gzipOutputStream.write(data, 0, length);
+                }
+                yield compressed.toByteArray();
+            }
+            case ZSTD -> {
+                ZstdCompressor compressor = new ZstdJavaCompressor();
+                byte[] compressed = new byte[compressor.maxCompressedLength(length)];
+                int compressedLength = compressor.compress(data, 0, length, compressed, 0, compressed.length);
+                yield Arrays.copyOf(compressed, compressedLength);
+            }
+        };
+    }
+}
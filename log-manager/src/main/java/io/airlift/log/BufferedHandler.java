@@ -13,13 +13,16 @@ import jakarta.annotation.Nullable;
 import org.weakref.jmx.Managed;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.ErrorManager;
 import java.util.logging.Formatter;
@@ -31,11 +34,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.lang.Math.max;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 import static java.util.Objects.requireNonNullElse;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.logging.ErrorManager.CLOSE_FAILURE;
 import static java.util.logging.ErrorManager.FLUSH_FAILURE;
 import static java.util.logging.ErrorManager.FORMAT_FAILURE;
@@ -52,7 +57,20 @@ public class BufferedHandler
         String formatDropSummary(Multiset<String> dropCountBySource);
     }
 
+    public enum BufferMode
+    {
+        /**
+         * Messages are formatted to byte arrays and queued in a lock protected deque. When the deque is full the oldest message is dropped.
+         */
+        QUEUE,
+        /**
+         * Messages are encoded into the reusable slots of a lock-free ring. When the ring is full the new message is dropped.
+         */
+        RING,
+    }
+
     private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final long MAX_IDLE_PARK_NANOS = SECONDS.toNanos(1);
 
     private final MessageAndSource terminalMessage = new MessageAndSource(EMPTY_BYTES, "", SettableFuture.create());
     private final ExecutorService bufferDrainExecutor = newSingleThreadExecutor(daemonThreadsNamed("log-buffer-drainer"));
@@ -79,7 +97,24 @@ public class BufferedHandler
     @GuardedBy("queueDrainLock")
     private SettableFuture<Void> flushedSignal;
 
+    // Only used in RING mode: the ring replaces the queue, and positions in the ring replace the control messages
+    @Nullable
+    private final MessageRing ring;
+    private volatile Thread drainerThread;
+    private volatile boolean drainerWaiting;
+    private volatile long terminalPosition = -1;
+    private volatile boolean terminalPositionObserved;
+    @GuardedBy("flushRequests")
+    private final List<FlushRequest> flushRequests = new ArrayList<>();
+    @GuardedBy("flushRequests")
+    private boolean flushRequestsClosed;
+
     public BufferedHandler(MessageOutput messageOutput, Formatter formatter, ErrorManager errorManager)
+    {
+        this(messageOutput, formatter, errorManager, BufferMode.QUEUE);
+    }
+
+    public BufferedHandler(MessageOutput messageOutput, Formatter formatter, ErrorManager errorManager, BufferMode bufferMode)
     {
         this(messageOutput,
                 formatter,
@@ -88,7 +123,8 @@ public class BufferedHandler
                 RateLimiter.create(0.5), // Throttle down to 1 retry every 2 seconds
                 Duration.ofSeconds(10),
                 512,
-                1024);
+                1024,
+                bufferMode);
     }
 
     public BufferedHandler(
@@ -100,6 +136,20 @@ public class BufferedHandler
             Duration maxCloseTime,
             int messageFlushCount,
             int maxBufferSize)
+    {
+        this(messageOutput, formatter, dropSummaryFormatter, errorManager, errorRetryLimiter, maxCloseTime, messageFlushCount, maxBufferSize, BufferMode.QUEUE);
+    }
+
+    public BufferedHandler(
+            MessageOutput messageOutput,
+            Formatter formatter,
+            DropSummaryFormatter dropSummaryFormatter,
+            ErrorManager errorManager,
+            RateLimiter errorRetryLimiter,
+            Duration maxCloseTime,
+            int messageFlushCount,
+            int maxBufferSize,
+            BufferMode bufferMode)
     {
         this.messageOutput = requireNonNull(messageOutput, "messageOutput is null");
         setFormatter(requireNonNull(formatter, "formatter is null"));
@@ -111,6 +161,10 @@ public class BufferedHandler
         this.messageFlushCount = messageFlushCount;
         checkArgument(maxBufferSize > 0, "maxBufferSize must be greater than zero");
         queue = new LinkedBlockingDeque<>(maxBufferSize);
+        ring = switch (requireNonNull(bufferMode, "bufferMode is null")) {
+            case QUEUE -> null;
+            case RING -> new MessageRing(max(maxBufferSize, 2));
+        };
     }
 
     private static String defaultFormatDropSummary(Multiset<String> dropCountBySource)
@@ -126,7 +180,7 @@ public class BufferedHandler
         if (!initialized.compareAndSet(false, true)) {
             return;
         }
-        bufferDrainExecutor.execute(this::bufferDrainLoop);
+        bufferDrainExecutor.execute(ring == null ? this::bufferDrainLoop : this::ringDrainLoop);
     }
 
     private void bufferDrainLoop()
@@ -252,6 +306,134 @@ public class BufferedHandler
         }
     }
 
+    private void ringDrainLoop()
+    {
+        MessageRing ring = requireNonNull(this.ring, "ring is null");
+        drainerThread = Thread.currentThread();
+        Multiset<String> dropSnapshot = ImmutableMultiset.of();
+        int flushCounter = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long terminalPosition = this.terminalPosition;
+                if (terminalPosition >= 0) {
+                    terminalPositionObserved = true;
+                }
+                // Messages claimed after close are past the terminal position and are never written
+                boolean terminated = terminalPosition >= 0 && ring.head() >= terminalPosition;
+
+                // Drops recorded at or before the head occurred after every message written so far, so they are written before the next message
+                Multiset<String> drops = terminated ? ring.takeAllDrops() : ring.takeDrops();
+                if (!drops.isEmpty()) {
+                    dropSnapshot = ImmutableMultiset.<String>builder()
+                            .addAll(dropSnapshot)
+                            .addAll(drops)
+                            .build();
+                }
+                if (!dropSnapshot.isEmpty()) {
+                    if (!writeMessageOutputSafe(formatMessageBytes(createDropSummaryRecord(dropSnapshot)))) {
+                        errorRetryLimiter.acquire();
+                        continue;
+                    }
+                    dropSnapshot = ImmutableMultiset.of();
+                    flushCounter++;
+                }
+
+                // A message that fails to write stays at the head of the ring and is retried
+                MessageRing.Slot slot = terminated ? null : ring.peek();
+                if (slot != null) {
+                    if (!writeMessageOutputSafe(slot.buffer(), slot.length())) {
+                        errorRetryLimiter.acquire();
+                        continue;
+                    }
+                    ring.release();
+                    flushCounter++;
+                }
+
+                // The output is flushed once per batch of messages rather than per message
+                long flushedPosition = terminated ? Long.MAX_VALUE : ring.head();
+                boolean flushRequested = hasFlushRequests(flushedPosition);
+                if (flushCounter >= messageFlushCount || flushRequested || (slot == null && flushCounter > 0)) {
+                    flushMessageOutputSafe();
+                    flushCounter = 0;
+                    completeFlushRequests(flushedPosition);
+                }
+
+                if (terminated) {
+                    synchronized (flushRequests) {
+                        flushRequestsClosed = true;
+                    }
+                    completeFlushRequests(Long.MAX_VALUE);
+                    requireNonNull(terminalMessage.flushSignal(), "terminalMessage flush signal must not be null").set(null);
+                    return;
+                }
+
+                if (slot == null && !flushRequested) {
+                    awaitRingWork(ring);
+                }
+            }
+            catch (LogFormatException e) {
+                reportError(null, e, FORMAT_FAILURE);
+            }
+            catch (Exception e) {
+                reportError("Unexpected buffer drain loop exception", e, GENERIC_FAILURE);
+            }
+        }
+    }
+
+    private void awaitRingWork(MessageRing ring)
+    {
+        if (!ring.isEmpty()) {
+            // A producer has claimed the slot at the head and is encoding the message
+            Thread.onSpinWait();
+            return;
+        }
+
+        // Producers unpark the drainer after publishing if this flag is set, so work published after the flag is set is never missed
+        drainerWaiting = true;
+        try {
+            if (ring.isEmpty() && terminalPosition < 0 && !hasFlushRequests(ring.head())) {
+                LockSupport.parkNanos(this, MAX_IDLE_PARK_NANOS);
+            }
+        }
+        finally {
+            drainerWaiting = false;
+        }
+    }
+
+    private void wakeDrainer()
+    {
+        if (drainerWaiting) {
+            LockSupport.unpark(drainerThread);
+        }
+    }
+
+    private boolean hasFlushRequests(long maxPosition)
+    {
+        synchronized (flushRequests) {
+            for (FlushRequest request : flushRequests) {
+                if (request.position() <= maxPosition) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void completeFlushRequests(long maxPosition)
+    {
+        List<SettableFuture<Void>> completed = new ArrayList<>();
+        synchronized (flushRequests) {
+            flushRequests.removeIf(request -> {
+                if (request.position() <= maxPosition) {
+                    completed.add(request.flushedSignal());
+                    return true;
+                }
+                return false;
+            });
+        }
+        completed.forEach(flushedSignal -> flushedSignal.set(null));
+    }
+
     /**
      * INVARIANT: Once {@link BufferedHandler#terminalMessage} has been dequeued, no further records will be dequeued.
      */
@@ -341,6 +523,17 @@ public class BufferedHandler
                 return;
             }
 
+            if (ring != null) {
+                // Generate the message on the publishing thread to ensure we get the correct thread name.
+                if (ring.offer(formatMessage(record), determineSourceName(record))) {
+                    wakeDrainer();
+                }
+                else {
+                    droppedMessages.incrementAndGet();
+                }
+                return;
+            }
+
             // Generate the message on the publishing thread to ensure we get the correct thread name.
             MessageAndSource message = toMessageAndSource(record);
 
@@ -361,9 +554,14 @@ public class BufferedHandler
     }
 
     private byte[] formatMessageBytes(LogRecord logRecord)
+    {
+        return formatMessage(logRecord).getBytes(UTF_8);
+    }
+
+    private String formatMessage(LogRecord logRecord)
     {
         try {
-            return getFormatter().format(logRecord).getBytes(UTF_8);
+            return getFormatter().format(logRecord);
         }
         catch (Exception e) {
             // Wrap exception with the proper classification
@@ -429,6 +627,18 @@ public class BufferedHandler
         }
 
         SettableFuture<Void> flushedSignal = SettableFuture.create();
+        if (ring != null) {
+            // The request completes once the drainer has flushed every message claimed before it
+            synchronized (flushRequests) {
+                if (flushRequestsClosed) {
+                    return nonCancellationPropagating(requireNonNull(terminalMessage.flushSignal(), "terminalMessage flush signal must not be null"));
+                }
+                flushRequests.add(new FlushRequest(ring.tail(), flushedSignal));
+            }
+            wakeDrainer();
+            return nonCancellationPropagating(flushedSignal);
+        }
+
         queueInsert(new MessageAndSource(EMPTY_BYTES, "", flushedSignal));
         // The terminal message may have already been enqueued, but we need to acquire the lock first to see whether
         // we enqueued our flush signal before or after termination. If the queue is closed, we'll return the terminalMessage
@@ -453,7 +663,13 @@ public class BufferedHandler
         if (!inputClosed.compareAndSet(false, true)) {
             return;
         }
-        queueInsert(terminalMessage);
+        if (ring != null) {
+            terminalPosition = ring.tail();
+            wakeDrainer();
+        }
+        else {
+            queueInsert(terminalMessage);
+        }
 
         try {
             bufferDrainExecutor.shutdown();
@@ -473,6 +689,9 @@ public class BufferedHandler
     @VisibleForTesting
     boolean isTerminalMessageDequeued()
     {
+        if (ring != null) {
+            return terminalPositionObserved;
+        }
         queueDrainLock.lock();
         try {
             return terminalMessageDequeued;
@@ -506,6 +725,18 @@ public class BufferedHandler
         }
     }
 
+    private boolean writeMessageOutputSafe(byte[] buffer, int length)
+    {
+        try {
+            messageOutput.writeMessage(buffer, 0, length);
+            return true;
+        }
+        catch (Exception e) {
+            reportError("Could not write to the MessageOutput", e, WRITE_FAILURE);
+            return false;
+        }
+    }
+
     private void flushMessageOutputSafe()
     {
         try {
@@ -538,4 +769,12 @@ public class BufferedHandler
             requireNonNull(sourceName, "sourceName is null");
         }
     }
+
+    private record FlushRequest(long position, SettableFuture<Void> flushedSignal)
+    {
+        private FlushRequest
+        {
+            requireNonNull(flushedSignal, "flushedSignal is null");
+        }
+    }
 }
@@ -1,27 +1,38 @@
 package io.airlift.log;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import io.airlift.json.JsonCodec;
-import io.airlift.json.JsonCodecFactory;
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.baggage.BaggageEntry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.context.Context;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.Map;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
 
+import static com.google.common.base.Throwables.getStackTraceAsString;
 import static java.util.Objects.requireNonNull;
 
 public class JsonFormatter
         extends Formatter
 {
     private static final Object[] EMPTY_ARRAY = new Object[0];
-    private static final JsonCodec<JsonRecord> CODEC = new JsonCodecFactory().jsonCodec(JsonRecord.class);
-    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    // Records are written back to back with a reused generator, so no separator may be written between them
+    private static final JsonFactory jsonFactory = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .build();
+    private static final ThreadLocal<RecordWriter> RECORD_WRITER = ThreadLocal.withInitial(RecordWriter::new);
+
     private final Map<String, String> logAnnotations;
 
     public JsonFormatter(Map<String, String> logAnnotations)
@@ -32,36 +43,22 @@ public class JsonFormatter
     @Override
     public String format(LogRecord record)
     {
-        JsonRecord jsonRecord = new JsonRecord(
-                record.getInstant(),
-                Level.fromJulLevel(record.getLevel()),
-                Thread.currentThread().getName(),
-                record.getLoggerName(),
-                record.getMessage(),
-                record.getParameters(),
-                record.getThrown(),
-                Context.current(),
-                logAnnotations);
+        Instant timestamp = record.getInstant();
+        Level level = Level.fromJulLevel(record.getLevel());
+        String thread = Thread.currentThread().getName();
+        Context context = Context.current();
 
         try {
-            return toString(jsonRecord);
+            return toString(timestamp, level, thread, record.getLoggerName(), record.getMessage(), record.getParameters(), record.getThrown(), context);
         }
         catch (IllegalArgumentException outer) {
             try {
-                return toString(new JsonRecord(
-                        record.getInstant(),
-                        Level.fromJulLevel(record.getLevel()),
-                        Thread.currentThread().getName(),
-                        record.getLoggerName(),
-                        outer.getMessage(),
-                        EMPTY_ARRAY,
-                        outer,
-                        Context.current(),
-                        logAnnotations));
+                return toString(timestamp, level, thread, record.getLoggerName(), outer.getMessage(), EMPTY_ARRAY, outer, context);
             }
             catch (IllegalArgumentException inner) {
                 inner.addSuppressed(outer);
 
+                JsonRecord jsonRecord = new JsonRecord(timestamp, level, thread, record.getLoggerName(), record.getMessage(), EMPTY_ARRAY, record.getThrown(), context, logAnnotations);
                 return minimalJsonErrorLogLine(jsonRecord, inner);
             }
         }
@@ -90,8 +87,137 @@ public class JsonFormatter
         return stringWriter.append("\n").toString();
     }
 
-    private static String toString(JsonRecord jsonRecord)
+    /**
+     * Writes the same JSON as serializing a {@link JsonRecord} with a {@code JsonCodec}, field for field,
+     * without building the record or going through the object mapper.
+     */
+    private String toString(Instant timestamp, Level level, String thread, String loggerName, String message, Object[] parameters, Throwable throwable, Context context)
     {
-        return CODEC.toJson(jsonRecord) + "\n";
+        // Call into the parameters and the throwable before taking the per-thread writer, as they can log
+        // and reenter this formatter on the same thread
+        String[] parameterStrings;
+        String stackTrace = null;
+        String throwableMessage = null;
+        try {
+            parameterStrings = toStrings(parameters);
+            if (throwable != null) {
+                stackTrace = getStackTraceAsString(throwable);
+                throwableMessage = throwable.getMessage();
+            }
+        }
+        catch (RuntimeException e) {
+            throw new IllegalArgumentException("%s could not be converted to JSON".formatted(JsonRecord.class.getName()), e);
+        }
+
+        RecordWriter writer = RECORD_WRITER.get();
+        try {
+            JsonGenerator generator = writer.generator();
+            generator.writeStartObject();
+            generator.writeStringField("timestamp", timestamp.toString());
+            generator.writeStringField("level", level.name());
+            writeOptionalStringField(generator, "thread", thread);
+            writeOptionalStringField(generator, "logger", loggerName);
+            writeOptionalStringField(generator, "message", message);
+            if (parameterStrings.length > 0) {
+                generator.writeArrayFieldStart("parameters");
+                for (String parameter : parameterStrings) {
+                    generator.writeString(parameter);
+                }
+                generator.writeEndArray();
+            }
+            if (!logAnnotations.isEmpty()) {
+                generator.writeObjectFieldStart("annotations");
+                for (Map.Entry<String, String> entry : logAnnotations.entrySet()) {
+                    generator.writeStringField(entry.getKey(), entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            if (throwable != null) {
+                generator.writeStringField("stackTrace", stackTrace);
+            }
+            SpanContext spanContext = Span.fromContext(context).getSpanContext();
+            if (spanContext.isValid()) {
+                generator.writeStringField("traceFlags", spanContext.getTraceFlags().asHex());
+                generator.writeStringField("traceId", spanContext.getTraceId());
+                generator.writeStringField("spanId", spanContext.getSpanId());
+            }
+            if (throwable != null) {
+                generator.writeStringField("throwableClass", throwable.getClass().getName());
+                writeOptionalStringField(generator, "throwableMessage", throwableMessage);
+            }
+            Baggage baggage = Baggage.fromContext(context);
+            if (!baggage.isEmpty()) {
+                generator.writeObjectFieldStart("baggage");
+                for (Map.Entry<String, BaggageEntry> entry : baggage.asMap().entrySet()) {
+                    generator.writeStringField(entry.getKey(), entry.getValue().getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            return writer.finish();
+        }
+        catch (IOException | RuntimeException e) {
+            // The generator may be in the middle of a record
+            RECORD_WRITER.remove();
+            throw new IllegalArgumentException("%s could not be converted to JSON".formatted(JsonRecord.class.getName()), e);
+        }
+    }
+
+    private static String[] toStrings(Object[] parameters)
+    {
+        if (parameters == null || parameters.length == 0) {
+            return EMPTY_STRING_ARRAY;
+        }
+        String[] strings = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            strings[i] = parameters[i].toString();
+        }
+        return strings;
+    }
+
+    private static void writeOptionalStringField(JsonGenerator generator, String name, String value)
+            throws IOException
+    {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static final class RecordWriter
+    {
+        private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+        private final StringWriter buffer = new StringWriter(512);
+        private final JsonGenerator generator;
+
+        private RecordWriter()
+        {
+            try {
+                generator = jsonFactory.createGenerator(buffer);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public JsonGenerator generator()
+        {
+            return generator;
+        }
+
+        public String finish()
+                throws IOException
+        {
+            generator.flush();
+            buffer.write('\n');
+            String line = buffer.toString();
+
+            StringBuffer builder = buffer.getBuffer();
+            builder.setLength(0);
+            if (builder.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                builder.trimToSize();
+            }
+            return line;
+        }
     }
 }
@@ -22,6 +22,7 @@ import com.google.common.net.HostAndPort;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.log.BufferedHandler.BufferMode;
 import io.airlift.log.RollingFileMessageOutput.CompressionType;
 import io.airlift.units.DataSize;
 import org.weakref.jmx.MBeanExport;
@@ -164,25 +165,25 @@ public class Logging
         consoleHandler = null;
     }
 
-    private void logToFile(String logPath, DataSize maxFileSize, DataSize maxTotalSize, CompressionType compressionType, Formatter formatter, List<LogMBeanExport> mBeanExportCollector)
+    private void logToFile(String logPath, DataSize maxFileSize, DataSize maxTotalSize, CompressionType compressionType, Formatter formatter, BufferMode bufferMode, List<LogMBeanExport> mBeanExportCollector)
     {
         log.info("Logging to %s", logPath);
         RollingFileMessageOutput output = new RollingFileMessageOutput(logPath, maxFileSize, maxTotalSize, compressionType);
-        BufferedHandler handler = new BufferedHandler(output, formatter, new BufferedHandlerErrorManager(stdErr));
+        BufferedHandler handler = new BufferedHandler(output, formatter, new BufferedHandlerErrorManager(stdErr), bufferMode);
         handler.initialize();
         mBeanExportCollector.add(new LogMBeanExport(handler, BufferedHandler.class, "RollingFileMessageOutput"));
 
         ROOT.addHandler(handler);
     }
 
-    private void logToSocket(String logPath, Formatter formatter, List<LogMBeanExport> mBeanExportCollector)
+    private void logToSocket(String logPath, Formatter formatter, BufferMode bufferMode, List<LogMBeanExport> mBeanExportCollector)
     {
         if (!logPath.startsWith("tcp://") || logPath.lastIndexOf("/") > 6) {
             throw new IllegalArgumentException("LogPath for sockets must begin with tcp:// and not contain any path component.");
         }
         HostAndPort hostAndPort = HostAndPort.fromString(logPath.replace("tcp://", ""));
         SocketMessageOutput output = new SocketMessageOutput(hostAndPort);
-        BufferedHandler handler = new BufferedHandler(output, formatter, new BufferedHandlerErrorManager(stdErr));
+        BufferedHandler handler = new BufferedHandler(output, formatter, new BufferedHandlerErrorManager(stdErr), bufferMode);
         handler.initialize();
         mBeanExportCollector.add(new LogMBeanExport(handler, BufferedHandler.class, "SocketMessageOutput"));
 
@@ -274,7 +275,7 @@ public class Logging
 
         if (config.getLogPath() != null) {
             if (config.getLogPath().startsWith("tcp://")) {
-                logToSocket(config.getLogPath(), config.getFormat().createFormatter(logAnnotations, false), mBeanExportCollector);
+                logToSocket(config.getLogPath(), config.getFormat().createFormatter(logAnnotations, false), config.getBufferMode(), mBeanExportCollector);
             }
             else {
                 logToFile(
@@ -283,6 +284,7 @@ public class Logging
                         config.getMaxTotalSize(),
                         config.getCompression(),
                         config.getFormat().createFormatter(logAnnotations, false),
+                        config.getBufferMode(),
                         mBeanExportCollector);
             }
         }
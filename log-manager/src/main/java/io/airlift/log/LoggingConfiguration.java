@@ -20,6 +20,7 @@ import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.configuration.validation.FileExists;
+import io.airlift.log.BufferedHandler.BufferMode;
 import io.airlift.log.RollingFileMessageOutput.CompressionType;
 import io.airlift.units.DataSize;
 import jakarta.validation.constraints.NotNull;
@@ -39,6 +40,7 @@ public class LoggingConfiguration
     private DataSize maxSize = DataSize.of(100, MEGABYTE);
     private DataSize maxTotalSize = DataSize.of(1, GIGABYTE);
     private CompressionType compression = CompressionType.GZIP;
+    private BufferMode bufferMode = BufferMode.QUEUE;
     private String levelsFile;
     private String logAnnotationFile;
     private Format format = Format.TEXT;
@@ -109,6 +111,20 @@ public class LoggingConfiguration
         return this;
     }
 
+    @NotNull
+    public BufferMode getBufferMode()
+    {
+        return bufferMode;
+    }
+
+    @Config("log.buffer-mode")
+    @ConfigDescription("How messages are buffered before they are written to the log file or socket")
+    public LoggingConfiguration setBufferMode(BufferMode bufferMode)
+    {
+        this.bufferMode = bufferMode;
+        return this;
+    }
+
     public String getLevelsFile()
     {
         return levelsFile;
@@ -3,6 +3,7 @@ package io.airlift.log;
 import com.google.errorprone.annotations.ThreadSafe;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 @ThreadSafe
 public interface MessageOutput
@@ -10,6 +11,15 @@ public interface MessageOutput
     void writeMessage(byte[] message)
             throws IOException;
 
+    /**
+     * Writes a message held in part of a reusable buffer. The buffer must not be retained after the call returns.
+     */
+    default void writeMessage(byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        writeMessage(Arrays.copyOfRange(buffer, offset, offset + length));
+    }
+
     void flush()
             throws IOException;
 
@@ -0,0 +1,306 @@
+package io.airlift.log;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import jakarta.annotation.Nullable;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded multi-producer, single-consumer ring of reusable byte slots. Producers claim a slot with a
+ * CAS on the tail, encode the message into the slot, and publish it by advancing the slot sequence,
+ * so publishing never takes a lock and allocates nothing once the slot buffers have grown to the size
+ * of the messages.
+ * <p>
+ * When the ring is full the message is dropped and recorded together with the position at which it was
+ * dropped. Messages published before the drop have lower positions and messages published after it have
+ * the same or higher positions, so reporting drops once the consumer reaches their position keeps the
+ * drop summary in order with the messages of every source. While the ring is full the tail does not
+ * move, so the drops are counted per position and source, and at most one entry is kept for each
+ * position between the head and the tail.
+ */
+@ThreadSafe
+final class MessageRing
+{
+    private static final int INITIAL_SLOT_SIZE = 256;
+    private static final int MAX_RETAINED_SLOT_SIZE = 64 * 1024;
+
+    private final Slot[] slots;
+    private final AtomicLong tail = new AtomicLong();
+    // only accessed by the consumer
+    private long head;
+
+    private final ReentrantLock dropLock = new ReentrantLock();
+    @GuardedBy("dropLock")
+    private final NavigableMap<Long, Multiset<String>> drops = new TreeMap<>();
+    // the drop counts of the most recent position, which takes all drops during a storm
+    @GuardedBy("dropLock")
+    private long lastDropPosition = -1;
+    @GuardedBy("dropLock")
+    private Multiset<String> lastDrops;
+    private volatile boolean dropsPending;
+
+    public MessageRing(int capacity)
+    {
+        // with a single slot, a published slot would look free to the producer of the next position
+        checkArgument(capacity >= 2, "capacity must be at least two");
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+    }
+
+    /**
+     * Returns false if the ring is full, in which case the drop is recorded.
+     */
+    public boolean offer(String message, String sourceName)
+    {
+        long position = tail.get();
+        while (true) {
+            Slot slot = slot(position);
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.set(message);
+                    // publish
+                    slot.sequence = position + 1;
+                    return true;
+                }
+                position = tail.get();
+            }
+            else if (difference < 0) {
+                // the slot still holds the message from the previous lap
+                recordDrop(position, sourceName);
+                return false;
+            }
+            else {
+                // another producer claimed the position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the position following the last claimed slot.
+     */
+    public long tail()
+    {
+        return tail.get();
+    }
+
+    public long head()
+    {
+        return head;
+    }
+
+    public boolean isEmpty()
+    {
+        return tail.get() == head;
+    }
+
+    /**
+     * Returns the slot at the head, or null if it has not been published yet.
+     */
+    @Nullable
+    public Slot peek()
+    {
+        Slot slot = slot(head);
+        if (slot.sequence != head + 1) {
+            return null;
+        }
+        return slot;
+    }
+
+    /**
+     * Makes the slot at the head available to producers again.
+     */
+    public void release()
+    {
+        Slot slot = slot(head);
+        slot.clear();
+        slot.sequence = head + slots.length;
+        head++;
+    }
+
+    /**
+     * Removes the drops that occurred before the message at the head.
+     */
+    public Multiset<String> takeDrops()
+    {
+        return takeDrops(head);
+    }
+
+    public Multiset<String> takeAllDrops()
+    {
+        return takeDrops(Long.MAX_VALUE);
+    }
+
+    @VisibleForTesting
+    int getDropPositionCount()
+    {
+        dropLock.lock();
+        try {
+            return drops.size();
+        }
+        finally {
+            dropLock.unlock();
+        }
+    }
+
+    private Multiset<String> takeDrops(long maxPosition)
+    {
+        if (!dropsPending) {
+            return ImmutableMultiset.of();
+        }
+        dropLock.lock();
+        try {
+            Multiset<String> taken = HashMultiset.create();
+            Map<Long, Multiset<String>> takenDrops = drops.headMap(maxPosition, true);
+            for (Multiset<String> dropsAtPosition : takenDrops.values()) {
+                taken.addAll(dropsAtPosition);
+            }
+            takenDrops.clear();
+            lastDrops = null;
+            dropsPending = !drops.isEmpty();
+            return taken;
+        }
+        finally {
+            dropLock.unlock();
+        }
+    }
+
+    private void recordDrop(long position, String sourceName)
+    {
+        requireNonNull(sourceName, "sourceName is null");
+        dropLock.lock();
+        try {
+            if (lastDrops == null || lastDropPosition != position) {
+                lastDrops = drops.computeIfAbsent(position, _ -> HashMultiset.create());
+                lastDropPosition = position;
+            }
+            lastDrops.add(sourceName);
+            dropsPending = true;
+        }
+        finally {
+            dropLock.unlock();
+        }
+    }
+
+    private Slot slot(long position)
+    {
+        return slots[(int) (position % slots.length)];
+    }
+
+    static final class Slot
+    {
+        private volatile long sequence;
+        private byte[] buffer = new byte[INITIAL_SLOT_SIZE];
+        private int length;
+
+        private Slot(long sequence)
+        {
+            this.sequence = sequence;
+        }
+
+        public byte[] buffer()
+        {
+            return buffer;
+        }
+
+        public int length()
+        {
+            return length;
+        }
+
+        private void set(String message)
+        {
+            int size = utf8Length(message);
+            if (size > buffer.length) {
+                buffer = new byte[Math.max(size, buffer.length * 2)];
+            }
+            length = encodeUtf8(message, buffer);
+        }
+
+        private void clear()
+        {
+            // do not let a single large message pin memory in every slot it passes through
+            if (buffer.length > MAX_RETAINED_SLOT_SIZE) {
+                buffer = new byte[INITIAL_SLOT_SIZE];
+            }
+            length = 0;
+        }
+    }
+
+    /**
+     * Returns the length of the value encoded by {@link #encodeUtf8}.
+     */
+    static int utf8Length(String value)
+    {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            }
+            else if (c < 0x800) {
+                length += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c)) {
+                length++;
+            }
+            else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encodes the value like {@code String.getBytes(UTF_8)}, which replaces unpaired surrogates with {@code '?'}.
+     */
+    static int encodeUtf8(String value, byte[] buffer)
+    {
+        int position = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            }
+            else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
@@ -39,15 +39,17 @@ import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.ErrorManager;
-import java.util.zip.GZIPOutputStream;
 
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.logging.ErrorManager.GENERIC_FAILURE;
 
@@ -57,7 +59,8 @@ final class RollingFileMessageOutput
     public enum CompressionType
     {
         NONE(Optional.empty()),
-        GZIP(Optional.of(".gz"));
+        GZIP(Optional.of(".gz")),
+        ZSTD(Optional.of(".zst"));
 
         private final Optional<String> extension;
 
@@ -76,6 +79,7 @@ final class RollingFileMessageOutput
     private static final int MAX_BATCH_BYTES = toIntExact(DataSize.of(1, MEGABYTE).toBytes());
     private static final String TEMP_PREFIX = ".tmp.";
     private static final String DELETED_PREFIX = ".deleted.";
+    private static final int COMPRESSION_THREADS = max(1, min(4, Runtime.getRuntime().availableProcessors() / 2));
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("-yyyyMMdd.HHmmss");
 
@@ -91,10 +95,16 @@ final class RollingFileMessageOutput
     private long currentFileSize;
     @GuardedBy("this")
     private OutputStream currentOutputStream;
+    // The current file is also compressed as it is written, so rolling does not need to read it back
+    @GuardedBy("this")
+    private BlockCompressingOutputStream currentCompressedStream;
+    @GuardedBy("this")
+    private Path currentCompressedFile;
 
     private final LogHistoryManager historyManager;
 
     private final ExecutorService compressionExecutor;
+    private final ExecutorService blockCompressionExecutor;
 
     RollingFileMessageOutput(String filename, DataSize maxFileSize, DataSize maxTotalSize, CompressionType compressionType)
     {
@@ -144,26 +154,31 @@ final class RollingFileMessageOutput
             }
         }
 
-        tryCleanupTempFiles(symlink);
+        tryCleanupTempFiles(symlink, Optional.empty());
 
         historyManager = new LogHistoryManager(symlink, maxTotalSize);
 
-        // open initial log file
-        try {
-            rollFile();
-        }
-        catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-
         if (compressionType != CompressionType.NONE) {
             compressionExecutor = newSingleThreadExecutor(new ThreadFactoryBuilder()
                     .setDaemon(true)
                     .setNameFormat("log-compression-%d")
                     .build());
+            blockCompressionExecutor = newFixedThreadPool(COMPRESSION_THREADS, new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("log-compression-block-%d")
+                    .build());
         }
         else {
             compressionExecutor = null;
+            blockCompressionExecutor = null;
+        }
+
+        // open initial log file
+        try {
+            rollFile();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -197,6 +212,9 @@ final class RollingFileMessageOutput
             }
         }
 
+        // the current file is not compressed on close
+        abortCompressedStream();
+
         // wait for compression to finish
         if (compressionExecutor != null) {
             compressionExecutor.shutdown();
@@ -206,6 +224,7 @@ final class RollingFileMessageOutput
             catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            blockCompressionExecutor.shutdown();
         }
 
         currentOutputStream = null;
@@ -219,10 +238,17 @@ final class RollingFileMessageOutput
     }
 
     @Override
-    public synchronized void writeMessage(byte[] message)
+    public void writeMessage(byte[] message)
+            throws IOException
+    {
+        writeMessage(message, 0, message.length);
+    }
+
+    @Override
+    public synchronized void writeMessage(byte[] buffer, int offset, int length)
             throws IOException
     {
-        if (currentFileSize > 0 && (currentFileSize + message.length > maxFileSize)) {
+        if (currentFileSize > 0 && (currentFileSize + length > maxFileSize)) {
             try {
                 rollFile();
             }
@@ -233,9 +259,33 @@ final class RollingFileMessageOutput
                 throw new IOException("Error rolling log file", e);
             }
         }
-        historyManager.pruneLogFilesIfNecessary(currentFileSize + message.length);
-        currentFileSize += message.length;
-        currentOutputStream.write(message);
+        // the compressed copy of the current file is also on disk
+        long compressedSize = (currentCompressedStream == null) ? 0 : currentCompressedStream.getCompressedSize();
+        historyManager.pruneLogFilesIfNecessary(currentFileSize + compressedSize + length);
+        currentFileSize += length;
+        currentOutputStream.write(buffer, offset, length);
+
+        if (currentCompressedStream != null) {
+            try {
+                currentCompressedStream.write(buffer, offset, length);
+            }
+            catch (IOException e) {
+                // the message was logged, so do not fail the write; the file will be compressed from disk after it is rolled
+                abortCompressedStream();
+                new ErrorManager().error("Unable to compress log file while writing: " + currentOutputFile, e, GENERIC_FAILURE);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void abortCompressedStream()
+    {
+        if (currentCompressedStream != null) {
+            currentCompressedStream.abort();
+            tryDelete(currentCompressedFile);
+            currentCompressedStream = null;
+            currentCompressedFile = null;
+        }
     }
 
     private synchronized void rollFile()
@@ -266,6 +316,20 @@ final class RollingFileMessageOutput
         // If any error occurs, with the cleanup steps, we add them to this exception as suppressed and throw at the end
         IOException exception = new IOException("Unable to %s log file".formatted(currentOutputStream == null ? "setup initial" : "roll"));
 
+        // start compressing the new log as it is written
+        Path newCompressedFile = null;
+        BlockCompressingOutputStream newCompressedStream = null;
+        if (compressionType != CompressionType.NONE) {
+            newCompressedFile = compressedTempFile(newFile);
+            try {
+                newCompressedStream = createCompressedStream(newCompressedFile);
+            }
+            catch (IOException e) {
+                newCompressedFile = null;
+                exception.addSuppressed(new IOException("Unable to create compressed log file: " + newFile, e));
+            }
+        }
+
         // close and optionally compress the currently open log (there is no open log during initial setup)
         if (currentOutputStream != null) {
             try {
@@ -279,9 +343,10 @@ final class RollingFileMessageOutput
                 Path originalFile = currentOutputFile;
                 LogFileName originalLogFileName = currentOutputFileName;
                 long originalFileSize = currentFileSize;
+                Optional<BlockCompressingOutputStream> compressedStream = Optional.ofNullable(currentCompressedStream);
                 compressionExecutor.submit(() -> {
                     try {
-                        compressInternal(originalFile, originalLogFileName, originalFileSize);
+                        compressInternal(originalFile, originalLogFileName, originalFileSize, compressedStream);
                     }
                     catch (IOException e) {
                         exception.addSuppressed(e);
@@ -294,6 +359,8 @@ final class RollingFileMessageOutput
         currentOutputFileName = newFileName;
         currentOutputStream = newOutputStream;
         currentFileSize = 0;
+        currentCompressedFile = newCompressedFile;
+        currentCompressedStream = newCompressedStream;
 
         // update symlink
         try {
@@ -309,25 +376,45 @@ final class RollingFileMessageOutput
         }
     }
 
-    private void compressInternal(Path originalFile, LogFileName originalLogFileName, long originalFileSize)
+    private Path compressedTempFile(Path file)
+    {
+        return file.resolveSibling(TEMP_PREFIX + file.getFileName() + compressionType.getExtension().orElseThrow(IllegalStateException::new));
+    }
+
+    private BlockCompressingOutputStream createCompressedStream(Path compressedFile)
             throws IOException
     {
-        tryCleanupTempFiles(symlink);
+        return new BlockCompressingOutputStream(Files.newOutputStream(compressedFile, CREATE_NEW), compressionType, blockCompressionExecutor, COMPRESSION_THREADS * 2);
+    }
+
+    private void compressInternal(Path originalFile, LogFileName originalLogFileName, long originalFileSize, Optional<BlockCompressingOutputStream> compressedStream)
+            throws IOException
+    {
+        // files are compressed in the order they were rolled, so only the compressed files of this and newer logs are still being written
+        tryCleanupTempFiles(symlink, Optional.of(originalLogFileName));
 
         String compressionExtension = compressionType.getExtension().orElseThrow(IllegalStateException::new);
 
-        // compress file
-        Path tempFile = originalFile.resolveSibling(TEMP_PREFIX + originalFile.getFileName() + compressionExtension);
-        try (
-                InputStream input = Files.newInputStream(originalFile);
-                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(Files.newOutputStream(tempFile))) {
-            input.transferTo(gzipOutputStream);
+        // finish the compressed stream written along with the file, or compress the file from disk if it could not be written
+        Path tempFile = compressedTempFile(originalFile);
+        try {
+            if (compressedStream.isPresent()) {
+                compressedStream.get().close();
+            }
+            else {
+                Files.deleteIfExists(tempFile);
+                try (InputStream input = Files.newInputStream(originalFile);
+                        OutputStream output = createCompressedStream(tempFile)) {
+                    input.transferTo(output);
+                }
+            }
         }
         catch (IOException e) {
+            tryDelete(tempFile);
             throw new IOException("Unable to compress log file", e);
         }
 
-        // Size can only be checked after the gzip stream is closed
+        // Size can only be checked after the compressed stream is closed
         long compressedSize;
         try {
             compressedSize = Files.size(tempFile);
@@ -362,12 +449,8 @@ final class RollingFileMessageOutput
                 historyManager.addFile(originalFile, originalLogFileName, originalFileSize);
 
                 // move failed, delete the temp file
-                try {
-                    Files.deleteIfExists(tempFile);
-                }
-                catch (IOException ignored) {
-                    // delete failed, system will attempt to delete temp files periodically
-                }
+                // if the delete fails, the temp file is deleted when the next file is compressed
+                tryDelete(tempFile);
             }
             historyManager.addFile(compressedFile, compressedFileName, compressedSize);
 
@@ -388,28 +471,49 @@ final class RollingFileMessageOutput
         }
     }
 
-    private static void tryCleanupTempFiles(Path masterLogFile)
+    private static void tryDelete(Path file)
+    {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Deletes leftover temp and "to be deleted" files. Temp files of {@code oldestActiveFile} and newer logs are kept.
+     */
+    private static void tryCleanupTempFiles(Path masterLogFile, Optional<LogFileName> oldestActiveFile)
     {
         try {
             for (Path file : MoreFiles.listFiles(masterLogFile.getParent())) {
                 String fileName = file.getFileName().toString();
                 String fileNameWithoutPrefix;
+                boolean tempFile;
                 if (fileName.startsWith(TEMP_PREFIX)) {
                     fileNameWithoutPrefix = fileName.substring(TEMP_PREFIX.length());
+                    tempFile = true;
                 }
                 else if (fileName.startsWith(DELETED_PREFIX)) {
                     fileNameWithoutPrefix = fileName.substring(DELETED_PREFIX.length());
+                    tempFile = false;
                 }
                 else {
                     continue;
                 }
-                if (LogFileName.parseHistoryLogFileName(masterLogFile.getFileName().toString(), fileNameWithoutPrefix).isPresent()) {
-                    // this is our temp or "to be deleted' file, so try to delete it
-                    try {
-                        Files.deleteIfExists(file);
-                    }
-                    catch (IOException ignored) {
-                    }
+                Optional<LogFileName> logFileName = LogFileName.parseHistoryLogFileName(masterLogFile.getFileName().toString(), fileNameWithoutPrefix);
+                if (logFileName.isEmpty()) {
+                    continue;
+                }
+                if (tempFile && oldestActiveFile.isPresent() && logFileName.get().compareTo(oldestActiveFile.get()) >= 0) {
+                    // still being written
+                    continue;
+                }
+                // this is our temp or "to be deleted' file, so try to delete it
+                try {
+                    Files.deleteIfExists(file);
+                }
+                catch (IOException ignored) {
                 }
             }
         }
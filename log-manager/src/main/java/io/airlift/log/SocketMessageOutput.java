@@ -33,7 +33,14 @@ public class SocketMessageOutput
     }
 
     @Override
-    public synchronized void writeMessage(byte[] message)
+    public void writeMessage(byte[] message)
+            throws IOException
+    {
+        writeMessage(message, 0, message.length);
+    }
+
+    @Override
+    public synchronized void writeMessage(byte[] buffer, int offset, int length)
             throws IOException
     {
         IOException lastException = null;
@@ -57,7 +64,7 @@ public class SocketMessageOutput
             }
 
             try {
-                currentOutputStream.write(message);
+                currentOutputStream.write(buffer, offset, length);
                 success = true;
                 break;
             }
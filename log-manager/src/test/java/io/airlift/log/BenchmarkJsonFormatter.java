@@ -0,0 +1,112 @@
+package io.airlift.log;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.json.JsonCodec;
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogRecord;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+
+/**
+ * Compares {@link JsonFormatter} with serializing a {@link JsonRecord} through a {@link JsonCodec},
+ * which is how records were formatted before. Run the main method to include allocation rates.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkJsonFormatter
+{
+    private static final JsonCodec<JsonRecord> CODEC = jsonCodec(JsonRecord.class);
+    private static final Map<String, String> LOG_ANNOTATIONS = ImmutableMap.of("environment", "production", "pool", "general");
+
+    @Param({"false", "true"})
+    private boolean withContext;
+
+    private JsonFormatter formatter;
+    private LogRecord record;
+    private Scope scope;
+
+    @Setup
+    public void setup()
+    {
+        formatter = new JsonFormatter(LOG_ANNOTATIONS);
+        record = new LogRecord(Level.INFO.toJulLevel(), "Query 20240101_000000_00000_abcde finished in 1.23s with 1024 rows");
+        record.setLoggerName("io.airlift.log.BenchmarkJsonFormatter");
+
+        Context context = Context.root();
+        if (withContext) {
+            context = context
+                    .with(Span.wrap(SpanContext.create("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", TraceFlags.getSampled(), TraceState.getDefault())))
+                    .with(Baggage.builder().put("tenant", "acme").build());
+        }
+        scope = context.makeCurrent();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        scope.close();
+    }
+
+    @Benchmark
+    public String formatStreaming()
+    {
+        return formatter.format(record);
+    }
+
+    @Benchmark
+    public String formatWithJsonCodec()
+    {
+        return CODEC.toJson(new JsonRecord(
+                record.getInstant(),
+                Level.fromJulLevel(record.getLevel()),
+                Thread.currentThread().getName(),
+                record.getLoggerName(),
+                record.getMessage(),
+                record.getParameters(),
+                record.getThrown(),
+                Context.current(),
+                LOG_ANNOTATIONS)) + "\n";
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkJsonFormatter.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
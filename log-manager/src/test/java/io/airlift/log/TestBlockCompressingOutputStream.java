@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.log;
+
+import io.airlift.compress.v3.zstd.ZstdInputStream;
+import io.airlift.log.RollingFileMessageOutput.CompressionType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+
+import static io.airlift.log.BlockCompressingOutputStream.BLOCK_SIZE;
+import static java.lang.Math.min;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class TestBlockCompressingOutputStream
+{
+    private final ExecutorService executor = newFixedThreadPool(4);
+
+    @AfterAll
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionType.class, names = {"GZIP", "ZSTD"})
+    public void testMultipleBlocks(CompressionType compressionType)
+            throws IOException
+    {
+        byte[] data = createData(BLOCK_SIZE * 5 + BLOCK_SIZE / 2);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        BlockCompressingOutputStream output = new BlockCompressingOutputStream(compressed, compressionType, executor, 2);
+        // write chunks that do not line up with the blocks
+        for (int offset = 0; offset < data.length; offset += 100_003) {
+            output.write(data, offset, min(100_003, data.length - offset));
+        }
+        output.close();
+
+        assertThat(output.getCompressedSize()).isEqualTo(compressed.size());
+        assertThat(decompress(compressionType, compressed.toByteArray())).isEqualTo(data);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionType.class, names = {"GZIP", "ZSTD"})
+    public void testEmpty(CompressionType compressionType)
+            throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new BlockCompressingOutputStream(compressed, compressionType, executor, 2).close();
+
+        assertThat(compressed.size()).isGreaterThan(0);
+        assertThat(decompress(compressionType, compressed.toByteArray())).isEmpty();
+    }
+
+    private static byte[] createData(int size)
+    {
+        // log like data, so that the blocks compress
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (i % 80 == 79) ? (byte) '\n' : (byte) ('a' + random.nextInt(8));
+        }
+        return data;
+    }
+
+    private static byte[] decompress(CompressionType compressionType, byte[] compressed)
+            throws IOException
+    {
+        try (InputStream input = switch (compressionType) {
+            case NONE -> throw new IllegalArgumentException("compressionType is NONE");
+            case GZIP -> new GZIPInputStream(new ByteArrayInputStream(compressed));
+            case ZSTD -> new ZstdInputStream(new ByteArrayInputStream(compressed));
+        }) {
+            return input.readAllBytes();
+        }
+    }
+}
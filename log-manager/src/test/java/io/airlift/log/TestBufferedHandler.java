@@ -9,8 +9,10 @@ import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.RateLimiter;
+import io.airlift.log.BufferedHandler.BufferMode;
 import jakarta.annotation.Nullable;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -48,8 +50,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class TestBufferedHandler
 {
-    @Test
-    public void testIdleFlush()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testIdleFlush(BufferMode bufferMode)
             throws Exception
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
@@ -61,7 +64,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 100,
-                100);
+                100,
+                bufferMode);
         bufferedHandler.initialize();
 
         LogRecord record = logRecord(INFO, "TestLogger", "Test");
@@ -74,8 +78,9 @@ public class TestBufferedHandler
         bufferedHandler.close();
     }
 
-    @Test
-    public void testLoggingSequence()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testLoggingSequence(BufferMode bufferMode)
     {
         int maxBufferSize = 100;
 
@@ -88,7 +93,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 100,
-                maxBufferSize);
+                maxBufferSize,
+                bufferMode);
         bufferedHandler.initialize();
 
         List<LogRecord> logRecords = new ArrayList<>();
@@ -107,8 +113,9 @@ public class TestBufferedHandler
                         .collect(toImmutableList()));
     }
 
-    @Test
-    public void testLoggingOverloadSingleThread()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testLoggingOverloadSingleThread(BufferMode bufferMode)
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
         BufferedHandler bufferedHandler = new BufferedHandler(
@@ -119,7 +126,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 2,
-                2);
+                2,
+                bufferMode);
         bufferedHandler.initialize();
 
         for (int i = 0; i < 1000; i++) {
@@ -137,8 +145,9 @@ public class TestBufferedHandler
         assertThat(actualDropCount).isEqualTo(bufferedHandler.getDroppedMessages());
     }
 
-    @Test
-    public void testLoggingOverloadMultiThread()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testLoggingOverloadMultiThread(BufferMode bufferMode)
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
         BufferedHandler bufferedHandler = new BufferedHandler(
@@ -149,7 +158,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 2,
-                2);
+                2,
+                bufferMode);
         bufferedHandler.initialize();
 
         ExecutorService executor = Executors.newCachedThreadPool(daemonThreadsNamed("submitter-%s"));
@@ -180,8 +190,9 @@ public class TestBufferedHandler
         assertThat(actualDropCount).isEqualTo(bufferedHandler.getDroppedMessages());
     }
 
-    @Test
-    public void testMultiThreadErrorRetry()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testMultiThreadErrorRetry(BufferMode bufferMode)
             throws InterruptedException, TimeoutException
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput()
@@ -195,7 +206,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 50,
-                100);
+                100,
+                bufferMode);
         bufferedHandler.initialize();
 
         ExecutorService executor = Executors.newCachedThreadPool(daemonThreadsNamed("submitter-%s"));
@@ -226,8 +238,9 @@ public class TestBufferedHandler
         assertThat(actualDropCount).isEqualTo(bufferedHandler.getDroppedMessages());
     }
 
-    @Test
-    public void testCapacityErrorRetryDuringClose()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testCapacityErrorRetryDuringClose(BufferMode bufferMode)
             throws InterruptedException, TimeoutException, ExecutionException
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput()
@@ -240,7 +253,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 10,
-                1);
+                1,
+                bufferMode);
 
         // Publish 2 records before initializing the handler (capacity=1) to force the existence of a drop summary at start
         bufferedHandler.publish(logRecord(INFO, "A-TestLogger", "1"));
@@ -284,8 +298,9 @@ public class TestBufferedHandler
         assertLogStreamContents(testingMessageOutput.getFlushedMessages(), "B-TestLogger", 1, String::valueOf);
     }
 
-    @Test
-    public void testIgnoreWriteAfterClose()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testIgnoreWriteAfterClose(BufferMode bufferMode)
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
         BufferedHandler bufferedHandler = new BufferedHandler(
@@ -296,7 +311,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 2,
-                2);
+                2,
+                bufferMode);
         bufferedHandler.initialize();
 
         LogRecord record = logRecord(INFO, "TestLogger", "Test message");
@@ -313,8 +329,9 @@ public class TestBufferedHandler
         assertThat(testingMessageOutput.getFlushedMessages()).containsExactly(testingFormatter().format(record));
     }
 
-    @Test
-    public void testFullFlushSucceeds()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testFullFlushSucceeds(BufferMode bufferMode)
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
         BufferedHandler bufferedHandler = new BufferedHandler(
@@ -325,7 +342,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 1000,
-                1000);
+                1000,
+                bufferMode);
         bufferedHandler.initialize();
 
         LogRecord record = logRecord(INFO, "TestLogger", "Test message");
@@ -337,8 +355,9 @@ public class TestBufferedHandler
         bufferedHandler.close();
     }
 
-    @Test
-    public void testFullFlushAfterClose()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testFullFlushAfterClose(BufferMode bufferMode)
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
         BufferedHandler bufferedHandler = new BufferedHandler(
@@ -349,15 +368,17 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 2,
-                2);
+                2,
+                bufferMode);
         bufferedHandler.initialize();
 
         bufferedHandler.close();
         assertThat(bufferedHandler.requestFullFlush()).isDone();
     }
 
-    @Test
-    public void testFullFlushOnEmptyQueue()
+    @ParameterizedTest
+    @EnumSource(BufferMode.class)
+    public void testFullFlushOnEmptyQueue(BufferMode bufferMode)
             throws InterruptedException
     {
         TestingMessageOutput testingMessageOutput = new TestingMessageOutput();
@@ -369,7 +390,8 @@ public class TestBufferedHandler
                 RateLimiter.create(10),
                 Duration.ofSeconds(5),
                 2,
-                2);
+                2,
+                bufferMode);
         bufferedHandler.initialize();
         // Allow the background thread to reach an idle state
         Thread.sleep(500);
@@ -3,10 +3,13 @@ package io.airlift.log;
 import com.google.common.collect.ImmutableMap;
 import io.opentelemetry.api.baggage.Baggage;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.SpanId;
 import io.opentelemetry.api.trace.TraceFlags;
 import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
 import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
@@ -93,6 +96,73 @@ public class TestJsonFormatter
                 ImmutableMap.of()));
     }
 
+    @Test
+    public void testMatchesJsonCodec()
+    {
+        Map<String, String> logAnnotations = ImmutableMap.of("foo", "apple", "bar", "banana");
+        Context context = Context.root()
+                .with(Span.wrap(SpanContext.create("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", TraceFlags.getSampled(), TraceState.getDefault())))
+                .with(Baggage.builder().put("tenant", "acme").put("orderId", "42").build());
+        Exception exception = new RuntimeException("Test \"Exception\"\n\u0001");
+
+        LogRecord record = new LogRecord(Level.WARN.toJulLevel(), "Test </> \t message \u00e9\ud83d\ude00");
+        record.setLoggerName("TestLogger");
+        record.setParameters(new Object[] {1, "two"});
+        record.setThrown(exception);
+
+        try (Scope ignored = context.makeCurrent()) {
+            // the same formatter is used twice to cover the reused per-thread buffer
+            JsonFormatter formatter = new JsonFormatter(logAnnotations);
+            for (int i = 0; i < 2; i++) {
+                assertThat(formatter.format(record)).isEqualTo(jsonCodec(JsonRecord.class).toJson(new JsonRecord(
+                        record.getInstant(),
+                        Level.WARN,
+                        Thread.currentThread().getName(),
+                        "TestLogger",
+                        record.getMessage(),
+                        record.getParameters(),
+                        exception,
+                        context,
+                        logAnnotations)) + "\n");
+            }
+        }
+    }
+
+    @Test
+    public void testParameterLogsWhileFormatting()
+    {
+        JsonFormatter formatter = new JsonFormatter(ImmutableMap.of());
+        LogRecord innerRecord = new LogRecord(Level.INFO.toJulLevel(), "inner message");
+        innerRecord.setLoggerName("InnerLogger");
+        AtomicReference<String> innerLine = new AtomicReference<>();
+        Object parameter = new Object()
+        {
+            @Override
+            public String toString()
+            {
+                innerLine.set(formatter.format(innerRecord));
+                return "parameter";
+            }
+        };
+
+        LogRecord record = new LogRecord(Level.INFO.toJulLevel(), "outer message");
+        record.setLoggerName("OuterLogger");
+        record.setParameters(new Object[] {parameter});
+        record.setThrown(new RuntimeException("exception"));
+
+        Map<String, Object> outer = mapJsonCodec(String.class, Object.class).fromJson(formatter.format(record));
+        assertThat(outer)
+                .containsEntry("logger", "OuterLogger")
+                .containsEntry("message", "outer message")
+                .containsEntry("parameters", List.of("parameter"))
+                .containsEntry("throwableMessage", "exception");
+
+        Map<String, Object> inner = mapJsonCodec(String.class, Object.class).fromJson(innerLine.get());
+        assertThat(inner)
+                .containsEntry("logger", "InnerLogger")
+                .containsEntry("message", "inner message");
+    }
+
     @Test
     public void testLogFormatting()
     {
@@ -15,6 +15,7 @@ package io.airlift.log;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.log.BufferedHandler.BufferMode;
 import io.airlift.log.RollingFileMessageOutput.CompressionType;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -38,6 +39,7 @@ public class TestLoggingConfiguration
                 .setMaxSize(DataSize.of(100, DataSize.Unit.MEGABYTE))
                 .setMaxTotalSize(DataSize.of(1, Unit.GIGABYTE))
                 .setCompression(CompressionType.GZIP)
+                .setBufferMode(BufferMode.QUEUE)
                 .setLevelsFile(null)
                 .setFormat(Format.TEXT)
                 .setConsoleFormat(Format.TEXT)
@@ -55,6 +57,7 @@ public class TestLoggingConfiguration
                 .put("log.max-size", "1kB")
                 .put("log.max-total-size", "33kB")
                 .put("log.compression", "NONE")
+                .put("log.buffer-mode", "RING")
                 .put("log.levels-file", "/tmp/levels.txt")
                 .put("log.format", "json")
                 .put("log.console-format", "json")
@@ -67,6 +70,7 @@ public class TestLoggingConfiguration
                 .setMaxSize(DataSize.of(1, KILOBYTE))
                 .setMaxTotalSize(DataSize.of(33, KILOBYTE))
                 .setCompression(CompressionType.NONE)
+                .setBufferMode(BufferMode.RING)
                 .setLevelsFile("/tmp/levels.txt")
                 .setFormat(Format.JSON)
                 .setConsoleFormat(Format.JSON)
@@ -0,0 +1,71 @@
+package io.airlift.log;
+
+import com.google.common.collect.ImmutableMultiset;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestMessageRing
+{
+    @Test
+    public void testEncodeUtf8()
+    {
+        for (String value : new String[] {"", "ascii", "café", "日本語", "emoji 😀", "unpaired \uD83D high", "unpaired \uDE00 low", "trailing \uD83D"}) {
+            byte[] buffer = new byte[MessageRing.utf8Length(value)];
+            int length = MessageRing.encodeUtf8(value, buffer);
+            assertThat(Arrays.copyOf(buffer, length)).isEqualTo(value.getBytes(UTF_8));
+        }
+    }
+
+    @Test
+    public void testDropsReportedInPositionOrder()
+    {
+        MessageRing ring = new MessageRing(2);
+        assertThat(ring.offer("a", "A")).isTrue();
+        assertThat(ring.offer("b", "B")).isTrue();
+        assertThat(ring.offer("c", "C")).isFalse();
+        assertThat(ring.peek()).isNotNull();
+
+        // the drop occurred after both published messages
+        assertThat(ring.takeDrops()).isEmpty();
+        assertThat(new String(ring.peek().buffer(), 0, ring.peek().length(), UTF_8)).isEqualTo("a");
+        ring.release();
+        assertThat(ring.takeDrops()).isEmpty();
+        assertThat(new String(ring.peek().buffer(), 0, ring.peek().length(), UTF_8)).isEqualTo("b");
+        ring.release();
+        assertThat(ring.takeDrops()).isEqualTo(ImmutableMultiset.of("C"));
+
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.peek()).isNull();
+        assertThat(ring.offer("d", "D")).isTrue();
+        assertThat(ring.tail()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDropsCoalesced()
+    {
+        MessageRing ring = new MessageRing(2);
+        assertThat(ring.offer("a", "A")).isTrue();
+        assertThat(ring.offer("b", "B")).isTrue();
+        // while the ring is full all drops share a position
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(ring.offer("x", i % 2 == 0 ? "X" : "Y")).isFalse();
+        }
+        assertThat(ring.getDropPositionCount()).isEqualTo(1);
+
+        ring.release();
+        assertThat(ring.offer("c", "C")).isTrue();
+        assertThat(ring.offer("z", "Z")).isFalse();
+        assertThat(ring.getDropPositionCount()).isEqualTo(2);
+
+        // only the drops that occurred before the message at the head are taken
+        ring.release();
+        assertThat(ring.takeDrops()).isEqualTo(ImmutableMultiset.builder().addCopies("X", 5_000).addCopies("Y", 5_000).build());
+        assertThat(ring.getDropPositionCount()).isEqualTo(1);
+        assertThat(ring.takeAllDrops()).isEqualTo(ImmutableMultiset.of("Z"));
+        assertThat(ring.getDropPositionCount()).isEqualTo(0);
+    }
+}
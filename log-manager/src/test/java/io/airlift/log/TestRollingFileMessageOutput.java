@@ -16,15 +16,22 @@ package io.airlift.log;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteSource;
+import io.airlift.compress.v3.zstd.ZstdCompressor;
+import io.airlift.compress.v3.zstd.ZstdInputStream;
+import io.airlift.compress.v3.zstd.ZstdJavaCompressor;
+import io.airlift.log.RollingFileMessageOutput.CompressionType;
 import io.airlift.units.DataSize;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -43,7 +50,6 @@ import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static io.airlift.log.Format.TEXT;
 import static io.airlift.log.LogFileName.parseHistoryLogFileName;
-import static io.airlift.log.RollingFileMessageOutput.CompressionType.GZIP;
 import static io.airlift.log.RollingFileMessageOutput.CompressionType.NONE;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -250,20 +256,14 @@ public class TestRollingFileMessageOutput
         }
     }
 
-    @Test
-    public void testCompression()
+    @ParameterizedTest
+    @EnumSource(value = CompressionType.class, names = {"GZIP", "ZSTD"})
+    public void testCompression(CompressionType compressionType)
             throws Exception
     {
         String message = Strings.padEnd("", 9, 'x') + "\n";
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try (GZIPOutputStream compressOut = new GZIPOutputStream(out)) {
-            for (int i = 0; i < 5; i++) {
-                compressOut.write(message.getBytes(UTF_8));
-            }
-            compressOut.flush();
-        }
-        int expectedCompressedSize = out.toByteArray().length;
+        int expectedCompressedSize = compress(compressionType, message.repeat(5).getBytes(UTF_8)).length;
         // to make testing easier, we assume that compressed file is greater than one message and less than 5 messages
         assertThat(expectedCompressedSize).isBetween(message.length(), message.length() * 5);
 
@@ -274,7 +274,7 @@ public class TestRollingFileMessageOutput
                     masterFile.toString(),
                     DataSize.of(message.length() * 5L, BYTE),
                     DataSize.of(message.length() + message.length() * 5L + expectedCompressedSize, BYTE), // one message, one uncompressed file, one compressed file
-                    GZIP,
+                    compressionType,
                     TEXT.createFormatter(ImmutableMap.of()),
                     new ErrorManager());
 
@@ -300,7 +300,7 @@ public class TestRollingFileMessageOutput
 
             // log one more message which will trigger roll and compression
             handler.publish(new LogRecord(Level.SEVERE, message));
-            assertCompression(masterFile, handler, message, 2, 5, expectedCompressedSize);
+            assertCompression(masterFile, handler, compressionType, message, 2, 5, expectedCompressedSize);
             assertLogDirectory(masterFile);
 
             // fill the second file
@@ -308,12 +308,12 @@ public class TestRollingFileMessageOutput
                 handler.publish(new LogRecord(Level.SEVERE, message));
                 // sizes can't really be tested while logging due to compression
             }
-            assertCompression(masterFile, handler, message, 2, 5, expectedCompressedSize);
+            assertCompression(masterFile, handler, compressionType, message, 2, 5, expectedCompressedSize);
             assertLogDirectory(masterFile);
 
             // log one more message which will trigger roll and compression
             handler.publish(new LogRecord(Level.SEVERE, message));
-            assertCompression(masterFile, handler, message, 3, 5, expectedCompressedSize);
+            assertCompression(masterFile, handler, compressionType, message, 3, 5, expectedCompressedSize);
             assertLogDirectory(masterFile);
 
             // fill the third file
@@ -323,7 +323,7 @@ public class TestRollingFileMessageOutput
             }
             // the oldest log file should have been pruned
             assertLogSizes(masterFile, handler, 5, message.length(), 2);
-            assertCompression(masterFile, handler, message, 2, 5, expectedCompressedSize);
+            assertCompression(masterFile, handler, compressionType, message, 2, 5, expectedCompressedSize);
             assertLogDirectory(masterFile);
 
             handler.close();
@@ -460,21 +460,47 @@ public class TestRollingFileMessageOutput
         }
     }
 
-    private static class GzippedByteSource
+    private static byte[] compress(CompressionType compressionType, byte[] data)
+            throws IOException
+    {
+        return switch (compressionType) {
+            case GZIP -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (GZIPOutputStream compressOut = new GZIPOutputStream(out)) {
+                    compressOut.write(data);
+                }
+                yield out.toByteArray();
+            }
+            case ZSTD -> {
+                ZstdCompressor compressor = new ZstdJavaCompressor();
+                byte[] compressed = new byte[compressor.maxCompressedLength(data.length)];
+                yield Arrays.copyOf(compressed, compressor.compress(data, 0, data.length, compressed, 0, compressed.length));
+            }
+            case NONE -> throw new IllegalArgumentException("compressionType is NONE");
+        };
+    }
+
+    private static class CompressedByteSource
             extends ByteSource
     {
         private final ByteSource source;
+        private final CompressionType compressionType;
 
-        public GzippedByteSource(ByteSource gzippedSource)
+        public CompressedByteSource(ByteSource compressedSource, CompressionType compressionType)
         {
-            source = gzippedSource;
+            source = compressedSource;
+            this.compressionType = compressionType;
         }
 
         @Override
         public InputStream openStream()
                 throws IOException
         {
-            return new GZIPInputStream(source.openStream());
+            return switch (compressionType) {
+                case GZIP -> new GZIPInputStream(source.openStream());
+                case ZSTD -> new ZstdInputStream(source.openStream());
+                case NONE -> source.openStream();
+            };
         }
     }
 
@@ -507,6 +533,8 @@ public class TestRollingFileMessageOutput
         try (Stream<Path> list = Files.list(masterFile.getParent())) {
             logFiles = list
                     .filter(not(masterFile::equals))
+                    // the current file is compressed to a temporary file as it is written
+                    .filter(file -> !file.getFileName().toString().startsWith(".tmp."))
                     .collect(toImmutableList());
         }
         for (Path logFile : logFiles) {
@@ -515,7 +543,7 @@ public class TestRollingFileMessageOutput
         }
     }
 
-    private static void assertCompression(Path masterFile, BufferedHandler handler, String message, int expectedFileCount, int expectedLineCount, int expectedCompressedSize)
+    private static void assertCompression(Path masterFile, BufferedHandler handler, CompressionType compressionType, String message, int expectedFileCount, int expectedLineCount, int expectedCompressedSize)
             throws Exception
     {
         Set<LogFileName> compressedFileNames = waitForCompression((RollingFileMessageOutput) handler.getMessageOutput(), expectedFileCount);
@@ -526,7 +554,7 @@ public class TestRollingFileMessageOutput
 
             assertThat(compressedFile).hasSize(expectedCompressedSize);
 
-            List<String> lines = new GzippedByteSource(asByteSource(compressedFile))
+            List<String> lines = new CompressedByteSource(asByteSource(compressedFile), compressionType)
                     .asCharSource(UTF_8)
                     .readLines();
             assertThat(lines).hasSize(expectedLineCount);
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.log;
+
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Format string split into literals and {@code %s} or {@code %d} conversions, so that formatting a log
+ * message does not parse the format string again. Formats using any other conversion, flags, widths or
+ * argument indexes, and arguments that could format differently, are formatted with {@link String#format}.
+ */
+final class CompiledFormat
+{
+    private static final int MAX_CACHED_FORMATS = 1024;
+    private static final ConcurrentMap<String, Optional<CompiledFormat>> CACHE = new ConcurrentHashMap<>();
+
+    private static volatile LocaleDigits localeDigits;
+
+    private final String[] literals;
+    private final char[] conversions;
+    private final int literalsLength;
+
+    private CompiledFormat(String[] literals, char[] conversions)
+    {
+        this.literals = requireNonNull(literals, "literals is null");
+        this.conversions = requireNonNull(conversions, "conversions is null");
+        int literalsLength = 0;
+        for (String literal : literals) {
+            literalsLength += literal.length();
+        }
+        this.literalsLength = literalsLength;
+    }
+
+    /**
+     * Formats the arguments like {@code format.formatted(args)}.
+     */
+    public static String format(String format, Object[] args)
+    {
+        Optional<CompiledFormat> compiled = CACHE.get(format);
+        if (compiled == null) {
+            compiled = compile(format);
+            // format strings are almost always constants, but do not grow without bound if they are not
+            if (CACHE.size() < MAX_CACHED_FORMATS) {
+                CACHE.putIfAbsent(format, compiled);
+            }
+        }
+        if (compiled.isPresent() && compiled.get().isSupported(args)) {
+            return compiled.get().format(args);
+        }
+        return format.formatted(args);
+    }
+
+    static Optional<CompiledFormat> compile(String format)
+    {
+        List<String> literals = new ArrayList<>();
+        StringBuilder conversions = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i + 1 == format.length()) {
+                return Optional.empty();
+            }
+            char conversion = format.charAt(++i);
+            switch (conversion) {
+                case '%' -> literal.append('%');
+                case 'n' -> literal.append(System.lineSeparator());
+                case 's', 'd' -> {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    conversions.append(conversion);
+                }
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+        literals.add(literal.toString());
+        return Optional.of(new CompiledFormat(literals.toArray(String[]::new), conversions.toString().toCharArray()));
+    }
+
+    private boolean isSupported(Object[] args)
+    {
+        // String.format reports the missing arguments
+        if (args == null || args.length < conversions.length) {
+            return false;
+        }
+        for (int i = 0; i < conversions.length; i++) {
+            Object arg = args[i];
+            if (arg == null) {
+                continue;
+            }
+            if (conversions[i] == 's' && arg instanceof Formattable) {
+                return false;
+            }
+            if (conversions[i] == 'd' && !isIntegral(arg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String format(Object[] args)
+    {
+        StringBuilder builder = new StringBuilder(literalsLength + conversions.length * 16);
+        builder.append(literals[0]);
+        for (int i = 0; i < conversions.length; i++) {
+            Object arg = args[i];
+            if (arg == null) {
+                builder.append("null");
+            }
+            else if (conversions[i] == 'd') {
+                builder.append(((Number) arg).longValue());
+            }
+            else {
+                builder.append(arg);
+            }
+            builder.append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+
+    private static boolean isIntegral(Object arg)
+    {
+        if (!(arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte)) {
+            return false;
+        }
+        // String.format localizes the digits and the minus sign
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleDigits digits = localeDigits;
+        if (digits == null || !digits.locale().equals(locale)) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            digits = new LocaleDigits(locale, symbols.getZeroDigit() == '0' && symbols.getMinusSign() == '-');
+            localeDigits = digits;
+        }
+        return digits.ascii();
+    }
+
+    private record LocaleDigits(Locale locale, boolean ascii) {}
+}
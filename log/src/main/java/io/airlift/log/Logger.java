@@ -18,6 +18,7 @@ package io.airlift.log;
 import com.google.errorprone.annotations.FormatMethod;
 
 import java.util.IllegalFormatException;
+import java.util.function.Supplier;
 
 import static java.lang.StackWalker.Option.RETAIN_CLASS_REFERENCE;
 import static java.lang.String.format;
@@ -132,6 +133,171 @@ public class Logger
         logger.log(FINE, formatMessage(format, "DEBUG", args), exception);
     }
 
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(String, Object...)}, no arguments array is
+     * allocated when DEBUG is disabled.
+     * <p>
+     * Usage example:
+     * <pre>
+     *    logger.debugf("value is %s (%d ms)", value, time);
+     * </pre>
+     * The fixed-arity methods have their own names, as {@code debug(String, Object, Object)} would make
+     * calls such as {@code debug(null, "value is %s", value)} ambiguous.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void debugf(String format, Object arg1)
+    {
+        debug(null, format, arg1);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(String, Object...)}, no arguments array is
+     * allocated when DEBUG is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void debugf(String format, Object arg1, Object arg2)
+    {
+        debug(null, format, arg1, arg2);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(String, Object...)}, no arguments array is
+     * allocated when DEBUG is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void debugf(String format, Object arg1, Object arg2, Object arg3)
+    {
+        debug(null, format, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(String, Object...)}, no arguments array is
+     * allocated when DEBUG is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void debugf(String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        debug(null, format, arg1, arg2, arg3, arg4);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(Throwable, String, Object...)}, no arguments
+     * array is allocated when DEBUG is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void debug(Throwable exception, String format, Object arg1)
+    {
+        if (!logger.isLoggable(FINE)) {
+            return;
+        }
+        logger.log(FINE, formatMessage(format, "DEBUG", new Object[] {arg1}), exception);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(Throwable, String, Object...)}, no arguments
+     * array is allocated when DEBUG is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void debug(Throwable exception, String format, Object arg1, Object arg2)
+    {
+        if (!logger.isLoggable(FINE)) {
+            return;
+        }
+        logger.log(FINE, formatMessage(format, "DEBUG", new Object[] {arg1, arg2}), exception);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(Throwable, String, Object...)}, no arguments
+     * array is allocated when DEBUG is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void debug(Throwable exception, String format, Object arg1, Object arg2, Object arg3)
+    {
+        if (!logger.isLoggable(FINE)) {
+            return;
+        }
+        logger.log(FINE, formatMessage(format, "DEBUG", new Object[] {arg1, arg2, arg3}), exception);
+    }
+
+    /**
+     * Logs a message at DEBUG level. Unlike {@link #debug(Throwable, String, Object...)}, no arguments
+     * array is allocated when DEBUG is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void debug(Throwable exception, String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        if (!logger.isLoggable(FINE)) {
+            return;
+        }
+        logger.log(FINE, formatMessage(format, "DEBUG", new Object[] {arg1, arg2, arg3, arg4}), exception);
+    }
+
+    /**
+     * Logs a message at DEBUG level. The message is only computed if DEBUG is enabled.
+     * <p>
+     * Usage example:
+     * <pre>
+     *    logger.debug(() -&gt; "state is " + describe(state));
+     * </pre>
+     *
+     * @param message a supplier of the message to log
+     */
+    public void debug(Supplier<String> message)
+    {
+        logger.log(FINE, message);
+    }
+
+    /**
+     * Logs a message at DEBUG level. The message is only computed if DEBUG is enabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param message a supplier of the message to log
+     */
+    public void debug(Throwable exception, Supplier<String> message)
+    {
+        logger.log(FINE, exception, message);
+    }
+
     /**
      * Logs a message at INFO level.
      *
@@ -165,6 +331,91 @@ public class Logger
         logger.log(INFO, formatMessage(format, "INFO", args));
     }
 
+    /**
+     * Logs a message at INFO level. Unlike {@link #info(String, Object...)}, no arguments array is
+     * allocated when INFO is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void infof(String format, Object arg1)
+    {
+        if (!logger.isLoggable(INFO)) {
+            return;
+        }
+        logger.log(INFO, formatMessage(format, "INFO", new Object[] {arg1}));
+    }
+
+    /**
+     * Logs a message at INFO level. Unlike {@link #info(String, Object...)}, no arguments array is
+     * allocated when INFO is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void infof(String format, Object arg1, Object arg2)
+    {
+        if (!logger.isLoggable(INFO)) {
+            return;
+        }
+        logger.log(INFO, formatMessage(format, "INFO", new Object[] {arg1, arg2}));
+    }
+
+    /**
+     * Logs a message at INFO level. Unlike {@link #info(String, Object...)}, no arguments array is
+     * allocated when INFO is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void infof(String format, Object arg1, Object arg2, Object arg3)
+    {
+        if (!logger.isLoggable(INFO)) {
+            return;
+        }
+        logger.log(INFO, formatMessage(format, "INFO", new Object[] {arg1, arg2, arg3}));
+    }
+
+    /**
+     * Logs a message at INFO level. Unlike {@link #info(String, Object...)}, no arguments array is
+     * allocated when INFO is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void infof(String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        if (!logger.isLoggable(INFO)) {
+            return;
+        }
+        logger.log(INFO, formatMessage(format, "INFO", new Object[] {arg1, arg2, arg3, arg4}));
+    }
+
+    /**
+     * Logs a message at INFO level. The message is only computed if INFO is enabled.
+     * <p>
+     * Usage example:
+     * <pre>
+     *    logger.info(() -&gt; "state is " + describe(state));
+     * </pre>
+     *
+     * @param message a supplier of the message to log
+     */
+    public void info(Supplier<String> message)
+    {
+        logger.log(INFO, message);
+    }
+
     /**
      * Logs a message at WARN level.
      *
@@ -229,6 +480,164 @@ public class Logger
         warn(null, format, args);
     }
 
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(String, Object...)}, no arguments array is
+     * allocated when WARN is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void warnf(String format, Object arg1)
+    {
+        warn(null, format, arg1);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(String, Object...)}, no arguments array is
+     * allocated when WARN is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void warnf(String format, Object arg1, Object arg2)
+    {
+        warn(null, format, arg1, arg2);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(String, Object...)}, no arguments array is
+     * allocated when WARN is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void warnf(String format, Object arg1, Object arg2, Object arg3)
+    {
+        warn(null, format, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(String, Object...)}, no arguments array is
+     * allocated when WARN is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void warnf(String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        warn(null, format, arg1, arg2, arg3, arg4);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(Throwable, String, Object...)}, no arguments
+     * array is allocated when WARN is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void warn(Throwable exception, String format, Object arg1)
+    {
+        if (!logger.isLoggable(WARNING)) {
+            return;
+        }
+        logger.log(WARNING, formatMessage(format, "WARN", new Object[] {arg1}), exception);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(Throwable, String, Object...)}, no arguments
+     * array is allocated when WARN is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void warn(Throwable exception, String format, Object arg1, Object arg2)
+    {
+        if (!logger.isLoggable(WARNING)) {
+            return;
+        }
+        logger.log(WARNING, formatMessage(format, "WARN", new Object[] {arg1, arg2}), exception);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(Throwable, String, Object...)}, no arguments
+     * array is allocated when WARN is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void warn(Throwable exception, String format, Object arg1, Object arg2, Object arg3)
+    {
+        if (!logger.isLoggable(WARNING)) {
+            return;
+        }
+        logger.log(WARNING, formatMessage(format, "WARN", new Object[] {arg1, arg2, arg3}), exception);
+    }
+
+    /**
+     * Logs a message at WARN level. Unlike {@link #warn(Throwable, String, Object...)}, no arguments
+     * array is allocated when WARN is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void warn(Throwable exception, String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        if (!logger.isLoggable(WARNING)) {
+            return;
+        }
+        logger.log(WARNING, formatMessage(format, "WARN", new Object[] {arg1, arg2, arg3, arg4}), exception);
+    }
+
+    /**
+     * Logs a message at WARN level. The message is only computed if WARN is enabled.
+     * <p>
+     * Usage example:
+     * <pre>
+     *    logger.warn(() -&gt; "state is " + describe(state));
+     * </pre>
+     *
+     * @param message a supplier of the message to log
+     */
+    public void warn(Supplier<String> message)
+    {
+        logger.log(WARNING, message);
+    }
+
+    /**
+     * Logs a message at WARN level. The message is only computed if WARN is enabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param message a supplier of the message to log
+     */
+    public void warn(Throwable exception, Supplier<String> message)
+    {
+        logger.log(WARNING, exception, message);
+    }
+
     /**
      * Logs a message at ERROR level.
      *
@@ -312,6 +721,164 @@ public class Logger
         error(null, format, args);
     }
 
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(String, Object...)}, no arguments array is
+     * allocated when ERROR is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void errorf(String format, Object arg1)
+    {
+        error(null, format, arg1);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(String, Object...)}, no arguments array is
+     * allocated when ERROR is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void errorf(String format, Object arg1, Object arg2)
+    {
+        error(null, format, arg1, arg2);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(String, Object...)}, no arguments array is
+     * allocated when ERROR is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void errorf(String format, Object arg1, Object arg2, Object arg3)
+    {
+        error(null, format, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(String, Object...)}, no arguments array is
+     * allocated when ERROR is disabled.
+     *
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void errorf(String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        error(null, format, arg1, arg2, arg3, arg4);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(Throwable, String, Object...)}, no arguments
+     * array is allocated when ERROR is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 an argument for the format string
+     */
+    @FormatMethod
+    public void error(Throwable exception, String format, Object arg1)
+    {
+        if (!logger.isLoggable(SEVERE)) {
+            return;
+        }
+        logger.log(SEVERE, formatMessage(format, "ERROR", new Object[] {arg1}), exception);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(Throwable, String, Object...)}, no arguments
+     * array is allocated when ERROR is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     */
+    @FormatMethod
+    public void error(Throwable exception, String format, Object arg1, Object arg2)
+    {
+        if (!logger.isLoggable(SEVERE)) {
+            return;
+        }
+        logger.log(SEVERE, formatMessage(format, "ERROR", new Object[] {arg1, arg2}), exception);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(Throwable, String, Object...)}, no arguments
+     * array is allocated when ERROR is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     */
+    @FormatMethod
+    public void error(Throwable exception, String format, Object arg1, Object arg2, Object arg3)
+    {
+        if (!logger.isLoggable(SEVERE)) {
+            return;
+        }
+        logger.log(SEVERE, formatMessage(format, "ERROR", new Object[] {arg1, arg2, arg3}), exception);
+    }
+
+    /**
+     * Logs a message at ERROR level. Unlike {@link #error(Throwable, String, Object...)}, no arguments
+     * array is allocated when ERROR is disabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param format a format string compatible with String.format()
+     * @param arg1 first argument for the format string
+     * @param arg2 second argument for the format string
+     * @param arg3 third argument for the format string
+     * @param arg4 fourth argument for the format string
+     */
+    @FormatMethod
+    public void error(Throwable exception, String format, Object arg1, Object arg2, Object arg3, Object arg4)
+    {
+        if (!logger.isLoggable(SEVERE)) {
+            return;
+        }
+        logger.log(SEVERE, formatMessage(format, "ERROR", new Object[] {arg1, arg2, arg3, arg4}), exception);
+    }
+
+    /**
+     * Logs a message at ERROR level. The message is only computed if ERROR is enabled.
+     * <p>
+     * Usage example:
+     * <pre>
+     *    logger.error(() -&gt; "state is " + describe(state));
+     * </pre>
+     *
+     * @param message a supplier of the message to log
+     */
+    public void error(Supplier<String> message)
+    {
+        logger.log(SEVERE, message);
+    }
+
+    /**
+     * Logs a message at ERROR level. The message is only computed if ERROR is enabled.
+     *
+     * @param exception an exception associated with the message being logged
+     * @param message a supplier of the message to log
+     */
+    public void error(Throwable exception, Supplier<String> message)
+    {
+        logger.log(SEVERE, exception, message);
+    }
+
     public boolean isDebugEnabled()
     {
         return logger.isLoggable(FINE);
@@ -335,7 +902,7 @@ public class Logger
     private String formatMessage(String format, String level, Object[] args)
     {
         try {
-            return format.formatted(args);
+            return CompiledFormat.format(format, args);
         }
         catch (IllegalFormatException e) {
             logger.log(SEVERE, "Invalid format string while trying to log: %s '%s' %s".formatted(level, format, asList(args)), e);
@@ -0,0 +1,108 @@
+package io.airlift.log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Logs a formatted DEBUG message with the level enabled and disabled. Run the main method to
+ * include allocation rates.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkLogger
+{
+    @Param({"false", "true"})
+    private boolean debugEnabled;
+
+    private Logger logger;
+    private String queryId;
+    private long elapsedMillis;
+
+    @Setup
+    public void setup()
+    {
+        java.util.logging.Logger inner = java.util.logging.Logger.getAnonymousLogger();
+        inner.setUseParentHandlers(false);
+        inner.setLevel(debugEnabled ? Level.FINE : Level.INFO);
+        inner.addHandler(new NullHandler());
+        logger = new Logger(inner);
+
+        queryId = "20240101_000000_00000_abcde";
+        elapsedMillis = 1234;
+    }
+
+    @Benchmark
+    public void fixedArity()
+    {
+        logger.debugf("Query %s finished in %d ms", queryId, elapsedMillis);
+    }
+
+    @Benchmark
+    public void varargs()
+    {
+        logger.debug("Query %s finished in %d ms with %s rows, %s bytes and %s", queryId, elapsedMillis, 1024, 65536, "no errors");
+    }
+
+    @Benchmark
+    public void supplier()
+    {
+        logger.debug(() -> "Query %s finished in %d ms".formatted(queryId, elapsedMillis));
+    }
+
+    @Benchmark
+    public void guardedStringFormat()
+    {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Query %s finished in %d ms".formatted(queryId, elapsedMillis));
+        }
+    }
+
+    private static class NullHandler
+            extends Handler
+    {
+        @Override
+        public void publish(LogRecord record) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkLogger.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+
+import static io.airlift.log.CompiledFormat.compile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestCompiledFormat
+{
+    @Test
+    public void testCompile()
+    {
+        assertThat(compile("")).isPresent();
+        assertThat(compile("no conversions")).isPresent();
+        assertThat(compile("%s and %d, 100%% done%n")).isPresent();
+
+        assertThat(compile("%x")).isEmpty();
+        assertThat(compile("%5s")).isEmpty();
+        assertThat(compile("%-s")).isEmpty();
+        assertThat(compile("%1$s")).isEmpty();
+        assertThat(compile("%S")).isEmpty();
+        assertThat(compile("trailing %")).isEmpty();
+    }
+
+    @Test
+    public void testMatchesStringFormat()
+    {
+        Formattable formattable = (formatter, flags, width, precision) -> formatter.format("formattable");
+        List<String> formats = List.of("", "plain", "%s", "%d", "value is %s (%d ms)", "%s%s%s%s", "100%% of %s%n", "%x", "%.2f", "%s %d %s");
+        List<Object[]> arguments = List.of(
+                new Object[] {},
+                new Object[] {"a"},
+                new Object[] {null, null, null, null},
+                new Object[] {"a", 42, "c", "d"},
+                new Object[] {"a", -42L, 'c', 1.5},
+                new Object[] {(short) 7, (byte) -1, Integer.MIN_VALUE, Long.MIN_VALUE},
+                new Object[] {"a", BigInteger.TEN, formattable},
+                new Object[] {formattable, 1},
+                new Object[] {1.5, "b"});
+        for (String format : formats) {
+            for (Object[] args : arguments) {
+                String expected;
+                try {
+                    expected = format.formatted(args);
+                }
+                catch (IllegalFormatException e) {
+                    assertThatThrownBy(() -> CompiledFormat.format(format, args))
+                            .as("%s %s", format, Arrays.asList(args))
+                            .isInstanceOf(e.getClass());
+                    continue;
+                }
+                assertThat(CompiledFormat.format(format, args))
+                        .as("%s %s", format, Arrays.asList(args))
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testLocalizedDigits()
+    {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag("th-TH-u-nu-thai"));
+            Object[] args = {-42, "a"};
+            assertThat(CompiledFormat.format("%d %s", args)).isEqualTo(new Formatter().format("%d %s", args).toString());
+        }
+        finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+    }
+}
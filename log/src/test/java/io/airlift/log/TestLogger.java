@@ -132,6 +132,104 @@ public class TestLogger
         assertLog(Level.SEVERE, exception2.getMessage(), exception2);
     }
 
+    @Test
+    public void testFixedArityFormat()
+    {
+        logger.debugf("%s", 1);
+        assertLog(Level.FINE, "1");
+        logger.infof("%s %s", 1, 2);
+        assertLog(Level.INFO, "1 2");
+        logger.warnf("%s %s %s", 1, 2, 3);
+        assertLog(Level.WARNING, "1 2 3");
+        logger.errorf("%s %s %s %s", 1, 2, 3, 4);
+        assertLog(Level.SEVERE, "1 2 3 4");
+
+        @SuppressWarnings("ThrowableInstanceNeverThrown")
+        Throwable exception = new Throwable();
+        logger.debug(exception, "%s %s %s %s", 1, 2, 3, 4);
+        assertLog(Level.FINE, "1 2 3 4", exception);
+        logger.warn(exception, "%s", 1);
+        assertLog(Level.WARNING, "1", exception);
+        logger.error(exception, "%s %s", 1, 2);
+        assertLog(Level.SEVERE, "1 2", exception);
+    }
+
+    @Test
+    public void testSupplier()
+    {
+        logger.debug(() -> "debug");
+        assertLog(Level.FINE, "debug");
+        logger.info(() -> "info");
+        assertLog(Level.INFO, "info");
+        logger.warn(() -> "warn");
+        assertLog(Level.WARNING, "warn");
+        logger.error(() -> "error");
+        assertLog(Level.SEVERE, "error");
+
+        @SuppressWarnings("ThrowableInstanceNeverThrown")
+        Throwable exception = new Throwable();
+        logger.debug(exception, () -> "debug");
+        assertLog(Level.FINE, "debug", exception);
+        logger.warn(exception, () -> "warn");
+        assertLog(Level.WARNING, "warn", exception);
+        logger.error(exception, () -> "error");
+        assertLog(Level.SEVERE, "error", exception);
+    }
+
+    @Test
+    public void testSupplierShortCircuit()
+    {
+        inner.setLevel(Level.OFF);
+        logger.debug(() -> {
+            throw new AssertionError("message computed for disabled level");
+        });
+        logger.info(() -> {
+            throw new AssertionError("message computed for disabled level");
+        });
+        assertThat(handler.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testFixedArityShortCircuit()
+    {
+        inner.setLevel(Level.OFF);
+        Object argument = new Object()
+        {
+            @Override
+            public String toString()
+            {
+                throw new AssertionError("message formatted for disabled level");
+            }
+        };
+        logger.debugf("%s", argument);
+        logger.infof("%s %s", argument, argument);
+        logger.warn(new Throwable(), "%s %s %s", argument, argument, argument);
+        logger.errorf("%s %s %s %s", argument, argument, argument, argument);
+        assertThat(handler.isEmpty()).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("FormatStringAnnotation") // deliberately invalid format arguments under test
+    public void testInsufficientFixedArityArgs()
+    {
+        String format = "some message: %s, %d, %s";
+        logger.infof(format, "blah", 1);
+
+        assertLogLike(Level.SEVERE, ImmutableList.of("Invalid format", "INFO", format, "blah"), IllegalArgumentException.class);
+        assertLog(Level.INFO, "'%s' [blah, 1]".formatted(format));
+    }
+
+    @Test
+    public void testNullException()
+    {
+        logger.debug(null, "%s", 1);
+        assertLog(Level.FINE, "1");
+        logger.warn(null, "%s %s", 1, 2);
+        assertLog(Level.WARNING, "1 2");
+        logger.error(null, "message");
+        assertLog(Level.SEVERE, "message");
+    }
+
     @Test
     public void testDebugShortCircuit()
     {
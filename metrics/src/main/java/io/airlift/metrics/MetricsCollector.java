@@ -15,6 +15,7 @@ package io.airlift.metrics;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
 import io.airlift.metrics.MetricSource.JmxMetricSource;
@@ -59,9 +60,15 @@ public class MetricsCollector
     private final MBeanExporter mbeanExporter;
     private final List<ObjectName> allMetricsObjectNames;
     private final Map<String, String> labels;
+    private final Set<MetricGroupProvider> metricGroupProviders;
 
-    @Inject
     public MetricsCollector(MBeanServer mbeanServer, MBeanExporter mbeanExporter, MetricsConfig metricsConfig, NodeInfo nodeInfo)
+    {
+        this(mbeanServer, mbeanExporter, metricsConfig, nodeInfo, ImmutableSet.of());
+    }
+
+    @Inject
+    public MetricsCollector(MBeanServer mbeanServer, MBeanExporter mbeanExporter, MetricsConfig metricsConfig, NodeInfo nodeInfo, Set<MetricGroupProvider> metricGroupProviders)
     {
         this.mbeanServer = requireNonNull(mbeanServer, "mbeanServer is null");
         this.mbeanExporter = requireNonNull(mbeanExporter, "mbeanExporter is null");
@@ -69,6 +76,7 @@ public class MetricsCollector
         requireNonNull(nodeInfo, "nodeInfo is null");
         this.allMetricsObjectNames = ImmutableList.copyOf(metricsConfig.getJmxObjectNames());
         this.labels = ImmutableMap.copyOf(nodeInfo.getAnnotations());
+        this.metricGroupProviders = ImmutableSet.copyOf(requireNonNull(metricGroupProviders, "metricGroupProviders is null"));
     }
 
     public List<CollectedMetricGroup> collect()
@@ -81,9 +89,24 @@ public class MetricsCollector
         return ImmutableList.<CollectedMetricGroup>builder()
                 .addAll(collectManagedClasses(managedExports))
                 .addAll(collectMBeans(managedObjectNames))
+                .addAll(collectProvidedGroups())
                 .build();
     }
 
+    private List<CollectedMetricGroup> collectProvidedGroups()
+    {
+        return metricGroupProviders.stream()
+                .flatMap(provider -> provider.getMetricGroups().stream())
+                .map(group -> new CollectedMetricGroup(
+                        group.source(),
+                        ImmutableMap.<String, String>builder()
+                                .putAll(labels)
+                                .putAll(group.labels())
+                                .buildKeepingLast(),
+                        group.attributes()))
+                .collect(toImmutableList());
+    }
+
     private List<CollectedMetricGroup> collectManagedClasses(Collection<ManagedObjectExport> managedExports)
     {
         return managedExports.stream()
@@ -17,6 +17,7 @@ import com.google.inject.Binder;
 import com.google.inject.Module;
 
 import static com.google.inject.Scopes.SINGLETON;
+import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static io.airlift.configuration.ConfigBinder.configBinder;
 
 public class MetricsModule
@@ -26,6 +27,7 @@ public class MetricsModule
     public void configure(Binder binder)
     {
         configBinder(binder).bindConfig(MetricsConfig.class);
+        newSetBinder(binder, MetricGroupProvider.class);
         binder.bind(MetricsCollector.class).in(SINGLETON);
     }
 
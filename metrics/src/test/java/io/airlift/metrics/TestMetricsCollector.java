@@ -31,6 +31,7 @@ import javax.management.openmbean.TabularType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static io.airlift.node.NodeConfig.AddressSource.IP;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -204,6 +205,28 @@ public class TestMetricsCollector
                 .doesNotContain(new JmxMetricSource(MANAGED_OBJECT_NAME));
     }
 
+    @Test
+    public void testCollectProvidedMetricGroups()
+            throws Exception
+    {
+        CounterStat requests = new CounterStat();
+        requests.update(3);
+        ManagedMetricSource source = new ManagedMetricSource("io.airlift.metrics.test:type=Route");
+        MetricGroupProvider provider = () -> List.of(new CollectedMetricGroup(
+                source,
+                ImmutableMap.of("route", "/v1/test", "team", "b"),
+                List.of(new CollectedMetricGroup.Attribute(List.of("Requests"), requests, "requests"))));
+        MetricsCollector collector = createTestingCollector(CONFIGURED_OBJECT_NAME, Set.of(provider));
+
+        // provided labels are added to the node labels and take precedence over them
+        assertThat(collector.collect())
+                .anySatisfy(group -> {
+                    assertThat(group.source()).isEqualTo(source);
+                    assertThat(group.labels()).isEqualTo(ImmutableMap.of("region", "b", "route", "/v1/test", "team", "b"));
+                    assertThat(group.attributes()).extracting(CollectedMetricGroup.Attribute::value).containsExactly(requests);
+                });
+    }
+
     private static List<CollectedMetricGroup.Attribute> attributes(MetricsCollector collector)
     {
         return collector.collect().stream()
@@ -219,6 +242,12 @@ public class TestMetricsCollector
 
     private static MetricsCollector createTestingCollector(ObjectName configuredObjectName)
             throws Exception
+    {
+        return createTestingCollector(configuredObjectName, Set.of());
+    }
+
+    private static MetricsCollector createTestingCollector(ObjectName configuredObjectName, Set<MetricGroupProvider> metricGroupProviders)
+            throws Exception
     {
         MBeanServer mbeanServer = MBeanServerFactory.newMBeanServer();
         MBeanExporter mbeanExporter = new MBeanExporter(mbeanServer);
@@ -254,7 +283,7 @@ public class TestMetricsCollector
                 ImmutableMap.of("team", "a", "region", "b"),
                 false);
 
-        return new MetricsCollector(mbeanServer, mbeanExporter, metricsConfig, nodeInfo);
+        return new MetricsCollector(mbeanServer, mbeanExporter, metricsConfig, nodeInfo, metricGroupProviders);
     }
 
     public static class ManagedMetrics
@@ -1,7 +1,12 @@
 package io.airlift.security.mtls;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import io.airlift.node.AddressToHostname;
 import io.airlift.security.cert.CertificateBuilder;
@@ -26,6 +31,7 @@ import java.security.spec.ECGenParameterSpec;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -38,21 +44,22 @@ import static javax.net.ssl.KeyManagerFactory.getDefaultAlgorithm;
 
 public final class AutomaticMtls
 {
+    // Generating the key pair from the seeded PRNG and signing certificates dominate the cost of
+    // creating clients and servers, and the results only depend on the arguments and the current day
+    private static final LoadingCache<String, KeyPair> KEY_PAIRS = CacheBuilder.newBuilder()
+            .maximumSize(100)
+            .build(CacheLoader.from(AutomaticMtls::generateKeyPair));
+    private static final Cache<CertificateKey, X509Certificate> CERTIFICATES = CacheBuilder.newBuilder()
+            .maximumSize(100)
+            .build();
+
     private AutomaticMtls() {}
 
     @CanIgnoreReturnValue
     public static X509Certificate addCertificateAndKeyForCurrentNode(String sharedSecret, String commonName, KeyStore keyStore, String keyStorePassword)
     {
         try {
-            List<InetAddress> allLocalIpAddresses = getAllLocalIpAddresses();
-            List<String> ipAddressMappedNames = allLocalIpAddresses.stream()
-                    .map(AddressToHostname::encodeAddressAsHostname)
-                    .collect(toImmutableList());
-            X509Certificate certificate = certificateBuilder(sharedSecret, commonName)
-                    .addSanIpAddresses(allLocalIpAddresses)
-                    .addSanDnsNames(ipAddressMappedNames)
-                    .buildSelfSigned();
-
+            X509Certificate certificate = selfSignedCertificate(sharedSecret, commonName, getAllLocalIpAddresses());
             return addCertificateToKeyStore(sharedSecret, commonName, certificate, keyStore, keyStorePassword);
         }
         catch (Exception e) {
@@ -77,9 +84,7 @@ public final class AutomaticMtls
     public static void addClientTrust(String sharedSecret, KeyStore keyStore, String commonName)
     {
         try {
-            X509Certificate certificateServer = certificateBuilder(sharedSecret, commonName)
-                    .buildSelfSigned();
-
+            X509Certificate certificateServer = selfSignedCertificate(sharedSecret, commonName, ImmutableList.of());
             keyStore.setCertificateEntry(commonName, certificateServer);
         }
         catch (Exception e) {
@@ -127,7 +132,29 @@ public final class AutomaticMtls
         return list.build();
     }
 
+    private static X509Certificate selfSignedCertificate(String sharedSecret, String commonName, List<InetAddress> sanIpAddresses)
+    {
+        Instant notBefore = Instant.now().truncatedTo(DAYS);
+        CertificateKey key = new CertificateKey(sharedSecret, commonName, ImmutableList.copyOf(sanIpAddresses), notBefore);
+        try {
+            return CERTIFICATES.get(key, () -> certificateBuilder(sharedSecret, commonName, notBefore)
+                    .addSanIpAddresses(key.sanIpAddresses())
+                    .addSanDnsNames(key.sanIpAddresses().stream()
+                            .map(AddressToHostname::encodeAddressAsHostname)
+                            .collect(toImmutableList()))
+                    .buildSelfSigned());
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     private static KeyPair fromSharedSecret(String sharedSecret)
+    {
+        return KEY_PAIRS.getUnchecked(sharedSecret);
+    }
+
+    private static KeyPair generateKeyPair(String sharedSecret)
     {
         try {
             byte[] seed = sharedSecret.getBytes(UTF_8);
@@ -145,9 +172,13 @@ public final class AutomaticMtls
 
     @VisibleForTesting
     static CertificateBuilder certificateBuilder(String sharedSecret, String commonName)
+    {
+        return certificateBuilder(sharedSecret, commonName, Instant.now().truncatedTo(DAYS));
+    }
+
+    private static CertificateBuilder certificateBuilder(String sharedSecret, String commonName, Instant notBefore)
     {
         KeyPair keyPair = fromSharedSecret(sharedSecret);
-        Instant notBefore = Instant.now().truncatedTo(DAYS);
         Instant notAfter = notBefore.atZone(UTC).plusYears(10).toInstant();
         X500Principal subject = certificateSubject(commonName);
         return CertificateBuilder.certificateBuilder()
@@ -164,6 +195,17 @@ public final class AutomaticMtls
         return new X500Principal("CN=" + commonName);
     }
 
+    private record CertificateKey(String sharedSecret, String commonName, List<InetAddress> sanIpAddresses, Instant notBefore)
+    {
+        private CertificateKey
+        {
+            requireNonNull(sharedSecret, "sharedSecret is null");
+            requireNonNull(commonName, "commonName is null");
+            requireNonNull(sanIpAddresses, "sanIpAddresses is null");
+            requireNonNull(notBefore, "notBefore is null");
+        }
+    }
+
     private record SingleCertificateTrustManager(PublicKey trustedPublicKey, String commonName)
             implements X509TrustManager
     {
@@ -26,6 +26,7 @@ import java.util.List;
 
 import static io.airlift.security.mtls.AutomaticMtls.addCertificateAndKeyForCurrentNode;
 import static io.airlift.security.mtls.AutomaticMtls.addCertificateToKeyStore;
+import static io.airlift.security.mtls.AutomaticMtls.addClientTrust;
 import static io.airlift.security.mtls.AutomaticMtls.certificateBuilder;
 import static io.airlift.security.mtls.AutomaticMtls.createSSLContext;
 import static io.airlift.security.mtls.AutomaticMtls.inMemoryKeyStore;
@@ -122,6 +123,23 @@ class TestAutomaticMtls
         }
     }
 
+    @Test
+    public void testCertificatesAreReused()
+            throws GeneralSecurityException
+    {
+        KeyStore first = inMemoryKeyStore();
+        KeyStore second = inMemoryKeyStore();
+        addClientTrust("sharedSecret", first, "commonName");
+        addClientTrust("sharedSecret", second, "commonName");
+        assertThat(second.getCertificate("commonName")).isSameAs(first.getCertificate("commonName"));
+
+        addClientTrust("otherSharedSecret", second, "commonName");
+        assertThat(second.getCertificate("commonName").getPublicKey()).isNotEqualTo(first.getCertificate("commonName").getPublicKey());
+
+        // the memoized key pair is the one derived from the shared secret
+        checkCertificate((X509Certificate) first.getCertificate("commonName"), "sharedSecret", "commonName");
+    }
+
     private void checkCertificate(X509Certificate certificate, String sharedSecret, String commonName)
             throws CertificateException
     {